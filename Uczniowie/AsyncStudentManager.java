@@ -0,0 +1,270 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import javax.swing.SwingUtilities;
+
+/*
+  Klasa AsyncStudentManager – asynchroniczna nakładka na StudentManager.
+  - każda operacja wykonuje się na osobnej puli wątków ("student-db-N"),
+    a wynik wraca jako CompletableFuture (GUI nie czeka na bazę w wątku Swinga)
+  - cancel(true) na zwróconym future przerywa zadanie (albo nie uruchamia go wcale)
+  - identyczne odczyty wysłane w tym samym czasie (np. kilka kliknięć "Average")
+    są łączone w jedno zapytanie do bazy; każdy wywołujący dostaje własny future,
+    a wspólne zapytanie jest anulowane dopiero, gdy anulują wszyscy
+  - zapis (add/remove/update/import) odcina trwające odczyty od nowych wywołań,
+    żeby nikt nie dostał wyniku sprzed zapisu
+  onEdt(...) przekazuje wynik z powrotem do wątku Swinga (EDT).
+*/
+
+public class AsyncStudentManager implements AutoCloseable {
+
+    // Executor, który uruchamia zadania w wątku Swinga (EDT).
+    public static final Executor EDT = SwingUtilities::invokeLater;
+
+    private final StudentManager manager;
+    private final ExecutorService executor;
+
+    // Trwające odczyty: klucz (nazwa operacji + argumenty) -> wspólne zapytanie.
+    private final ConcurrentHashMap<String, Shared<?>> inFlight = new ConcurrentHashMap<>();
+
+    // Wspólne zapytanie i liczba czekających na nie wywołujących.
+    private static final class Shared<T> {
+        final CompletableFuture<T> future;
+        final AtomicInteger waiting = new AtomicInteger();
+
+        Shared(CompletableFuture<T> future) {
+            this.future = future;
+        }
+    }
+
+    // Konstruktor – domyślna pula: tyle wątków, ile czytelników może mieć baza.
+    public AsyncStudentManager(StudentManager manager) {
+        this(manager, Math.max(2, Runtime.getRuntime().availableProcessors()));
+    }
+
+    public AsyncStudentManager(StudentManager manager, int threads) {
+        this.manager = manager;
+        this.executor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+            private final AtomicInteger counter = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, "student-db-" + counter.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            }
+        });
+    }
+
+    public StudentManager getManager() {
+        return manager;
+    }
+
+    // Zapis – bez łączenia.
+    public CompletableFuture<Boolean> addStudent(Student student) {
+        return write(() -> manager.addStudent(student));
+    }
+
+    public CompletableFuture<ImportResult> addStudents(Iterable<Student> students,
+                                                      ImportProgressListener listener) {
+        return write(() -> manager.addStudents(students, listener));
+    }
+
+    public CompletableFuture<Boolean> removeStudent(String studentID) {
+        return write(() -> manager.removeStudent(studentID));
+    }
+
+    public CompletableFuture<Integer> updateStudent(Student student) {
+        return write(() -> manager.updateStudent(student));
+    }
+
+    public CompletableFuture<Integer> updateFields(String studentID, StudentChanges changes) {
+        return write(() -> manager.updateFields(studentID, changes));
+    }
+
+    public CompletableFuture<Integer> updateGrades(Map<String, Double> gradesByID) {
+        return write(() -> manager.updateGrades(gradesByID));
+    }
+
+    // Odczyty – łączone, jeśli takie samo zapytanie już trwa.
+    public CompletableFuture<ArrayList<Student>> displayAllStudents() {
+        return coalesce("displayAll", manager::displayAllStudents);
+    }
+
+    public CompletableFuture<Student> findStudent(String studentID) {
+        return coalesce("find:" + studentID, () -> manager.findStudent(studentID));
+    }
+
+    public CompletableFuture<Boolean> studentExists(String studentID) {
+        return coalesce("exists:" + studentID, () -> manager.studentExists(studentID));
+    }
+
+    public CompletableFuture<Integer> countStudents() {
+        return coalesce("count", manager::countStudents);
+    }
+
+    public CompletableFuture<List<Student>> findStudentsAfter(String afterStudentID, int limit) {
+        return coalesce("after:" + afterStudentID + ":" + limit,
+                () -> manager.findStudentsAfter(afterStudentID, limit));
+    }
+
+    public CompletableFuture<List<Student>> findStudentsPage(int offset, int limit) {
+        return coalesce("page:" + offset + ":" + limit,
+                () -> manager.findStudentsPage(offset, limit));
+    }
+
+    // Klucz z toString() – te same warunki to to samo zapytanie.
+    public CompletableFuture<List<Student>> findStudents(StudentQuery query) {
+        return coalesce("query:" + query, () -> manager.findStudents(query));
+    }
+
+    public CompletableFuture<Integer> countStudents(StudentQuery query) {
+        return coalesce("queryCount:" + query, () -> manager.countStudents(query));
+    }
+
+    public CompletableFuture<Double> calculateAverageGrade() {
+        return coalesce("average", manager::calculateAverageGrade);
+    }
+
+    public CompletableFuture<GradeStatistics> getGradeStatistics() {
+        return coalesce("statistics", manager::getGradeStatistics);
+    }
+
+    // Studenci po imieniu z NameSearchIndex (wyszukiwanie przy pisaniu). Bez łączenia – wywołujący
+    // anuluje (cancel) poprzednie wyszukiwanie, gdy użytkownik dopisze kolejną literę.
+    public CompletableFuture<List<Student>> searchByName(NameSearchIndex index, String query, int limit) {
+        return submit(() -> index.findStudents(manager, query, limit));
+    }
+
+    // Uruchomienie zapisu; trwające odczyty nie są już dostępne dla nowych wywołań.
+    private <T> CompletableFuture<T> write(Callable<T> task) {
+        inFlight.clear();
+        return submit(task);
+    }
+
+    // Uruchomienie zadania w puli; cancel() na wyniku przerywa zadanie.
+    private <T> CompletableFuture<T> submit(Callable<T> task) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Future<?> running = executor.submit(() -> {
+            if (result.isDone()) {
+                return; // anulowano, zanim zadanie wystartowało
+            }
+            try {
+                result.complete(task.call());
+            } catch (Throwable t) {
+                result.completeExceptionally(t);
+            }
+        });
+        result.whenComplete((value, error) -> {
+            if (result.isCancelled()) {
+                running.cancel(true);
+            }
+        });
+        return result;
+    }
+
+    // Łączenie identycznych odczytów (zob. opis klasy).
+    @SuppressWarnings("unchecked")
+    private <T> CompletableFuture<T> coalesce(String key, Callable<T> task) {
+        Shared<T> shared;
+        while (true) {
+            shared = (Shared<T>) inFlight.get(key);
+            if (shared == null) {
+                Shared<T> created = new Shared<>(new CompletableFuture<T>());
+                if (inFlight.putIfAbsent(key, created) == null) {
+                    start(key, created, task);
+                    shared = created;
+                } else {
+                    continue; // ktoś był szybszy – dołączamy do jego zapytania
+                }
+            }
+            int before = shared.waiting.getAndIncrement();
+            if (before >= 0) {
+                break;
+            }
+            // Wspólne zapytanie zostało już anulowane przez wszystkich – zaczynamy nowe.
+            inFlight.remove(key, shared);
+        }
+
+        final Shared<T> joined = shared;
+        CompletableFuture<T> mine = new CompletableFuture<>();
+        joined.future.whenComplete((value, error) -> {
+            if (error != null) {
+                mine.completeExceptionally(error);
+            } else {
+                mine.complete(value);
+            }
+        });
+        mine.whenComplete((value, error) -> {
+            if (mine.isCancelled() && joined.waiting.decrementAndGet() == 0) {
+                // Nikt już nie czeka – przerywamy wspólne zapytanie.
+                if (joined.waiting.compareAndSet(0, Integer.MIN_VALUE)) {
+                    joined.future.cancel(true);
+                }
+            }
+        });
+        return mine;
+    }
+
+    private <T> void start(String key, Shared<T> shared, Callable<T> task) {
+        CompletableFuture<T> running = submit(task);
+        running.whenComplete((value, error) -> {
+            inFlight.remove(key, shared);
+            if (error != null) {
+                shared.future.completeExceptionally(error);
+            } else {
+                shared.future.complete(value);
+            }
+        });
+        shared.future.whenComplete((value, error) -> {
+            if (shared.future.isCancelled()) {
+                running.cancel(true);
+            }
+        });
+    }
+
+    // Przekazuje wynik do wątku Swinga: onSuccess z wynikiem albo onError z wyjątkiem.
+    // Anulowane zadania są pomijane.
+    public static <T> void onEdt(CompletableFuture<T> future, Consumer<T> onSuccess,
+                                 Consumer<Throwable> onError) {
+        future.whenCompleteAsync((value, error) -> {
+            if (error == null) {
+                onSuccess.accept(value);
+                return;
+            }
+            Throwable cause = error instanceof CompletionException && error.getCause() != null
+                    ? error.getCause() : error;
+            if (!(cause instanceof CancellationException)) {
+                onError.accept(cause);
+            }
+        }, EDT);
+    }
+
+    // Zatrzymanie puli wątków (czekamy chwilę na trwające zapytania).
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(5, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+}
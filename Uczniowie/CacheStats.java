@@ -0,0 +1,75 @@
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+  Klasa CacheStats – liczniki cache studentów (CachingStudentManager).
+  - hits / misses: znaleziono / nie znaleziono wpisu w pamięci
+  - negativeHits: trafienia we wpis "takiego ID nie ma"
+  - evictions: wpisy usunięte, bo cache był pełny
+  - expirations: wpisy usunięte, bo były za stare
+*/
+
+public class CacheStats {
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder negativeHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+
+    // Metody wywoływane przez cache (package-private)
+    void recordHit() {
+        hits.increment();
+    }
+
+    void recordNegativeHit() {
+        negativeHits.increment();
+    }
+
+    void recordMiss() {
+        misses.increment();
+    }
+
+    void recordEviction() {
+        evictions.increment();
+    }
+
+    void recordExpiration() {
+        expirations.increment();
+    }
+
+    // Gettery
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getNegativeHits() {
+        return negativeHits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    public long getExpirations() {
+        return expirations.sum();
+    }
+
+    // Procent zapytań obsłużonych z pamięci (0–100).
+    public double getHitRatio() {
+        long served = hits.sum() + negativeHits.sum();
+        long total = served + misses.sum();
+        return total == 0 ? 0.0 : 100.0 * served / total;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Cache: hits=%d, negative hits=%d, misses=%d (%.1f%% from memory), "
+                        + "evictions=%d, expirations=%d",
+                getHits(), getNegativeHits(), getMisses(), getHitRatio(),
+                getEvictions(), getExpirations());
+    }
+}
@@ -0,0 +1,306 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/*
+  Klasa CachingStudentManager – cache studentów (po studentID) przed innym StudentManager.
+  Kluczem jest ID w postaci kanonicznej (liczba bez zer wiodących), jak w bazie: "007" i "7"
+  to ten sam student i ten sam wpis.
+  - findStudent / studentExists najpierw sprawdzają pamięć, dopiero potem bazę
+  - zapamiętujemy też brak studenta ("negative cache"), krócej niż zwykłe wpisy
+  - zapis przez cache (write-through): add i update usuwają stary wpis (wersję nadaje baza,
+    więc obiekt z wywołania nie trafia do pamięci), remove zapamiętuje brak
+  - wpisy wypadają, gdy cache jest pełny (najdawniej używane – LRU) albo za stare (TTL)
+  - addStudent odrzuca ID znane z pamięci bez pytania bazy
+  - wynik odczytu z bazy trafia do pamięci tylko wtedy, gdy w trakcie odczytu nikt nie zmienił
+    tego ID przez cache (inaczej stary odczyt nadpisałby świeższy stan)
+  Liczniki trafień / chybień / usunięć – getStats().
+  Odczyty list (displayAll, strony, wyszukiwanie, statystyki) idą prosto do bazy.
+*/
+
+public class CachingStudentManager implements StudentManager {
+
+    // Domyślnie: 10 000 studentów, wpis ważny 5 minut, brak studenta – 30 sekund.
+    public static final int DEFAULT_MAX_ENTRIES = 10_000;
+    public static final long DEFAULT_TTL_MILLIS = 5 * 60 * 1000;
+    public static final long DEFAULT_NEGATIVE_TTL_MILLIS = 30 * 1000;
+
+    // Wpis w cache: student == null oznacza "nie ma takiego ID".
+    private static final class CacheEntry {
+        final Student student;
+        final long expiresAt;
+
+        CacheEntry(Student student, long expiresAt) {
+            this.student = student;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private final StudentManager delegate;
+    private final long ttlNanos;
+    private final long negativeTtlNanos;
+    private final CacheStats stats = new CacheStats();
+
+    // Kolejność dostępu – najdawniej używany wpis jest pierwszy (LRU).
+    private final LinkedHashMap<String, CacheEntry> entries;
+
+    // Trwające odczyty z bazy: ID -> numer odczytu. Zapis tego ID usuwa numer, więc odczyt,
+    // który skończy się później, nie trafi do pamięci.
+    private final Map<String, Long> loading = new HashMap<>();
+    private long loadCounter;
+
+    public CachingStudentManager(StudentManager delegate) {
+        this(delegate, DEFAULT_MAX_ENTRIES, DEFAULT_TTL_MILLIS, DEFAULT_NEGATIVE_TTL_MILLIS);
+    }
+
+    public CachingStudentManager(StudentManager delegate, final int maxEntries,
+                                 long ttlMillis, long negativeTtlMillis) {
+        this.delegate = delegate;
+        this.ttlNanos = ttlMillis * 1_000_000;
+        this.negativeTtlNanos = negativeTtlMillis * 1_000_000;
+        this.entries = new LinkedHashMap<String, CacheEntry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CacheEntry> eldest) {
+                if (size() > maxEntries) {
+                    stats.recordEviction();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public CacheStats getStats() {
+        return stats;
+    }
+
+    public StudentManager getDelegate() {
+        return delegate;
+    }
+
+    // Aktualna liczba wpisów w cache.
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    // Usunięcie jednego wpisu (np. gdy ktoś zmienił bazę z pominięciem cache).
+    public synchronized void invalidate(String studentID) {
+        String key = key(studentID);
+        entries.remove(key);
+        loading.remove(key);
+    }
+
+    // Klucz w cache: ID bez zer wiodących (StudentManagerImpl.parseID); niepoprawne ID – bez zmian.
+    private static String key(String studentID) {
+        long id = StudentManagerImpl.parseID(studentID);
+        return id >= 0 ? Long.toString(id) : studentID;
+    }
+
+    public synchronized void invalidateAll() {
+        entries.clear();
+        loading.clear();
+    }
+
+    // Odczyt z cache: CacheEntry (także "brak studenta") albo null, gdy trzeba pytać bazę.
+    private synchronized CacheEntry lookup(String studentID) {
+        CacheEntry e = entries.get(studentID);
+        if (e == null) {
+            stats.recordMiss();
+            return null;
+        }
+        if (System.nanoTime() - e.expiresAt > 0) {
+            entries.remove(studentID);
+            stats.recordExpiration();
+            stats.recordMiss();
+            return null;
+        }
+        if (e.student == null) {
+            stats.recordNegativeHit();
+        } else {
+            stats.recordHit();
+        }
+        return e;
+    }
+
+    // Zapis do cache (kopia – Student ma settery, a wpis nie może się zmienić z zewnątrz).
+    private synchronized void store(String studentID, Student student) {
+        long ttl = student == null ? negativeTtlNanos : ttlNanos;
+        entries.put(studentID, new CacheEntry(copy(student), System.nanoTime() + ttl));
+        loading.remove(studentID);
+    }
+
+    // Początek odczytu z bazy; zwraca numer odczytu dla finishLoad.
+    private synchronized long startLoad(String studentID) {
+        long load = ++loadCounter;
+        loading.put(studentID, load);
+        return load;
+    }
+
+    // Koniec odczytu: zapis do cache tylko, jeśli od startLoad nie było zmiany tego ID.
+    private synchronized void finishLoad(String studentID, long load, Student student) {
+        Long current = loading.get(studentID);
+        if (current != null && current == load) {
+            store(studentID, student);
+        }
+    }
+
+    // Usunięcie wszystkich wpisów "nie ma takiego ID" (po imporcie nie wiemy, które ID doszły);
+    // trwające odczyty mogły widzieć stan sprzed importu.
+    private synchronized void invalidateNegative() {
+        Iterator<CacheEntry> it = entries.values().iterator();
+        while (it.hasNext()) {
+            if (it.next().student == null) {
+                it.remove();
+            }
+        }
+        loading.clear();
+    }
+
+    private static Student copy(Student s) {
+        return s == null ? null : new Student(s.getName(), s.getAge(), s.getGrade(), s.getStudentID(), s.getVersion());
+    }
+
+    @Override
+    public Student findStudent(String studentID) {
+        String key = key(studentID);
+        CacheEntry e = lookup(key);
+        if (e != null) {
+            return copy(e.student);
+        }
+        long load = startLoad(key);
+        Student s = delegate.findStudent(studentID);
+        finishLoad(key, load, s);
+        return s;
+    }
+
+    @Override
+    public boolean studentExists(String studentID) {
+        return findStudent(studentID) != null;
+    }
+
+    // Dodanie – ID znane z pamięci odrzucamy od razu. Po zapisie wpis usuwamy: obiekt z wywołania
+    // nie ma wersji nadanej przez bazę (z nim updateStudent ominąłby sprawdzanie wersji),
+    // a przy false ID jednak jest w bazie i nie znamy jego danych.
+    @Override
+    public boolean addStudent(Student student) {
+        String sid = student.getStudentID();
+        CacheEntry e = lookup(key(sid));
+        if (e != null && e.student != null) {
+            return false;
+        }
+        try {
+            return delegate.addStudent(student);
+        } finally {
+            invalidate(sid);
+        }
+    }
+
+    @Override
+    public ImportResult addStudents(Iterable<Student> students, ImportProgressListener listener) {
+        try {
+            return delegate.addStudents(students, listener);
+        } finally {
+            invalidateNegative();
+        }
+    }
+
+    // "Nie ma studenta" zapamiętujemy tylko po udanym usunięciu; false (nie było go) albo błąd –
+    // wpis usuwamy, a następny odczyt pyta bazę.
+    @Override
+    public boolean removeStudent(String studentID) {
+        boolean removed = false;
+        try {
+            removed = delegate.removeStudent(studentID);
+            return removed;
+        } finally {
+            invalidate(studentID);
+            if (removed) {
+                store(key(studentID), null);
+            }
+        }
+    }
+
+    // Zmiany danych – stary wpis usuwamy (wersja w bazie jest już inna).
+    @Override
+    public int updateStudent(Student student) {
+        try {
+            return delegate.updateStudent(student);
+        } finally {
+            invalidate(student.getStudentID());
+        }
+    }
+
+    @Override
+    public int updateFields(String studentID, StudentChanges changes) {
+        try {
+            return delegate.updateFields(studentID, changes);
+        } finally {
+            invalidate(studentID);
+        }
+    }
+
+    @Override
+    public int updateGrades(Map<String, Double> gradesByID) {
+        try {
+            return delegate.updateGrades(gradesByID);
+        } finally {
+            synchronized (this) {
+                for (String studentID : gradesByID.keySet()) {
+                    String key = key(studentID);
+                    entries.remove(key);
+                    loading.remove(key);
+                }
+            }
+        }
+    }
+
+    // Odczyty list – bez cache.
+    @Override
+    public ArrayList<Student> displayAllStudents() {
+        return delegate.displayAllStudents();
+    }
+
+    @Override
+    public int countStudents() {
+        return delegate.countStudents();
+    }
+
+    @Override
+    public List<Student> findStudentsAfter(String afterStudentID, int limit) {
+        return delegate.findStudentsAfter(afterStudentID, limit);
+    }
+
+    @Override
+    public List<Student> findStudentsPage(int offset, int limit) {
+        return delegate.findStudentsPage(offset, limit);
+    }
+
+    @Override
+    public List<Student> findStudents(StudentQuery query) {
+        return delegate.findStudents(query);
+    }
+
+    @Override
+    public int countStudents(StudentQuery query) {
+        return delegate.countStudents(query);
+    }
+
+    @Override
+    public void forEachStudent(int fetchSize, Consumer<Student> visitor) {
+        delegate.forEachStudent(fetchSize, visitor);
+    }
+
+    @Override
+    public double calculateAverageGrade() {
+        return delegate.calculateAverageGrade();
+    }
+
+    @Override
+    public GradeStatistics getGradeStatistics() {
+        return delegate.getGradeStatistics();
+    }
+}
@@ -0,0 +1,784 @@
+import java.nio.ByteBuffer;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/*
+  Klasa ColumnarStudentManager – StudentManager trzymający studentów w pamięci, kolumnami.
+  Zamiast obiektu Student na wiersz (nagłówki, wskaźniki, dwa Stringi) każda kolumna to
+  jeden bufor z wartościami prostymi:
+    id       – long (8 B)    imię  – int, numer w tablicy imion (4 B)
+    wiek     – byte (1 B)    ocena – byte, kod = ocena * 2 (1 B)
+    wersja   – long (8 B), jak version w bazie
+  czyli 22 bajty na studenta + indeks ID -> wiersz (LongIntHashMap) bez obiektów Long.
+  - bufory na stercie (ByteBuffer.allocate) albo poza nią (allocateDirect, offHeap = true)
+  - imiona są zapisane raz w tablicy imion (te same imiona się powtarzają)
+  - średnia, statystyki i wyszukiwanie to pętle po kolumnach, bez tworzenia obiektów
+  - kolejność po ID (strony, sortowanie) – tablica wierszy posortowana po ID, przebudowywana
+    dopiero przy pierwszym odczycie po zmianie
+  - usunięcie przenosi ostatni wiersz w lukę (bez przesuwania kolumn)
+  Trwałość: loadFrom(źródło) wczytuje studentów (np. z SQLite) z ich wersjami, saveTo(StudentManagerImpl)
+  zapisuje do pliku bazy tylko zmiany od wczytania / poprzedniego zapisu, w jednej transakcji:
+  - magazyn z loadFrom pamięta zmienione ID z wersją, jaką miały w bazie (dirty; 0 – nowe ID),
+    i usunięte ID z ich wersją w bazie (removed); niezmienionych wierszy zapis nie dotyka
+  - zapis sprawdza wersję w bazie: wiersz, który w międzyczasie zmienił inny proces, zostaje
+    w bazie bez zmian (konflikt), a w pamięci dalej jest oznaczony jako zmieniony
+  Reguły danych jak w bazie (SchemaMigrations): ID cyfry, imię litery, wiek 18–100, ocena z listy;
+  błędne dane przy addStudent / updateStudent / updateFields / updateGrades – StudentStoreException
+  z powodem ze StudentValidator (jak błąd CHECK w bazie; false / 0 znaczą "ID zajęte" / "ktoś zmienił").
+*/
+
+public class ColumnarStudentManager implements StudentManager {
+
+    private static final int ID_BYTES = 8;
+    private static final int NAME_BYTES = 4;
+    private static final int VERSION_BYTES = 8;
+    // Bajtów na studenta we wszystkich kolumnach razem
+    public static final int ROW_BYTES = ID_BYTES + NAME_BYTES + 1 + 1 + VERSION_BYTES;
+
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int MAX_GRADE_CODE = 10;
+    private static final int PROGRESS_EVERY = 1000;
+    private static final int LOAD_PAGE = 10_000;
+
+    private final boolean offHeap;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Kolumny (wiersz i: pozycja i * szerokość kolumny)
+    private ByteBuffer ids;
+    private ByteBuffer nameRefs;
+    private ByteBuffer ages;
+    private ByteBuffer gradeCodes;
+    private ByteBuffer versions;
+    private int size;
+    private int capacity;
+
+    // ID -> numer wiersza
+    private final LongIntHashMap index = new LongIntHashMap(INITIAL_CAPACITY);
+
+    // Tablica imion (numer -> imię) i odwrotnie
+    private final ArrayList<String> nameTable = new ArrayList<>();
+    private final HashMap<String, Integer> nameNumbers = new HashMap<>();
+
+    // Zmiany od loadFrom / saveTo (tylko gdy tracking): ID -> wersja w bazie (0 – nowe ID)
+    // i usunięte ID -> wersja w bazie. Zwykły magazyn w pamięci ich nie prowadzi.
+    // Zwykłe mapy – zmian jest zwykle mało w porównaniu z liczbą wierszy.
+    private boolean tracking;
+    private final Map<Long, Long> dirty = new HashMap<>();
+    private final Map<Long, Long> removed = new HashMap<>();
+
+    // Wiersze i ID w kolejności ID (null = do przebudowy po zmianie)
+    private volatile int[] sortedRows;
+    private volatile long[] sortedIds;
+    private final Object sortLock = new Object();
+
+    public ColumnarStudentManager() {
+        this(false);
+    }
+
+    // offHeap = true – kolumny poza stertą Javy (nie obciążają GC, liczą się do -XX:MaxDirectMemorySize).
+    public ColumnarStudentManager(boolean offHeap) {
+        this.offHeap = offHeap;
+        allocateColumns(INITIAL_CAPACITY);
+    }
+
+    // Nowy magazyn z danymi z innego managera (np. StudentManagerImpl – plik SQLite), z ich wersjami;
+    // od tej chwili magazyn pamięta zmiany dla saveTo.
+    // Czytamy stronami po ID, więc naraz w pamięci jest tylko jedna strona obiektów Student.
+    public static ColumnarStudentManager loadFrom(StudentManager source, boolean offHeap) {
+        ColumnarStudentManager store = new ColumnarStudentManager(offHeap);
+        store.lock.writeLock().lock();
+        try {
+            List<Student> page = source.findStudentsAfter(null, LOAD_PAGE);
+            while (!page.isEmpty()) {
+                for (Student s : page) {
+                    store.append(StudentManagerImpl.parseID(s.getStudentID()), s.getName(), s.getAge(),
+                            StudentManagerImpl.gradeCode(s.getGrade()), Math.max(1, s.getVersion()));
+                }
+                if (page.size() < LOAD_PAGE) {
+                    break;
+                }
+                page = source.findStudentsAfter(page.get(page.size() - 1).getStudentID(), LOAD_PAGE);
+            }
+            store.tracking = true;
+        } finally {
+            store.lock.writeLock().unlock();
+        }
+        return store;
+    }
+
+    // Zapisuje do bazy SQLite zmiany od loadFrom / poprzedniego saveTo (zob. opis klasy).
+    // Zwraca liczbę konfliktów (wierszy zmienionych w bazie przez kogoś innego – niezapisanych),
+    // -1 przy błędzie (w bazie nic się nie zmienia, zmiany w pamięci czekają na kolejny zapis).
+    public int saveTo(StudentManagerImpl target) {
+        lock.writeLock().lock();
+        try {
+            if (!tracking) {
+                throw new IllegalStateException("saveTo needs a store created by loadFrom()");
+            }
+            final List<Student> changed = new ArrayList<>(dirty.size());
+            final List<Long> expected = new ArrayList<>(dirty.size());
+            for (Map.Entry<Long, Long> e : dirty.entrySet()) {
+                changed.add(studentAt(index.get(e.getKey())));
+                expected.add(e.getValue());
+            }
+            final long[] removedIds = new long[removed.size()];
+            final long[] removedVersions = new long[removed.size()];
+            int i = 0;
+            for (Map.Entry<Long, Long> e : removed.entrySet()) {
+                removedIds[i] = e.getKey();
+                removedVersions[i++] = e.getValue();
+            }
+
+            List<Long> conflicts;
+            try {
+                conflicts = target.saveChanges(changed, expected, removedIds, removedVersions);
+            } catch (SQLException e) {
+                e.printStackTrace();
+                return -1;
+            }
+            // Zapisane: wersja w bazie = wersja w pamięci. Konflikty zostają oznaczone.
+            // Zostają tylko konflikty – do ponownego zapisu po przeładowaniu
+            Set<Long> keep = new HashSet<>(conflicts);
+            dirty.keySet().retainAll(keep);
+            removed.keySet().retainAll(keep);
+            return conflicts.size();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // --- śledzenie zmian dla saveTo (wywołujący trzyma blokadę zapisu) ---
+
+    // Nowy wiersz; ID usunięte wcześniej z bazy to zmiana tamtego wiersza (z jego wersją w bazie).
+    private void trackAdded(long id) {
+        if (!tracking) {
+            return;
+        }
+        Long version = removed.remove(id);
+        dirty.put(id, version != null ? version : 0L);
+    }
+
+    // Zmiana wiersza – przed zapisem nowej wersji (niezmieniony wiersz ma wersję jak w bazie).
+    private void trackChanged(int row) {
+        if (tracking) {
+            long id = idAt(row);
+            if (!dirty.containsKey(id)) {
+                dirty.put(id, versionAt(row));
+            }
+        }
+    }
+
+    // Usunięcie wiersza; ID dodane po ostatnim zapisie po prostu znika.
+    private void trackRemoved(long id, int row) {
+        if (!tracking) {
+            return;
+        }
+        Long version = dirty.remove(id);
+        if (version == null) {
+            version = versionAt(row);
+        }
+        if (version > 0) {
+            removed.put(id, version);
+        }
+    }
+
+    public boolean isOffHeap() {
+        return offHeap;
+    }
+
+    // Pamięć zajęta przez dane: kolumny, indeks ID, tablica imion i kolejność po ID (w bajtach).
+    public long getMemoryFootprint() {
+        lock.readLock().lock();
+        try {
+            long bytes = (long) capacity * ROW_BYTES + index.memoryBytes();
+            if (tracking) {
+                bytes += (dirty.size() + removed.size()) * 80L; // wpisy HashMap z Long (przybliżenie)
+            }
+            for (String name : nameTable) {
+                bytes += 40 + 2L * name.length(); // String z tablicą znaków (przybliżenie)
+            }
+            bytes += nameTable.size() * 40L;      // wpisy w nameNumbers
+            int[] rows = sortedRows;
+            if (rows != null) {
+                bytes += rows.length * (4L + 8L);
+            }
+            return bytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // --- kolumny ---
+
+    private ByteBuffer column(int bytes) {
+        return offHeap ? ByteBuffer.allocateDirect(bytes) : ByteBuffer.allocate(bytes);
+    }
+
+    private void allocateColumns(int newCapacity) {
+        ByteBuffer newIds = column(newCapacity * ID_BYTES);
+        ByteBuffer newNames = column(newCapacity * NAME_BYTES);
+        ByteBuffer newAges = column(newCapacity);
+        ByteBuffer newGrades = column(newCapacity);
+        ByteBuffer newVersions = column(newCapacity * VERSION_BYTES);
+        if (ids != null) {
+            copy(ids, newIds, size * ID_BYTES);
+            copy(nameRefs, newNames, size * NAME_BYTES);
+            copy(ages, newAges, size);
+            copy(gradeCodes, newGrades, size);
+            copy(versions, newVersions, size * VERSION_BYTES);
+        }
+        ids = newIds;
+        nameRefs = newNames;
+        ages = newAges;
+        gradeCodes = newGrades;
+        versions = newVersions;
+        capacity = newCapacity;
+    }
+
+    private static void copy(ByteBuffer from, ByteBuffer to, int bytes) {
+        ByteBuffer src = from.duplicate();
+        src.position(0).limit(bytes);
+        to.duplicate().put(src);
+    }
+
+    private long idAt(int row) {
+        return ids.getLong(row * ID_BYTES);
+    }
+
+    private int nameAt(int row) {
+        return nameRefs.getInt(row * NAME_BYTES);
+    }
+
+    private long versionAt(int row) {
+        return versions.getLong(row * VERSION_BYTES);
+    }
+
+    private Student studentAt(int row) {
+        return new Student(nameTable.get(nameAt(row)), ages.get(row),
+                StudentManagerImpl.gradeFromCode(gradeCodes.get(row)),
+                Long.toString(idAt(row)), versionAt(row));
+    }
+
+    private int nameNumber(String name) {
+        Integer n = nameNumbers.get(name);
+        if (n == null) {
+            n = nameTable.size();
+            nameTable.add(name);
+            nameNumbers.put(name, n);
+        }
+        return n;
+    }
+
+    private void writeRow(int row, long id, String name, int age, int gradeCode, long version) {
+        ids.putLong(row * ID_BYTES, id);
+        nameRefs.putInt(row * NAME_BYTES, nameNumber(name));
+        ages.put(row, (byte) age);
+        gradeCodes.put(row, (byte) gradeCode);
+        versions.putLong(row * VERSION_BYTES, version);
+    }
+
+    // Dopisanie wiersza (wywołujący trzyma blokadę zapisu i sprawdził dane).
+    private void append(long id, String name, int age, int gradeCode, long version) {
+        if (size == capacity) {
+            allocateColumns(capacity * 2);
+        }
+        writeRow(size, id, name, age, gradeCode, version);
+        index.put(id, size);
+        size++;
+        sortedRows = null;
+    }
+
+    // Kolejność po ID – przebudowa po zmianach (przy pierwszym odczycie, który jej potrzebuje).
+    // Wywoływane pod blokadą odczytu: zapisy są wtedy wstrzymane, więc kolumny się nie zmienią.
+    private int[] rowsInIdOrder() {
+        int[] rows = sortedRows;
+        if (rows != null) {
+            return rows;
+        }
+        synchronized (sortLock) {
+            if (sortedRows != null) {
+                return sortedRows;
+            }
+            long[] sorted = new long[size];
+            for (int row = 0; row < size; row++) {
+                sorted[row] = idAt(row);
+            }
+            Arrays.sort(sorted);
+            rows = new int[size];
+            for (int i = 0; i < size; i++) {
+                rows[i] = index.get(sorted[i]);
+            }
+            sortedIds = sorted;
+            sortedRows = rows;
+            return rows;
+        }
+    }
+
+    // --- reguły danych (jak CHECK-i w tabeli students) ---
+
+    // Powód odrzucenia studenta albo null, gdy dane są poprawne (zob. StudentValidator).
+    private static String invalidReason(Student s) {
+        StudentValidator.Violation v = StudentValidator.check(s);
+        return v == null ? null : v.getMessage();
+    }
+
+    // Błędne dane – StudentStoreException (what – np. "Cannot add student 7").
+    private static void checkValid(String what, String reason) {
+        if (reason != null) {
+            throw new StudentStoreException(what + ": " + reason);
+        }
+    }
+
+    private static String invalidReason(String name, Integer age, Double grade) {
+        StudentValidator.Violation v = StudentValidator.checkFields(null, name, age, grade);
+        return v == null ? null : v.getMessage();
+    }
+
+    // --- StudentManager ---
+
+    @Override
+    public boolean addStudent(Student student) {
+        checkValid("Cannot add student " + student.getStudentID(), invalidReason(student));
+        long id = StudentManagerImpl.parseID(student.getStudentID());
+        lock.writeLock().lock();
+        try {
+            if (index.containsKey(id)) {
+                return false;
+            }
+            append(id, student.getName(), student.getAge(),
+                    StudentManagerImpl.gradeCode(student.getGrade()), 1);
+            trackAdded(id);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public ImportResult addStudents(Iterable<Student> students, ImportProgressListener listener) {
+        ImportResult result = new ImportResult();
+        int row = 0;
+        lock.writeLock().lock();
+        try {
+            for (Student s : students) {
+                row++;
+                String sid = s.getStudentID();
+                String reason = invalidReason(s);
+                long id = StudentManagerImpl.parseID(sid);
+                if (reason == null && index.containsKey(id)) {
+                    reason = "Student ID already exists";
+                }
+                if (reason != null) {
+                    result.addRejected(row, sid, reason);
+                } else {
+                    append(id, s.getName(), s.getAge(), StudentManagerImpl.gradeCode(s.getGrade()), 1);
+                    trackAdded(id);
+                    result.addAccepted(1);
+                }
+                result.addProcessed(1);
+                if (listener != null && row % PROGRESS_EVERY == 0) {
+                    listener.onProgress(result.getProcessed(), result.getAccepted(), result.getRejectedCount());
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (listener != null && row % PROGRESS_EVERY != 0) {
+            listener.onProgress(result.getProcessed(), result.getAccepted(), result.getRejectedCount());
+        }
+        result.finish();
+        return result;
+    }
+
+    @Override
+    public boolean studentExists(String studentID) {
+        long id = StudentManagerImpl.parseID(studentID);
+        if (id < 0) {
+            return false;
+        }
+        lock.readLock().lock();
+        try {
+            return index.containsKey(id);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Student findStudent(String studentID) {
+        long id = StudentManagerImpl.parseID(studentID);
+        if (id < 0) {
+            return null;
+        }
+        lock.readLock().lock();
+        try {
+            int row = index.get(id);
+            return row < 0 ? null : studentAt(row);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Usunięcie: ostatni wiersz przenosimy w miejsce usuniętego.
+    @Override
+    public boolean removeStudent(String studentID) {
+        long id = StudentManagerImpl.parseID(studentID);
+        if (id < 0) {
+            return false;
+        }
+        lock.writeLock().lock();
+        try {
+            int row = index.get(id);
+            if (row < 0) {
+                return false;
+            }
+            trackRemoved(id, row);
+            index.remove(id);
+            int last = size - 1;
+            if (row != last) {
+                long lastId = idAt(last);
+                writeRow(row, lastId, nameTable.get(nameAt(last)), ages.get(last),
+                        gradeCodes.get(last), versionAt(last));
+                index.put(lastId, row);
+            }
+            size--;
+            sortedRows = null;
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Wiersz do zmiany: numer wiersza albo -1 (brak studenta / inna wersja).
+    private int rowForUpdate(String studentID, long expectedVersion) {
+        long id = StudentManagerImpl.parseID(studentID);
+        int row = id < 0 ? -1 : index.get(id);
+        if (row >= 0 && expectedVersion > 0 && versionAt(row) != expectedVersion) {
+            return -1;
+        }
+        return row;
+    }
+
+    @Override
+    public int updateStudent(Student student) {
+        checkValid("Cannot update student " + student.getStudentID(), invalidReason(student));
+        lock.writeLock().lock();
+        try {
+            long version = student.getVersion();
+            int row = rowForUpdate(student.getStudentID(), version);
+            if (row < 0) {
+                return 0;
+            }
+            trackChanged(row);
+            writeRow(row, idAt(row), student.getName(), student.getAge(),
+                    StudentManagerImpl.gradeCode(student.getGrade()), versionAt(row) + 1);
+            if (version > 0) {
+                student.setVersion(version + 1);
+            }
+            return 1;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public int updateFields(String studentID, StudentChanges changes) {
+        if (changes.isEmpty()) {
+            return 0;
+        }
+        checkValid("Cannot update student " + studentID,
+                invalidReason(changes.getName(), changes.getAge(), changes.getGrade()));
+        lock.writeLock().lock();
+        try {
+            int row = rowForUpdate(studentID, changes.getExpectedVersion());
+            if (row < 0) {
+                return 0;
+            }
+            String name = changes.getName() != null ? changes.getName() : nameTable.get(nameAt(row));
+            int age = changes.getAge() != null ? changes.getAge() : ages.get(row);
+            int code = changes.getGrade() != null
+                    ? StudentManagerImpl.gradeCode(changes.getGrade()) : gradeCodes.get(row);
+            trackChanged(row);
+            writeRow(row, idAt(row), name, age, code, versionAt(row) + 1);
+            return 1;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public int updateGrades(Map<String, Double> gradesByID) {
+        // Jak jedna transakcja w bazie: błędna ocena – nie zmieniamy nic
+        for (Map.Entry<String, Double> e : gradesByID.entrySet()) {
+            if (!StudentValidator.isValidGradeCode(StudentManagerImpl.gradeCode(e.getValue()))) {
+                checkValid("Cannot update grades", "Invalid grade " + e.getValue() + " for student " + e.getKey());
+            }
+        }
+        int updated = 0;
+        lock.writeLock().lock();
+        try {
+            for (Map.Entry<String, Double> e : gradesByID.entrySet()) {
+                int row = rowForUpdate(e.getKey(), 0);
+                if (row >= 0) {
+                    trackChanged(row);
+                    gradeCodes.put(row, (byte) StudentManagerImpl.gradeCode(e.getValue()));
+                    versions.putLong(row * VERSION_BYTES, versionAt(row) + 1);
+                    updated++;
+                }
+            }
+            return updated;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public ArrayList<Student> displayAllStudents() {
+        lock.readLock().lock();
+        try {
+            ArrayList<Student> list = new ArrayList<>(size);
+            for (int row : rowsInIdOrder()) {
+                list.add(studentAt(row));
+            }
+            return list;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public int countStudents() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Student> findStudentsAfter(String afterStudentID, int limit) {
+        lock.readLock().lock();
+        try {
+            int[] rows = rowsInIdOrder();
+            int from = 0;
+            if (afterStudentID != null) {
+                // Pierwsza pozycja z ID większym niż afterStudentID (wyszukiwanie binarne)
+                int pos = Arrays.binarySearch(sortedIds, StudentManagerImpl.parseID(afterStudentID));
+                from = pos >= 0 ? pos + 1 : -pos - 1;
+            }
+            return page(rows, from, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Student> findStudentsPage(int offset, int limit) {
+        lock.readLock().lock();
+        try {
+            return page(rowsInIdOrder(), offset, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private List<Student> page(int[] rows, int from, int limit) {
+        int to = (int) Math.min((long) from + limit, rows.length);
+        List<Student> page = new ArrayList<>(Math.max(0, to - from));
+        for (int i = from; i < to; i++) {
+            page.add(studentAt(rows[i]));
+        }
+        return page;
+    }
+
+    // Wyszukiwanie: przegląd kolumn w kolejności ID, potem stabilne sortowanie przez zliczanie
+    // po wieku / kodzie oceny / pozycji imienia (małe zakresy) – remisy zostają po ID.
+    @Override
+    public List<Student> findStudents(StudentQuery query) {
+        lock.readLock().lock();
+        try {
+            int[] rows = rowsInIdOrder();
+            Filter filter = new Filter(query);
+            int[] matched = new int[Math.min(rows.length, 1024)];
+            int count = 0;
+            for (int row : rows) {
+                if (filter.matches(row)) {
+                    if (count == matched.length) {
+                        matched = Arrays.copyOf(matched, count * 2);
+                    }
+                    matched[count++] = row;
+                }
+            }
+
+            int[] ordered = sort(matched, count, query);
+            int from = Math.min(query.getOffset(), count);
+            int to = (int) Math.min((long) from + query.getLimit(), count);
+            List<Student> found = new ArrayList<>(to - from);
+            for (int i = from; i < to; i++) {
+                found.add(studentAt(ordered[i]));
+            }
+            return found;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public int countStudents(StudentQuery query) {
+        lock.readLock().lock();
+        try {
+            Filter filter = new Filter(query);
+            int count = 0;
+            for (int row = 0; row < size; row++) {
+                if (filter.matches(row)) {
+                    count++;
+                }
+            }
+            return count;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Warunki zapytania jako liczby (bez rozpakowywania Integer / Double w pętli).
+    private final class Filter {
+        final boolean[] nameMatches; // które imiona z tablicy imion pasują (null = bez warunku)
+        final int minAge;
+        final int maxAge;
+        final int minCode;
+        final int maxCode;
+
+        Filter(StudentQuery q) {
+            if (q.getNamePrefix() == null) {
+                nameMatches = null;
+            } else {
+                String prefix = q.getNamePrefix().toLowerCase(Locale.ROOT);
+                nameMatches = new boolean[nameTable.size()];
+                for (int i = 0; i < nameMatches.length; i++) {
+                    nameMatches[i] = nameTable.get(i).toLowerCase(Locale.ROOT).startsWith(prefix);
+                }
+            }
+            minAge = q.getMinAge() == null ? Integer.MIN_VALUE : q.getMinAge();
+            maxAge = q.getMaxAge() == null ? Integer.MAX_VALUE : q.getMaxAge();
+            minCode = q.getMinGrade() == null ? Integer.MIN_VALUE : (int) Math.ceil(q.getMinGrade() * 2);
+            maxCode = q.getMaxGrade() == null ? Integer.MAX_VALUE : (int) Math.floor(q.getMaxGrade() * 2);
+        }
+
+        boolean matches(int row) {
+            int age = ages.get(row);
+            int code = gradeCodes.get(row);
+            return age >= minAge && age <= maxAge && code >= minCode && code <= maxCode
+                    && (nameMatches == null || nameMatches[nameAt(row)]);
+        }
+    }
+
+    // Kolejność wyników (wiersze są już po ID).
+    private int[] sort(int[] matched, int count, StudentQuery query) {
+        int[] keys;
+        int buckets;
+        switch (query.getSortBy()) {
+            case AGE:
+                buckets = 128;
+                keys = new int[count];
+                for (int i = 0; i < count; i++) {
+                    keys[i] = ages.get(matched[i]);
+                }
+                break;
+            case GRADE:
+                buckets = MAX_GRADE_CODE + 1;
+                keys = new int[count];
+                for (int i = 0; i < count; i++) {
+                    keys[i] = gradeCodes.get(matched[i]);
+                }
+                break;
+            case NAME:
+                int[] rank = nameRanks();
+                buckets = rank.length;
+                keys = new int[count];
+                for (int i = 0; i < count; i++) {
+                    keys[i] = rank[nameAt(matched[i])];
+                }
+                break;
+            default:
+                int[] byId = Arrays.copyOf(matched, count);
+                if (query.isDescending()) {
+                    reverse(byId);
+                }
+                return byId;
+        }
+        return countingSort(matched, keys, count, buckets, query.isDescending());
+    }
+
+    // Pozycja każdego imienia w kolejności alfabetycznej (bez rozróżniania wielkości liter).
+    private int[] nameRanks() {
+        Integer[] order = new Integer[nameTable.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> String.CASE_INSENSITIVE_ORDER.compare(nameTable.get(a), nameTable.get(b)));
+        int[] rank = new int[order.length];
+        for (int i = 0; i < order.length; i++) {
+            rank[order[i]] = i;
+        }
+        return rank;
+    }
+
+    private static int[] countingSort(int[] rows, int[] keys, int count, int buckets, boolean descending) {
+        int[] start = new int[buckets + 1];
+        for (int i = 0; i < count; i++) {
+            start[(descending ? buckets - 1 - keys[i] : keys[i]) + 1]++;
+        }
+        for (int b = 0; b < buckets; b++) {
+            start[b + 1] += start[b];
+        }
+        int[] sorted = new int[count];
+        for (int i = 0; i < count; i++) {
+            int b = descending ? buckets - 1 - keys[i] : keys[i];
+            sorted[start[b]++] = rows[i];
+        }
+        return sorted;
+    }
+
+    private static void reverse(int[] a) {
+        for (int i = 0, j = a.length - 1; i < j; i++, j--) {
+            int t = a[i];
+            a[i] = a[j];
+            a[j] = t;
+        }
+    }
+
+    @Override
+    public double calculateAverageGrade() {
+        return getGradeStatistics().getAverage();
+    }
+
+    // Histogram ocen – jedna pętla po kolumnie kodów ocen.
+    @Override
+    public GradeStatistics getGradeStatistics() {
+        long[] counts = new long[MAX_GRADE_CODE + 1];
+        lock.readLock().lock();
+        try {
+            for (int row = 0; row < size; row++) {
+                counts[gradeCodes.get(row)]++;
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        Map<Double, Long> histogram = new HashMap<>();
+        for (int code = 0; code < counts.length; code++) {
+            if (counts[code] > 0) {
+                histogram.put(StudentManagerImpl.gradeFromCode(code), counts[code]);
+            }
+        }
+        return new GradeStatistics(histogram);
+    }
+}
@@ -0,0 +1,54 @@
+/*
+  Klasa ExportResult – wynik eksportu studentów do pliku (StudentExporter).
+  - ile wierszy zapisano
+  - ile bajtów dał format (przed kompresją) i ile zajmuje plik (po gzip)
+  - czas trwania i przepustowość: wiersze/s i MB/s (MB danych przed kompresją)
+*/
+
+public class ExportResult {
+
+    private final long rows;
+    private final long bytes;
+    private final long fileBytes;
+    private final long elapsedNanos;
+
+    public ExportResult(long rows, long bytes, long fileBytes, long elapsedNanos) {
+        this.rows = rows;
+        this.bytes = bytes;
+        this.fileBytes = fileBytes;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    // Gettery
+    public long getRows() {
+        return rows;
+    }
+
+    public long getBytes() {
+        return bytes;
+    }
+
+    public long getFileBytes() {
+        return fileBytes;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedNanos / 1_000_000;
+    }
+
+    public double getRowsPerSecond() {
+        return elapsedNanos > 0 ? rows * 1e9 / elapsedNanos : 0;
+    }
+
+    public double getMegabytesPerSecond() {
+        return elapsedNanos > 0 ? bytes * 1e9 / elapsedNanos / (1024 * 1024) : 0;
+    }
+
+    // Krótkie podsumowanie eksportu
+    @Override
+    public String toString() {
+        return String.format("Exported: %d rows, %.1f MB (%.1f MB on disk), Time: %d ms, %.0f rows/s, %.1f MB/s",
+                rows, bytes / (1024.0 * 1024), fileBytes / (1024.0 * 1024), getElapsedMillis(),
+                getRowsPerSecond(), getMegabytesPerSecond());
+    }
+}
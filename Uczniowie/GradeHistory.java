@@ -0,0 +1,291 @@
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/*
+  Klasa GradeHistory – oceny z przeszłości (dla audytu): jaka była ocena / średnia w chwili X.
+  - źródłem jest tabela grade_history (SchemaMigrations, migracja 6) wypełniana wyzwalaczami w tej samej
+    transakcji co zmiana w students, więc updateStudent, updateGrades, import i usunięcie zostawiają ślad
+  - czas X: milisekundy od 1970 (UTC), jak System.currentTimeMillis()
+  - ocena studenta w chwili X: pierwsza zmiana po X mówi, jaka była ocena przed nią (prev_grade_code);
+    bez zmian po X – ocena obecna. Jedno wyszukiwanie w indeksie, niezależnie od długości historii
+  - oceny wszystkich w chwili X: obecny stan z cofniętymi zmianami po X (nie cała historia)
+  - statystyki / średnia w chwili X: najbliższy wcześniejszy punkt kontrolny (grade_checkpoint, co
+    GRADE_CHECKPOINT_INTERVAL wierszy historii) plus wiersze historii od niego do X – najwyżej
+    kilka tysięcy wierszy, zamiast całej historii
+  - prune(before) usuwa historię sprzed chwili before (najpierw zapisuje punkt kontrolny w tym miejscu);
+    konstruktor z retentionMillis robi to sam co jakiś czas, więc tabela nie rośnie bez końca.
+    Zapytania o chwilę sprzed getStart() (usunięta historia albo czas sprzed migracji) – IllegalArgumentException
+  Wszystkie zapytania jednej metody idą w jednej transakcji odczytu (spójny obraz bazy).
+*/
+
+public class GradeHistory implements AutoCloseable {
+
+    private final SQLiteConnectionPool pool;
+    private final ScheduledExecutorService retention;
+
+    public GradeHistory(StudentManagerImpl manager) {
+        this(manager, 0);
+    }
+
+    // retentionMillis > 0 – co jakiś czas (1/10 okresu, najwyżej co godzinę) usuwamy historię starszą niż
+    // retentionMillis.
+    public GradeHistory(StudentManagerImpl manager, long retentionMillis) {
+        if (retentionMillis < 0) {
+            throw new IllegalArgumentException("retentionMillis must not be negative");
+        }
+        this.pool = manager.getPool();
+        if (retentionMillis == 0) {
+            this.retention = null;
+            return;
+        }
+        long interval = Math.max(1000, Math.min(retentionMillis / 10, TimeUnit.HOURS.toMillis(1)));
+        this.retention = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "grade-history-retention");
+            t.setDaemon(true);
+            return t;
+        });
+        retention.scheduleWithFixedDelay(() -> {
+            try {
+                prune(System.currentTimeMillis() - retentionMillis);
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
+        }, 0, interval, TimeUnit.MILLISECONDS);
+    }
+
+    // Najwcześniejsza chwila, o którą można pytać (najstarszy zachowany punkt kontrolny).
+    public long getStart() throws SQLException {
+        try (PooledConnection conn = pool.reader()) {
+            return start(conn);
+        }
+    }
+
+    // Ocena studenta w chwili time; null – studenta wtedy nie było.
+    public Double getGradeAsOf(String studentID, long time) throws SQLException {
+        long id = StudentManagerImpl.parseID(studentID);
+        try (PooledConnection conn = pool.reader()) {
+            Connection c = conn.getConnection();
+            c.setAutoCommit(false);
+            try {
+                checkTime(conn, time);
+                PreparedStatement next = conn.prepare("SELECT prev_grade_code FROM grade_history "
+                        + "WHERE studentID = ? AND valid_from > ? ORDER BY valid_from, id LIMIT 1");
+                next.setLong(1, id);
+                next.setLong(2, time);
+                try (ResultSet rs = next.executeQuery()) {
+                    if (rs.next()) {
+                        int code = rs.getInt(1);
+                        return rs.wasNull() ? null : StudentManagerImpl.gradeFromCode(code);
+                    }
+                }
+                PreparedStatement current = conn.prepare("SELECT grade_code FROM students WHERE studentID = ?");
+                current.setLong(1, id);
+                try (ResultSet rs = current.executeQuery()) {
+                    return rs.next() ? StudentManagerImpl.gradeFromCode(rs.getInt(1)) : null;
+                }
+            } finally {
+                c.commit();
+                c.setAutoCommit(true);
+            }
+        }
+    }
+
+    // Oceny wszystkich studentów w chwili time (ID -> ocena, rosnąco po ID).
+    public Map<String, Double> getGradesAsOf(long time) throws SQLException {
+        // Studenci bez zmian po time – ocena obecna; pozostali – ocena sprzed ich pierwszej zmiany po time
+        String sql = "SELECT s.studentID, s.grade_code FROM students s WHERE NOT EXISTS ("
+                + "SELECT 1 FROM grade_history h WHERE h.studentID = s.studentID AND h.valid_from > ?1) "
+                + "UNION ALL "
+                + "SELECT h.studentID, h.prev_grade_code FROM grade_history h "
+                + "WHERE h.valid_from > ?1 AND h.prev_grade_code IS NOT NULL AND NOT EXISTS ("
+                + "SELECT 1 FROM grade_history e WHERE e.studentID = h.studentID AND e.valid_from > ?1 "
+                + "AND e.id < h.id) "
+                + "ORDER BY 1";
+        Map<String, Double> grades = new LinkedHashMap<>();
+        try (PooledConnection conn = pool.reader()) {
+            Connection c = conn.getConnection();
+            c.setAutoCommit(false);
+            try {
+                checkTime(conn, time);
+                PreparedStatement pstmt = conn.prepare(sql);
+                pstmt.setLong(1, time);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        grades.put(Long.toString(rs.getLong(1)), StudentManagerImpl.gradeFromCode(rs.getInt(2)));
+                    }
+                }
+            } finally {
+                c.commit();
+                c.setAutoCommit(true);
+            }
+        }
+        return grades;
+    }
+
+    // Statystyki ocen w chwili time: punkt kontrolny i zmiany od niego do time.
+    public GradeStatistics getGradeStatisticsAsOf(long time) throws SQLException {
+        long[] counts = new long[11];
+        try (PooledConnection conn = pool.reader()) {
+            Connection c = conn.getConnection();
+            c.setAutoCommit(false);
+            try {
+                checkTime(conn, time);
+                long last = lastIDAt(conn, time);
+                replay(conn, checkpointAt(conn, last), last, counts);
+            } finally {
+                c.commit();
+                c.setAutoCommit(true);
+            }
+        }
+        Map<Double, Long> histogram = new HashMap<>();
+        for (int code = 0; code < counts.length; code++) {
+            if (counts[code] != 0) {
+                histogram.put(StudentManagerImpl.gradeFromCode(code), counts[code]);
+            }
+        }
+        return new GradeStatistics(histogram);
+    }
+
+    public double calculateAverageGradeAsOf(long time) throws SQLException {
+        return getGradeStatisticsAsOf(time).getAverage();
+    }
+
+    // Usuwa historię sprzed chwili before; zwraca liczbę usuniętych wierszy. Najpierw zapisuje punkt
+    // kontrolny po ostatnim usuwanym wierszu, więc od tej chwili wszystkie zapytania nadal działają.
+    public int prune(long before) throws SQLException {
+        return pool.write(conn -> {
+            long last = lastIDAt(conn, before - 1);
+            if (last <= firstCheckpoint(conn)) {
+                return 0; // nic starszego niż najstarszy punkt kontrolny
+            }
+            long checkpoint = checkpointAt(conn, last);
+            if (checkpoint < last) {
+                long[] counts = new long[11];
+                replay(conn, checkpoint, last, counts);
+                long takenAt;
+                PreparedStatement time = conn.prepare("SELECT valid_from FROM grade_history WHERE id = ?");
+                time.setLong(1, last);
+                try (ResultSet rs = time.executeQuery()) {
+                    takenAt = rs.next() ? rs.getLong(1) : before - 1;
+                }
+                PreparedStatement insert = conn.prepare(
+                        "INSERT INTO grade_checkpoint(upto_id, taken_at, grade_code, cnt) VALUES (?, ?, ?, ?)");
+                for (int code : new int[] {4, 6, 7, 8, 9, 10}) {
+                    insert.setLong(1, last);
+                    insert.setLong(2, takenAt);
+                    insert.setInt(3, code);
+                    insert.setLong(4, counts[code]);
+                    insert.addBatch();
+                }
+                insert.executeBatch();
+            }
+            PreparedStatement checkpoints = conn.prepare("DELETE FROM grade_checkpoint WHERE upto_id < ?");
+            checkpoints.setLong(1, last);
+            checkpoints.executeUpdate();
+            PreparedStatement history = conn.prepare("DELETE FROM grade_history WHERE id <= ?");
+            history.setLong(1, last);
+            return history.executeUpdate();
+        });
+    }
+
+    // Liczba wierszy historii (pełny przegląd – do diagnostyki).
+    public long countHistoryRows() throws SQLException {
+        try (PooledConnection conn = pool.reader();
+             ResultSet rs = conn.prepare("SELECT COUNT(*) FROM grade_history").executeQuery()) {
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+
+    private static long start(PooledConnection conn) throws SQLException {
+        try (ResultSet rs = conn.prepare(
+                "SELECT taken_at FROM grade_checkpoint ORDER BY upto_id LIMIT 1").executeQuery()) {
+            return rs.next() ? rs.getLong(1) : Long.MAX_VALUE;
+        }
+    }
+
+    private static void checkTime(PooledConnection conn, long time) throws SQLException {
+        long start = start(conn);
+        if (time < start) {
+            throw new IllegalArgumentException("Grade history starts at " + start + ", requested " + time);
+        }
+    }
+
+    // Ostatni wiersz historii z valid_from <= time (0 – brak zachowanych wierszy).
+    private static long lastIDAt(PooledConnection conn, long time) throws SQLException {
+        PreparedStatement pstmt = conn.prepare(
+                "SELECT id FROM grade_history WHERE valid_from <= ? ORDER BY valid_from DESC, id DESC LIMIT 1");
+        pstmt.setLong(1, time);
+        try (ResultSet rs = pstmt.executeQuery()) {
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+
+    private static long firstCheckpoint(PooledConnection conn) throws SQLException {
+        try (ResultSet rs = conn.prepare("SELECT MIN(upto_id) FROM grade_checkpoint").executeQuery()) {
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+
+    // Najpóźniejszy punkt kontrolny nie dalej niż wiersz lastID; gdy lastID = 0 (wszystkie wcześniejsze
+    // wiersze usunięte) – najstarszy punkt kontrolny.
+    private static long checkpointAt(PooledConnection conn, long lastID) throws SQLException {
+        PreparedStatement pstmt = conn.prepare("SELECT MAX(upto_id) FROM grade_checkpoint WHERE upto_id <= ?");
+        pstmt.setLong(1, lastID);
+        try (ResultSet rs = pstmt.executeQuery()) {
+            if (rs.next()) {
+                long upto = rs.getLong(1);
+                if (!rs.wasNull()) {
+                    return upto;
+                }
+            }
+        }
+        return firstCheckpoint(conn);
+    }
+
+    // counts[kod oceny] = stan z punktu kontrolnego checkpoint + zmiany z wierszy (checkpoint, lastID].
+    private static void replay(PooledConnection conn, long checkpoint, long lastID, long[] counts)
+            throws SQLException {
+        PreparedStatement base = conn.prepare("SELECT grade_code, cnt FROM grade_checkpoint WHERE upto_id = ?");
+        base.setLong(1, checkpoint);
+        try (ResultSet rs = base.executeQuery()) {
+            while (rs.next()) {
+                counts[rs.getInt(1)] += rs.getLong(2);
+            }
+        }
+        if (lastID <= checkpoint) {
+            return;
+        }
+        PreparedStatement changes = conn.prepare(
+                "SELECT grade_code, prev_grade_code FROM grade_history WHERE id > ? AND id <= ?");
+        changes.setLong(1, checkpoint);
+        changes.setLong(2, lastID);
+        try (ResultSet rs = changes.executeQuery()) {
+            while (rs.next()) {
+                int code = rs.getInt(1);
+                if (!rs.wasNull()) {
+                    counts[code]++;
+                }
+                int prev = rs.getInt(2);
+                if (!rs.wasNull()) {
+                    counts[prev]--;
+                }
+            }
+        }
+    }
+
+    // Zatrzymanie automatycznego usuwania starej historii.
+    @Override
+    public void close() {
+        if (retention != null) {
+            retention.shutdownNow();
+        }
+    }
+}
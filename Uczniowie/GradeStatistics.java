@@ -0,0 +1,112 @@
+import java.util.Collections;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/*
+  Klasa GradeStatistics – statystyki ocen (liczba, suma, min, max, średnia, wariancja)
+  liczone z histogramu: ocena -> liczba studentów z tą oceną.
+  Ocen jest tylko kilka (2, 3, 3.5, 4, 4.5, 5), więc wszystko liczymy z kilku wierszy
+  tabeli grade_stats, bez przeglądania tabeli students.
+*/
+
+public class GradeStatistics {
+
+    private final SortedMap<Double, Long> histogram;
+    private final long count;
+    private final double sum;
+    private final double sumOfSquares;
+
+    // Konstruktor – histogram (ocena -> liczba studentów); zera są pomijane.
+    public GradeStatistics(Map<Double, Long> histogram) {
+        SortedMap<Double, Long> copy = new TreeMap<>();
+        long n = 0;
+        double s = 0.0;
+        double sq = 0.0;
+        for (Map.Entry<Double, Long> e : histogram.entrySet()) {
+            long cnt = e.getValue();
+            if (cnt <= 0) {
+                continue;
+            }
+            double grade = e.getKey();
+            copy.put(grade, cnt);
+            n += cnt;
+            s += grade * cnt;
+            sq += grade * grade * cnt;
+        }
+        this.histogram = Collections.unmodifiableSortedMap(copy);
+        this.count = n;
+        this.sum = s;
+        this.sumOfSquares = sq;
+    }
+
+    // Puste statystyki (brak studentów).
+    public static GradeStatistics empty() {
+        return new GradeStatistics(Collections.<Double, Long>emptyMap());
+    }
+
+    // Gettery
+    public long getCount() {
+        return count;
+    }
+
+    public double getSum() {
+        return sum;
+    }
+
+    public double getSumOfSquares() {
+        return sumOfSquares;
+    }
+
+    // Histogram: ocena -> liczba studentów (rosnąco po ocenie).
+    public SortedMap<Double, Long> getHistogram() {
+        return histogram;
+    }
+
+    // Jeśli brak studentów, zwracamy 0.0 (żeby uniknąć dzielenia przez zero).
+    public double getAverage() {
+        return count == 0 ? 0.0 : sum / count;
+    }
+
+    public double getMin() {
+        return count == 0 ? 0.0 : histogram.firstKey();
+    }
+
+    public double getMax() {
+        return count == 0 ? 0.0 : histogram.lastKey();
+    }
+
+    // Wariancja populacji – liczona z histogramu (dokładniej niż sumOfSquares/n - avg^2).
+    public double getVariance() {
+        if (count == 0) {
+            return 0.0;
+        }
+        double avg = getAverage();
+        double v = 0.0;
+        for (Map.Entry<Double, Long> e : histogram.entrySet()) {
+            double d = e.getKey() - avg;
+            v += d * d * e.getValue();
+        }
+        return v / count;
+    }
+
+    public double getStandardDeviation() {
+        return Math.sqrt(getVariance());
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof GradeStatistics && histogram.equals(((GradeStatistics) o).histogram);
+    }
+
+    @Override
+    public int hashCode() {
+        return histogram.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Students: %d, Average: %.3f, Min: %s, Max: %s, Std dev: %.3f, Distribution: %s",
+                count, getAverage(), getMin(), getMax(), getStandardDeviation(), histogram);
+    }
+}
@@ -0,0 +1,208 @@
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/*
+  Klasa GroupCommitWriter – jedna kolejka zapisów dla wielu wątków.
+  - execute(task) wstawia zapis do kolejki i czeka, aż zostanie zatwierdzony
+  - jeden wątek zapisujący zbiera wszystko, co czeka w kolejce (najwyżej maxGroupSize),
+    i wykonuje to w JEDNEJ transakcji – jeden COMMIT (jeden fsync) na całą grupę
+  - każde zadanie ma swój SAVEPOINT: błąd jednego (np. CHECK) wycofuje tylko jego,
+    reszta grupy jest zatwierdzana
+  - SQLITE_BUSY przy zapisie grupy – wycofanie i ponowienie całej grupy (jak pool.write)
+  Jeden wątek nie zyskuje nic (czeka na swój COMMIT jak wcześniej); zysk jest przy wielu
+  wątkach piszących naraz – wtedy czekające zapisy dzielą jeden COMMIT.
+  Rozmiar grup – w StudentMetrics (operacja "group commit": rows = zapisów w grupie).
+*/
+
+public class GroupCommitWriter implements AutoCloseable {
+
+    // Zapis w kolejce z przyszłym wynikiem.
+    private static final class Pending<T> {
+        final WriteTask<T> task;
+        final CompletableFuture<T> result = new CompletableFuture<>();
+        T value;
+        Throwable error;
+
+        Pending(WriteTask<T> task) {
+            this.task = task;
+        }
+
+        void run(PooledConnection conn) throws SQLException {
+            value = task.run(conn);
+        }
+
+        void complete() {
+            if (error != null) {
+                result.completeExceptionally(error);
+            } else {
+                result.complete(value);
+            }
+        }
+    }
+
+    private final SQLiteConnectionPool pool;
+    private final int maxGroupSize;
+    private final LinkedBlockingQueue<Pending<?>> queue = new LinkedBlockingQueue<>();
+    private final OperationMetrics commits;
+    private final Thread thread;
+    // Sprawdzenie closed i dodanie do kolejki są atomowe względem zamknięcia (inaczej zapis dodany
+    // po ostatnim obiegu pętli i po opróżnieniu kolejki w close() czekałby bez końca).
+    private final Object closeLock = new Object();
+    private volatile boolean closed;
+
+    public GroupCommitWriter(SQLiteConnectionPool pool, int maxGroupSize) {
+        this.pool = pool;
+        this.maxGroupSize = maxGroupSize;
+        this.commits = pool.getStudentMetrics().operation("group commit");
+        this.thread = new Thread(this::loop, "student-group-commit");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    // Zapis przez kolejkę; wraca po zatwierdzeniu grupy (wynik zadania albo jego błąd).
+    public <T> T execute(WriteTask<T> task) throws SQLException {
+        if (Thread.currentThread() == thread) {
+            throw new IllegalStateException("Write task must not enqueue another write");
+        }
+        Pending<T> pending = new Pending<>(task);
+        synchronized (closeLock) {
+            if (closed) {
+                throw new SQLException("Write queue is closed");
+            }
+            queue.add(pending);
+        }
+        try {
+            return pending.result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a write", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof SQLException) {
+                throw (SQLException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new SQLException(cause);
+        }
+    }
+
+    // Ile zapisów czeka w kolejce.
+    public int getQueueSize() {
+        return queue.size();
+    }
+
+    private void loop() {
+        List<Pending<?>> group = new ArrayList<>(maxGroupSize);
+        while (!closed || !queue.isEmpty()) {
+            try {
+                Pending<?> first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                group.add(first);
+                queue.drainTo(group, maxGroupSize - 1);
+                commitGroup(group);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException | Error e) {
+                for (Pending<?> p : group) {
+                    p.result.completeExceptionally(e);
+                }
+            } finally {
+                group.clear();
+            }
+        }
+    }
+
+    // Jedna transakcja dla całej grupy, ponawiana przy SQLITE_BUSY.
+    private void commitGroup(List<Pending<?>> group) {
+        long start = System.nanoTime();
+        for (int attempt = 0; ; attempt++) {
+            try {
+                runGroup(group);
+                commits.record(System.nanoTime() - start, group.size(), false);
+                for (Pending<?> p : group) {
+                    p.complete();
+                }
+                return;
+            } catch (SQLException e) {
+                boolean retry = SQLiteConnectionPool.isBusy(e) && attempt < pool.getConfig().getMaxRetries();
+                if (retry) {
+                    try {
+                        pool.backoff(attempt);
+                        continue;
+                    } catch (SQLException interrupted) {
+                        e = interrupted;
+                    }
+                }
+                commits.record(System.nanoTime() - start, 0, true);
+                for (Pending<?> p : group) {
+                    p.result.completeExceptionally(e);
+                }
+                return;
+            }
+        }
+    }
+
+    private void runGroup(List<Pending<?>> group) throws SQLException {
+        try (PooledConnection conn = pool.writer();
+             Statement stmt = conn.getConnection().createStatement()) {
+            Connection c = conn.getConnection();
+            SQLiteConnectionPool.begin(c);
+            try {
+                for (Pending<?> p : group) {
+                    p.value = null;
+                    p.error = null;
+                    stmt.execute("SAVEPOINT task");
+                    try {
+                        p.run(conn);
+                        stmt.execute("RELEASE task");
+                    } catch (SQLException e) {
+                        if (SQLiteConnectionPool.isBusy(e)) {
+                            throw e; // cała grupa do ponowienia
+                        }
+                        stmt.execute("ROLLBACK TO task");
+                        stmt.execute("RELEASE task");
+                        p.error = e;
+                    } catch (RuntimeException e) {
+                        stmt.execute("ROLLBACK TO task");
+                        stmt.execute("RELEASE task");
+                        p.error = e;
+                    }
+                }
+            } catch (SQLException | RuntimeException e) {
+                SQLiteConnectionPool.rollback(c, e);
+                throw e;
+            }
+            SQLiteConnectionPool.commit(c);
+        }
+    }
+
+    // Zatwierdza to, co jest w kolejce, i kończy wątek zapisujący.
+    @Override
+    public void close() {
+        synchronized (closeLock) {
+            closed = true; // od teraz nic nie trafia do kolejki; to, co już jest, pętla zapisze
+        }
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // Zostaje tylko wtedy, gdy wątek zapisujący został przerwany
+        Pending<?> late;
+        while ((late = queue.poll()) != null) {
+            late.result.completeExceptionally(new SQLException("Write queue is closed"));
+        }
+    }
+}
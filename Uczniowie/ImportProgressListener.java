@@ -0,0 +1,7 @@
+// Interfejs ImportProgressListener – powiadomienie o postępie importu.
+// Wywoływany po każdej zatwierdzonej paczce (z wątku, który wykonuje import).
+
+public interface ImportProgressListener {
+    // processed – ile wierszy już przetworzono, accepted – ile dodano, rejected – ile odrzucono.
+    void onProgress(int processed, int accepted, int rejected);
+}
@@ -0,0 +1,97 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/*
+  Klasa ImportResult – wynik importu wielu studentów naraz (addStudents / StudentCsvImporter).
+  - ile wierszy przetworzono i ile dodano do bazy
+  - lista odrzuconych wierszy z numerem wiersza, ID i powodem
+  - czas trwania importu
+*/
+
+public class ImportResult {
+
+    // Odrzucony wiersz (row liczony od 1, w kolejności danych wejściowych).
+    public static class Rejected {
+        private final int row;
+        private final String studentID;
+        private final String reason;
+
+        public Rejected(int row, String studentID, String reason) {
+            this.row = row;
+            this.studentID = studentID;
+            this.reason = reason;
+        }
+
+        public int getRow() {
+            return row;
+        }
+
+        public String getStudentID() {
+            return studentID;
+        }
+
+        public String getReason() {
+            return reason;
+        }
+
+        @Override
+        public String toString() {
+            return "Row " + row + " (ID: " + studentID + "): " + reason;
+        }
+    }
+
+    private int processed;
+    private int accepted;
+    private final List<Rejected> rejected = new ArrayList<>();
+    private final long startNanos = System.nanoTime();
+    private long elapsedMillis = -1;
+
+    // Metody do wypełniania wyniku w trakcie importu
+    public void addProcessed(int count) {
+        processed += count;
+    }
+
+    public void addAccepted(int count) {
+        accepted += count;
+    }
+
+    public void addRejected(int row, String studentID, String reason) {
+        rejected.add(new Rejected(row, studentID, reason));
+    }
+
+    // Zapamiętuje czas trwania importu (wywoływane na końcu).
+    public void finish() {
+        elapsedMillis = (System.nanoTime() - startNanos) / 1_000_000;
+    }
+
+    // Gettery
+    public int getProcessed() {
+        return processed;
+    }
+
+    public int getAccepted() {
+        return accepted;
+    }
+
+    public int getRejectedCount() {
+        return rejected.size();
+    }
+
+    public List<Rejected> getRejected() {
+        return Collections.unmodifiableList(rejected);
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    // Krótkie podsumowanie importu
+    @Override
+    public String toString() {
+        return "Processed: " + processed
+                + ", Added: " + accepted
+                + ", Rejected: " + rejected.size()
+                + ", Time: " + elapsedMillis + " ms";
+    }
+}
@@ -0,0 +1,131 @@
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/*
+  Klasa InstrumentedStatement – PreparedStatement (i jego ResultSet) z pomiarem czasu.
+  PooledConnection owija nim zapytania z cache, gdy metryki są włączone (SQLitePoolConfig).
+  - executeUpdate / executeBatch / execute: czas wywołania, liczba zmienionych wierszy
+  - executeQuery: czas executeQuery + wszystkich rs.next() (czas w sterowniku, bez pracy
+    wywołującego między wierszami), liczba zwróconych wierszy; zapis przy końcu wyników albo close
+  - SQLException z tych metod liczymy jako błąd
+  Pozostałe metody (setXxx, getXxx) idą prosto do sterownika.
+*/
+
+final class InstrumentedStatement implements InvocationHandler {
+
+    private final PreparedStatement target;
+    private final OperationMetrics metrics;
+
+    private InstrumentedStatement(PreparedStatement target, OperationMetrics metrics) {
+        this.target = target;
+        this.metrics = metrics;
+    }
+
+    static PreparedStatement wrap(PreparedStatement target, OperationMetrics metrics) {
+        return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                new Class<?>[] {PreparedStatement.class}, new InstrumentedStatement(target, metrics));
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        String name = method.getName();
+        if (!name.startsWith("execute") || (args != null && args.length > 0)) {
+            return call(target, method, args);
+        }
+        long start = System.nanoTime();
+        Object result;
+        try {
+            result = call(target, method, args);
+        } catch (SQLException e) {
+            metrics.record(System.nanoTime() - start, 0, true);
+            throw e;
+        }
+        long elapsed = System.nanoTime() - start;
+        if (result instanceof ResultSet) {
+            return Results.wrap((ResultSet) result, metrics, elapsed);
+        }
+        metrics.record(elapsed, rows(result), false);
+        return result;
+    }
+
+    private static long rows(Object result) {
+        if (result instanceof Integer || result instanceof Long) {
+            return ((Number) result).longValue();
+        }
+        if (result instanceof int[]) {
+            long sum = 0;
+            for (int n : (int[]) result) {
+                sum += Math.max(0, n); // SUCCESS_NO_INFO (-2) nie liczymy
+            }
+            return sum;
+        }
+        return 0;
+    }
+
+    private static Object call(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    // ResultSet, który sumuje czas next() i liczy wiersze.
+    private static final class Results implements InvocationHandler {
+        private final ResultSet target;
+        private final OperationMetrics metrics;
+        private long nanos;
+        private long rows;
+        private boolean recorded;
+
+        private Results(ResultSet target, OperationMetrics metrics, long nanos) {
+            this.target = target;
+            this.metrics = metrics;
+            this.nanos = nanos;
+        }
+
+        static ResultSet wrap(ResultSet target, OperationMetrics metrics, long nanos) {
+            return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(),
+                    new Class<?>[] {ResultSet.class}, new Results(target, metrics, nanos));
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.equals("next")) {
+                long start = System.nanoTime();
+                boolean more;
+                try {
+                    more = target.next();
+                } catch (SQLException e) {
+                    nanos += System.nanoTime() - start;
+                    finish(true);
+                    throw e;
+                }
+                nanos += System.nanoTime() - start;
+                if (more) {
+                    rows++;
+                } else {
+                    finish(false);
+                }
+                return more;
+            }
+            if (name.equals("close")) {
+                finish(false);
+            }
+            return call(target, method, args);
+        }
+
+        private void finish(boolean error) {
+            if (!recorded) {
+                recorded = true;
+                metrics.record(nanos, rows, error);
+            }
+        }
+    }
+}
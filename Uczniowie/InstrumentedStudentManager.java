@@ -0,0 +1,143 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+/*
+  Klasa InstrumentedStudentManager – pomiar każdej metody innego StudentManager
+  (grupa "operation" w StudentMetrics): czas, liczba wierszy zwróconych / zmienionych
+  i błędy (wyjątek z metody). Sama nic nie zmienia w wynikach – tylko przekazuje wywołania.
+  W GUI stoi przed cache, więc mierzy czas widziany przez użytkownika.
+*/
+
+public class InstrumentedStudentManager implements StudentManager {
+
+    private final StudentManager delegate;
+    private final StudentMetrics metrics;
+
+    public InstrumentedStudentManager(StudentManager delegate, StudentMetrics metrics) {
+        this.delegate = delegate;
+        this.metrics = metrics;
+    }
+
+    public StudentManager getDelegate() {
+        return delegate;
+    }
+
+    public StudentMetrics getMetrics() {
+        return metrics;
+    }
+
+    // Wywołanie z pomiarem; rows – ile wierszy dotyczył wynik.
+    private <T> T timed(String operation, Supplier<T> call, ToLongFunction<T> rows) {
+        OperationMetrics m = metrics.operation(operation);
+        long start = System.nanoTime();
+        T result;
+        try {
+            result = call.get();
+        } catch (RuntimeException | Error e) {
+            m.record(System.nanoTime() - start, 0, true);
+            throw e;
+        }
+        m.record(System.nanoTime() - start, rows.applyAsLong(result), false);
+        return result;
+    }
+
+    private static long one(Boolean b) {
+        return b ? 1 : 0;
+    }
+
+    @Override
+    public boolean addStudent(Student student) {
+        return timed("addStudent", () -> delegate.addStudent(student), InstrumentedStudentManager::one);
+    }
+
+    @Override
+    public ImportResult addStudents(Iterable<Student> students, ImportProgressListener listener) {
+        return timed("addStudents", () -> delegate.addStudents(students, listener), ImportResult::getAccepted);
+    }
+
+    @Override
+    public boolean studentExists(String studentID) {
+        return timed("studentExists", () -> delegate.studentExists(studentID), InstrumentedStudentManager::one);
+    }
+
+    @Override
+    public Student findStudent(String studentID) {
+        return timed("findStudent", () -> delegate.findStudent(studentID), s -> s != null ? 1 : 0);
+    }
+
+    @Override
+    public boolean removeStudent(String studentID) {
+        return timed("removeStudent", () -> delegate.removeStudent(studentID), InstrumentedStudentManager::one);
+    }
+
+    @Override
+    public int updateStudent(Student student) {
+        return timed("updateStudent", () -> delegate.updateStudent(student), Integer::longValue);
+    }
+
+    @Override
+    public int updateFields(String studentID, StudentChanges changes) {
+        return timed("updateFields", () -> delegate.updateFields(studentID, changes), Integer::longValue);
+    }
+
+    @Override
+    public int updateGrades(Map<String, Double> gradesByID) {
+        return timed("updateGrades", () -> delegate.updateGrades(gradesByID), Integer::longValue);
+    }
+
+    @Override
+    public ArrayList<Student> displayAllStudents() {
+        return timed("displayAllStudents", delegate::displayAllStudents, List::size);
+    }
+
+    @Override
+    public int countStudents() {
+        return timed("countStudents", delegate::countStudents, n -> 0);
+    }
+
+    @Override
+    public List<Student> findStudentsAfter(String afterStudentID, int limit) {
+        return timed("findStudentsAfter", () -> delegate.findStudentsAfter(afterStudentID, limit), List::size);
+    }
+
+    @Override
+    public List<Student> findStudentsPage(int offset, int limit) {
+        return timed("findStudentsPage", () -> delegate.findStudentsPage(offset, limit), List::size);
+    }
+
+    @Override
+    public List<Student> findStudents(StudentQuery query) {
+        return timed("findStudents", () -> delegate.findStudents(query), List::size);
+    }
+
+    @Override
+    public int countStudents(StudentQuery query) {
+        return timed("countStudents(query)", () -> delegate.countStudents(query), n -> 0);
+    }
+
+    @Override
+    public void forEachStudent(int fetchSize, Consumer<Student> visitor) {
+        long[] visited = new long[1];
+        timed("forEachStudent", () -> {
+            delegate.forEachStudent(fetchSize, s -> {
+                visited[0]++;
+                visitor.accept(s);
+            });
+            return visited;
+        }, v -> v[0]);
+    }
+
+    @Override
+    public double calculateAverageGrade() {
+        return timed("calculateAverageGrade", delegate::calculateAverageGrade, avg -> 0);
+    }
+
+    @Override
+    public GradeStatistics getGradeStatistics() {
+        return timed("getGradeStatistics", delegate::getGradeStatistics, stats -> 0);
+    }
+}
@@ -0,0 +1,131 @@
+import java.util.Arrays;
+
+/*
+  Klasa LongIntHashMap – mapa long -> int na dwóch tablicach (bez obiektów Long / Integer).
+  Używana jako indeks "ID studenta -> numer wiersza" w ColumnarStudentManager:
+  - adresowanie otwarte, próbkowanie liniowe, wypełnienie najwyżej 2/3
+  - klucze muszą być >= 0 (ID studenta); -1 oznacza pusty kubełek
+  - get zwraca -1, gdy klucza nie ma
+  Klasa nie jest bezpieczna wątkowo – synchronizuje ją właściciel.
+*/
+
+public class LongIntHashMap {
+
+    private static final long EMPTY = -1L;
+
+    private long[] keys;
+    private int[] values;
+    private int size;
+    private int mask;
+    private int resizeAt;
+
+    public LongIntHashMap() {
+        this(16);
+    }
+
+    public LongIntHashMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, expectedSize * 3 / 2) - 1) << 1;
+        allocate(capacity);
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        Arrays.fill(keys, EMPTY);
+        values = new int[capacity];
+        mask = capacity - 1;
+        resizeAt = capacity / 3 * 2;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Numer kubełka dla klucza (mieszanie bitów – kolejne ID nie lądują obok siebie).
+    private int slot(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    public int get(long key) {
+        for (int i = slot(key); ; i = (i + 1) & mask) {
+            long k = keys[i];
+            if (k == key) {
+                return values[i];
+            }
+            if (k == EMPTY) {
+                return -1;
+            }
+        }
+    }
+
+    public boolean containsKey(long key) {
+        return get(key) >= 0;
+    }
+
+    public void put(long key, int value) {
+        if (key < 0) {
+            throw new IllegalArgumentException("key must not be negative: " + key);
+        }
+        for (int i = slot(key); ; i = (i + 1) & mask) {
+            long k = keys[i];
+            if (k == key) {
+                values[i] = value;
+                return;
+            }
+            if (k == EMPTY) {
+                keys[i] = key;
+                values[i] = value;
+                if (++size > resizeAt) {
+                    rehash(keys.length * 2);
+                }
+                return;
+            }
+        }
+    }
+
+    // Usuwa klucz; kolejne wpisy z tego samego ciągu przesuwamy w lukę,
+    // żeby get nie zatrzymał się na pustym kubełku (bez znaczników "usunięto").
+    public void remove(long key) {
+        int i = slot(key);
+        while (keys[i] != key) {
+            if (keys[i] == EMPTY) {
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+        size--;
+        int gap = i;
+        for (int j = (gap + 1) & mask; keys[j] != EMPTY; j = (j + 1) & mask) {
+            int home = slot(keys[j]);
+            // Wpis z j może wejść w lukę, jeśli jego kubełek domowy nie leży między luką a j
+            if (((j - home) & mask) >= ((j - gap) & mask)) {
+                keys[gap] = keys[j];
+                values[gap] = values[j];
+                gap = j;
+            }
+        }
+        keys[gap] = EMPTY;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, EMPTY);
+        size = 0;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(capacity);
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                put(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+
+    // Przybliżony rozmiar w pamięci (tablice kluczy i wartości).
+    public long memoryBytes() {
+        return keys.length * 8L + values.length * 4L;
+    }
+}
@@ -0,0 +1,612 @@
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/*
+  Klasa NameSearchIndex – wyszukiwanie studentów po imieniu (fragmencie, z literówką) w pamięci,
+  np. przy każdym naciśnięciu klawisza w polu wyszukiwania.
+  - indeksujemy imiona różne (bez wielkości liter) z liczbą studentów o danym imieniu, a nie
+    samych studentów: imion jest dużo mniej, a studentów do pokazania pobieramy z managera
+    (findStudents z namePrefix – zakres w indeksie idx_students_name)
+  - dopasowania, od najlepszych: EXACT (całe imię), PREFIX (początek), SUBSTRING (fragment),
+    FUZZY (odległość edycyjna Levenshteina <= 1; <= 2 dla zapytań od 8 liter, jeśli trigramy
+    wystarczająco zawężają kandydatki);
+    w obrębie rodzaju – mniejsza odległość, imię długością bliższe zapytaniu, alfabetycznie
+  - imiona pogrupowane według długości, w każdej grupie alfabetycznie – PREFIX (zakres w grupie)
+    przeglądamy od najkrótszych, czyli w kolejności wyników, i kończymy po limit imionach
+  - SUBSTRING / FUZZY: trigramy imion z brzegami ("$ann", "nna$" -> "$an", "ann", "nna", "na$")
+    i listy imion dla każdego trigramu; fragment musi mieć wszystkie swoje trigramy, a imię odległe
+    o k edycji ma co najmniej (trigramy zapytania - 3k) wspólnych – tylko takie kandydatki
+    sprawdzamy dokładnie (przy krótkich zapytaniach sprawdzamy wszystkie imiona o pasującej długości)
+  - aktualność: follow(db) wczytuje liczności imion i numer ostatniej zmiany w jednej transakcji
+    odczytu, potem stosuje zmiany ze StudentChangeFeed (dodanie, zmiana imienia, usunięcie –
+    także import, zapisy w tle i inne procesy); magazyny bez tabeli change_log: build(manager)
+    tworzy indeks z bieżącej zawartości, a add / remove / apply aktualizują go ręcznie
+  Imię, którego nikt już nie nosi, zostaje w indeksie z licznością 0 (nie pojawia się w wynikach).
+*/
+
+public class NameSearchIndex implements AutoCloseable {
+
+    // Rodzaj dopasowania – w kolejności od najlepszego.
+    public enum MatchType {
+        EXACT, PREFIX, SUBSTRING, FUZZY
+    }
+
+    // Jedno imię w wynikach wyszukiwania.
+    public static final class Match {
+        private final String name;
+        private final int students;
+        private final MatchType type;
+        private final int distance;
+
+        Match(String name, int students, MatchType type, int distance) {
+            this.name = name;
+            this.students = students;
+            this.type = type;
+            this.distance = distance;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        // Liczba studentów o tym imieniu (w chwili wyszukiwania).
+        public int getStudents() {
+            return students;
+        }
+
+        public MatchType getType() {
+            return type;
+        }
+
+        // Odległość edycyjna od zapytania (0 poza FUZZY).
+        public int getDistance() {
+            return distance;
+        }
+
+        @Override
+        public String toString() {
+            return name + " (" + type + (type == MatchType.FUZZY ? " " + distance : "") + ", " + students + ")";
+        }
+    }
+
+    // Kolejność wyników (zob. opis klasy): dopasowanie (type, distance, name) względem m;
+    // queryLength – długość zapytania.
+    private static int compare(MatchType type, int distance, String name, Match m, int queryLength) {
+        int c = type.compareTo(m.type);
+        if (c == 0) {
+            c = Integer.compare(distance, m.distance);
+        }
+        if (c == 0) {
+            c = Integer.compare(Math.abs(name.length() - queryLength), Math.abs(m.name.length() - queryLength));
+        }
+        return c != 0 ? c : name.compareToIgnoreCase(m.name);
+    }
+
+    // Najlepsze limit wyników jednego wyszukiwania (kopiec z najgorszym na wierzchu).
+    private static final class Results {
+        final int queryLength;
+        final int limit;
+        final Comparator<Match> order;
+        final PriorityQueue<Match> heap;
+
+        Results(int queryLength, int limit) {
+            this.queryLength = queryLength;
+            this.limit = limit;
+            this.order = (a, b) -> compare(a.type, a.distance, a.name, b, queryLength);
+            this.heap = new PriorityQueue<>(limit + 1, order.reversed());
+        }
+
+        boolean isFull() {
+            return heap.size() >= limit;
+        }
+
+        // Porównanie z najgorszym wynikiem bez tworzenia obiektu – większość kandydatek odpada tutaj.
+        void offer(Entry e, MatchType type, int distance) {
+            if (heap.size() < limit) {
+                heap.add(new Match(e.name, e.students, type, distance));
+            } else if (compare(type, distance, e.name, heap.peek(), queryLength) < 0) {
+                heap.poll();
+                heap.add(new Match(e.name, e.students, type, distance));
+            }
+        }
+
+        List<Match> toList() {
+            Match[] result = heap.toArray(new Match[0]);
+            Arrays.sort(result, order);
+            return Arrays.asList(result);
+        }
+    }
+
+    // Trigramy: 0 = brzeg imienia, 1..26 = a..z.
+    private static final int ALPHABET = 27;
+    private static final int BOUNDARY = 0;
+
+    // Imię (małymi literami) z licznością i numerem (pozycja w entries, indeks list trigramów).
+    private static final class Entry {
+        final int id;
+        final String key;
+        final String name;
+        int students;
+
+        Entry(int id, String key, String name) {
+            this.id = id;
+            this.key = key;
+            this.name = name;
+        }
+    }
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Entry> byKey = new HashMap<>();
+    // byLength.get(n) – imiona o n literach, posortowane
+    private final ArrayList<TreeMap<String, Entry>> byLength = new ArrayList<>();
+    private final ArrayList<Entry> entries = new ArrayList<>();
+    // Dla każdego trigramu: numery imion, które go zawierają (tylko dopisywane)
+    private final int[][] postings = new int[ALPHABET * ALPHABET * ALPHABET][];
+    private final int[] postingSizes = new int[ALPHABET * ALPHABET * ALPHABET];
+    private long studentCount;
+    private final List<StudentChangeFeed> feeds = new ArrayList<>();
+
+    public NameSearchIndex() {
+    }
+
+    // Indeks z bieżącej zawartości dowolnego magazynu (bez śledzenia późniejszych zmian).
+    public static NameSearchIndex build(StudentManager manager) {
+        NameSearchIndex index = new NameSearchIndex();
+        index.lock.writeLock().lock();
+        try {
+            manager.forEachStudent(10_000, s -> index.addLocked(s.getName(), 1));
+        } finally {
+            index.lock.writeLock().unlock();
+        }
+        return index;
+    }
+
+    // Dołącza bazę SQLite: jej imiona i zmiany (StudentChangeFeed) od tej chwili.
+    // Można dołączyć kilka baz (np. części ShardedStudentManager) – liczności się sumują.
+    public void follow(StudentManagerImpl db) throws SQLException {
+        long latest = load(db);
+        StudentChangeFeed feed = new StudentChangeFeed(db);
+        synchronized (feeds) {
+            feeds.add(feed);
+        }
+        feed.subscribe(latest, new StudentChangeFeed.Subscriber<StudentChange>() {
+            @Override
+            public void onSubscribe(StudentChangeFeed.Subscription subscription) {
+                subscription.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(StudentChange change) {
+                apply(change);
+            }
+
+            @Override
+            public void onError(Throwable error) {
+                // Luka w dzienniku (pruneChangeLog) – indeks trzeba zbudować od nowa
+                error.printStackTrace();
+            }
+
+            @Override
+            public void onComplete() {
+            }
+        });
+    }
+
+    // Liczności imion i numer ostatniej zmiany z jednej migawki bazy (jedna transakcja odczytu),
+    // więc zmiany od numeru latest nie są jeszcze w licznościach.
+    private long load(StudentManagerImpl db) throws SQLException {
+        try (PooledConnection conn = db.getPool().reader()) {
+            Connection c = conn.getConnection();
+            c.setAutoCommit(false);
+            try {
+                long latest;
+                PreparedStatement seq = conn.prepare(
+                        "SELECT coalesce((SELECT seq FROM sqlite_sequence WHERE name = 'change_log'), 0)");
+                try (ResultSet rs = seq.executeQuery()) {
+                    latest = rs.next() ? rs.getLong(1) : 0;
+                }
+                // GROUP BY z COLLATE NOCASE idzie po indeksie idx_students_name (bez sortowania)
+                PreparedStatement names = conn.prepare(
+                        "SELECT name, count(*) FROM students GROUP BY name COLLATE NOCASE");
+                lock.writeLock().lock();
+                try (ResultSet rs = names.executeQuery()) {
+                    while (rs.next()) {
+                        addLocked(rs.getString(1), rs.getInt(2));
+                    }
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                return latest;
+            } finally {
+                c.commit();
+                c.setAutoCommit(true);
+            }
+        }
+    }
+
+    // Zmiana ze StudentChangeFeed (albo z innego źródła o tym samym kształcie).
+    public void apply(StudentChange change) {
+        switch (change.getType()) {
+            case ADD:
+                add(change.getAfter().getName());
+                break;
+            case REMOVE:
+                remove(change.getBefore().getName());
+                break;
+            case UPDATE:
+                rename(change.getBefore().getName(), change.getAfter().getName());
+                break;
+            default:
+                break;
+        }
+    }
+
+    // Nowy student o imieniu name.
+    public void add(String name) {
+        lock.writeLock().lock();
+        try {
+            addLocked(name, 1);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Usunięto studenta o imieniu name.
+    public void remove(String name) {
+        lock.writeLock().lock();
+        try {
+            Entry e = byKey.get(name.toLowerCase(Locale.ROOT));
+            if (e != null && e.students > 0) {
+                e.students--;
+                studentCount--;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Student zmienił imię z oldName na newName.
+    public void rename(String oldName, String newName) {
+        if (oldName.equalsIgnoreCase(newName)) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            Entry e = byKey.get(oldName.toLowerCase(Locale.ROOT));
+            if (e != null && e.students > 0) {
+                e.students--;
+                studentCount--;
+            }
+            addLocked(newName, 1);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void addLocked(String name, int students) {
+        String key = name.toLowerCase(Locale.ROOT);
+        Entry e = byKey.get(key);
+        if (e == null) {
+            e = new Entry(entries.size(), key, name);
+            entries.add(e);
+            byKey.put(key, e);
+            while (byLength.size() <= key.length()) {
+                byLength.add(new TreeMap<>());
+            }
+            byLength.get(key.length()).put(key, e);
+            for (int gram : grams(key, true)) {
+                int[] list = postings[gram];
+                int size = postingSizes[gram];
+                if (list == null) {
+                    list = postings[gram] = new int[4];
+                } else if (size == list.length) {
+                    list = postings[gram] = Arrays.copyOf(list, size * 2);
+                }
+                list[size] = e.id;
+                postingSizes[gram] = size + 1;
+            }
+        }
+        e.students += students;
+        studentCount += students;
+    }
+
+    // Najwyżej limit imion pasujących do query, od najlepszego dopasowania.
+    // Znaki spoza a–z w zapytaniu pomijamy (imiona składają się tylko z liter).
+    public List<Match> search(String query, int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("limit must be at least 1");
+        }
+        String q = normalize(query);
+        if (q.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Results results = new Results(q.length(), limit);
+
+        lock.readLock().lock();
+        try {
+            // Rodzaje dopasowań są rozłączne i coraz gorsze – gdy mamy już limit wyników,
+            // następny rodzaj niczego nie zmieni
+            Entry exact = byKey.get(q);
+            if (exact != null && exact.students > 0) {
+                results.offer(exact, MatchType.EXACT, 0);
+            }
+            // Dłuższe imiona są dalej w wynikach – po limit imionach kończymy
+            for (int length = q.length() + 1; length < byLength.size() && !results.isFull(); length++) {
+                for (Entry e : byLength.get(length).subMap(q, q + '{').values()) {
+                    if (e.students > 0) {
+                        results.offer(e, MatchType.PREFIX, 0);
+                        if (results.isFull()) {
+                            break;
+                        }
+                    }
+                }
+            }
+            if (!results.isFull()) {
+                searchSubstring(q, results);
+            }
+            if (!results.isFull() && q.length() >= 3) {
+                searchFuzzy(q, results);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return results.toList();
+    }
+
+    // Imiona zawierające q, ale nie na początku.
+    private void searchSubstring(String q, Results results) {
+        if (q.length() == 1) {
+            // Za krótkie na trigram – imiona po kolei w kolejności wyników (jak PREFIX)
+            char c = q.charAt(0);
+            for (int length = 2; length < byLength.size(); length++) {
+                for (Entry e : byLength.get(length).values()) {
+                    if (e.students > 0 && e.key.charAt(0) != c && e.key.indexOf(c, 1) > 0) {
+                        results.offer(e, MatchType.SUBSTRING, 0);
+                        if (results.isFull()) {
+                            return;
+                        }
+                    }
+                }
+            }
+            return;
+        }
+        if (q.length() == 2) {
+            // Kandydatki z list trigramów "q?" (? – dowolna litera albo brzeg); imię z kilku list
+            // bierzemy tylko z listy znaku po pierwszym wystąpieniu q
+            int first = (code(q.charAt(0)) * ALPHABET + code(q.charAt(1))) * ALPHABET;
+            for (int next = 0; next < ALPHABET; next++) {
+                int[] list = postings[first + next];
+                for (int i = 0, n = postingSizes[first + next]; i < n; i++) {
+                    Entry e = entries.get(list[i]);
+                    int at = e.key.indexOf(q, 1);
+                    if (e.students > 0 && at > 0 && !e.key.startsWith(q)
+                            && (at + 2 < e.key.length() ? code(e.key.charAt(at + 2)) : BOUNDARY) == next) {
+                        results.offer(e, MatchType.SUBSTRING, 0);
+                    }
+                }
+            }
+            return;
+        }
+        // Kandydatki z najkrótszej listy trigramu zapytania – każde pasujące imię ją zawiera
+        int[] shortest = null;
+        int shortestSize = Integer.MAX_VALUE;
+        for (int gram : grams(q, false)) {
+            if (postingSizes[gram] < shortestSize) {
+                shortest = postings[gram];
+                shortestSize = postingSizes[gram];
+            }
+        }
+        for (int i = 0; i < shortestSize; i++) {
+            Entry e = entries.get(shortest[i]);
+            if (e.students > 0 && !e.key.startsWith(q) && e.key.indexOf(q, 1) > 0) {
+                results.offer(e, MatchType.SUBSTRING, 0);
+            }
+        }
+    }
+
+    // Imiona odległe o kilka edycji, które nie zawierają q (te są już wyżej).
+    private void searchFuzzy(String q, Results results) {
+        int[] queryGrams = grams(q, true);
+        // Każda edycja psuje najwyżej 3 trigramy zapytania; 2 edycje tylko wtedy, gdy zostają
+        // co najmniej 2 wspólne trigramy – inaczej trzeba by sprawdzać prawie wszystkie imiona
+        int maxDistance = q.length() >= 8 && queryGrams.length - 6 >= 2 ? 2 : 1;
+        int threshold = queryGrams.length - 3 * maxDistance;
+        int[][] rows = new int[2][q.length() + maxDistance + 1];
+        if (threshold <= 0) {
+            // Krótkie zapytanie – trigramy nic nie zawężają; sprawdzamy imiona o pasującej długości
+            int from = Math.max(1, q.length() - maxDistance);
+            int to = Math.min(byLength.size() - 1, q.length() + maxDistance);
+            for (int length = from; length <= to; length++) {
+                for (Entry e : byLength.get(length).values()) {
+                    offerFuzzy(q, e, maxDistance, rows, results);
+                }
+            }
+            return;
+        }
+        int[] shared = new int[entries.size()];
+        for (int gram : queryGrams) {
+            int[] list = postings[gram];
+            for (int i = 0, n = postingSizes[gram]; i < n; i++) {
+                shared[list[i]]++;
+            }
+        }
+        for (int id = 0; id < shared.length; id++) {
+            if (shared[id] >= threshold) {
+                offerFuzzy(q, entries.get(id), maxDistance, rows, results);
+            }
+        }
+    }
+
+    private static void offerFuzzy(String q, Entry e, int maxDistance, int[][] rows, Results results) {
+        if (e.students == 0 || Math.abs(e.key.length() - q.length()) > maxDistance || e.key.contains(q)) {
+            return;
+        }
+        int distance = editDistance(q, e.key, maxDistance, rows[0], rows[1]);
+        if (distance <= maxDistance) {
+            results.offer(e, MatchType.FUZZY, distance);
+        }
+    }
+
+    // Najwyżej limit studentów o imionach z search(query, limit), w kolejności dopasowania.
+    public List<Student> findStudents(StudentManager manager, String query, int limit) {
+        List<Student> result = new ArrayList<>();
+        for (Match m : search(query, limit)) {
+            int remaining = limit - result.size();
+            if (remaining <= 0) {
+                break;
+            }
+            // Zakres po początku imienia: najpierw dokładnie to imię (NOCASE), potem dłuższe – odrzucamy
+            StudentQuery byName = new StudentQuery();
+            byName.setNamePrefix(m.getName());
+            byName.setSortBy(StudentQuery.SortBy.NAME);
+            byName.setLimit(remaining);
+            for (Student s : manager.findStudents(byName)) {
+                if (s.getName().equalsIgnoreCase(m.getName())) {
+                    result.add(s);
+                }
+            }
+        }
+        return result;
+    }
+
+    // Liczba różnych imion, które ktoś nosi.
+    public int getNameCount() {
+        lock.readLock().lock();
+        try {
+            int count = 0;
+            for (Entry e : entries) {
+                if (e.students > 0) {
+                    count++;
+                }
+            }
+            return count;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long getStudentCount() {
+        lock.readLock().lock();
+        try {
+            return studentCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Odległość Levenshteina a–b; gdy większa niż max – zwraca max + 1 (liczymy tylko pas |i - j| <= max).
+    static int editDistance(String a, String b, int max) {
+        return editDistance(a, b, max, new int[b.length() + 1], new int[b.length() + 1]);
+    }
+
+    // previous, current – bufory co najmniej b.length() + 1 (jedne na całe wyszukiwanie).
+    private static int editDistance(String a, String b, int max, int[] previous, int[] current) {
+        int n = a.length();
+        int m = b.length();
+        if (Math.abs(n - m) > max) {
+            return max + 1;
+        }
+        for (int j = 0; j <= m; j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= n; i++) {
+            int from = Math.max(1, i - max);
+            int to = Math.min(m, i + max);
+            current[0] = i;
+            if (from > 1) {
+                current[from - 1] = max + 1;
+            }
+            int rowMin = from == 1 ? i : max + 1;
+            char ca = a.charAt(i - 1);
+            for (int j = from; j <= to; j++) {
+                int cost = ca == b.charAt(j - 1) ? 0 : 1;
+                int d = Math.min(previous[j - 1] + cost, current[j - 1] + 1);
+                if (j <= i - 1 + max) {
+                    d = Math.min(d, previous[j] + 1);
+                }
+                current[j] = d;
+                rowMin = Math.min(rowMin, d);
+            }
+            if (rowMin > max) {
+                return max + 1;
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return Math.min(previous[m], max + 1);
+    }
+
+    // Małe litery a–z, pozostałe znaki pominięte.
+    private static String normalize(String query) {
+        if (query == null) {
+            return "";
+        }
+        StringBuilder sb = new StringBuilder(query.length());
+        for (int i = 0; i < query.length(); i++) {
+            char c = Character.toLowerCase(query.charAt(i));
+            if (c >= 'a' && c <= 'z') {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    // Kod litery w trigramie (1..26); inne znaki – jak brzeg.
+    private static int code(char c) {
+        return c >= 'a' && c <= 'z' ? c - 'a' + 1 : BOUNDARY;
+    }
+
+    // Różne trigramy tekstu; withBoundary – z brzegami ("$" na początku i końcu).
+    private static int[] grams(String key, boolean withBoundary) {
+        int n = key.length() + (withBoundary ? 2 : 0);
+        if (n < 3) {
+            return new int[0];
+        }
+        int[] codes = new int[n];
+        int offset = withBoundary ? 1 : 0;
+        if (withBoundary) {
+            codes[0] = BOUNDARY;
+            codes[n - 1] = BOUNDARY;
+        }
+        for (int i = 0; i < key.length(); i++) {
+            codes[i + offset] = code(key.charAt(i));
+        }
+        int[] grams = new int[n - 2];
+        for (int i = 0; i < grams.length; i++) {
+            grams[i] = (codes[i] * ALPHABET + codes[i + 1]) * ALPHABET + codes[i + 2];
+        }
+        Arrays.sort(grams);
+        int distinct = 0;
+        for (int i = 0; i < grams.length; i++) {
+            if (i == 0 || grams[i] != grams[i - 1]) {
+                grams[distinct++] = grams[i];
+            }
+        }
+        return Arrays.copyOf(grams, distinct);
+    }
+
+    // Kończy śledzenie zmian (bazy nie zamyka).
+    @Override
+    public void close() {
+        synchronized (feeds) {
+            for (StudentChangeFeed feed : feeds) {
+                feed.close();
+            }
+            feeds.clear();
+        }
+    }
+}
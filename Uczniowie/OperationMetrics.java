@@ -0,0 +1,81 @@
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+  Klasa OperationMetrics – metryki jednej operacji (metoda StudentManager, zapytanie SQL
+  albo otwarcie połączenia): histogram czasów, liczba błędów, wierszy zwróconych / zmienionych.
+  Rejestruje je StudentMetrics; w JMX widoczne przez OperationMetricsMBean.
+*/
+
+public class OperationMetrics implements OperationMetricsMBean {
+
+    private final String name;
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder rows = new LongAdder();
+
+    public OperationMetrics(String name) {
+        this.name = name;
+    }
+
+    // Jedno wykonanie: czas, liczba wierszy (0, jeśli nie dotyczy), czy był błąd.
+    public void record(long nanos, long rowCount, boolean error) {
+        latency.record(nanos);
+        if (rowCount > 0) {
+            rows.add(rowCount);
+        }
+        if (error) {
+            errors.increment();
+        }
+    }
+
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public long getCount() {
+        return latency.getCount();
+    }
+
+    @Override
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    @Override
+    public long getRows() {
+        return rows.sum();
+    }
+
+    @Override
+    public double getMeanMicros() {
+        return latency.getMean() / 1000.0;
+    }
+
+    @Override
+    public double getP50Micros() {
+        return latency.getPercentile(50) / 1000.0;
+    }
+
+    @Override
+    public double getP99Micros() {
+        return latency.getPercentile(99) / 1000.0;
+    }
+
+    @Override
+    public double getMaxMicros() {
+        return latency.getMax() / 1000.0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%-24s count=%d errors=%d rows=%d mean=%.1f us p50=%.1f us p99=%.1f us max=%.1f us",
+                name, getCount(), getErrors(), getRows(),
+                getMeanMicros(), getP50Micros(), getP99Micros(), getMaxMicros());
+    }
+}
@@ -0,0 +1,20 @@
+// Interfejs OperationMetricsMBean – atrybuty OperationMetrics widoczne w JMX (np. jconsole).
+// Czasy w mikrosekundach.
+
+public interface OperationMetricsMBean {
+    String getName();
+
+    long getCount();
+
+    long getErrors();
+
+    long getRows();
+
+    double getMeanMicros();
+
+    double getP50Micros();
+
+    double getP99Micros();
+
+    double getMaxMicros();
+}
@@ -0,0 +1,123 @@
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+  Klasa PoolMetrics – liczniki puli połączeń SQLiteConnectionPool.
+  - czas oczekiwania na połączenie (zapisujące / odczytujące)
+  - trafienia i chybienia cache PreparedStatement
+  - liczba otwartych połączeń i przekroczeń limitu czasu
+  - ponowienia zapisu po SQLITE_BUSY
+*/
+
+public class PoolMetrics {
+
+    private final LongAdder writerAcquisitions = new LongAdder();
+    private final LongAdder writerWaitNanos = new LongAdder();
+    private final LongAdder readerAcquisitions = new LongAdder();
+    private final LongAdder readerWaitNanos = new LongAdder();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final LongAdder acquireTimeouts = new LongAdder();
+    private final LongAdder connectionsOpened = new LongAdder();
+    private final LongAdder statementCacheHits = new LongAdder();
+    private final LongAdder statementCacheMisses = new LongAdder();
+    private final LongAdder writeRetries = new LongAdder();
+
+    // Metody wywoływane przez pulę (package-private)
+    void recordWriterAcquire(long waitNanos) {
+        writerAcquisitions.increment();
+        writerWaitNanos.add(waitNanos);
+        maxWaitNanos.accumulateAndGet(waitNanos, Math::max);
+    }
+
+    void recordReaderAcquire(long waitNanos) {
+        readerAcquisitions.increment();
+        readerWaitNanos.add(waitNanos);
+        maxWaitNanos.accumulateAndGet(waitNanos, Math::max);
+    }
+
+    void recordAcquireTimeout() {
+        acquireTimeouts.increment();
+    }
+
+    void recordConnectionOpened() {
+        connectionsOpened.increment();
+    }
+
+    void recordStatementCacheHit() {
+        statementCacheHits.increment();
+    }
+
+    void recordStatementCacheMiss() {
+        statementCacheMisses.increment();
+    }
+
+    void recordWriteRetry() {
+        writeRetries.increment();
+    }
+
+    // Gettery
+    public long getWriterAcquisitions() {
+        return writerAcquisitions.sum();
+    }
+
+    public long getReaderAcquisitions() {
+        return readerAcquisitions.sum();
+    }
+
+    // Średni czas oczekiwania na połączenie zapisujące (w mikrosekundach).
+    public double getAverageWriterWaitMicros() {
+        long n = writerAcquisitions.sum();
+        return n == 0 ? 0.0 : writerWaitNanos.sum() / 1000.0 / n;
+    }
+
+    // Średni czas oczekiwania na połączenie do odczytu (w mikrosekundach).
+    public double getAverageReaderWaitMicros() {
+        long n = readerAcquisitions.sum();
+        return n == 0 ? 0.0 : readerWaitNanos.sum() / 1000.0 / n;
+    }
+
+    public long getMaxWaitMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(maxWaitNanos.get());
+    }
+
+    public long getAcquireTimeouts() {
+        return acquireTimeouts.sum();
+    }
+
+    public long getConnectionsOpened() {
+        return connectionsOpened.sum();
+    }
+
+    public long getStatementCacheHits() {
+        return statementCacheHits.sum();
+    }
+
+    public long getStatementCacheMisses() {
+        return statementCacheMisses.sum();
+    }
+
+    public long getWriteRetries() {
+        return writeRetries.sum();
+    }
+
+    // Procent trafień w cache PreparedStatement (0–100).
+    public double getStatementCacheHitRatio() {
+        long hits = statementCacheHits.sum();
+        long total = hits + statementCacheMisses.sum();
+        return total == 0 ? 0.0 : 100.0 * hits / total;
+    }
+
+    // Krótkie podsumowanie (np. do wypisania w konsoli).
+    @Override
+    public String toString() {
+        return String.format("Pool: writer acquisitions=%d (avg wait %.1f us), "
+                        + "reader acquisitions=%d (avg wait %.1f us), max wait=%d ms, timeouts=%d, "
+                        + "connections opened=%d, statement cache hits=%d misses=%d (%.1f%%), write retries=%d",
+                getWriterAcquisitions(), getAverageWriterWaitMicros(),
+                getReaderAcquisitions(), getAverageReaderWaitMicros(),
+                getMaxWaitMillis(), getAcquireTimeouts(), getConnectionsOpened(),
+                getStatementCacheHits(), getStatementCacheMisses(), getStatementCacheHitRatio(),
+                getWriteRetries());
+    }
+}
@@ -0,0 +1,101 @@
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/*
+  Klasa PooledConnection – połączenie wypożyczone z SQLiteConnectionPool.
+  - trzyma cache PreparedStatement (LRU) dla tego jednego połączenia
+  - close() NIE zamyka połączenia, tylko oddaje je do puli
+  Zwrócone przez prepare() obiekty PreparedStatement należą do cache –
+  nie zamykamy ich sami (zamykamy tylko ResultSet).
+  Przy włączonych metrykach (statementMetrics != null) zapytania są owinięte
+  InstrumentedStatement – czas, wiersze i błędy każdej treści SQL.
+*/
+
+public class PooledConnection implements AutoCloseable {
+
+    private final SQLiteConnectionPool pool;
+    private final Connection connection;
+    private final boolean writer;
+    private final PoolMetrics metrics;
+    private final StudentMetrics statementMetrics;
+
+    // Cache zapytań: klucz = treść SQL, kolejność dostępu (LRU).
+    private final LinkedHashMap<String, PreparedStatement> statements;
+
+    PooledConnection(SQLiteConnectionPool pool, Connection connection, boolean writer,
+                     final int cacheSize, PoolMetrics metrics, StudentMetrics statementMetrics) {
+        this.pool = pool;
+        this.connection = connection;
+        this.writer = writer;
+        this.metrics = metrics;
+        this.statementMetrics = statementMetrics;
+        this.statements = new LinkedHashMap<String, PreparedStatement>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+                if (size() > cacheSize) {
+                    closeQuietly(eldest.getValue());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    // Zwraca przygotowane zapytanie z cache (albo przygotowuje nowe).
+    public PreparedStatement prepare(String sql) throws SQLException {
+        PreparedStatement pstmt = statements.get(sql);
+        if (pstmt != null && !pstmt.isClosed()) {
+            metrics.recordStatementCacheHit();
+            pstmt.clearParameters();
+            return pstmt;
+        }
+        metrics.recordStatementCacheMiss();
+        pstmt = connection.prepareStatement(sql);
+        if (statementMetrics != null) {
+            pstmt = InstrumentedStatement.wrap(pstmt, statementMetrics.statement(sql));
+        }
+        statements.put(sql, pstmt);
+        return pstmt;
+    }
+
+    // Dostęp do "surowego" połączenia (np. createStatement, setAutoCommit).
+    public Connection getConnection() {
+        return connection;
+    }
+
+    public boolean isWriter() {
+        return writer;
+    }
+
+    // Oddanie połączenia do puli.
+    @Override
+    public void close() {
+        pool.release(this);
+    }
+
+    // Faktyczne zamknięcie – wywołuje tylko pula przy zamykaniu.
+    void closePhysically() {
+        Iterator<PreparedStatement> it = statements.values().iterator();
+        while (it.hasNext()) {
+            closeQuietly(it.next());
+            it.remove();
+        }
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private static void closeQuietly(PreparedStatement pstmt) {
+        try {
+            pstmt.close();
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+}
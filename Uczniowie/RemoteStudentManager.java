@@ -0,0 +1,467 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+  Klasa RemoteStudentManager – StudentManager, który wykonuje operacje na StudentServer
+  (GUI działa z nim bez zmian: -Dstudents.server=host:port).
+  - jedno połączenie TCP, bezpieczne dla wielu wątków: żądania są numerowane, a osobny wątek
+    czyta odpowiedzi i kończy future właściwego żądania
+  - xxxAsync – wysłanie bez czekania (pipelining: wiele żądań w drodze naraz)
+  - newBatch() – wiele operacji w jednym żądaniu (jedna podróż do serwera), każda z własnym future
+  - metody StudentManager czekają na wynik; błąd (serwer, sieć) – wydruk i false / 0 / null,
+    jak w StudentManagerImpl
+*/
+
+public class RemoteStudentManager implements StudentManager, AutoCloseable {
+
+    // Zapis argumentów operacji.
+    private interface Arguments {
+        void write(DataOutput out) throws IOException;
+    }
+
+    // Odczyt wyniku operacji.
+    private interface ResultReader<T> {
+        T read(DataInput in) throws IOException;
+    }
+
+    // Odpowiedź czekająca na odczyt: future i sposób odczytu wyniku.
+    private static final class Pending<T> {
+        final CompletableFuture<T> future = new CompletableFuture<>();
+        final ResultReader<T> reader;
+
+        Pending(ResultReader<T> reader) {
+            this.reader = reader;
+        }
+
+        void complete(DataInput in) throws IOException {
+            if (in.readByte() == StudentProtocol.OK) {
+                future.complete(reader.read(in));
+            } else {
+                future.completeExceptionally(new IOException("Server error: " + in.readUTF()));
+            }
+        }
+    }
+
+    private static final Arguments NO_ARGUMENTS = out -> { };
+
+    private final Socket socket;
+    private final DataOutputStream out;
+    private final DataInputStream in;
+    private final Thread readerThread;
+    private final AtomicInteger nextID = new AtomicInteger();
+    private final Map<Integer, Object> pending = new ConcurrentHashMap<>();
+    private volatile IOException failure;
+
+    private RemoteStudentManager(Socket socket) throws IOException {
+        this.socket = socket;
+        this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), 64 * 1024));
+        this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream(), 64 * 1024));
+        this.readerThread = new Thread(this::readLoop, "student-remote-reader");
+        readerThread.setDaemon(true);
+        readerThread.start();
+    }
+
+    public static RemoteStudentManager connect(String host, int port) throws IOException {
+        Socket socket = new Socket();
+        socket.setTcpNoDelay(true);
+        socket.connect(new InetSocketAddress(host, port), 5000);
+        return new RemoteStudentManager(socket);
+    }
+
+    // "host:port" albo samo "host" (port domyślny).
+    public static RemoteStudentManager connect(String address) throws IOException {
+        int colon = address.lastIndexOf(':');
+        if (colon < 0) {
+            return connect(address, StudentProtocol.DEFAULT_PORT);
+        }
+        return connect(address.substring(0, colon), Integer.parseInt(address.substring(colon + 1)));
+    }
+
+    // Wysłanie jednego żądania; wynik przychodzi w future.
+    private <T> CompletableFuture<T> call(byte op, Arguments arguments, ResultReader<T> reader) {
+        Pending<T> call = new Pending<>(reader);
+        ByteArrayOutputStream body = new ByteArrayOutputStream(64);
+        DataOutputStream data = new DataOutputStream(body);
+        int id = nextID.incrementAndGet();
+        try {
+            data.writeInt(id);
+            data.writeByte(op);
+            arguments.write(data);
+        } catch (IOException e) {
+            call.future.completeExceptionally(e);
+            return call.future;
+        }
+        pending.put(id, call);
+        try {
+            synchronized (out) {
+                if (failure != null) {
+                    throw failure;
+                }
+                out.writeInt(body.size());
+                body.writeTo(out);
+                out.flush();
+            }
+        } catch (IOException e) {
+            pending.remove(id);
+            call.future.completeExceptionally(e);
+        }
+        return call.future;
+    }
+
+    // Wątek odczytu: odpowiedzi po kolei, każda do future swojego żądania.
+    private void readLoop() {
+        try {
+            while (true) {
+                int length = in.readInt();
+                if (length < 5 || length > StudentProtocol.MAX_FRAME) {
+                    throw new IOException("Invalid frame length: " + length);
+                }
+                byte[] frame = new byte[length];
+                in.readFully(frame);
+                DataInputStream response = new DataInputStream(new ByteArrayInputStream(frame));
+                Object call = pending.remove(response.readInt());
+                if (call instanceof Pending) {
+                    ((Pending<?>) call).complete(response);
+                } else if (call instanceof Batch) {
+                    ((Batch) call).complete(response);
+                }
+            }
+        } catch (IOException e) {
+            fail(e instanceof EOFException ? new IOException("Connection closed by server") : e);
+        }
+    }
+
+    // Połączenie zerwane – wszystkie czekające żądania kończą się błędem.
+    private void fail(IOException e) {
+        synchronized (out) {
+            if (failure == null) {
+                failure = e;
+            }
+        }
+        for (Object call : pending.values()) {
+            if (call instanceof Pending) {
+                ((Pending<?>) call).future.completeExceptionally(e);
+            } else {
+                ((Batch) call).fail(e);
+            }
+        }
+        pending.clear();
+    }
+
+    // Wynik albo - przy błędzie - wydruk i wartość domyślna (jak w StudentManagerImpl).
+    private static <T> T await(CompletableFuture<T> future, T defaultValue) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            e.getCause().printStackTrace();
+        }
+        return defaultValue;
+    }
+
+    // Zapis (add / remove / update): błąd serwera albo połączenia – StudentStoreException, bo false / 0
+    // znaczą tu "ID zajęte" / "ktoś zmienił studenta".
+    private static <T> T awaitWrite(CompletableFuture<T> future, String what) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            throw new StudentStoreException(what + ": " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    // Operacje asynchroniczne (najczęściej używane – odczyt i zapis jednego studenta)
+
+    public CompletableFuture<Boolean> addStudentAsync(Student student) {
+        return call(StudentProtocol.ADD_STUDENT, o -> StudentProtocol.writeStudent(o, student), DataInput::readBoolean);
+    }
+
+    public CompletableFuture<Boolean> studentExistsAsync(String studentID) {
+        return call(StudentProtocol.STUDENT_EXISTS, o -> o.writeUTF(studentID), DataInput::readBoolean);
+    }
+
+    public CompletableFuture<Student> findStudentAsync(String studentID) {
+        return call(StudentProtocol.FIND_STUDENT, o -> o.writeUTF(studentID), RemoteStudentManager::readFound);
+    }
+
+    public CompletableFuture<Boolean> removeStudentAsync(String studentID) {
+        return call(StudentProtocol.REMOVE_STUDENT, o -> o.writeUTF(studentID), DataInput::readBoolean);
+    }
+
+    public CompletableFuture<Integer> updateFieldsAsync(String studentID, StudentChanges changes) {
+        return call(StudentProtocol.UPDATE_FIELDS, o -> {
+            o.writeUTF(studentID);
+            StudentProtocol.writeChanges(o, changes);
+        }, DataInput::readInt);
+    }
+
+    private static Student readFound(DataInput in) throws IOException {
+        return in.readBoolean() ? StudentProtocol.readStudent(in) : null;
+    }
+
+    // Nowa paczka operacji wysyłana jednym żądaniem (zob. Batch).
+    public Batch newBatch() {
+        return new Batch();
+    }
+
+    /*
+      Paczka operacji: metody dodają operację i zwracają jej future; send() wysyła całość
+      jednym żądaniem. Serwer wykonuje operacje po kolei; błąd jednej nie przerywa pozostałych.
+    */
+    public final class Batch {
+        private final ByteArrayOutputStream body = new ByteArrayOutputStream(1024);
+        private final DataOutputStream data = new DataOutputStream(body);
+        private final List<Pending<?>> calls = new ArrayList<>();
+        private boolean sent;
+
+        private <T> CompletableFuture<T> add(byte op, Arguments arguments, ResultReader<T> reader) {
+            if (sent) {
+                throw new IllegalStateException("Batch already sent");
+            }
+            Pending<T> call = new Pending<>(reader);
+            try {
+                data.writeByte(op);
+                arguments.write(data);
+            } catch (IOException e) {
+                throw new IllegalStateException(e); // zapis do pamięci nie rzuca IOException
+            }
+            calls.add(call);
+            return call.future;
+        }
+
+        public CompletableFuture<Boolean> addStudent(Student student) {
+            return add(StudentProtocol.ADD_STUDENT, o -> StudentProtocol.writeStudent(o, student),
+                    DataInput::readBoolean);
+        }
+
+        public CompletableFuture<Boolean> studentExists(String studentID) {
+            return add(StudentProtocol.STUDENT_EXISTS, o -> o.writeUTF(studentID), DataInput::readBoolean);
+        }
+
+        public CompletableFuture<Student> findStudent(String studentID) {
+            return add(StudentProtocol.FIND_STUDENT, o -> o.writeUTF(studentID), RemoteStudentManager::readFound);
+        }
+
+        public CompletableFuture<Boolean> removeStudent(String studentID) {
+            return add(StudentProtocol.REMOVE_STUDENT, o -> o.writeUTF(studentID), DataInput::readBoolean);
+        }
+
+        public CompletableFuture<Integer> updateFields(String studentID, StudentChanges changes) {
+            return add(StudentProtocol.UPDATE_FIELDS, o -> {
+                o.writeUTF(studentID);
+                StudentProtocol.writeChanges(o, changes);
+            }, DataInput::readInt);
+        }
+
+        public int size() {
+            return calls.size();
+        }
+
+        // Wysyła paczkę; future kończy się, gdy przyjdzie odpowiedź na wszystkie operacje.
+        public CompletableFuture<Void> send() {
+            if (sent) {
+                throw new IllegalStateException("Batch already sent");
+            }
+            sent = true;
+            CompletableFuture<?>[] futures = new CompletableFuture<?>[calls.size()];
+            for (int i = 0; i < futures.length; i++) {
+                futures[i] = calls.get(i).future;
+            }
+            CompletableFuture<Void> all = CompletableFuture.allOf(futures);
+            int id = nextID.incrementAndGet();
+            pending.put(id, this);
+            try {
+                synchronized (out) {
+                    if (failure != null) {
+                        throw failure;
+                    }
+                    out.writeInt(4 + 1 + 4 + body.size());
+                    out.writeInt(id);
+                    out.writeByte(StudentProtocol.BATCH);
+                    out.writeInt(calls.size());
+                    body.writeTo(out);
+                    out.flush();
+                }
+            } catch (IOException e) {
+                pending.remove(id);
+                fail(e);
+            }
+            return all;
+        }
+
+        void complete(DataInput in) throws IOException {
+            if (in.readByte() != StudentProtocol.OK) {
+                fail(new IOException("Server error: " + in.readUTF()));
+                return;
+            }
+            int n = in.readInt();
+            for (int i = 0; i < n; i++) {
+                calls.get(i).complete(in);
+            }
+        }
+
+        void fail(IOException e) {
+            for (Pending<?> call : calls) {
+                call.future.completeExceptionally(e);
+            }
+        }
+    }
+
+    @Override
+    public boolean addStudent(Student student) {
+        return awaitWrite(addStudentAsync(student), "Cannot add student " + student.getStudentID());
+    }
+
+    @Override
+    public ImportResult addStudents(Iterable<Student> students, ImportProgressListener listener) {
+        List<Student> list = new ArrayList<>();
+        for (Student s : students) {
+            list.add(s);
+        }
+        // Czas importu liczymy u klienta (razem z przesłaniem danych)
+        ImportResult result = new ImportResult();
+        ImportResult remote = await(call(StudentProtocol.ADD_STUDENTS, o -> StudentProtocol.writeStudents(o, list),
+                StudentProtocol::readImportResult), null);
+        if (remote != null) {
+            result.addProcessed(remote.getProcessed());
+            result.addAccepted(remote.getAccepted());
+            for (ImportResult.Rejected r : remote.getRejected()) {
+                result.addRejected(r.getRow(), r.getStudentID(), r.getReason());
+            }
+        } else {
+            // Błąd połączenia – cały import odrzucony
+            result.addProcessed(list.size());
+            for (int i = 0; i < list.size(); i++) {
+                result.addRejected(i + 1, list.get(i).getStudentID(), "Server not available");
+            }
+        }
+        result.finish();
+        if (listener != null) {
+            listener.onProgress(result.getProcessed(), result.getAccepted(), result.getRejectedCount());
+        }
+        return result;
+    }
+
+    @Override
+    public boolean studentExists(String studentID) {
+        return await(studentExistsAsync(studentID), false);
+    }
+
+    @Override
+    public Student findStudent(String studentID) {
+        return await(findStudentAsync(studentID), null);
+    }
+
+    @Override
+    public boolean removeStudent(String studentID) {
+        return awaitWrite(removeStudentAsync(studentID), "Cannot remove student " + studentID);
+    }
+
+    // Jak StudentManagerImpl: po udanym zapisie wersja w obiekcie jest zwiększana.
+    @Override
+    public int updateStudent(Student student) {
+        long version = student.getVersion();
+        int rows = awaitWrite(call(StudentProtocol.UPDATE_STUDENT, o -> StudentProtocol.writeStudent(o, student),
+                DataInput::readInt), "Cannot update student " + student.getStudentID());
+        if (rows > 0 && version > 0) {
+            student.setVersion(version + 1);
+        }
+        return rows;
+    }
+
+    @Override
+    public int updateFields(String studentID, StudentChanges changes) {
+        return awaitWrite(updateFieldsAsync(studentID, changes), "Cannot update student " + studentID);
+    }
+
+    @Override
+    public int updateGrades(Map<String, Double> gradesByID) {
+        return awaitWrite(call(StudentProtocol.UPDATE_GRADES, o -> {
+            o.writeInt(gradesByID.size());
+            for (Map.Entry<String, Double> e : gradesByID.entrySet()) {
+                o.writeUTF(e.getKey());
+                o.writeDouble(e.getValue());
+            }
+        }, DataInput::readInt), "Cannot update grades");
+    }
+
+    @Override
+    public ArrayList<Student> displayAllStudents() {
+        return await(call(StudentProtocol.DISPLAY_ALL, NO_ARGUMENTS, StudentProtocol::readStudents),
+                new ArrayList<>());
+    }
+
+    @Override
+    public int countStudents() {
+        return await(call(StudentProtocol.COUNT, NO_ARGUMENTS, DataInput::readInt), 0);
+    }
+
+    @Override
+    public List<Student> findStudentsAfter(String afterStudentID, int limit) {
+        return await(call(StudentProtocol.FIND_AFTER, o -> {
+            StudentProtocol.writeOptional(o, afterStudentID);
+            o.writeInt(limit);
+        }, StudentProtocol::readStudents), new ArrayList<>());
+    }
+
+    @Override
+    public List<Student> findStudentsPage(int offset, int limit) {
+        return await(call(StudentProtocol.FIND_PAGE, o -> {
+            o.writeInt(offset);
+            o.writeInt(limit);
+        }, StudentProtocol::readStudents), new ArrayList<>());
+    }
+
+    @Override
+    public List<Student> findStudents(StudentQuery query) {
+        return await(call(StudentProtocol.FIND_STUDENTS, o -> StudentProtocol.writeQuery(o, query),
+                StudentProtocol::readStudents), new ArrayList<>());
+    }
+
+    @Override
+    public int countStudents(StudentQuery query) {
+        return await(call(StudentProtocol.COUNT_QUERY, o -> StudentProtocol.writeQuery(o, query),
+                DataInput::readInt), 0);
+    }
+
+    @Override
+    public double calculateAverageGrade() {
+        return await(call(StudentProtocol.AVERAGE_GRADE, NO_ARGUMENTS, DataInput::readDouble), 0.0);
+    }
+
+    @Override
+    public GradeStatistics getGradeStatistics() {
+        return await(call(StudentProtocol.GRADE_STATISTICS, NO_ARGUMENTS, StudentProtocol::readStatistics),
+                GradeStatistics.empty());
+    }
+
+    // Rozłącza się z serwerem (czekające żądania kończą się błędem).
+    @Override
+    public void close() {
+        try {
+            socket.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        try {
+            readerThread.join(5000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
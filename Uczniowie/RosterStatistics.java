@@ -0,0 +1,216 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/*
+  Klasa RosterStatistics – statystyki całej listy studentów, zbierane wiersz po wierszu (add)
+  i łączone z innymi częściami (merge) – każdy wątek liczy swoją część, na końcu je sumujemy.
+  Trzymamy tylko liczniki całkowite:
+  - liczba studentów w każdym wieku i suma kodów ocen w tym wieku (średnie w przedziałach wieku)
+  - liczba studentów z każdym kodem oceny (rozkład, percentyle, odchylenie – zob. GradeStatistics)
+  - najlepszych N studentów (ocena malejąco, przy równej ocenie mniejsze ID)
+  Liczniki całkowite dodają się dokładnie, więc wynik nie zależy od podziału na części
+  ani od kolejności łączenia – równolegle wychodzi to samo co po kolei.
+*/
+
+public class RosterStatistics {
+
+    private static final int MAX_AGE = 255;
+    private static final int MAX_GRADE_CODE = 10;
+
+    // Kolejność w "top N": wyższa ocena pierwsza, przy równej – mniejsze ID
+    private static final Comparator<Student> BEST_FIRST = (a, b) -> {
+        int byGrade = Double.compare(b.getGrade(), a.getGrade());
+        return byGrade != 0 ? byGrade
+                : Long.compare(StudentManagerImpl.parseID(a.getStudentID()),
+                               StudentManagerImpl.parseID(b.getStudentID()));
+    };
+
+    private final int topN;
+    private final long[] ageCounts = new long[MAX_AGE + 1];
+    private final long[] ageGradeCodeSums = new long[MAX_AGE + 1];
+    private final long[] gradeCounts = new long[MAX_GRADE_CODE + 1];
+    private long count;
+
+    // Najsłabszy z zapamiętanych na początku kolejki – jego wypychamy lepszym
+    private final PriorityQueue<Student> top;
+
+    public RosterStatistics(int topN) {
+        if (topN < 0) {
+            throw new IllegalArgumentException("topN must not be negative");
+        }
+        this.topN = topN;
+        this.top = new PriorityQueue<>(Math.max(1, topN), BEST_FIRST.reversed());
+    }
+
+    public void add(Student s) {
+        int age = s.getAge();
+        int code = StudentManagerImpl.gradeCode(s.getGrade());
+        if (age < 0 || age > MAX_AGE || code < 0 || code > MAX_GRADE_CODE) {
+            throw new IllegalArgumentException("Invalid student " + s.getStudentID()
+                    + " (age " + age + ", grade " + s.getGrade() + ")");
+        }
+        count++;
+        ageCounts[age]++;
+        ageGradeCodeSums[age] += code;
+        gradeCounts[code]++;
+        offerTop(s);
+    }
+
+    private void offerTop(Student s) {
+        if (topN == 0) {
+            return;
+        }
+        if (top.size() < topN) {
+            top.add(s);
+        } else if (BEST_FIRST.compare(s, top.peek()) < 0) {
+            top.poll();
+            top.add(s);
+        }
+    }
+
+    // Dołącza wyniki innej części (ta sama wartość topN). Zwraca this.
+    public RosterStatistics merge(RosterStatistics other) {
+        if (other.topN != topN) {
+            throw new IllegalArgumentException("Cannot merge statistics with different topN");
+        }
+        count += other.count;
+        for (int age = 0; age <= MAX_AGE; age++) {
+            ageCounts[age] += other.ageCounts[age];
+            ageGradeCodeSums[age] += other.ageGradeCodeSums[age];
+        }
+        for (int code = 0; code <= MAX_GRADE_CODE; code++) {
+            gradeCounts[code] += other.gradeCounts[code];
+        }
+        for (Student s : other.top) {
+            offerTop(s);
+        }
+        return this;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    // Średnia, min, max, odchylenie standardowe i rozkład ocen.
+    public GradeStatistics getGradeStatistics() {
+        Map<Double, Long> histogram = new HashMap<>();
+        for (int code = 0; code <= MAX_GRADE_CODE; code++) {
+            if (gradeCounts[code] > 0) {
+                histogram.put(StudentManagerImpl.gradeFromCode(code), gradeCounts[code]);
+            }
+        }
+        return new GradeStatistics(histogram);
+    }
+
+    // Średnia ocena w przedziałach wieku o szerokości bucketWidth (np. 5: 15–19, 20–24, ...).
+    // Klucz – najmniejszy wiek w przedziale; przedziały bez studentów są pomijane.
+    public SortedMap<Integer, Double> getAverageGradeByAge(int bucketWidth) {
+        if (bucketWidth < 1) {
+            throw new IllegalArgumentException("bucketWidth must be at least 1");
+        }
+        SortedMap<Integer, Double> averages = new TreeMap<>();
+        for (int from = 0; from <= MAX_AGE; from += bucketWidth) {
+            long n = 0;
+            long codes = 0;
+            for (int age = from; age < from + bucketWidth && age <= MAX_AGE; age++) {
+                n += ageCounts[age];
+                codes += ageGradeCodeSums[age];
+            }
+            if (n > 0) {
+                averages.put(from, codes / 2.0 / n); // kod oceny = ocena * 2
+            }
+        }
+        return averages;
+    }
+
+    // Percentyl ocen (metoda najbliższej pozycji): najmniejsza ocena, taka że co najmniej
+    // percentile % studentów ma ocenę nie wyższą. 0 – najniższa ocena, 100 – najwyższa.
+    public double getGradePercentile(double percentile) {
+        return StudentManagerImpl.gradeFromCode(percentileIndex(gradeCounts, percentile));
+    }
+
+    // Percentyl wieku (jak wyżej).
+    public int getAgePercentile(double percentile) {
+        return percentileIndex(ageCounts, percentile);
+    }
+
+    private int percentileIndex(long[] histogram, double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("percentile must be between 0 and 100");
+        }
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * count));
+        long seen = 0;
+        for (int i = 0; i < histogram.length; i++) {
+            seen += histogram[i];
+            if (seen >= rank) {
+                return i;
+            }
+        }
+        return histogram.length - 1;
+    }
+
+    // Najlepsi studenci (najwyżej topN), od najlepszego.
+    public List<Student> getTopStudents() {
+        List<Student> best = new ArrayList<>(top);
+        Collections.sort(best, BEST_FIRST);
+        return best;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof RosterStatistics)) {
+            return false;
+        }
+        RosterStatistics other = (RosterStatistics) o;
+        return topN == other.topN && count == other.count
+                && Arrays.equals(ageCounts, other.ageCounts)
+                && Arrays.equals(ageGradeCodeSums, other.ageGradeCodeSums)
+                && Arrays.equals(gradeCounts, other.gradeCounts)
+                && topIDs().equals(other.topIDs());
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(gradeCounts) * 31 + Arrays.hashCode(ageCounts);
+    }
+
+    private List<String> topIDs() {
+        List<String> ids = new ArrayList<>(top.size());
+        for (Student s : getTopStudents()) {
+            ids.add(s.getStudentID());
+        }
+        return ids;
+    }
+
+    // Raport tekstowy (np. do okna GUI albo konsoli).
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(getGradeStatistics()).append('\n');
+        sb.append(String.format("Grade percentiles: p25 %s, median %s, p75 %s, p90 %s%n",
+                getGradePercentile(25), getGradePercentile(50), getGradePercentile(75), getGradePercentile(90)));
+        sb.append(String.format("Age percentiles: p25 %d, median %d, p75 %d%n",
+                getAgePercentile(25), getAgePercentile(50), getAgePercentile(75)));
+        sb.append("Average grade by age:");
+        for (Map.Entry<Integer, Double> e : getAverageGradeByAge(5).entrySet()) {
+            sb.append(String.format(" %d-%d: %.3f", e.getKey(), e.getKey() + 4, e.getValue()));
+        }
+        sb.append('\n').append("Top ").append(topN).append(':');
+        for (Student s : getTopStudents()) {
+            sb.append(' ').append(s.getStudentID()).append(' ').append(s.getName())
+                    .append(" (").append(s.getGrade()).append(')');
+        }
+        return sb.toString();
+    }
+}
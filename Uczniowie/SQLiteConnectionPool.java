@@ -0,0 +1,418 @@
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/*
+  Klasa SQLiteConnectionPool – długo żyjące połączenia do bazy SQLite.
+  - jedno połączenie zapisujące (SQLite i tak pozwala na jednego pisarza naraz),
+    chronione blokadą – writer() czeka, aż będzie wolne
+  - ograniczona pula połączeń tylko do odczytu (reader()), otwieranych leniwie; preopenReaders(n)
+    otwiera je z góry (np. w tle przy starcie programu)
+  - na każdym połączeniu ustawiane są PRAGMA z SQLitePoolConfig, pisarz
+    dodatkowo przełącza bazę w tryb WAL (czytelnicy nie blokują pisarza)
+  - close() zamyka wszystkie połączenia, registerShutdownHook() robi to przy wyjściu z JVM
+  - write(task) – zapis w transakcji na pisarzu; przy SQLITE_BUSY (inny proces pisze dłużej
+    niż busy_timeout) transakcja jest wycofywana i ponawiana z rosnącą przerwą (maxRetries)
+  - addWriteListener – powiadomienie po każdym zwolnieniu pisarza (np. StudentChangeFeed
+    sprawdza wtedy, czy w change_log są nowe zmiany)
+  Transakcje pisarza zaczynają się od BEGIN IMMEDIATE – blokadę zapisu bierzemy od razu
+  (czekając busy_timeout), a nie dopiero przy pierwszym zapisie w środku transakcji.
+  Użycie:
+    try (PooledConnection conn = pool.reader()) {
+        PreparedStatement pstmt = conn.prepare(sql);
+        ...
+    }
+*/
+
+public class SQLiteConnectionPool implements AutoCloseable {
+
+    private final SQLitePoolConfig config;
+    private final PoolMetrics metrics = new PoolMetrics();
+    private final StudentMetrics studentMetrics = new StudentMetrics();
+
+    // Pisarz – jedno połączenie, blokada "fair" (kolejność zgłoszeń).
+    private final ReentrantLock writerLock = new ReentrantLock(true);
+    private PooledConnection writer;
+
+    // Czytelnicy – wolne połączenia czekają w kolejce.
+    private final BlockingQueue<PooledConnection> idleReaders;
+    private final AtomicInteger openReaders = new AtomicInteger();
+
+    // Wywoływane po zwolnieniu pisarza (poza blokadą) – muszą być szybkie.
+    private final List<Runnable> writeListeners = new CopyOnWriteArrayList<>();
+
+    private volatile boolean closed;
+    private Thread shutdownHook;
+
+    // Konstruktor – połączenia otwieramy dopiero przy pierwszym użyciu.
+    public SQLiteConnectionPool(SQLitePoolConfig config) {
+        this.config = config;
+        this.idleReaders = new ArrayBlockingQueue<>(config.getMaxReaders());
+    }
+
+    // Wypożyczenie połączenia zapisującego (wyłączny dostęp do czasu close()).
+    // Ten sam wątek może wypożyczyć pisarza ponownie (blokada jest reentrant).
+    public PooledConnection writer() throws SQLException {
+        ensureOpen();
+        long start = System.nanoTime();
+        boolean locked;
+        try {
+            locked = writerLock.tryLock(config.getAcquireTimeoutMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for the write connection", e);
+        }
+        if (!locked) {
+            metrics.recordAcquireTimeout();
+            throw new SQLException("Timed out waiting for the write connection");
+        }
+        // Liczymy sam czas oczekiwania na blokadę (bez otwierania pliku).
+        metrics.recordWriterAcquire(System.nanoTime() - start);
+        try {
+            if (writer == null) {
+                writer = new PooledConnection(this, openConnection(true), true,
+                        config.getStatementCacheSize(), metrics, statementMetrics());
+            }
+        } catch (SQLException e) {
+            writerLock.unlock();
+            throw e;
+        }
+        return writer;
+    }
+
+    // Zapis w jednej transakcji, ponawiany przy SQLITE_BUSY. Wynik zadania albo ostatni błąd.
+    // Wywołane w trakcie innej transakcji tego wątku – zadanie dołącza do niej: wykonane raz,
+    // poza pętlą ponawiania, a błąd (też SQLITE_BUSY) idzie do zewnętrznego wywołującego,
+    // który wycofuje i ewentualnie ponawia całą transakcję.
+    public <T> T write(WriteTask<T> task) throws SQLException {
+        if (writerLock.isHeldByCurrentThread()) {
+            try (PooledConnection conn = writer()) {
+                if (!conn.getConnection().getAutoCommit()) {
+                    return task.run(conn);
+                }
+            }
+        }
+        for (int attempt = 0; ; attempt++) {
+            try (PooledConnection conn = writer()) {
+                Connection c = conn.getConnection();
+                begin(c);
+                T result;
+                try {
+                    result = task.run(conn);
+                } catch (SQLException | RuntimeException e) {
+                    rollback(c, e);
+                    throw e;
+                }
+                commit(c);
+                return result;
+            } catch (SQLException e) {
+                if (!isBusy(e) || attempt >= config.getMaxRetries()) {
+                    throw e;
+                }
+                backoff(attempt);
+            }
+        }
+    }
+
+    // Transakcja pisarza bez commit() / rollback() sterownika: sterownik zaraz po nich wykonuje następne
+    // BEGIN IMMEDIATE, a gdy BEGIN się nie uda (SQLITE_BUSY), zostawia autoCommit = false bez transakcji –
+    // kolejne commit / rollback zgłaszają wtedy "no transaction is active" zamiast błędu do ponowienia,
+    // a udany zapis mógłby skończyć się SQLITE_BUSY z nowego BEGIN i zostać wykonany drugi raz.
+    static void begin(Connection c) throws SQLException {
+        try {
+            c.setAutoCommit(false);
+        } catch (SQLException e) {
+            restoreAutoCommit(c);
+            throw e;
+        }
+    }
+
+    // COMMIT (setAutoCommit(true) nie otwiera nowej transakcji). Nieudany COMMIT – wycofanie.
+    static void commit(Connection c) throws SQLException {
+        try {
+            c.setAutoCommit(true);
+        } catch (SQLException e) {
+            try (Statement stmt = c.createStatement()) {
+                stmt.execute("ROLLBACK");
+            } catch (SQLException rollbackError) {
+                e.addSuppressed(rollbackError);
+            }
+            throw e;
+        }
+    }
+
+    // ROLLBACK i powrót do autoCommit; błąd wycofania dopisujemy do błędu, który je spowodował.
+    static void rollback(Connection c, Throwable cause) {
+        try (Statement stmt = c.createStatement()) {
+            stmt.execute("ROLLBACK");
+        } catch (SQLException e) {
+            cause.addSuppressed(e);
+        }
+        restoreAutoCommit(c);
+    }
+
+    // Po ROLLBACK albo nieudanym BEGIN nie ma transakcji: flaga zmienia się od razu, a "commit"
+    // bez transakcji kończy się błędem, który pomijamy.
+    private static void restoreAutoCommit(Connection c) {
+        try {
+            c.setAutoCommit(true);
+        } catch (SQLException expected) {
+            // nie było czego zatwierdzić
+        }
+    }
+
+    // SQLITE_BUSY / SQLITE_LOCKED (także kody rozszerzone, np. BUSY_SNAPSHOT) – warto ponowić.
+    static boolean isBusy(SQLException e) {
+        int code = e.getErrorCode() & 0xFF;
+        return code == 5 || code == 6;
+    }
+
+    // Przerwa przed ponowieniem: retryBackoffMillis * 2^attempt (najwyżej 1 s), losowo 50–100%,
+    // żeby kilka czekających procesów nie ponawiało w tej samej chwili.
+    void backoff(int attempt) throws SQLException {
+        metrics.recordWriteRetry();
+        long max = Math.min(1000, config.getRetryBackoffMillis() << Math.min(attempt, 16));
+        try {
+            Thread.sleep(max / 2 + ThreadLocalRandom.current().nextLong(max / 2 + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting to retry a write", e);
+        }
+    }
+
+    // Wypożyczenie połączenia tylko do odczytu.
+    public PooledConnection reader() throws SQLException {
+        ensureOpen();
+        long start = System.nanoTime();
+        PooledConnection conn = idleReaders.poll();
+        if (conn == null) {
+            conn = openReaderIfAllowed();
+            if (conn != null) {
+                // Nowe połączenie – nie czekaliśmy na zwolnienie innego.
+                metrics.recordReaderAcquire(0);
+                return conn;
+            }
+        }
+        if (conn == null) {
+            try {
+                conn = idleReaders.poll(config.getAcquireTimeoutMillis(), TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SQLException("Interrupted while waiting for a read connection", e);
+            }
+            if (conn == null) {
+                metrics.recordAcquireTimeout();
+                throw new SQLException("Timed out waiting for a read connection");
+            }
+        }
+        metrics.recordReaderAcquire(System.nanoTime() - start);
+        return conn;
+    }
+
+    // Otwiera z góry tylu czytelników (najwyżej maxReaders), żeby pierwsze zapytania nie czekały na otwarcie
+    // pliku i PRAGMA. Zwraca liczbę otwartych czytelników.
+    public int preopenReaders(int count) throws SQLException {
+        List<PooledConnection> held = new ArrayList<>();
+        try {
+            while (held.size() < Math.min(count, config.getMaxReaders())) {
+                held.add(reader());
+            }
+        } finally {
+            for (PooledConnection conn : held) {
+                conn.close();
+            }
+        }
+        return openReaders.get();
+    }
+
+    // Otwiera nowego czytelnika, jeśli nie przekroczyliśmy limitu (inaczej null).
+    private PooledConnection openReaderIfAllowed() throws SQLException {
+        while (true) {
+            int open = openReaders.get();
+            if (open >= config.getMaxReaders()) {
+                return null;
+            }
+            if (openReaders.compareAndSet(open, open + 1)) {
+                break;
+            }
+        }
+        try {
+            return new PooledConnection(this, openConnection(false), false,
+                    config.getStatementCacheSize(), metrics, statementMetrics());
+        } catch (SQLException e) {
+            openReaders.decrementAndGet();
+            throw e;
+        }
+    }
+
+    // Zwrot połączenia (wywołuje PooledConnection.close()).
+    void release(PooledConnection conn) {
+        if (conn.isWriter()) {
+            boolean last = writerLock.getHoldCount() == 1;
+            try {
+                // Przy ostatnim zwolnieniu sprzątamy niezakończoną transakcję.
+                if (last) {
+                    resetWriter(conn);
+                }
+            } finally {
+                writerLock.unlock();
+            }
+            if (last) {
+                for (Runnable listener : writeListeners) {
+                    listener.run();
+                }
+            }
+            return;
+        }
+        if (closed || !idleReaders.offer(conn)) {
+            conn.closePhysically();
+            openReaders.decrementAndGet();
+        }
+    }
+
+    public void addWriteListener(Runnable listener) {
+        writeListeners.add(listener);
+    }
+
+    public void removeWriteListener(Runnable listener) {
+        writeListeners.remove(listener);
+    }
+
+    private void resetWriter(PooledConnection conn) {
+        try {
+            Connection c = conn.getConnection();
+            if (!c.getAutoCommit()) {
+                try (Statement stmt = c.createStatement()) {
+                    stmt.execute("ROLLBACK");
+                } finally {
+                    restoreAutoCommit(c);
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    // Metryki zapytań dla nowych połączeń (null – wyłączone w konfiguracji).
+    private StudentMetrics statementMetrics() {
+        return config.isMetricsEnabled() ? studentMetrics : null;
+    }
+
+    // Otwiera fizyczne połączenie i ustawia PRAGMA.
+    private Connection openConnection(boolean forWriter) throws SQLException {
+        long start = System.nanoTime();
+        Connection conn;
+        try {
+            Properties props = new Properties();
+            if (forWriter) {
+                props.setProperty("transaction_mode", "IMMEDIATE");
+            }
+            conn = DriverManager.getConnection(config.getUrl(), props);
+        } catch (SQLException e) {
+            recordOpen(forWriter, start, true);
+            throw e;
+        }
+        try (Statement stmt = conn.createStatement()) {
+            for (Map.Entry<String, String> pragma : config.getPragmas().entrySet()) {
+                stmt.execute("PRAGMA " + pragma.getKey() + " = " + pragma.getValue());
+            }
+            if (forWriter) {
+                if (config.getJournalMode() != null) {
+                    stmt.execute("PRAGMA journal_mode = " + config.getJournalMode());
+                }
+            } else {
+                // Czytelnik nie może przypadkiem niczego zapisać.
+                stmt.execute("PRAGMA query_only = ON");
+            }
+        } catch (SQLException e) {
+            conn.close();
+            recordOpen(forWriter, start, true);
+            throw e;
+        }
+        metrics.recordConnectionOpened();
+        recordOpen(forWriter, start, false);
+        return conn;
+    }
+
+    // Czas otwarcia połączenia razem z ustawieniem PRAGMA.
+    private void recordOpen(boolean forWriter, long start, boolean error) {
+        if (config.isMetricsEnabled()) {
+            studentMetrics.connection(forWriter ? "open writer" : "open reader")
+                    .record(System.nanoTime() - start, 0, error);
+        }
+    }
+
+    private void ensureOpen() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed");
+        }
+    }
+
+    public PoolMetrics getMetrics() {
+        return metrics;
+    }
+
+    // Czasy zapytań SQL i otwierania połączeń (puste, gdy metryki są wyłączone).
+    public StudentMetrics getStudentMetrics() {
+        return studentMetrics;
+    }
+
+    public SQLitePoolConfig getConfig() {
+        return config;
+    }
+
+    // Zamknięcie puli przy wyjściu z programu (metryki – getMetrics / getStudentMetrics).
+    public synchronized void registerShutdownHook() {
+        if (shutdownHook != null) {
+            return;
+        }
+        shutdownHook = new Thread(this::close, "sqlite-pool-shutdown");
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+    }
+
+    // Zamknięcie wszystkich połączeń (wypożyczeni czytelnicy zamkną się przy zwrocie).
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            if (shutdownHook != null && Thread.currentThread() != shutdownHook) {
+                try {
+                    Runtime.getRuntime().removeShutdownHook(shutdownHook);
+                } catch (IllegalStateException e) {
+                    // JVM już się zamyka – hook i tak się wykona
+                }
+            }
+        }
+
+        PooledConnection conn;
+        while ((conn = idleReaders.poll()) != null) {
+            conn.closePhysically();
+            openReaders.decrementAndGet();
+        }
+
+        writerLock.lock();
+        try {
+            if (writer != null) {
+                writer.closePhysically();
+                writer = null;
+            }
+        } finally {
+            writerLock.unlock();
+        }
+    }
+}
@@ -0,0 +1,129 @@
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/*
+  Klasa SQLitePoolConfig – ustawienia puli połączeń SQLiteConnectionPool.
+  - url: adres bazy (np. jdbc:sqlite:students.db)
+  - maxReaders: ile połączeń tylko do odczytu może być otwartych naraz
+  - acquireTimeoutMillis: jak długo czekamy na wolne połączenie
+  - statementCacheSize: ile PreparedStatement trzymamy na jedno połączenie
+  - journalMode: tryb dziennika ustawiany na połączeniu zapisującym (domyślnie WAL)
+  - pragmas: dodatkowe PRAGMA ustawiane na każdym połączeniu
+  - metricsEnabled: pomiar czasu zapytań SQL i otwierania połączeń (StudentMetrics, domyślnie włączony)
+  - maxRetries / retryBackoffMillis: ile razy ponawiamy zapis przy SQLITE_BUSY (inny proces trzyma
+    blokadę dłużej niż busy_timeout) i pierwsza przerwa (potem dwa razy dłuższa, z losowym rozrzutem)
+  - groupCommit / maxGroupSize: zapisy z wielu wątków przez jedną kolejkę (GroupCommitWriter),
+    do maxGroupSize zapisów w jednej transakcji
+*/
+
+public class SQLitePoolConfig {
+
+    private String url;
+    private int maxReaders = Math.max(2, Runtime.getRuntime().availableProcessors());
+    private long acquireTimeoutMillis = 5000;
+    private int statementCacheSize = 32;
+    private String journalMode = "WAL";
+    private boolean metricsEnabled = true;
+    private int maxRetries = 5;
+    private long retryBackoffMillis = 10;
+    private boolean groupCommit;
+    private int maxGroupSize = 256;
+    private final Map<String, String> pragmas = new LinkedHashMap<>();
+
+    // Konstruktor – domyślne PRAGMA dobrane pod tryb WAL.
+    public SQLitePoolConfig(String url) {
+        this.url = url;
+        pragmas.put("synchronous", "NORMAL");   // w trybie WAL wystarczy NORMAL
+        pragmas.put("busy_timeout", "5000");    // czekamy na blokadę zamiast od razu SQLITE_BUSY
+        pragmas.put("cache_size", "-8000");     // ok. 8 MB cache stron na połączenie
+        pragmas.put("temp_store", "MEMORY");
+    }
+
+    // Gettery i settery
+    public String getUrl() {
+        return url;
+    }
+    public void setUrl(String url) {
+        this.url = url;
+    }
+
+    public int getMaxReaders() {
+        return maxReaders;
+    }
+    public void setMaxReaders(int maxReaders) {
+        if (maxReaders < 1) {
+            throw new IllegalArgumentException("maxReaders must be at least 1");
+        }
+        this.maxReaders = maxReaders;
+    }
+
+    public long getAcquireTimeoutMillis() {
+        return acquireTimeoutMillis;
+    }
+    public void setAcquireTimeoutMillis(long acquireTimeoutMillis) {
+        this.acquireTimeoutMillis = acquireTimeoutMillis;
+    }
+
+    public int getStatementCacheSize() {
+        return statementCacheSize;
+    }
+    public void setStatementCacheSize(int statementCacheSize) {
+        this.statementCacheSize = statementCacheSize;
+    }
+
+    public String getJournalMode() {
+        return journalMode;
+    }
+    public void setJournalMode(String journalMode) {
+        this.journalMode = journalMode;
+    }
+
+    public boolean isMetricsEnabled() {
+        return metricsEnabled;
+    }
+    public void setMetricsEnabled(boolean metricsEnabled) {
+        this.metricsEnabled = metricsEnabled;
+    }
+
+    public int getMaxRetries() {
+        return maxRetries;
+    }
+    public void setMaxRetries(int maxRetries) {
+        if (maxRetries < 0) {
+            throw new IllegalArgumentException("maxRetries must not be negative");
+        }
+        this.maxRetries = maxRetries;
+    }
+
+    public long getRetryBackoffMillis() {
+        return retryBackoffMillis;
+    }
+    public void setRetryBackoffMillis(long retryBackoffMillis) {
+        this.retryBackoffMillis = retryBackoffMillis;
+    }
+
+    public boolean isGroupCommit() {
+        return groupCommit;
+    }
+    public void setGroupCommit(boolean groupCommit) {
+        this.groupCommit = groupCommit;
+    }
+
+    public int getMaxGroupSize() {
+        return maxGroupSize;
+    }
+    public void setMaxGroupSize(int maxGroupSize) {
+        if (maxGroupSize < 1) {
+            throw new IllegalArgumentException("maxGroupSize must be at least 1");
+        }
+        this.maxGroupSize = maxGroupSize;
+    }
+
+    // Zwraca PRAGMA w kolejności dodania (można je zmieniać przed utworzeniem puli).
+    public Map<String, String> getPragmas() {
+        return pragmas;
+    }
+    public void setPragma(String name, String value) {
+        pragmas.put(name, value);
+    }
+}
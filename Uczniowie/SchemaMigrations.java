@@ -0,0 +1,409 @@
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/*
+  Klasa SchemaMigrations – wersjonowane zmiany schematu bazy.
+  Numer wersji schematu jest zapisany w samym pliku bazy (PRAGMA user_version):
+  - 0 – nowa baza albo baza sprzed migracji (tabela students z tekstowym ID)
+  - migracja N przenosi bazę z wersji N-1 do N; każda w osobnej transakcji razem
+    ze zmianą user_version, więc przerwana migracja nie zostawia bazy "w połowie"
+  - przy starcie wykonujemy tylko brakujące migracje (zwykle żadnej – jedno PRAGMA)
+  Nową zmianę schematu dopisujemy jako kolejną migrację na końcu listy – starych nie zmieniamy.
+
+  Schemat po migracji 2:
+    students(studentID INTEGER PRIMARY KEY, name, age, grade_code, version)
+    - studentID to liczba (alias rowid – bez osobnego indeksu klucza)
+    - grade_code = ocena * 2 (2 -> 4, 3.5 -> 7, 5 -> 10), jeden bajt zamiast REAL
+    - CHECK-i jak walidacja w GUI: imię tylko litery, wiek 18–100, ocena z listy
+    grade_stats(grade_code, cnt) + wyzwalacze, indeksy dla wyszukiwania (StudentQuery)
+  Migracja 3: students_meta.change_count – licznik zmian w students (każdy INSERT / UPDATE /
+  DELETE go zwiększa); kopia danych poza bazą (StudentSnapshot) pamięta licznik z chwili zapisu.
+  Migracja 4: write_behind_checkpoint – numer ostatniego zapisu z dziennika WriteBehindQueue, który
+  jest już w bazie (zapisywany w tej samej transakcji co same zmiany).
+  Migracja 5: change_log – dziennik zmian w students (ADD / UPDATE / REMOVE z danymi przed i po),
+  wypełniany wyzwalaczami, więc łapie każdy zapis (też import, updateGrades i inne procesy);
+  seq (AUTOINCREMENT) rośnie bez przerw i nie wraca po usunięciu starych wpisów (StudentChangeFeed).
+  Migracja 6: grade_history – historia ocen (ocena od chwili valid_from, poprzednia ocena; NULL = studenta
+  nie ma), wypełniana wyzwalaczami w tej samej transakcji co zmiana; valid_from nigdy nie maleje, więc
+  kolejność id to kolejność w czasie. grade_checkpoint – liczba studentów z każdą oceną po wierszu upto_id
+  historii, zapisywana co GRADE_CHECKPOINT_INTERVAL wierszy (GradeHistory: stan z dowolnej chwili to
+  najbliższy wcześniejszy punkt kontrolny i kilka tysięcy wierszy historii za nim).
+  Migracja 7: shard_layout – w pliku części ShardedStudentManager: numer tej części i liczba części
+  (target_count – rebalance w toku); w zwykłej bazie tabela jest pusta.
+*/
+
+public class SchemaMigrations {
+
+    // Jedna zmiana schematu (wykonywana w transakcji, którą otwiera migrate).
+    public interface Migration {
+        String getDescription();
+
+        void apply(Statement stmt) throws SQLException;
+    }
+
+    // Co ile wierszy grade_history zapisujemy punkt kontrolny (migracja 6).
+    static final int GRADE_CHECKPOINT_INTERVAL = 10_000;
+
+    // Kolejne migracje: indeks 0 = wersja 1, indeks 1 = wersja 2, ...
+    private static final List<Migration> MIGRATIONS = new ArrayList<>();
+
+    static {
+        MIGRATIONS.add(new Migration() {
+            @Override
+            public String getDescription() {
+                return "legacy students table with row version";
+            }
+
+            @Override
+            public void apply(Statement stmt) throws SQLException {
+                createLegacyTable(stmt);
+            }
+        });
+        MIGRATIONS.add(new Migration() {
+            @Override
+            public String getDescription() {
+                return "integer student ID, grade code, CHECK constraints";
+            }
+
+            @Override
+            public void apply(Statement stmt) throws SQLException {
+                migrateToTypedTable(stmt);
+            }
+        });
+        MIGRATIONS.add(new Migration() {
+            @Override
+            public String getDescription() {
+                return "change counter for snapshots";
+            }
+
+            @Override
+            public void apply(Statement stmt) throws SQLException {
+                createChangeCounter(stmt);
+            }
+        });
+        MIGRATIONS.add(new Migration() {
+            @Override
+            public String getDescription() {
+                return "write-behind journal checkpoint";
+            }
+
+            @Override
+            public void apply(Statement stmt) throws SQLException {
+                stmt.execute("CREATE TABLE write_behind_checkpoint ("
+                        + "journal TEXT PRIMARY KEY, "
+                        + "applied_seq INTEGER NOT NULL)");
+            }
+        });
+        MIGRATIONS.add(new Migration() {
+            @Override
+            public String getDescription() {
+                return "change log for change-data-capture";
+            }
+
+            @Override
+            public void apply(Statement stmt) throws SQLException {
+                createChangeLog(stmt);
+            }
+        });
+        MIGRATIONS.add(new Migration() {
+            @Override
+            public String getDescription() {
+                return "grade history with aggregate checkpoints";
+            }
+
+            @Override
+            public void apply(Statement stmt) throws SQLException {
+                createGradeHistory(stmt);
+            }
+        });
+        MIGRATIONS.add(new Migration() {
+            @Override
+            public String getDescription() {
+                return "shard layout for sharded stores";
+            }
+
+            @Override
+            public void apply(Statement stmt) throws SQLException {
+                stmt.execute("CREATE TABLE shard_layout ("
+                        + "id INTEGER PRIMARY KEY CHECK (id = 1), "
+                        + "shard_index INTEGER NOT NULL, "
+                        + "shard_count INTEGER NOT NULL, "
+                        + "target_count INTEGER)");
+            }
+        });
+    }
+
+    // Warunek poprawnego wiersza starej tabeli (ten sam co CHECK-i nowej).
+    private static final String LEGACY_ROW_VALID =
+            "studentID <> '' AND studentID NOT GLOB '*[^0-9]*' AND length(studentID) <= 18 "
+            + "AND name <> '' AND name NOT GLOB '*[^A-Za-z]*' "
+            + "AND age BETWEEN 18 AND 100 "
+            + "AND grade IN (2.0, 3.0, 3.5, 4.0, 4.5, 5.0)";
+
+    private SchemaMigrations() {
+    }
+
+    // Najnowsza wersja schematu, którą zna ten kod.
+    public static int latestVersion() {
+        return MIGRATIONS.size();
+    }
+
+    // Wersja schematu zapisana w bazie.
+    public static int currentVersion(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("PRAGMA user_version")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    // Wykonuje brakujące migracje; zwraca, ile ich wykonano.
+    // Baza z nowszą wersją niż latestVersion (nowszy program) – błąd, niczego nie zmieniamy.
+    // Każda migracja zaczyna się od BEGIN IMMEDIATE (blokada zapisu od razu) i dopiero wtedy
+    // czytamy user_version jeszcze raz: dwa procesy startujące naraz nie wykonają tej samej
+    // migracji dwa razy ani nie cofną user_version – drugi zobaczy, że migracja już jest.
+    public static int migrate(SQLiteConnectionPool pool) throws SQLException {
+        try (PooledConnection conn = pool.writer();
+             Statement stmt = conn.getConnection().createStatement()) {
+            Connection c = conn.getConnection();
+            if (checkVersion(c) == latestVersion()) {
+                return 0; // zwykle – bez transakcji, jedno PRAGMA
+            }
+
+            int applied = 0;
+            while (true) {
+                stmt.execute("BEGIN IMMEDIATE");
+                int version = -1;
+                Migration migration = null;
+                try {
+                    version = checkVersion(c);
+                    if (version == latestVersion()) {
+                        stmt.execute("COMMIT");
+                        break;
+                    }
+                    migration = MIGRATIONS.get(version);
+                    migration.apply(stmt);
+                    stmt.execute("PRAGMA user_version = " + (version + 1));
+                    stmt.execute("COMMIT");
+                } catch (SQLException e) {
+                    rollbackQuietly(stmt);
+                    if (migration == null) {
+                        throw e;
+                    }
+                    throw new SQLException("Migration " + (version + 1) + " ("
+                            + migration.getDescription() + ") failed: " + e.getMessage(), e);
+                }
+                applied++;
+            }
+
+            if (applied > 0) {
+                // Przebudowane tabele zostawiają wolne strony – oddajemy je systemowi
+                stmt.execute("VACUUM");
+            }
+            return applied;
+        }
+    }
+
+    // Wersja w bazie; nowsza niż znana temu kodowi – błąd.
+    private static int checkVersion(Connection c) throws SQLException {
+        int version = currentVersion(c);
+        if (version > latestVersion()) {
+            throw new SQLException("Database schema version " + version
+                    + " is newer than supported version " + latestVersion());
+        }
+        return version;
+    }
+
+    private static void rollbackQuietly(Statement stmt) {
+        try {
+            stmt.execute("ROLLBACK");
+        } catch (SQLException e) {
+            // transakcji już nie ma (np. SQLite wycofał ją sam po błędzie)
+        }
+    }
+
+    // Migracja 1: tabela students w starym układzie (tekstowe ID, ocena REAL) z kolumną version.
+    // Dla nowej bazy tworzy tabelę; dla bazy sprzed wersji 1 dopisuje brakującą kolumnę.
+    private static void createLegacyTable(Statement stmt) throws SQLException {
+        stmt.execute("CREATE TABLE IF NOT EXISTS students ("
+                + "name TEXT, "
+                + "age INTEGER, "
+                + "grade REAL, "
+                + "studentID TEXT PRIMARY KEY, "
+                + "version INTEGER NOT NULL DEFAULT 1)");
+
+        boolean hasVersion = false;
+        try (ResultSet rs = stmt.executeQuery("PRAGMA table_info(students)")) {
+            while (rs.next()) {
+                hasVersion |= "version".equalsIgnoreCase(rs.getString("name"));
+            }
+        }
+        if (!hasVersion) {
+            stmt.execute("ALTER TABLE students ADD COLUMN version INTEGER NOT NULL DEFAULT 1");
+        }
+    }
+
+    // Migracja 2: przepisanie students do tabeli z typami liczbowymi i CHECK-ami.
+    // Wiersze, które nie spełniają nowych reguł (np. ID z literami, ocena spoza listy,
+    // powtórzone ID "7" / "007"), nie giną – trafiają do tabeli students_rejected.
+    private static void migrateToTypedTable(Statement stmt) throws SQLException {
+        // Stare wyzwalacze, statystyki i indeksy odwołują się do starych kolumn
+        stmt.execute("DROP TRIGGER IF EXISTS students_stats_insert");
+        stmt.execute("DROP TRIGGER IF EXISTS students_stats_delete");
+        stmt.execute("DROP TRIGGER IF EXISTS students_stats_update");
+        stmt.execute("DROP TABLE IF EXISTS grade_stats");
+        stmt.execute("DROP INDEX IF EXISTS idx_students_name");
+        stmt.execute("DROP INDEX IF EXISTS idx_students_age_grade");
+        stmt.execute("DROP INDEX IF EXISTS idx_students_grade_age");
+
+        stmt.execute("CREATE TABLE students_typed ("
+                + "studentID INTEGER PRIMARY KEY CHECK (studentID >= 0), "
+                + "name TEXT NOT NULL CHECK (name <> '' AND name NOT GLOB '*[^A-Za-z]*'), "
+                + "age INTEGER NOT NULL CHECK (age BETWEEN 18 AND 100), "
+                + "grade_code INTEGER NOT NULL CHECK (grade_code IN (4, 6, 7, 8, 9, 10)), "
+                + "version INTEGER NOT NULL DEFAULT 1)");
+
+        // Z powtórzonych po zamianie na liczbę ID zostaje pierwszy wiersz
+        String keep = "rowid IN (SELECT MIN(rowid) FROM students WHERE " + LEGACY_ROW_VALID
+                + " GROUP BY CAST(studentID AS INTEGER))";
+        stmt.execute("INSERT INTO students_typed(studentID, name, age, grade_code, version) "
+                + "SELECT CAST(studentID AS INTEGER), name, age, CAST(grade * 2 AS INTEGER), version "
+                + "FROM students WHERE " + keep);
+
+        int rejected;
+        try (ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM students WHERE NOT (" + keep + ")")) {
+            rejected = rs.next() ? rs.getInt(1) : 0;
+        }
+        if (rejected > 0) {
+            // Odrzucone wiersze (i ich liczba) zostają w bazie do przejrzenia
+            stmt.execute("CREATE TABLE IF NOT EXISTS students_rejected AS "
+                    + "SELECT * FROM students WHERE NOT (" + keep + ")");
+        }
+
+        stmt.execute("DROP TABLE students");
+        stmt.execute("ALTER TABLE students_typed RENAME TO students");
+
+        // Indeksy dla findStudents / countStudents(StudentQuery):
+        // - imię (bez rozróżniania wielkości liter – tak porównuje wyszukiwanie po początku imienia)
+        // - (age, grade_code) i (grade_code, age) – zakres po pierwszej kolumnie, druga jest już
+        //   w indeksie, więc COUNT(*) z warunkami na wiek i ocenę nie czyta samej tabeli
+        stmt.execute("CREATE INDEX idx_students_name ON students(name COLLATE NOCASE)");
+        stmt.execute("CREATE INDEX idx_students_age_grade ON students(age, grade_code)");
+        stmt.execute("CREATE INDEX idx_students_grade_age ON students(grade_code, age)");
+
+        // Tabela grade_stats (kod oceny -> liczba studentów) i wyzwalacze, które ją aktualizują
+        // przy każdym INSERT / DELETE / UPDATE w students – w tej samej transakcji co zmiana.
+        stmt.execute("CREATE TABLE grade_stats (grade_code INTEGER PRIMARY KEY, cnt INTEGER NOT NULL)");
+        stmt.execute("INSERT INTO grade_stats(grade_code, cnt) "
+                + "SELECT grade_code, COUNT(*) FROM students GROUP BY grade_code");
+        stmt.execute("CREATE TRIGGER students_stats_insert AFTER INSERT ON students BEGIN "
+                + "INSERT OR IGNORE INTO grade_stats(grade_code, cnt) VALUES (NEW.grade_code, 0); "
+                + "UPDATE grade_stats SET cnt = cnt + 1 WHERE grade_code = NEW.grade_code; "
+                + "END");
+        stmt.execute("CREATE TRIGGER students_stats_delete AFTER DELETE ON students BEGIN "
+                + "UPDATE grade_stats SET cnt = cnt - 1 WHERE grade_code = OLD.grade_code; "
+                + "END");
+        stmt.execute("CREATE TRIGGER students_stats_update AFTER UPDATE OF grade_code ON students "
+                + "WHEN OLD.grade_code <> NEW.grade_code BEGIN "
+                + "UPDATE grade_stats SET cnt = cnt - 1 WHERE grade_code = OLD.grade_code; "
+                + "INSERT OR IGNORE INTO grade_stats(grade_code, cnt) VALUES (NEW.grade_code, 0); "
+                + "UPDATE grade_stats SET cnt = cnt + 1 WHERE grade_code = NEW.grade_code; "
+                + "END");
+    }
+
+    // Migracja 3: licznik zmian – jeden wiersz, zwiększany wyzwalaczami w tej samej transakcji co zmiana.
+    private static void createChangeCounter(Statement stmt) throws SQLException {
+        stmt.execute("CREATE TABLE students_meta ("
+                + "id INTEGER PRIMARY KEY CHECK (id = 1), "
+                + "change_count INTEGER NOT NULL)");
+        stmt.execute("INSERT INTO students_meta(id, change_count) VALUES (1, 0)");
+        for (String event : new String[] {"INSERT", "UPDATE", "DELETE"}) {
+            stmt.execute("CREATE TRIGGER students_meta_" + event.toLowerCase(Locale.ROOT) + " AFTER " + event
+                    + " ON students BEGIN "
+                    + "UPDATE students_meta SET change_count = change_count + 1 WHERE id = 1; "
+                    + "END");
+        }
+    }
+
+    // Migracja 5: dziennik zmian. Czas zmiany w milisekundach od 1970 (UTC).
+    private static void createChangeLog(Statement stmt) throws SQLException {
+        stmt.execute("CREATE TABLE change_log ("
+                + "seq INTEGER PRIMARY KEY AUTOINCREMENT, "
+                + "op TEXT NOT NULL, "
+                + "studentID INTEGER NOT NULL, "
+                + "before_name TEXT, before_age INTEGER, before_grade_code INTEGER, before_version INTEGER, "
+                + "after_name TEXT, after_age INTEGER, after_grade_code INTEGER, after_version INTEGER, "
+                + "changed_at INTEGER NOT NULL)");
+        String now = "CAST((julianday('now') - 2440587.5) * 86400000 AS INTEGER)";
+        stmt.execute("CREATE TRIGGER change_log_insert AFTER INSERT ON students BEGIN "
+                + "INSERT INTO change_log(op, studentID, after_name, after_age, after_grade_code, after_version, "
+                + "changed_at) VALUES ('ADD', NEW.studentID, NEW.name, NEW.age, NEW.grade_code, NEW.version, "
+                + now + "); END");
+        stmt.execute("CREATE TRIGGER change_log_update AFTER UPDATE ON students BEGIN "
+                + "INSERT INTO change_log(op, studentID, before_name, before_age, before_grade_code, before_version, "
+                + "after_name, after_age, after_grade_code, after_version, changed_at) "
+                + "VALUES ('UPDATE', NEW.studentID, OLD.name, OLD.age, OLD.grade_code, OLD.version, "
+                + "NEW.name, NEW.age, NEW.grade_code, NEW.version, " + now + "); END");
+        stmt.execute("CREATE TRIGGER change_log_delete AFTER DELETE ON students BEGIN "
+                + "INSERT INTO change_log(op, studentID, before_name, before_age, before_grade_code, before_version, "
+                + "changed_at) VALUES ('REMOVE', OLD.studentID, OLD.name, OLD.age, OLD.grade_code, OLD.version, "
+                + now + "); END");
+    }
+
+    // Migracja 6: historia ocen i punkty kontrolne. Obecni studenci trafiają do historii z chwilą migracji –
+    // wcześniejszych ocen nie znamy, więc stan sprzed migracji nie jest dostępny.
+    private static void createGradeHistory(Statement stmt) throws SQLException {
+        stmt.execute("CREATE TABLE grade_history ("
+                + "id INTEGER PRIMARY KEY AUTOINCREMENT, "
+                + "studentID INTEGER NOT NULL, "
+                + "valid_from INTEGER NOT NULL, "
+                + "grade_code INTEGER, "
+                + "prev_grade_code INTEGER)");
+        // Stan jednego studenta w chwili X i zmiany po X
+        stmt.execute("CREATE INDEX idx_grade_history_student ON grade_history(studentID, valid_from)");
+        // Ostatni wiersz przed chwilą X (i MAX(valid_from) w wyzwalaczach)
+        stmt.execute("CREATE INDEX idx_grade_history_time ON grade_history(valid_from)");
+        stmt.execute("CREATE TABLE grade_checkpoint ("
+                + "upto_id INTEGER NOT NULL, "
+                + "taken_at INTEGER NOT NULL, "
+                + "grade_code INTEGER NOT NULL, "
+                + "cnt INTEGER NOT NULL, "
+                + "PRIMARY KEY (upto_id, grade_code))");
+
+        String now = "CAST((julianday('now') - 2440587.5) * 86400000 AS INTEGER)";
+        stmt.execute("INSERT INTO grade_history(studentID, valid_from, grade_code) "
+                + "SELECT studentID, " + now + ", grade_code FROM students ORDER BY studentID");
+        // Punkt kontrolny zawsze ma wiersz dla każdej oceny (także 0), żeby był widoczny przy pustej bazie
+        String codes = "(SELECT 4 AS code UNION ALL SELECT 6 UNION ALL SELECT 7 UNION ALL SELECT 8 "
+                + "UNION ALL SELECT 9 UNION ALL SELECT 10) codes";
+        stmt.execute("INSERT INTO grade_checkpoint(upto_id, taken_at, grade_code, cnt) "
+                + "SELECT coalesce((SELECT MAX(id) FROM grade_history), 0), " + now + ", codes.code, "
+                + "(SELECT COUNT(*) FROM students WHERE grade_code = codes.code) FROM " + codes);
+
+        // Czas zmiany nie mniejszy niż ostatni w historii (zegar systemowy może się cofnąć)
+        String validFrom = "MAX(" + now + ", coalesce((SELECT MAX(valid_from) FROM grade_history), 0))";
+        stmt.execute("CREATE TRIGGER grade_history_insert AFTER INSERT ON students BEGIN "
+                + "INSERT INTO grade_history(studentID, valid_from, grade_code) "
+                + "VALUES (NEW.studentID, " + validFrom + ", NEW.grade_code); END");
+        stmt.execute("CREATE TRIGGER grade_history_update AFTER UPDATE OF grade_code ON students "
+                + "WHEN OLD.grade_code <> NEW.grade_code BEGIN "
+                + "INSERT INTO grade_history(studentID, valid_from, grade_code, prev_grade_code) "
+                + "VALUES (NEW.studentID, " + validFrom + ", NEW.grade_code, OLD.grade_code); END");
+        stmt.execute("CREATE TRIGGER grade_history_delete AFTER DELETE ON students BEGIN "
+                + "INSERT INTO grade_history(studentID, valid_from, prev_grade_code) "
+                + "VALUES (OLD.studentID, " + validFrom + ", OLD.grade_code); END");
+        // Nowy punkt kontrolny = poprzedni + zmiany od niego (najwyżej GRADE_CHECKPOINT_INTERVAL wierszy)
+        String range = "h.id > c.upto_id AND h.id <= NEW.id";
+        stmt.execute("CREATE TRIGGER grade_history_checkpoint AFTER INSERT ON grade_history "
+                + "WHEN NEW.id % " + GRADE_CHECKPOINT_INTERVAL + " = 0 BEGIN "
+                + "INSERT INTO grade_checkpoint(upto_id, taken_at, grade_code, cnt) "
+                + "SELECT NEW.id, NEW.valid_from, c.grade_code, c.cnt "
+                + "+ (SELECT COUNT(*) FROM grade_history h WHERE " + range + " AND h.grade_code = c.grade_code) "
+                + "- (SELECT COUNT(*) FROM grade_history h WHERE " + range + " AND h.prev_grade_code = c.grade_code) "
+                + "FROM grade_checkpoint c WHERE c.upto_id = (SELECT MAX(upto_id) FROM grade_checkpoint); END");
+    }
+}
@@ -0,0 +1,705 @@
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+/*
+  Klasa ShardedStudentManager – studenci podzieleni między kilka plików SQLite (części, "shards"),
+  każdy z własną pulą i własnym pisarzem, więc zapisy do różnych części nie czekają na siebie
+  (jeden plik = jedna blokada zapisu dla wszystkich wydziałów).
+  - część dla studenta: skrót ID (jump consistent hash, "007" i "7" to ten sam student), więc
+    przy zmianie liczby części przenosi się tylko ok. 1/N studentów, a nie prawie wszyscy
+  - operacje na jednym studencie idą do jego części; addStudents i updateGrades dzielą dane
+    między części i zapisują je równolegle (transakcja obejmuje jedną część, nie wszystkie)
+  - listy, liczniki i statystyki pytają wszystkie części równolegle i łączą wyniki
+    (listy scalane w tej samej kolejności, w jakiej sortuje je baza)
+  - rebalance – zmiana liczby części: studenci są kopiowani do nowej części (z wersją),
+    potem usuwani ze starej; w tym czasie inne operacje czekają. Przy błędzie przeniesieni
+    studenci wracają na stare miejsca, a nowo otwarte części są zamykane
+  - układ części jest zapisany w plikach (shard_layout, zob. SchemaMigrations): każda część zna
+    swój numer i liczbę części, część 0 dodatkowo rebalance w toku. Otwarcie z inną liczbą części
+    (wszystkie ID trafiałyby do złych plików) albo z obcym / brakującym plikiem części to błąd;
+    zmiana liczby części tylko przez rebalance. Przerwany rebalance open() kończy sam
+  Pliki: open("students", 4) -> students-0.db ... students-3.db.
+*/
+
+public class ShardedStudentManager implements StudentManager, AutoCloseable {
+
+    // Ilu studentów czytamy i przenosimy naraz w rebalance.
+    private static final int MOVE_BATCH = 1000;
+
+    // Ile wierszy importu dzielimy między części w jednym kroku (potem postęp dla listenera).
+    private static final int IMPORT_CHUNK = 10_000;
+
+    private volatile List<StudentManagerImpl> shards;
+    private final String pathPrefix;
+    private final ExecutorService executor;
+
+    // Operacje biorą blokadę do odczytu, rebalance – do zapisu (zmiana podziału).
+    private final ReentrantReadWriteLock layout = new ReentrantReadWriteLock();
+
+    // Części podane przez wywołującego; ich zapisany układ musi się zgadzać (zob. checkLayout).
+    public ShardedStudentManager(List<StudentManagerImpl> shards) {
+        this(checkLayout(shards), null);
+    }
+
+    private ShardedStudentManager(List<StudentManagerImpl> shards, String pathPrefix) {
+        if (shards.isEmpty()) {
+            throw new IllegalArgumentException("At least one shard is required");
+        }
+        this.shards = Collections.unmodifiableList(new ArrayList<>(shards));
+        this.pathPrefix = pathPrefix;
+        AtomicInteger threads = new AtomicInteger();
+        this.executor = Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "student-shard-" + threads.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    // Części w plikach pathPrefix-0.db ... pathPrefix-(shardCount-1).db. Pliki z inną zapisaną liczbą
+    // części – IllegalStateException (otwórz z zapisaną liczbą i wywołaj rebalance(shardCount)).
+    public static ShardedStudentManager open(String pathPrefix, int shardCount) {
+        if (shardCount < 1) {
+            throw new IllegalArgumentException("shardCount must be at least 1");
+        }
+        List<StudentManagerImpl> shards = new ArrayList<>(shardCount);
+        ShardedStudentManager manager = null;
+        try {
+            // Ile części naprawdę jest, mówi część 0 (nowe pliki – tyle, ile podano)
+            shards.add(openShard(pathPrefix, 0));
+            int[] stored = readLayout(shards.get(0));
+            int count = stored != null ? stored[1] : shardCount;
+            for (int i = 1; i < count; i++) {
+                shards.add(openShard(pathPrefix, i));
+            }
+            manager = new ShardedStudentManager(checkLayout(shards), pathPrefix);
+            if (stored != null && stored[2] > 0) {
+                manager.rebalance(stored[2]); // dokończenie przerwanego rebalance
+            }
+            if (manager.getShardCount() != shardCount) {
+                throw new IllegalStateException(pathPrefix + "-*.db holds " + manager.getShardCount()
+                        + " shards, not " + shardCount + "; open it with " + manager.getShardCount()
+                        + " shards and call rebalance(" + shardCount + ")");
+            }
+            return manager;
+        } catch (SQLException | RuntimeException e) {
+            if (manager != null) {
+                manager.close();
+            } else {
+                for (StudentManagerImpl shard : shards) {
+                    shard.close();
+                }
+            }
+            if (e instanceof RuntimeException) {
+                throw (RuntimeException) e;
+            }
+            throw new IllegalStateException("Cannot open shards " + pathPrefix + ": " + e.getMessage(), e);
+        }
+    }
+
+    // Sprawdza zapisany układ części (i zapisuje go w nowych plikach). Błąd, gdy zapisana liczba
+    // części jest inna albo któryś plik należy do innego układu lub nie ma zapisu (brakujący,
+    // podmieniony plik). Przerwany rebalance nie jest błędem: open() go kończy, a przy częściach
+    // podanych przez wywołującego zostaje do rebalance (zob. getInterruptedRebalance).
+    private static List<StudentManagerImpl> checkLayout(List<StudentManagerImpl> shards) {
+        if (shards.isEmpty()) {
+            throw new IllegalArgumentException("At least one shard is required");
+        }
+        int n = shards.size();
+        try {
+            int[] first = readLayout(shards.get(0));
+            if (first == null) {
+                // Nowy podział: żadna część nie może mieć zapisanego układu
+                for (int i = 1; i < n; i++) {
+                    if (readLayout(shards.get(i)) != null) {
+                        throw new IllegalStateException("Shard 0 has no layout record, but shard " + i
+                                + " has one; shard file 0 is missing or was replaced");
+                    }
+                }
+                for (int i = n - 1; i >= 0; i--) {
+                    writeLayout(shards.get(i), i, n, 0);
+                }
+                return shards;
+            }
+            if (first[1] != n) {
+                throw new IllegalStateException("Shard files hold " + first[1] + " shards, not " + n
+                        + "; open them with " + first[1] + " shards and call rebalance(" + n + ")");
+            }
+            for (int i = 1; i < n; i++) {
+                int[] layout = readLayout(shards.get(i));
+                // W trakcie rebalance część może mieć już zapisany nowy układ
+                boolean known = layout != null && layout[0] == i
+                        && (layout[1] == n || (first[2] > 0 && layout[1] == first[2]));
+                if (!known) {
+                    throw new IllegalStateException("Shard file " + i + " does not belong to this layout of "
+                            + n + " shards" + (layout == null ? " (no layout record; missing or replaced file)"
+                            : " (it is shard " + layout[0] + " of " + layout[1] + ")"));
+                }
+            }
+            return shards;
+        } catch (SQLException e) {
+            throw new IllegalStateException("Cannot read shard layout: " + e.getMessage(), e);
+        }
+    }
+
+    // Zapisany układ części: {numer części, liczba części, docelowa liczba (0 – brak rebalance)};
+    // null – plik bez zapisu (nowy).
+    private static int[] readLayout(StudentManagerImpl shard) throws SQLException {
+        try (PooledConnection conn = shard.getPool().reader();
+             ResultSet rs = conn.prepare("SELECT shard_index, shard_count, target_count FROM shard_layout")
+                     .executeQuery()) {
+            return rs.next() ? new int[] {rs.getInt(1), rs.getInt(2), rs.getInt(3)} : null;
+        }
+    }
+
+    private static void writeLayout(StudentManagerImpl shard, int index, int count, int targetCount)
+            throws SQLException {
+        shard.getPool().write(conn -> {
+            PreparedStatement pstmt = conn.prepare("INSERT OR REPLACE INTO shard_layout"
+                    + "(id, shard_index, shard_count, target_count) VALUES (1, ?, ?, ?)");
+            pstmt.setInt(1, index);
+            pstmt.setInt(2, count);
+            if (targetCount > 0) {
+                pstmt.setInt(3, targetCount);
+            } else {
+                pstmt.setNull(3, Types.INTEGER);
+            }
+            return pstmt.executeUpdate();
+        });
+    }
+
+    // Część wypada z podziału (jest pusta) – bez zapisu może wejść do innego podziału.
+    private static void clearLayout(StudentManagerImpl shard) throws SQLException {
+        shard.getPool().write(conn -> conn.prepare("DELETE FROM shard_layout").executeUpdate());
+    }
+
+    private static StudentManagerImpl openShard(String pathPrefix, int index) {
+        return new StudentManagerImpl(
+                new SQLiteConnectionPool(new SQLitePoolConfig("jdbc:sqlite:" + pathPrefix + "-" + index + ".db")));
+    }
+
+    public int getShardCount() {
+        return shards.size();
+    }
+
+    public List<StudentManagerImpl> getShards() {
+        return shards;
+    }
+
+    // Docelowa liczba części przerwanego rebalance (0 – brak); dokończyć go – rebalance(wynik).
+    public int getInterruptedRebalance() {
+        layout.readLock().lock();
+        try {
+            int[] stored = readLayout(shards.get(0));
+            return stored != null ? stored[2] : 0;
+        } catch (SQLException e) {
+            throw new StudentStoreException("Cannot read shard layout: " + e.getMessage(), e);
+        } finally {
+            layout.readLock().unlock();
+        }
+    }
+
+    // Numer części, w której jest (albo byłby) student o podanym ID.
+    public int shardOf(String studentID) {
+        return shardIndex(StudentManagerImpl.parseID(studentID), shards.size());
+    }
+
+    // Jump consistent hash (Lamping, Veach): przy zmianie z N na N+1 części zmienia się
+    // część tylko dla ok. 1/(N+1) kluczy. Niepoprawne ID (-1) trafia do części 0.
+    static int shardIndex(long id, int shardCount) {
+        if (id < 0) {
+            return 0;
+        }
+        // Mieszanie bitów (SplitMix64) – kolejne ID mają się rozkładać równo
+        long key = id + 0x9E3779B97F4A7C15L;
+        key = (key ^ (key >>> 30)) * 0xBF58476D1CE4E5B9L;
+        key = (key ^ (key >>> 27)) * 0x94D049BB133111EBL;
+        key = key ^ (key >>> 31);
+        long b = -1;
+        long j = 0;
+        while (j < shardCount) {
+            b = j;
+            key = key * 2862933555777941757L + 1;
+            j = (long) ((b + 1) * ((double) (1L << 31) / (double) ((key >>> 33) + 1)));
+        }
+        return (int) b;
+    }
+
+    private StudentManagerImpl shardFor(String studentID) {
+        return shards.get(shardOf(studentID));
+    }
+
+    // Operacja na jednej części (pod blokadą podziału).
+    private <T> T route(String studentID, Function<StudentManagerImpl, T> operation) {
+        layout.readLock().lock();
+        try {
+            return operation.apply(shardFor(studentID));
+        } finally {
+            layout.readLock().unlock();
+        }
+    }
+
+    // Ta sama operacja na wszystkich częściach naraz; wyniki w kolejności części.
+    private <T> List<T> scatter(Function<StudentManagerImpl, T> operation) {
+        layout.readLock().lock();
+        try {
+            return scatter(shards, operation);
+        } finally {
+            layout.readLock().unlock();
+        }
+    }
+
+    private <S, T> List<T> scatter(List<S> parts, Function<S, T> operation) {
+        List<CompletableFuture<T>> futures = new ArrayList<>(parts.size());
+        // Ostatnią część liczymy w bieżącym wątku
+        for (int i = 0; i < parts.size() - 1; i++) {
+            S part = parts.get(i);
+            futures.add(CompletableFuture.supplyAsync(() -> operation.apply(part), executor));
+        }
+        T last = operation.apply(parts.get(parts.size() - 1));
+        List<T> results = new ArrayList<>(parts.size());
+        try {
+            for (CompletableFuture<T> future : futures) {
+                results.add(future.join());
+            }
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+        results.add(last);
+        return results;
+    }
+
+    @Override
+    public boolean addStudent(Student student) {
+        return route(student.getStudentID(), shard -> shard.addStudent(student));
+    }
+
+    // Import: kolejne kawałki danych dzielimy między części i zapisujemy równolegle.
+    // Numery odrzuconych wierszy są numerami z danych wejściowych, jak w StudentManagerImpl.
+    @Override
+    public ImportResult addStudents(Iterable<Student> students, ImportProgressListener listener) {
+        ImportResult result = new ImportResult();
+        layout.readLock().lock();
+        try {
+            List<Student> chunk = new ArrayList<>(IMPORT_CHUNK);
+            int firstRow = 1;
+            for (Student student : students) {
+                chunk.add(student);
+                if (chunk.size() == IMPORT_CHUNK) {
+                    importChunk(chunk, firstRow, result, listener);
+                    firstRow += chunk.size();
+                    chunk.clear();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                importChunk(chunk, firstRow, result, listener);
+            }
+        } finally {
+            layout.readLock().unlock();
+        }
+        result.finish();
+        return result;
+    }
+
+    private void importChunk(List<Student> chunk, int firstRow, ImportResult result, ImportProgressListener listener) {
+        List<StudentManagerImpl> current = shards;
+        List<ImportPart> parts = new ArrayList<>(current.size());
+        for (StudentManagerImpl shard : current) {
+            parts.add(new ImportPart(shard));
+        }
+        for (int i = 0; i < chunk.size(); i++) {
+            Student s = chunk.get(i);
+            parts.get(shardIndex(StudentManagerImpl.parseID(s.getStudentID()), current.size())).add(s, firstRow + i);
+        }
+        List<ImportResult> partial = scatter(parts, ImportPart::insert);
+
+        TreeMap<Integer, ImportResult.Rejected> rejected = new TreeMap<>();
+        for (int p = 0; p < parts.size(); p++) {
+            result.addAccepted(partial.get(p).getAccepted());
+            for (ImportResult.Rejected r : partial.get(p).getRejected()) {
+                int row = parts.get(p).rows[r.getRow() - 1];
+                rejected.put(row, new ImportResult.Rejected(row, r.getStudentID(), r.getReason()));
+            }
+        }
+        for (ImportResult.Rejected r : rejected.values()) {
+            result.addRejected(r.getRow(), r.getStudentID(), r.getReason());
+        }
+        result.addProcessed(chunk.size());
+        if (listener != null) {
+            listener.onProgress(result.getProcessed(), result.getAccepted(), result.getRejectedCount());
+        }
+    }
+
+    // Wiersze importu jednej części razem z ich numerami w danych wejściowych.
+    private static final class ImportPart {
+        final StudentManagerImpl shard;
+        final List<Student> students = new ArrayList<>();
+        int[] rows = new int[16];
+
+        ImportPart(StudentManagerImpl shard) {
+            this.shard = shard;
+        }
+
+        void add(Student student, int row) {
+            if (students.size() == rows.length) {
+                rows = Arrays.copyOf(rows, rows.length * 2);
+            }
+            rows[students.size()] = row;
+            students.add(student);
+        }
+
+        ImportResult insert() {
+            return students.isEmpty() ? new ImportResult() : shard.addStudents(students);
+        }
+    }
+
+    @Override
+    public boolean studentExists(String studentID) {
+        return route(studentID, shard -> shard.studentExists(studentID));
+    }
+
+    @Override
+    public Student findStudent(String studentID) {
+        return route(studentID, shard -> shard.findStudent(studentID));
+    }
+
+    @Override
+    public boolean removeStudent(String studentID) {
+        return route(studentID, shard -> shard.removeStudent(studentID));
+    }
+
+    @Override
+    public int updateStudent(Student student) {
+        return route(student.getStudentID(), shard -> shard.updateStudent(student));
+    }
+
+    @Override
+    public int updateFields(String studentID, StudentChanges changes) {
+        return route(studentID, shard -> shard.updateFields(studentID, changes));
+    }
+
+    // Oceny dzielimy między części; każda część zapisuje swoje w jednej transakcji.
+    @Override
+    public int updateGrades(Map<String, Double> gradesByID) {
+        layout.readLock().lock();
+        try {
+            List<StudentManagerImpl> current = shards;
+            Map<StudentManagerImpl, Map<String, Double>> byShard = new IdentityHashMap<>();
+            for (Map.Entry<String, Double> e : gradesByID.entrySet()) {
+                byShard.computeIfAbsent(current.get(shardIndex(StudentManagerImpl.parseID(e.getKey()), current.size())),
+                        s -> new HashMap<>()).put(e.getKey(), e.getValue());
+            }
+            if (byShard.isEmpty()) {
+                return 0;
+            }
+            int updated = 0;
+            for (int n : scatter(new ArrayList<>(byShard.entrySet()), e -> e.getKey().updateGrades(e.getValue()))) {
+                updated += n;
+            }
+            return updated;
+        } finally {
+            layout.readLock().unlock();
+        }
+    }
+
+    @Override
+    public ArrayList<Student> displayAllStudents() {
+        return merge(scatter(StudentManagerImpl::displayAllStudents), BY_ID, 0, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int countStudents() {
+        int count = 0;
+        for (int n : scatter(StudentManagerImpl::countStudents)) {
+            count += n;
+        }
+        return count;
+    }
+
+    @Override
+    public List<Student> findStudentsAfter(String afterStudentID, int limit) {
+        return merge(scatter(shard -> shard.findStudentsAfter(afterStudentID, limit)), BY_ID, 0, limit);
+    }
+
+    // Każda część musi oddać offset + limit pierwszych studentów – dalekie strony są drogie,
+    // lepiej przechodzić stronami przez findStudentsAfter.
+    @Override
+    public List<Student> findStudentsPage(int offset, int limit) {
+        int top = (int) Math.min(Integer.MAX_VALUE, (long) offset + limit);
+        return merge(scatter(shard -> shard.findStudentsPage(0, top)), BY_ID, offset, limit);
+    }
+
+    @Override
+    public List<Student> findStudents(StudentQuery query) {
+        StudentQuery perShard = copyOf(query);
+        perShard.setOffset(0);
+        perShard.setLimit((int) Math.min(Integer.MAX_VALUE, (long) query.getOffset() + query.getLimit()));
+        return merge(scatter(shard -> shard.findStudents(perShard)), orderOf(query), query.getOffset(),
+                query.getLimit());
+    }
+
+    @Override
+    public int countStudents(StudentQuery query) {
+        int count = 0;
+        for (int n : scatter(shard -> shard.countStudents(query))) {
+            count += n;
+        }
+        return count;
+    }
+
+    @Override
+    public double calculateAverageGrade() {
+        return getGradeStatistics().getAverage();
+    }
+
+    // Histogramy ocen wszystkich części dodane do siebie.
+    @Override
+    public GradeStatistics getGradeStatistics() {
+        Map<Double, Long> histogram = new TreeMap<>();
+        for (GradeStatistics stats : scatter(StudentManagerImpl::getGradeStatistics)) {
+            for (Map.Entry<Double, Long> e : stats.getHistogram().entrySet()) {
+                histogram.merge(e.getKey(), e.getValue(), Long::sum);
+            }
+        }
+        return new GradeStatistics(histogram);
+    }
+
+    // Kolejność jak w bazie: ID liczbowo, imię jak COLLATE NOCASE (imiona to same litery ASCII).
+    private static final Comparator<Student> BY_ID =
+            Comparator.comparingLong(s -> StudentManagerImpl.parseID(s.getStudentID()));
+
+    private static Comparator<Student> orderOf(StudentQuery query) {
+        Comparator<Student> order;
+        switch (query.getSortBy()) {
+            case NAME:
+                order = Comparator.comparing(Student::getName, String.CASE_INSENSITIVE_ORDER);
+                break;
+            case AGE:
+                order = Comparator.comparingInt(Student::getAge);
+                break;
+            case GRADE:
+                order = Comparator.comparingDouble(Student::getGrade);
+                break;
+            default:
+                order = BY_ID;
+                break;
+        }
+        return query.isDescending() ? order.reversed() : order;
+    }
+
+    private static StudentQuery copyOf(StudentQuery query) {
+        StudentQuery copy = new StudentQuery();
+        copy.setNamePrefix(query.getNamePrefix());
+        copy.setMinAge(query.getMinAge());
+        copy.setMaxAge(query.getMaxAge());
+        copy.setMinGrade(query.getMinGrade());
+        copy.setMaxGrade(query.getMaxGrade());
+        copy.setSortBy(query.getSortBy());
+        copy.setDescending(query.isDescending());
+        return copy;
+    }
+
+    // Scalenie posortowanych list z części: pomijamy skip pierwszych, zwracamy najwyżej limit.
+    private static ArrayList<Student> merge(List<? extends List<Student>> sorted, Comparator<Student> order,
+                                            int skip, int limit) {
+        int total = 0;
+        for (List<Student> part : sorted) {
+            total += part.size();
+        }
+        ArrayList<Student> merged = new ArrayList<>(Math.max(0, Math.min(limit, total - skip)));
+        // Kolejka: [numer części, pozycja w niej], na początku najmniejszy student
+        PriorityQueue<int[]> heads = new PriorityQueue<>(Math.max(1, sorted.size()),
+                (a, b) -> order.compare(sorted.get(a[0]).get(a[1]), sorted.get(b[0]).get(b[1])));
+        for (int i = 0; i < sorted.size(); i++) {
+            if (!sorted.get(i).isEmpty()) {
+                heads.add(new int[] {i, 0});
+            }
+        }
+        while (!heads.isEmpty() && merged.size() < limit) {
+            int[] head = heads.poll();
+            List<Student> part = sorted.get(head[0]);
+            if (skip > 0) {
+                skip--;
+            } else {
+                merged.add(part.get(head[1]));
+            }
+            if (++head[1] < part.size()) {
+                heads.add(head);
+            }
+        }
+        return merged;
+    }
+
+    // Zmiana liczby części dla managera z open(): pathPrefix-0.db ... pathPrefix-(shardCount-1).db.
+    // Pliki części, które wypadają, zostają puste (można je usunąć). Zwraca liczbę przeniesionych studentów.
+    public long rebalance(int shardCount) throws SQLException {
+        if (pathPrefix == null) {
+            throw new IllegalStateException("rebalance(int) needs a manager created by open(); use rebalance(List)");
+        }
+        if (shardCount < 1) {
+            throw new IllegalArgumentException("shardCount must be at least 1");
+        }
+        List<StudentManagerImpl> current = shards;
+        List<StudentManagerImpl> target = new ArrayList<>(shardCount);
+        try {
+            for (int i = 0; i < shardCount; i++) {
+                target.add(i < current.size() ? current.get(i) : openShard(pathPrefix, i));
+            }
+            return rebalance(target);
+        } catch (SQLException | RuntimeException e) {
+            // Nowo otwarte części zamykamy (przeniesieni studenci już z nich wrócili)
+            for (StudentManagerImpl shard : target) {
+                if (!current.contains(shard)) {
+                    shard.close();
+                }
+            }
+            throw e;
+        }
+    }
+
+    // Nowy podział na podane części (te same obiekty na początku listy zostają, reszta jest nowa).
+    // Każdego studenta, który ma teraz być w innej części, kopiujemy tam (razem z wersją) i dopiero
+    // potem usuwamy ze starej. Przy błędzie przeniesieni studenci wracają (tak samo, według starego
+    // podziału) i podział się nie zmienia. Jeśli proces zginie w trakcie, część 0 pamięta docelową
+    // liczbę części, a ponowne wywołanie (albo open) kończy przenoszenie – kopia pomija ID, które
+    // już są w części docelowej. Części spoza nowej listy są na końcu puste i zamknięte.
+    // Zwraca liczbę przeniesionych studentów.
+    public long rebalance(List<StudentManagerImpl> newShards) throws SQLException {
+        if (newShards.isEmpty()) {
+            throw new IllegalArgumentException("At least one shard is required");
+        }
+        List<StudentManagerImpl> target = Collections.unmodifiableList(new ArrayList<>(newShards));
+        layout.writeLock().lock();
+        try {
+            List<StudentManagerImpl> current = shards;
+            long moved;
+            try {
+                writeLayout(current.get(0), 0, current.size(), target.size()); // rebalance w toku
+                moved = moveAll(current, target);
+                for (int i = target.size() - 1; i >= 0; i--) { // część 0 na końcu – zatwierdza nowy układ
+                    writeLayout(target.get(i), i, target.size(), 0);
+                }
+            } catch (SQLException | RuntimeException e) {
+                try {
+                    moveAll(target, current);
+                    for (StudentManagerImpl shard : target) {
+                        if (!current.contains(shard)) {
+                            clearLayout(shard);
+                        }
+                    }
+                    for (int i = current.size() - 1; i >= 0; i--) {
+                        writeLayout(current.get(i), i, current.size(), 0);
+                    }
+                } catch (SQLException | RuntimeException undo) {
+                    e.addSuppressed(undo);
+                }
+                throw e;
+            }
+            shards = target;
+            for (StudentManagerImpl old : current) {
+                if (!target.contains(old)) {
+                    try {
+                        clearLayout(old);
+                    } catch (SQLException e) {
+                        e.printStackTrace();
+                    }
+                    old.close();
+                }
+            }
+            return moved;
+        } finally {
+            layout.writeLock().unlock();
+        }
+    }
+
+    // Przenosi studentów z części sources do ich części w podziale target (równolegle).
+    private long moveAll(List<StudentManagerImpl> sources, List<StudentManagerImpl> target)
+            throws SQLException {
+        List<Long> moved;
+        try {
+            moved = scatter(sources, source -> {
+                try {
+                    return moveOut(source, target);
+                } catch (SQLException e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+        } catch (IllegalStateException e) {
+            if (e.getCause() instanceof SQLException) {
+                throw (SQLException) e.getCause();
+            }
+            throw e;
+        }
+        long total = 0;
+        for (long n : moved) {
+            total += n;
+        }
+        return total;
+    }
+
+    // Przenosi z części source studentów, którzy w podziale target należą gdzie indziej.
+    private static long moveOut(StudentManagerImpl source, List<StudentManagerImpl> target) throws SQLException {
+        long moved = 0;
+        String after = null;
+        List<Student> page;
+        do {
+            page = source.findStudentsAfter(after, MOVE_BATCH);
+            Map<StudentManagerImpl, List<Student>> byShard = new IdentityHashMap<>();
+            List<Student> leaving = new ArrayList<>();
+            for (Student s : page) {
+                StudentManagerImpl owner = target.get(shardIndex(StudentManagerImpl.parseID(s.getStudentID()),
+                        target.size()));
+                if (owner != source) {
+                    byShard.computeIfAbsent(owner, o -> new ArrayList<>()).add(s);
+                    leaving.add(s);
+                }
+            }
+            for (Map.Entry<StudentManagerImpl, List<Student>> e : byShard.entrySet()) {
+                e.getKey().copyStudents(e.getValue());
+            }
+            if (!leaving.isEmpty()) {
+                source.removeStudents(leaving);
+                moved += leaving.size();
+            }
+            if (!page.isEmpty()) {
+                after = page.get(page.size() - 1).getStudentID();
+            }
+        } while (page.size() == MOVE_BATCH);
+        return moved;
+    }
+
+    // Zamyka wszystkie części.
+    @Override
+    public void close() {
+        layout.writeLock().lock();
+        try {
+            for (StudentManagerImpl shard : shards) {
+                shard.close();
+            }
+            executor.shutdown();
+        } finally {
+            layout.writeLock().unlock();
+        }
+    }
+}
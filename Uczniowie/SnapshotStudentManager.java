@@ -0,0 +1,239 @@
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/*
+  Klasa SnapshotStudentManager – odczyty z pliku StudentSnapshot (zmapowanego w pamięci),
+  zapisy do bazy SQLite. Baza jest zawsze źródłem prawdy:
+  - przy starcie kopia jest używana tylko, gdy plik jest poprawny (nagłówek, suma kontrolna)
+    i jej licznik zmian równa się licznikowi bazy (StudentManagerImpl.getChangeCount)
+  - każdy zapis przez tego menedżera idzie do bazy i wyłącza kopię (dalsze odczyty – z bazy)
+  - save() zapisuje świeżą kopię i znowu czyta z niej
+  Wyszukiwanie (findStudents / countStudents z StudentQuery) zawsze idzie do bazy – tam są indeksy.
+  Zmian w bazie zrobionych z pominięciem tego menedżera (inny program) nie widać do ponownego startu.
+*/
+
+public class SnapshotStudentManager implements StudentManager {
+
+    private final StudentManagerImpl source;
+    private final File file;
+
+    // null – kopia niedostępna albo nieaktualna, czytamy z bazy
+    private volatile StudentSnapshot snapshot;
+
+    public SnapshotStudentManager(StudentManagerImpl source, File file) {
+        this.source = source;
+        this.file = file;
+        this.snapshot = openIfCurrent();
+    }
+
+    private StudentSnapshot openIfCurrent() {
+        if (!file.exists()) {
+            return null;
+        }
+        try {
+            StudentSnapshot opened = StudentSnapshot.open(file);
+            if (opened.getChangeCount() == source.getChangeCount()) {
+                return opened;
+            }
+            System.out.println("Snapshot " + file + " is out of date - reading from the database");
+        } catch (IOException e) {
+            System.out.println("Snapshot " + file + " rejected (" + e.getMessage() + ") - reading from the database");
+        }
+        return null;
+    }
+
+    public StudentManagerImpl getSource() {
+        return source;
+    }
+
+    // Czy odczyty idą teraz z pliku kopii.
+    public boolean isSnapshotActive() {
+        return snapshot != null;
+    }
+
+    // Zapisuje świeżą kopię bazy i przełącza odczyty na nią. Zwraca liczbę zapisanych studentów.
+    public synchronized int save() throws IOException {
+        snapshot = null;
+        int rows = StudentSnapshot.export(source, file);
+        snapshot = openIfCurrent();
+        return rows;
+    }
+
+    // Po zmianie w bazie kopia jest nieaktualna.
+    private void invalidate() {
+        StudentSnapshot old = snapshot;
+        snapshot = null;
+        if (old != null) {
+            old.close();
+        }
+    }
+
+    @Override
+    public boolean addStudent(Student student) {
+        boolean added = source.addStudent(student);
+        if (added) {
+            invalidate();
+        }
+        return added;
+    }
+
+    @Override
+    public ImportResult addStudents(Iterable<Student> students, ImportProgressListener listener) {
+        invalidate();
+        return source.addStudents(students, listener);
+    }
+
+    @Override
+    public boolean studentExists(String studentID) {
+        StudentSnapshot snap = snapshot;
+        if (snap == null) {
+            return source.studentExists(studentID);
+        }
+        long id = StudentManagerImpl.parseID(studentID);
+        return id >= 0 && snap.indexOf(id) >= 0;
+    }
+
+    @Override
+    public Student findStudent(String studentID) {
+        StudentSnapshot snap = snapshot;
+        if (snap == null) {
+            return source.findStudent(studentID);
+        }
+        long id = StudentManagerImpl.parseID(studentID);
+        int i = id >= 0 ? snap.indexOf(id) : -1;
+        return i >= 0 ? snap.studentAt(i) : null;
+    }
+
+    @Override
+    public boolean removeStudent(String studentID) {
+        boolean removed = source.removeStudent(studentID);
+        if (removed) {
+            invalidate();
+        }
+        return removed;
+    }
+
+    @Override
+    public int updateStudent(Student student) {
+        int updated = source.updateStudent(student);
+        if (updated > 0) {
+            invalidate();
+        }
+        return updated;
+    }
+
+    @Override
+    public int updateFields(String studentID, StudentChanges changes) {
+        int updated = source.updateFields(studentID, changes);
+        if (updated > 0) {
+            invalidate();
+        }
+        return updated;
+    }
+
+    @Override
+    public int updateGrades(Map<String, Double> gradesByID) {
+        int updated = source.updateGrades(gradesByID);
+        if (updated > 0) {
+            invalidate();
+        }
+        return updated;
+    }
+
+    @Override
+    public ArrayList<Student> displayAllStudents() {
+        StudentSnapshot snap = snapshot;
+        if (snap == null) {
+            return source.displayAllStudents();
+        }
+        ArrayList<Student> students = new ArrayList<>(snap.size());
+        for (int i = 0; i < snap.size(); i++) {
+            students.add(snap.studentAt(i));
+        }
+        return students;
+    }
+
+    @Override
+    public int countStudents() {
+        StudentSnapshot snap = snapshot;
+        return snap != null ? snap.size() : source.countStudents();
+    }
+
+    @Override
+    public List<Student> findStudentsAfter(String afterStudentID, int limit) {
+        StudentSnapshot snap = snapshot;
+        if (snap == null) {
+            return source.findStudentsAfter(afterStudentID, limit);
+        }
+        int from = 0;
+        if (afterStudentID != null) {
+            long after = StudentManagerImpl.parseID(afterStudentID);
+            if (after < 0) {
+                return source.findStudentsAfter(afterStudentID, limit);
+            }
+            from = snap.indexAfter(after);
+        }
+        return slice(snap, from, limit);
+    }
+
+    @Override
+    public List<Student> findStudentsPage(int offset, int limit) {
+        StudentSnapshot snap = snapshot;
+        if (snap == null) {
+            return source.findStudentsPage(offset, limit);
+        }
+        return slice(snap, Math.max(0, offset), limit);
+    }
+
+    private static List<Student> slice(StudentSnapshot snap, int from, int limit) {
+        int to = (int) Math.min(snap.size(), (long) from + Math.max(0, limit));
+        List<Student> page = new ArrayList<>(Math.max(0, to - from));
+        for (int i = from; i < to; i++) {
+            page.add(snap.studentAt(i));
+        }
+        return page;
+    }
+
+    @Override
+    public List<Student> findStudents(StudentQuery query) {
+        return source.findStudents(query);
+    }
+
+    @Override
+    public int countStudents(StudentQuery query) {
+        return source.countStudents(query);
+    }
+
+    @Override
+    public void forEachStudent(int fetchSize, Consumer<Student> visitor) {
+        StudentSnapshot snap = snapshot;
+        if (snap == null) {
+            source.forEachStudent(fetchSize, visitor);
+            return;
+        }
+        for (int i = 0; i < snap.size(); i++) {
+            visitor.accept(snap.studentAt(i));
+        }
+    }
+
+    @Override
+    public double calculateAverageGrade() {
+        return getGradeStatistics().getAverage();
+    }
+
+    @Override
+    public GradeStatistics getGradeStatistics() {
+        StudentSnapshot snap = snapshot;
+        return snap != null ? snap.getGradeStatistics() : source.getGradeStatistics();
+    }
+
+    // Zamyka kopię i bazę (bez zapisu kopii – zob. save).
+    public void close() {
+        invalidate();
+        source.close();
+    }
+}
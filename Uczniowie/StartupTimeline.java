@@ -0,0 +1,47 @@
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/*
+  Klasa StartupTimeline – przebieg startu programu: kolejne etapy (np. okno widoczne, baza otwarta,
+  rozgrzewka skończona, gotowe) i czas każdego z nich w ms od utworzenia obiektu (początek main).
+  Etap zapisany drugi raz zachowuje pierwszy czas. Można wywoływać z dowolnego wątku.
+*/
+
+public class StartupTimeline {
+
+    private final long start = System.nanoTime();
+    private final Map<String, Long> marks = new LinkedHashMap<>();
+
+    // Zapisanie etapu (czas od początku); zwraca ten czas w ms.
+    public synchronized long mark(String phase) {
+        Long previous = marks.get(phase);
+        if (previous != null) {
+            return previous;
+        }
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        marks.put(phase, millis);
+        return millis;
+    }
+
+    // Czas etapu w ms od początku (-1 – etapu jeszcze nie było).
+    public synchronized long getMillis(String phase) {
+        Long millis = marks.get(phase);
+        return millis != null ? millis : -1;
+    }
+
+    // Etapy w kolejności zapisu: nazwa -> ms od początku.
+    public synchronized Map<String, Long> getMarks() {
+        return new LinkedHashMap<>(marks);
+    }
+
+    @Override
+    public synchronized String toString() {
+        StringBuilder sb = new StringBuilder("Startup:");
+        String separator = " ";
+        for (Map.Entry<String, Long> e : marks.entrySet()) {
+            sb.append(separator).append(e.getKey()).append(' ').append(e.getValue()).append(" ms");
+            separator = ", ";
+        }
+        return sb.toString();
+    }
+}
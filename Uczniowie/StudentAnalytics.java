@@ -0,0 +1,82 @@
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/*
+  Klasa StudentAnalytics – raport RosterStatistics dla całej listy studentów.
+  - analyze(manager, topN) – po kolei, jednym przejściem forEachStudent (dowolny StudentManager)
+  - analyzeParallel(manager, topN, parallelism) – zakres ID dzielimy na części
+    (StudentManagerImpl.splitIDRange), każdą czytamy osobnym połączeniem do odczytu
+    w ForkJoinPool, a częściowe wyniki łączymy (RosterStatistics.merge)
+  Oba tryby dają identyczny wynik (zob. RosterStatistics). Zapisy w trakcie liczenia
+  mogą trafić do jednej części, a do innej nie – raport nie jest migawką jednej transakcji.
+*/
+
+public class StudentAnalytics {
+
+    // Ile części na jeden wątek – mniejsze części wyrównują nierówno rozłożone ID
+    private static final int PARTS_PER_THREAD = 4;
+    private static final int FETCH_SIZE = 10_000;
+
+    private StudentAnalytics() {
+    }
+
+    // Raport liczony po kolei.
+    public static RosterStatistics analyze(StudentManager manager, int topN) {
+        RosterStatistics stats = new RosterStatistics(topN);
+        manager.forEachStudent(FETCH_SIZE, stats::add);
+        return stats;
+    }
+
+    // Raport liczony równolegle; parallelism jest ograniczone liczbą połączeń do odczytu w puli.
+    public static RosterStatistics analyzeParallel(StudentManagerImpl manager, int topN, int parallelism) {
+        int threads = Math.max(1, Math.min(parallelism, manager.getMaxReaders()));
+        if (threads == 1) {
+            return analyze(manager, topN);
+        }
+        long[] bounds = manager.splitIDRange(threads * PARTS_PER_THREAD);
+        ForkJoinPool forkJoin = new ForkJoinPool(threads);
+        try {
+            return forkJoin.invoke(new RangeTask(manager, topN, bounds, 0, bounds.length - 1));
+        } finally {
+            forkJoin.shutdown();
+        }
+    }
+
+    // Części od first do last-1 (granice w bounds): jedna część – czytamy, więcej – dzielimy na pół.
+    private static final class RangeTask extends RecursiveTask<RosterStatistics> {
+        private static final long serialVersionUID = 1L;
+
+        private final StudentManagerImpl manager;
+        private final int topN;
+        private final long[] bounds;
+        private final int first;
+        private final int last;
+
+        RangeTask(StudentManagerImpl manager, int topN, long[] bounds, int first, int last) {
+            this.manager = manager;
+            this.topN = topN;
+            this.bounds = bounds;
+            this.first = first;
+            this.last = last;
+        }
+
+        @Override
+        protected RosterStatistics compute() {
+            if (last - first <= 1) {
+                RosterStatistics stats = new RosterStatistics(topN);
+                if (last > first
+                        && !manager.forEachStudentInRange(bounds[first], bounds[last], FETCH_SIZE, stats::add)) {
+                    throw new IllegalStateException("Reading students " + bounds[first]
+                            + ".." + (bounds[last] - 1) + " failed");
+                }
+                return stats;
+            }
+            int middle = (first + last) >>> 1;
+            RangeTask left = new RangeTask(manager, topN, bounds, first, middle);
+            RangeTask right = new RangeTask(manager, topN, bounds, middle, last);
+            left.fork();
+            RosterStatistics stats = right.compute();
+            return left.join().merge(stats);
+        }
+    }
+}
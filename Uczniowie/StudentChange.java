@@ -0,0 +1,64 @@
+/*
+  Klasa StudentChange – jedna zmiana z dziennika change_log (zob. StudentChangeFeed).
+  - seq: numer zmiany, rośnie bez przerw; zapamiętany numer to miejsce, od którego można wznowić
+  - type: ADD (before = null), UPDATE (oba obrazy), REMOVE (after = null)
+  - before / after: dane studenta przed i po zmianie (z wersją wiersza)
+  - changedAtMillis: czas zatwierdzenia zmiany w bazie (ms od 1970, UTC)
+*/
+
+public final class StudentChange {
+
+    public enum Type {
+        ADD, UPDATE, REMOVE
+    }
+
+    private final long seq;
+    private final Type type;
+    private final String studentID;
+    private final Student before;
+    private final Student after;
+    private final long changedAtMillis;
+
+    public StudentChange(long seq, Type type, String studentID, Student before, Student after, long changedAtMillis) {
+        this.seq = seq;
+        this.type = type;
+        this.studentID = studentID;
+        this.before = before;
+        this.after = after;
+        this.changedAtMillis = changedAtMillis;
+    }
+
+    // Gettery
+    public long getSeq() {
+        return seq;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public String getStudentID() {
+        return studentID;
+    }
+
+    public Student getBefore() {
+        return before;
+    }
+
+    public Student getAfter() {
+        return after;
+    }
+
+    public long getChangedAtMillis() {
+        return changedAtMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "#" + seq + " " + type + " " + studentID
+                + (before != null ? " before=" + before.getName() + "/" + before.getAge() + "/" + before.getGrade()
+                        + " v" + before.getVersion() : "")
+                + (after != null ? " after=" + after.getName() + "/" + after.getAge() + "/" + after.getGrade()
+                        + " v" + after.getVersion() : "");
+    }
+}
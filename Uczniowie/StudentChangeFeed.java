@@ -0,0 +1,356 @@
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+  Klasa StudentChangeFeed – strumień zmian w bazie (change-data-capture) dla innych części programu
+  (raporty, cache, indeks wyszukiwania), zamiast ponownego czytania całej tabeli.
+  - źródłem jest tabela change_log wypełniana wyzwalaczami (SchemaMigrations, migracja 5),
+    więc widać każdy zapis – także import, zapisy w tle i zmiany z innych procesów
+  - subscribe(afterSeq, subscriber) – zmiany o numerze większym niż afterSeq (0 – od najstarszej
+    zachowanej); subskrybent zapamiętuje seq ostatniej przetworzonej zmiany i po restarcie wznawia od niej
+  - interfejsy Subscriber / Subscription jak java.util.concurrent.Flow (Java 9+;
+    projekt kompilujemy dla Java 8): subskrybent sam mówi, ile zmian chce (request(n)), a zmiany
+    czytamy z tabeli dopiero wtedy – wolny subskrybent zostaje w tyle w dzienniku, nie w pamięci,
+    a zapisy nigdy na niego nie czekają
+  - onNext dla jednej subskrypcji idą po kolei (jeden wątek naraz), różne subskrypcje – równolegle
+  - nowe zmiany: po każdym zapisie w tym programie (SQLiteConnectionPool.addWriteListener)
+    i co pollIntervalMillis (zmiany z innych procesów)
+  - luka w numerach (stare wpisy usunięte przez pruneChangeLog, zanim subskrybent je odczytał)
+    kończy subskrypcję przez onError
+  Pierwsze wczytanie danych: latest = getLatestSeq(), potem pełny odczyt (displayAllStudents),
+  potem subscribe(latest, ...) – zmiany z międzyczasu mogą przyjść drugi raz (obraz "after" jest
+  pełny, więc ich ponowne zastosowanie niczego nie psuje).
+*/
+
+public class StudentChangeFeed implements AutoCloseable {
+
+    // Jak java.util.concurrent.Flow.Subscriber.
+    public interface Subscriber<T> {
+        void onSubscribe(Subscription subscription);
+
+        void onNext(T item);
+
+        void onError(Throwable error);
+
+        void onComplete();
+    }
+
+    // Jak java.util.concurrent.Flow.Subscription.
+    public interface Subscription {
+        void request(long n);
+
+        void cancel();
+    }
+
+    // Ile zmian czytamy jednym zapytaniem.
+    private static final int PAGE_SIZE = 256;
+
+    private static final String SELECT_SQL = "SELECT seq, op, studentID, "
+            + "before_name, before_age, before_grade_code, before_version, "
+            + "after_name, after_age, after_grade_code, after_version, changed_at "
+            + "FROM change_log WHERE seq > ? ORDER BY seq LIMIT ?";
+
+    private final SQLiteConnectionPool pool;
+    private final Set<ChangeSubscription> subscriptions = ConcurrentHashMap.newKeySet();
+    private final ExecutorService delivery;
+    private final ScheduledExecutorService poller;
+    private final AtomicBoolean checkPending = new AtomicBoolean();
+    private final Runnable writeListener = this::scheduleCheck;
+    private volatile boolean closed;
+
+    public StudentChangeFeed(StudentManagerImpl manager) {
+        this(manager, 100);
+    }
+
+    // pollIntervalMillis – jak często sprawdzamy zmiany z innych procesów.
+    public StudentChangeFeed(StudentManagerImpl manager, long pollIntervalMillis) {
+        this.pool = manager.getPool();
+        AtomicInteger threads = new AtomicInteger();
+        this.delivery = Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "student-change-feed-" + threads.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        this.poller = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "student-change-poll");
+            t.setDaemon(true);
+            return t;
+        });
+        poller.scheduleWithFixedDelay(this::checkForChanges, pollIntervalMillis, pollIntervalMillis,
+                TimeUnit.MILLISECONDS);
+        pool.addWriteListener(writeListener);
+    }
+
+    // Tylko nowe zmiany (od tej chwili).
+    public void subscribe(Subscriber<? super StudentChange> subscriber) {
+        long latest;
+        try {
+            latest = getLatestSeq();
+        } catch (SQLException e) {
+            subscriber.onSubscribe(new Subscription() {
+                @Override
+                public void request(long n) {
+                }
+
+                @Override
+                public void cancel() {
+                }
+            });
+            subscriber.onError(e);
+            return;
+        }
+        subscribe(latest, subscriber);
+    }
+
+    // Zmiany o numerze większym niż afterSeq.
+    public void subscribe(long afterSeq, Subscriber<? super StudentChange> subscriber) {
+        if (subscriber == null) {
+            throw new NullPointerException("subscriber");
+        }
+        ChangeSubscription subscription = new ChangeSubscription(subscriber, afterSeq);
+        subscriptions.add(subscription);
+        subscription.start();
+    }
+
+    // Numer ostatniej zapisanej zmiany (0 – jeszcze żadnej).
+    public long getLatestSeq() throws SQLException {
+        try (PooledConnection conn = pool.reader()) {
+            PreparedStatement pstmt = conn.prepare(
+                    "SELECT coalesce((SELECT seq FROM sqlite_sequence WHERE name = 'change_log'), 0)");
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? rs.getLong(1) : 0;
+            }
+        }
+    }
+
+    // Odczyt bez subskrypcji: najwyżej limit zmian o numerze większym niż afterSeq.
+    public List<StudentChange> readChanges(long afterSeq, int limit) throws SQLException {
+        List<StudentChange> changes = new ArrayList<>(Math.min(limit, PAGE_SIZE));
+        try (PooledConnection conn = pool.reader()) {
+            PreparedStatement pstmt = conn.prepare(SELECT_SQL);
+            pstmt.setLong(1, afterSeq);
+            pstmt.setInt(2, limit);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    changes.add(readChange(rs));
+                }
+            }
+        }
+        return changes;
+    }
+
+    // Usuwa z dziennika zmiany o numerze <= upToSeq (np. przetworzone już przez wszystkich). Zwraca liczbę.
+    public int pruneChangeLog(long upToSeq) throws SQLException {
+        return pool.write(conn -> {
+            PreparedStatement pstmt = conn.prepare("DELETE FROM change_log WHERE seq <= ?");
+            pstmt.setLong(1, upToSeq);
+            return pstmt.executeUpdate();
+        });
+    }
+
+    public int getSubscriberCount() {
+        return subscriptions.size();
+    }
+
+    private static StudentChange readChange(ResultSet rs) throws SQLException {
+        String id = Long.toString(rs.getLong(3));
+        Student before = null;
+        Student after = null;
+        if (rs.getString(4) != null) {
+            before = new Student(rs.getString(4), rs.getInt(5), StudentManagerImpl.gradeFromCode(rs.getInt(6)),
+                    id, rs.getLong(7));
+        }
+        if (rs.getString(8) != null) {
+            after = new Student(rs.getString(8), rs.getInt(9), StudentManagerImpl.gradeFromCode(rs.getInt(10)),
+                    id, rs.getLong(11));
+        }
+        return new StudentChange(rs.getLong(1), StudentChange.Type.valueOf(rs.getString(2)), id, before, after,
+                rs.getLong(12));
+    }
+
+    // Po zapisie w tym programie – sprawdzenie na wątku pollera (nie na wątku, który pisał).
+    private void scheduleCheck() {
+        if (!closed && checkPending.compareAndSet(false, true)) {
+            try {
+                poller.execute(this::checkForChanges);
+            } catch (RuntimeException e) {
+                checkPending.set(false); // poller już zamknięty
+            }
+        }
+    }
+
+    // Budzi subskrypcje, które są za ostatnią zmianą w dzienniku.
+    private void checkForChanges() {
+        checkPending.set(false);
+        if (subscriptions.isEmpty()) {
+            return;
+        }
+        long latest;
+        try {
+            latest = getLatestSeq();
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return;
+        }
+        for (ChangeSubscription s : subscriptions) {
+            if (s.position < latest) {
+                s.signal();
+            }
+        }
+    }
+
+    // Kończy wszystkie subskrypcje (onComplete) i zatrzymuje wątki strumienia. Bazy nie zamyka.
+    @Override
+    public void close() {
+        closed = true;
+        pool.removeWriteListener(writeListener);
+        poller.shutdownNow();
+        for (ChangeSubscription s : subscriptions) {
+            s.signal();
+        }
+        delivery.shutdown();
+        try {
+            delivery.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Jedna subskrypcja: zapotrzebowanie (request), pozycja w dzienniku i dostarczanie po kolei.
+    private final class ChangeSubscription implements Subscription {
+        private final Subscriber<? super StudentChange> subscriber;
+        private final AtomicLong demand = new AtomicLong();
+        // Ile sygnałów czeka na obsłużenie; dostarcza tylko ten, kto podniósł licznik z 0.
+        private final AtomicInteger pending = new AtomicInteger(1);
+        private final boolean checkGap;
+        private volatile long position;
+        private volatile boolean cancelled;
+        private volatile Throwable invalidRequest;
+
+        ChangeSubscription(Subscriber<? super StudentChange> subscriber, long afterSeq) {
+            this.subscriber = subscriber;
+            this.position = Math.max(0, afterSeq);
+            this.checkGap = afterSeq > 0;
+        }
+
+        // onSubscribe na wątku dostarczającym, przed jakimkolwiek onNext.
+        void start() {
+            execute(() -> {
+                try {
+                    subscriber.onSubscribe(this);
+                } catch (Throwable e) {
+                    terminate(e);
+                }
+                drain();
+            });
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                invalidRequest = new IllegalArgumentException("request must be positive, got " + n);
+            } else {
+                demand.accumulateAndGet(n, (a, b) -> a + b < 0 ? Long.MAX_VALUE : a + b);
+            }
+            signal();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            subscriptions.remove(this);
+        }
+
+        void signal() {
+            if (pending.getAndIncrement() == 0) {
+                execute(this::drain);
+            }
+        }
+
+        private void execute(Runnable task) {
+            try {
+                delivery.execute(task);
+            } catch (RuntimeException e) {
+                // strumień zamknięty w trakcie – kończymy na wątku wywołującym
+                cancel();
+                subscriber.onComplete();
+            }
+        }
+
+        private void drain() {
+            int missed = pending.get();
+            while (true) {
+                if (!cancelled) {
+                    deliver();
+                }
+                if (!cancelled && closed) {
+                    cancel();
+                    subscriber.onComplete();
+                }
+                missed = pending.addAndGet(-missed);
+                if (missed == 0) {
+                    return;
+                }
+            }
+        }
+
+        private void deliver() {
+            while (!cancelled && invalidRequest == null && demand.get() > 0) {
+                List<StudentChange> page;
+                try {
+                    page = readChanges(position, (int) Math.min(demand.get(), PAGE_SIZE));
+                } catch (SQLException e) {
+                    terminate(e);
+                    return;
+                }
+                if (page.isEmpty()) {
+                    return;
+                }
+                for (StudentChange change : page) {
+                    if (cancelled) {
+                        return;
+                    }
+                    if (checkGap && change.getSeq() != position + 1) {
+                        terminate(new IllegalStateException("Changes " + (position + 1) + ".." + (change.getSeq() - 1)
+                                + " are no longer in the change log"));
+                        return;
+                    }
+                    try {
+                        subscriber.onNext(change);
+                    } catch (Throwable e) {
+                        // subskrybent nie powinien rzucać wyjątków – kończymy jego subskrypcję
+                        cancel();
+                        e.printStackTrace();
+                        return;
+                    }
+                    position = change.getSeq();
+                    if (demand.get() != Long.MAX_VALUE) {
+                        demand.decrementAndGet();
+                    }
+                }
+            }
+            if (invalidRequest != null && !cancelled) {
+                terminate(invalidRequest);
+            }
+        }
+
+        private void terminate(Throwable error) {
+            if (!cancelled) {
+                cancel();
+                subscriber.onError(error);
+            }
+        }
+    }
+}
@@ -0,0 +1,51 @@
+/*
+  Klasa StudentChanges – zmiany do zapisania przez StudentManager.updateFields.
+  Ustawiamy tylko to, co ma się zmienić (reszta zostaje bez zmian), np.:
+    StudentChanges changes = new StudentChanges();
+    changes.setGrade(4.5);
+    manager.updateFields("123", changes);
+  expectedVersion > 0 – zapis tylko wtedy, gdy wiersz w bazie ma tę wersję
+  (nikt go w międzyczasie nie zmienił); 0 = bez sprawdzania.
+*/
+
+public class StudentChanges {
+
+    private String name;
+    private Integer age;
+    private Double grade;
+    private long expectedVersion;
+
+    // Gettery i settery (null = pole bez zmian)
+    public String getName() {
+        return name;
+    }
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public Integer getAge() {
+        return age;
+    }
+    public void setAge(Integer age) {
+        this.age = age;
+    }
+
+    public Double getGrade() {
+        return grade;
+    }
+    public void setGrade(Double grade) {
+        this.grade = grade;
+    }
+
+    public long getExpectedVersion() {
+        return expectedVersion;
+    }
+    public void setExpectedVersion(long expectedVersion) {
+        this.expectedVersion = expectedVersion;
+    }
+
+    // Czy jest cokolwiek do zmiany
+    public boolean isEmpty() {
+        return name == null && age == null && grade == null;
+    }
+}
@@ -0,0 +1,266 @@
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/*
+  Klasa StudentCsvImporter – strumieniowy import studentów z pliku CSV.
+  - plik czytamy wiersz po wierszu (nie trzymamy całego w pamięci)
+  - separator: przecinek albo średnik – jeden dla całego pliku, ustalany z pierwszej linii
+    (tego, którego jest w niej więcej); wiersz z inną liczbą pól niż nagłówek jest odrzucany
+  - pierwszy wiersz może być nagłówkiem z nazwami kolumn (studentID, name, age, grade)
+    w dowolnej kolejności; bez nagłówka zakładamy kolejność studentID,name,age,grade
+  - wiersze, których nie da się odczytać, trafiają do odrzuconych (z numerem linii),
+    reszta idzie do StudentManager.addStudents (paczki w transakcjach)
+*/
+
+public class StudentCsvImporter {
+
+    private static final String[] DEFAULT_COLUMNS = {"studentid", "name", "age", "grade"};
+
+    private final StudentManager manager;
+
+    // Ile bajtów pliku już przeczytano (do paska postępu w GUI).
+    private volatile long bytesRead;
+
+    public StudentCsvImporter(StudentManager manager) {
+        this.manager = manager;
+    }
+
+    public long getBytesRead() {
+        return bytesRead;
+    }
+
+    // Import z pliku (UTF-8).
+    public ImportResult importFile(File file, ImportProgressListener listener) throws IOException {
+        bytesRead = 0;
+        InputStream in = new FilterInputStream(new FileInputStream(file)) {
+            @Override
+            public int read() throws IOException {
+                int b = super.read();
+                if (b >= 0) {
+                    bytesRead++;
+                }
+                return b;
+            }
+
+            @Override
+            public int read(byte[] buf, int off, int len) throws IOException {
+                int n = super.read(buf, off, len);
+                if (n > 0) {
+                    bytesRead += n;
+                }
+                return n;
+            }
+        };
+        try (Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8)) {
+            return importFrom(reader, listener);
+        }
+    }
+
+    // Import z dowolnego Readera. Numery wierszy w wyniku to numery linii w pliku.
+    public ImportResult importFrom(Reader reader, ImportProgressListener listener) throws IOException {
+        ImportResult result = new ImportResult();
+        CsvIterator rows = new CsvIterator(new BufferedReader(reader), result);
+
+        ImportResult added;
+        try {
+            added = manager.addStudents(() -> rows, listener);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        // Łączymy wyniki: numer wiersza z addStudents zamieniamy na numer linii w pliku.
+        result.addProcessed(added.getProcessed());
+        result.addAccepted(added.getAccepted());
+        for (ImportResult.Rejected r : added.getRejected()) {
+            result.addRejected(rows.lineOf(r.getRow()), r.getStudentID(), r.getReason());
+        }
+        result.finish();
+        return result;
+    }
+
+    // Iterator po poprawnie odczytanych wierszach CSV (błędne od razu zapisuje w wyniku).
+    private static class CsvIterator implements Iterator<Student> {
+
+        private final BufferedReader reader;
+        private final ImportResult result;
+
+        // Indeksy kolumn: studentID, name, age, grade
+        private int idCol = 0, nameCol = 1, ageCol = 2, gradeCol = 3;
+        private int columnCount = 4;
+        private char separator;
+
+        private int lineNumber;
+        private Student next;
+        private boolean finished;
+
+        // lines[i] – numer linii w pliku dla i-tego zwróconego studenta
+        private int[] lines = new int[1024];
+        private int returned;
+
+        CsvIterator(BufferedReader reader, ImportResult result) {
+            this.reader = reader;
+            this.result = result;
+        }
+
+        int lineOf(int row) {
+            return row >= 1 && row <= returned ? lines[row - 1] : row;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next == null && !finished) {
+                next = readNext();
+                finished = next == null;
+            }
+            return next != null;
+        }
+
+        @Override
+        public Student next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            if (returned == lines.length) {
+                lines = Arrays.copyOf(lines, lines.length * 2);
+            }
+            lines[returned++] = lineNumber;
+            Student s = next;
+            next = null;
+            return s;
+        }
+
+        // Czyta kolejne linie, aż trafi na poprawny wiersz (albo koniec pliku).
+        private Student readNext() {
+            try {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    lineNumber++;
+                    if (lineNumber == 1 && line.startsWith("\uFEFF")) {
+                        line = line.substring(1); // BOM z Excela
+                    }
+                    if (line.trim().isEmpty()) {
+                        continue;
+                    }
+                    if (separator == 0) {
+                        separator = detectSeparator(line);
+                    }
+                    String[] fields = split(line, separator);
+                    if (lineNumber == 1 && readHeader(fields)) {
+                        continue;
+                    }
+                    Student s = parse(fields);
+                    if (s != null) {
+                        return s;
+                    }
+                }
+                return null;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        // Jeśli pierwsza linia to nagłówek – ustalamy kolejność kolumn.
+        private boolean readHeader(String[] fields) {
+            boolean header = false;
+            for (String f : fields) {
+                for (String col : DEFAULT_COLUMNS) {
+                    if (col.equalsIgnoreCase(f)) {
+                        header = true;
+                    }
+                }
+            }
+            if (!header) {
+                return false;
+            }
+            idCol = nameCol = ageCol = gradeCol = -1;
+            for (int i = 0; i < fields.length; i++) {
+                String f = fields[i].toLowerCase();
+                if (f.equals("studentid") || f.equals("id")) {
+                    idCol = i;
+                } else if (f.equals("name")) {
+                    nameCol = i;
+                } else if (f.equals("age")) {
+                    ageCol = i;
+                } else if (f.equals("grade")) {
+                    gradeCol = i;
+                }
+            }
+            if (idCol < 0 || nameCol < 0 || ageCol < 0 || gradeCol < 0) {
+                throw new UncheckedIOException(new IOException(
+                        "CSV header must contain studentID, name, age and grade columns"));
+            }
+            columnCount = fields.length;
+            return true;
+        }
+
+        // Zamiana pól na obiekt Student (null + wpis w odrzuconych, jeśli się nie da).
+        private Student parse(String[] fields) {
+            String sid = fields.length > idCol ? fields[idCol] : null;
+            if (fields.length != columnCount) {
+                reject(sid, "Expected " + columnCount + " columns");
+                return null;
+            }
+            int age;
+            try {
+                age = Integer.parseInt(fields[ageCol]);
+            } catch (NumberFormatException e) {
+                reject(sid, "Age must be integer");
+                return null;
+            }
+            double grade;
+            try {
+                grade = Double.parseDouble(fields[gradeCol]);
+            } catch (NumberFormatException e) {
+                reject(sid, "Grade must be a number");
+                return null;
+            }
+            return new Student(fields[nameCol], age, grade, sid);
+        }
+
+        private void reject(String sid, String reason) {
+            result.addProcessed(1);
+            result.addRejected(lineNumber, sid, reason);
+        }
+
+        // Separator pliku: średnik, jeśli w pierwszej linii jest go więcej niż przecinków
+        // (np. "1;Anna;20;3,5" z Excela), w przeciwnym razie przecinek.
+        private static char detectSeparator(String line) {
+            return count(line, ';') > count(line, ',') ? ';' : ',';
+        }
+
+        private static int count(String line, char ch) {
+            int count = 0;
+            for (int i = 0; i < line.length(); i++) {
+                if (line.charAt(i) == ch) {
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        // Podział linii po separatorze (bez regex).
+        private static String[] split(String line, char separator) {
+            String[] fields = new String[count(line, separator) + 1];
+            int start = 0;
+            int f = 0;
+            for (int i = 0; i <= line.length(); i++) {
+                if (i == line.length() || line.charAt(i) == separator) {
+                    fields[f++] = line.substring(start, i).trim();
+                    start = i + 1;
+                }
+            }
+            return fields;
+        }
+    }
+}
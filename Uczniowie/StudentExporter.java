@@ -0,0 +1,665 @@
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/*
+  Klasa StudentExporter – strumieniowy eksport studentów do pliku (odwrotność StudentCsvImporter).
+  - wiersze czytamy jednym kursorem (tylko do przodu, fetchSize wierszy naraz) wprost z ResultSet
+    tabeli students i od razu kodujemy do bufora – bez obiektów Student i bez listy w pamięci,
+    więc zużycie pamięci nie zależy od liczby wierszy
+  - formaty: CSV (studentID,name,age,grade – plik można znów zaimportować), JSON Lines (obiekt
+    JSON w każdym wierszu), COLUMNAR – binarny, kolumnami w grupach wierszy (zob. niżej)
+  - zapis przez FileChannel z buforem bufferSize, opcjonalnie gzip; plik powstaje pod nazwą
+    tymczasową i zastępuje stary dopiero po pełnym zapisie
+  - filtr: StudentQuery (początek imienia, zakres wieku i oceny); sortowanie i limit pomijamy –
+    eksport jest zawsze po kolei po ID
+  - magazyny inne niż StudentManagerImpl – przez forEachStudent (filtr sprawdzamy w pamięci)
+  - wynik: ExportResult – wiersze, bajty, czas, wiersze/s i MB/s
+  Format COLUMNAR (wersja 1):
+    "STUDCOL1" 8 B
+    grupy wierszy (najwyżej ROW_GROUP): liczba wierszy int, potem 5 kolumn, każda [długość int][bajty]:
+      studentID – różnica od poprzedniego ID (varint ze znakiem), imię – słownik grupy (liczba imion,
+      imiona UTF-8 z długością) i numery imion, wiek – bajt, kod oceny (ocena * 2) – bajt, wersja – varint
+    stopka: 0 (koniec grup) int, liczba wierszy long, "STUDCOL1"
+  Odczyt: readColumnar.
+*/
+
+public class StudentExporter {
+
+    public enum Format {
+        CSV, JSONL, COLUMNAR;
+
+        // Format z rozszerzenia pliku (.csv, .jsonl / .json, .col; z końcówką .gz lub bez).
+        public static Format forFile(File file) {
+            String name = file.getName().toLowerCase(Locale.ROOT);
+            if (name.endsWith(".gz")) {
+                name = name.substring(0, name.length() - 3);
+            }
+            if (name.endsWith(".jsonl") || name.endsWith(".json")) {
+                return JSONL;
+            }
+            if (name.endsWith(".col")) {
+                return COLUMNAR;
+            }
+            return CSV;
+        }
+    }
+
+    // Ile wierszy ma jedna grupa formatu COLUMNAR (tyle trzymamy w pamięci naraz).
+    static final int ROW_GROUP = 65_536;
+
+    private static final byte[] COLUMNAR_MAGIC = "STUDCOL1".getBytes(StandardCharsets.US_ASCII);
+
+    private final StudentManager manager;
+    private Format format = Format.CSV;
+    private boolean gzip;
+    private StudentQuery filter;
+    private int fetchSize = 1_000;
+    private int bufferSize = 256 * 1024;
+
+    public StudentExporter(StudentManager manager) {
+        this.manager = manager;
+    }
+
+    // Gettery i settery (settery sprawdzają wartości)
+    public Format getFormat() {
+        return format;
+    }
+    public void setFormat(Format format) {
+        if (format == null) {
+            throw new IllegalArgumentException("format must not be null");
+        }
+        this.format = format;
+    }
+
+    public boolean isGzip() {
+        return gzip;
+    }
+    public void setGzip(boolean gzip) {
+        this.gzip = gzip;
+    }
+
+    // null – wszyscy studenci.
+    public StudentQuery getFilter() {
+        return filter;
+    }
+    public void setFilter(StudentQuery filter) {
+        this.filter = filter;
+    }
+
+    public int getFetchSize() {
+        return fetchSize;
+    }
+    public void setFetchSize(int fetchSize) {
+        if (fetchSize < 1) {
+            throw new IllegalArgumentException("fetchSize must be at least 1");
+        }
+        this.fetchSize = fetchSize;
+    }
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+    public void setBufferSize(int bufferSize) {
+        if (bufferSize < 1024) {
+            throw new IllegalArgumentException("bufferSize must be at least 1024");
+        }
+        this.bufferSize = bufferSize;
+    }
+
+    // Format i gzip z rozszerzenia pliku (np. students.jsonl.gz), potem eksport.
+    public ExportResult exportFile(File file) throws IOException {
+        setFormat(Format.forFile(file));
+        setGzip(file.getName().toLowerCase(Locale.ROOT).endsWith(".gz"));
+        return export(file);
+    }
+
+    // Eksport do pliku w ustawionym formacie.
+    public ExportResult export(File file) throws IOException {
+        long start = System.nanoTime();
+        File dir = file.getAbsoluteFile().getParentFile();
+        File temp = File.createTempFile(file.getName(), ".tmp", dir);
+        boolean done = false;
+        try {
+            long rows;
+            long bytes;
+            try (FileChannel channel = FileChannel.open(temp.toPath(), StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                WritableByteChannel target = channel;
+                GZIPOutputStream zip = null;
+                if (gzip) {
+                    zip = new GZIPOutputStream(Channels.newOutputStream(channel), 64 * 1024);
+                    target = Channels.newChannel(zip);
+                }
+                Output out = new Output(target, bufferSize);
+                rows = write(out);
+                out.flush();
+                bytes = out.bytes;
+                if (zip != null) {
+                    zip.finish();
+                }
+                channel.force(false);
+            }
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+            done = true;
+            return new ExportResult(rows, bytes, file.length(), System.nanoTime() - start);
+        } finally {
+            if (!done) {
+                temp.delete();
+            }
+        }
+    }
+
+    // Eksport do dowolnego kanału (np. gniazda); kanału nie zamykamy. Zwraca liczbę wierszy.
+    public long export(WritableByteChannel channel) throws IOException {
+        Output out = new Output(channel, bufferSize);
+        long rows = write(out);
+        out.flush();
+        return rows;
+    }
+
+    private long write(Output out) throws IOException {
+        Encoder encoder;
+        switch (format) {
+            case JSONL:
+                encoder = new JsonEncoder(out);
+                break;
+            case COLUMNAR:
+                encoder = new ColumnarEncoder(out);
+                break;
+            default:
+                encoder = new CsvEncoder(out);
+                break;
+        }
+        encoder.begin();
+        long rows = manager instanceof StudentManagerImpl
+                ? writeRows((StudentManagerImpl) manager, encoder)
+                : writeStudents(encoder);
+        encoder.end(rows);
+        return rows;
+    }
+
+    // Baza SQLite: kolumny wprost z ResultSet.
+    private long writeRows(StudentManagerImpl db, Encoder encoder) throws IOException {
+        List<Object> params = new ArrayList<>();
+        String sql = StudentManagerImpl.exportSql(filter, params);
+        long rows = 0;
+        try (PooledConnection conn = db.getPool().reader()) {
+            PreparedStatement pstmt = conn.prepare(sql);
+            StudentManagerImpl.bindParams(pstmt, params);
+            pstmt.setFetchSize(fetchSize);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    encoder.row(rs.getLong(1), rs.getString(2), rs.getInt(3), rs.getInt(4), rs.getLong(5));
+                    rows++;
+                }
+            }
+        } catch (SQLException e) {
+            throw new IOException("Export query failed", e);
+        }
+        return rows;
+    }
+
+    // Inne magazyny: forEachStudent (strony po fetchSize) i filtr w pamięci.
+    private long writeStudents(Encoder encoder) throws IOException {
+        long[] rows = new long[1];
+        try {
+            manager.forEachStudent(fetchSize, s -> {
+                if (filter != null && !matches(filter, s)) {
+                    return;
+                }
+                try {
+                    encoder.row(StudentManagerImpl.parseID(s.getStudentID()), s.getName(), s.getAge(),
+                            StudentManagerImpl.gradeCode(s.getGrade()), s.getVersion());
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                rows[0]++;
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return rows[0];
+    }
+
+    // Te same warunki co WHERE w StudentManagerImpl (bez sortowania i limitu).
+    private static boolean matches(StudentQuery f, Student s) {
+        if (f.getNamePrefix() != null && !s.getName().toLowerCase(Locale.ROOT)
+                .startsWith(f.getNamePrefix().toLowerCase(Locale.ROOT))) {
+            return false;
+        }
+        if ((f.getMinAge() != null && s.getAge() < f.getMinAge())
+                || (f.getMaxAge() != null && s.getAge() > f.getMaxAge())) {
+            return false;
+        }
+        return (f.getMinGrade() == null || s.getGrade() >= f.getMinGrade())
+                && (f.getMaxGrade() == null || s.getGrade() <= f.getMaxGrade());
+    }
+
+    // Bufor zapisu do kanału; kodowanie liczb i tekstu bez tworzenia obiektów.
+    private static final class Output {
+        private final WritableByteChannel channel;
+        private final ByteBuffer buffer;
+        private final byte[] digits = new byte[20];
+        long bytes;
+
+        Output(WritableByteChannel channel, int size) {
+            this.channel = channel;
+            this.buffer = ByteBuffer.allocate(size);
+        }
+
+        // Miejsce na n bajtów (n nie większe niż bufor).
+        void ensure(int n) throws IOException {
+            if (buffer.remaining() < n) {
+                flush();
+            }
+        }
+
+        void flush() throws IOException {
+            buffer.flip();
+            bytes += buffer.remaining();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        void put(byte b) throws IOException {
+            ensure(1);
+            buffer.put(b);
+        }
+
+        void put(byte[] bytes, int offset, int length) throws IOException {
+            while (length > 0) {
+                ensure(1);
+                int n = Math.min(length, buffer.remaining());
+                buffer.put(bytes, offset, n);
+                offset += n;
+                length -= n;
+            }
+        }
+
+        void putAscii(String s) throws IOException {
+            ensure(s.length());
+            for (int i = 0; i < s.length(); i++) {
+                buffer.put((byte) s.charAt(i));
+            }
+        }
+
+        // Liczba dziesiętnie.
+        void putDecimal(long value) throws IOException {
+            ensure(20);
+            if (value < 0) {
+                if (value == Long.MIN_VALUE) {
+                    putAscii(Long.toString(value));
+                    return;
+                }
+                buffer.put((byte) '-');
+                value = -value;
+            }
+            int n = 0;
+            do {
+                digits[n++] = (byte) ('0' + value % 10);
+                value /= 10;
+            } while (value != 0);
+            while (n > 0) {
+                buffer.put(digits[--n]);
+            }
+        }
+
+        // Ocena z kodu (ocena * 2): 4 -> "2.0", 7 -> "3.5".
+        void putGrade(int gradeCode) throws IOException {
+            putDecimal(gradeCode / 2);
+            ensure(2);
+            buffer.put((byte) '.').put((byte) (gradeCode % 2 == 0 ? '0' : '5'));
+        }
+
+        // Jeden znak (kod UTF-16, z parą zastępczą) w UTF-8; zwraca, ile znaków s zużyto.
+        int putUtf8(String s, int i) throws IOException {
+            ensure(4);
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                buffer.put((byte) c);
+            } else if (c < 0x800) {
+                buffer.put((byte) (0xC0 | c >> 6)).put((byte) (0x80 | c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < s.length() && Character.isLowSurrogate(s.charAt(i + 1))) {
+                int cp = Character.toCodePoint(c, s.charAt(i + 1));
+                buffer.put((byte) (0xF0 | cp >> 18)).put((byte) (0x80 | cp >> 12 & 0x3F))
+                        .put((byte) (0x80 | cp >> 6 & 0x3F)).put((byte) (0x80 | cp & 0x3F));
+                return 2;
+            } else {
+                buffer.put((byte) (0xE0 | c >> 12)).put((byte) (0x80 | c >> 6 & 0x3F)).put((byte) (0x80 | c & 0x3F));
+            }
+            return 1;
+        }
+    }
+
+    // Kodowanie wierszy do jednego formatu.
+    private interface Encoder {
+        void begin() throws IOException;
+
+        void row(long studentID, String name, int age, int gradeCode, long version) throws IOException;
+
+        void end(long rows) throws IOException;
+    }
+
+    // studentID,name,age,grade – nagłówek jak oczekuje StudentCsvImporter.
+    private static final class CsvEncoder implements Encoder {
+        private final Output out;
+
+        CsvEncoder(Output out) {
+            this.out = out;
+        }
+
+        @Override
+        public void begin() throws IOException {
+            out.putAscii("studentID,name,age,grade\n");
+        }
+
+        @Override
+        public void row(long studentID, String name, int age, int gradeCode, long version) throws IOException {
+            out.putDecimal(studentID);
+            out.put((byte) ',');
+            boolean quote = false;
+            for (int i = 0; i < name.length() && !quote; i++) {
+                char c = name.charAt(i);
+                quote = c == ',' || c == ';' || c == '"' || c == '\n' || c == '\r';
+            }
+            if (quote) {
+                out.put((byte) '"');
+            }
+            for (int i = 0; i < name.length(); ) {
+                if (name.charAt(i) == '"') {
+                    out.put((byte) '"');
+                }
+                i += out.putUtf8(name, i);
+            }
+            if (quote) {
+                out.put((byte) '"');
+            }
+            out.put((byte) ',');
+            out.putDecimal(age);
+            out.put((byte) ',');
+            out.putGrade(gradeCode);
+            out.put((byte) '\n');
+        }
+
+        @Override
+        public void end(long rows) {
+        }
+    }
+
+    // {"studentID":"1","name":"Anna","age":20,"grade":4.5,"version":1} w każdym wierszu.
+    private static final class JsonEncoder implements Encoder {
+        private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+        private final Output out;
+
+        JsonEncoder(Output out) {
+            this.out = out;
+        }
+
+        @Override
+        public void begin() {
+        }
+
+        @Override
+        public void row(long studentID, String name, int age, int gradeCode, long version) throws IOException {
+            out.putAscii("{\"studentID\":\"");
+            out.putDecimal(studentID);
+            out.putAscii("\",\"name\":\"");
+            for (int i = 0; i < name.length(); ) {
+                char c = name.charAt(i);
+                if (c == '"' || c == '\\') {
+                    out.put((byte) '\\');
+                    out.put((byte) c);
+                    i++;
+                } else if (c < 0x20) {
+                    out.putAscii("\\u00");
+                    out.put(HEX[c >> 4]);
+                    out.put(HEX[c & 0xF]);
+                    i++;
+                } else {
+                    i += out.putUtf8(name, i);
+                }
+            }
+            out.putAscii("\",\"age\":");
+            out.putDecimal(age);
+            out.putAscii(",\"grade\":");
+            out.putGrade(gradeCode);
+            out.putAscii(",\"version\":");
+            out.putDecimal(version);
+            out.putAscii("}\n");
+        }
+
+        @Override
+        public void end(long rows) {
+        }
+    }
+
+    // Grupy po ROW_GROUP wierszy, w grupie kolumnami (opis formatu – zob. opis klasy).
+    private static final class ColumnarEncoder implements Encoder {
+        private final Output out;
+        private final long[] ids = new long[ROW_GROUP];
+        private final int[] nameNumbers = new int[ROW_GROUP];
+        private final byte[] ages = new byte[ROW_GROUP];
+        private final byte[] grades = new byte[ROW_GROUP];
+        private final long[] versions = new long[ROW_GROUP];
+        private final Map<String, Integer> dictionary = new HashMap<>();
+        private final List<String> names = new ArrayList<>();
+        // Bufor jednej kolumny (długość kolumny zapisujemy przed nią)
+        private ByteBuffer column = ByteBuffer.allocate(ROW_GROUP * 10);
+        private int count;
+        private long previousID;
+
+        ColumnarEncoder(Output out) {
+            this.out = out;
+        }
+
+        @Override
+        public void begin() throws IOException {
+            out.put(COLUMNAR_MAGIC, 0, COLUMNAR_MAGIC.length);
+        }
+
+        @Override
+        public void row(long studentID, String name, int age, int gradeCode, long version) throws IOException {
+            Integer number = dictionary.get(name);
+            if (number == null) {
+                number = names.size();
+                names.add(name);
+                dictionary.put(name, number);
+            }
+            ids[count] = studentID;
+            nameNumbers[count] = number;
+            ages[count] = (byte) age;
+            grades[count] = (byte) gradeCode;
+            versions[count] = version;
+            if (++count == ROW_GROUP) {
+                writeGroup();
+            }
+        }
+
+        @Override
+        public void end(long rows) throws IOException {
+            if (count > 0) {
+                writeGroup();
+            }
+            putInt(0);
+            column.clear();
+            column.putLong(rows).put(COLUMNAR_MAGIC);
+            out.put(column.array(), 0, column.position());
+        }
+
+        private void writeGroup() throws IOException {
+            putInt(count);
+
+            column.clear();
+            for (int i = 0; i < count; i++) {
+                putVarLong(ids[i] - previousID);
+                previousID = ids[i];
+            }
+            putColumn();
+
+            column.clear();
+            putVarLong(names.size());
+            for (String name : names) {
+                byte[] utf8 = name.getBytes(StandardCharsets.UTF_8);
+                putVarLong(utf8.length);
+                ensureColumn(utf8.length);
+                column.put(utf8);
+            }
+            for (int i = 0; i < count; i++) {
+                putVarLong(nameNumbers[i]);
+            }
+            putColumn();
+
+            column.clear();
+            ensureColumn(count);
+            column.put(ages, 0, count);
+            putColumn();
+
+            column.clear();
+            column.put(grades, 0, count);
+            putColumn();
+
+            column.clear();
+            for (int i = 0; i < count; i++) {
+                putVarLong(versions[i]);
+            }
+            putColumn();
+
+            count = 0;
+            dictionary.clear();
+            names.clear();
+        }
+
+        private void putInt(int value) throws IOException {
+            out.put((byte) (value >>> 24));
+            out.put((byte) (value >>> 16));
+            out.put((byte) (value >>> 8));
+            out.put((byte) value);
+        }
+
+        private void putColumn() throws IOException {
+            putInt(column.position());
+            out.put(column.array(), 0, column.position());
+        }
+
+        // Varint ze znakiem (zigzag): małe liczby – mało bajtów.
+        private void putVarLong(long value) {
+            ensureColumn(10);
+            long v = (value << 1) ^ (value >> 63);
+            while ((v & ~0x7FL) != 0) {
+                column.put((byte) ((v & 0x7F) | 0x80));
+                v >>>= 7;
+            }
+            column.put((byte) v);
+        }
+
+        // Słownik z długimi imionami może nie zmieścić się w buforze – powiększamy go.
+        private void ensureColumn(int n) {
+            if (column.remaining() < n) {
+                ByteBuffer bigger = ByteBuffer.allocate(Math.max(column.capacity() * 2, column.position() + n));
+                column.flip();
+                bigger.put(column);
+                column = bigger;
+            }
+        }
+    }
+
+    // Odczyt pliku COLUMNAR (także .gz) – studenci po kolei do visitor. Zwraca liczbę wierszy.
+    public static long readColumnar(File file, Consumer<Student> visitor) throws IOException {
+        InputStream raw = new BufferedInputStream(new FileInputStream(file), 64 * 1024);
+        raw.mark(2);
+        boolean zipped = raw.read() == 0x1F && raw.read() == 0x8B;
+        raw.reset();
+        try (DataInputStream in = new DataInputStream(zipped
+                ? new BufferedInputStream(new GZIPInputStream(raw, 64 * 1024), 64 * 1024) : raw)) {
+            byte[] magic = new byte[COLUMNAR_MAGIC.length];
+            in.readFully(magic);
+            if (!Arrays.equals(magic, COLUMNAR_MAGIC)) {
+                throw new IOException(file + " is not a columnar student export");
+            }
+            long rows = 0;
+            long id = 0;
+            int count;
+            while ((count = in.readInt()) > 0) {
+                ByteBuffer idColumn = readColumn(in);
+                ByteBuffer nameColumn = readColumn(in);
+                ByteBuffer ageColumn = readColumn(in);
+                ByteBuffer gradeColumn = readColumn(in);
+                ByteBuffer versionColumn = readColumn(in);
+                String[] names = new String[(int) getVarLong(nameColumn)];
+                for (int i = 0; i < names.length; i++) {
+                    byte[] utf8 = new byte[(int) getVarLong(nameColumn)];
+                    nameColumn.get(utf8);
+                    names[i] = new String(utf8, StandardCharsets.UTF_8);
+                }
+                for (int i = 0; i < count; i++) {
+                    id += getVarLong(idColumn);
+                    visitor.accept(new Student(names[(int) getVarLong(nameColumn)], ageColumn.get(i),
+                            StudentManagerImpl.gradeFromCode(gradeColumn.get(i)), Long.toString(id),
+                            getVarLong(versionColumn)));
+                }
+                rows += count;
+            }
+            if (in.readLong() != rows) {
+                throw new IOException("Columnar export " + file + " is truncated or damaged");
+            }
+            in.readFully(magic);
+            if (!Arrays.equals(magic, COLUMNAR_MAGIC)) {
+                throw new IOException("Columnar export " + file + " is truncated or damaged");
+            }
+            return rows;
+        } catch (EOFException e) {
+            throw new IOException("Columnar export " + file + " is truncated", e);
+        }
+    }
+
+    private static ByteBuffer readColumn(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            throw new IOException("Invalid column length: " + length);
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return ByteBuffer.wrap(bytes);
+    }
+
+    private static long getVarLong(ByteBuffer in) {
+        long v = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = in.get();
+            v |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while (b < 0);
+        return (v >>> 1) ^ -(v & 1);
+    }
+}
@@ -1,243 +1,800 @@
-import javax.swing.*;
-import java.awt.*;
-import java.awt.event.*;
-import java.util.ArrayList;
-
-/*
-  Klasa StudentGUI – tworzy okno aplikacji:
-  - Pola tekstowe: studentIDField, nameField, ageField, gradeField
-  - Przyciski: Add, Remove, Update, Display, Average
-  - Wyniki i komunikaty wyświetlamy w outputArea (wielowierszowym)
-  - Walidacja danych (ID-tylko cyfry, Name-tylko litery, Age 18–100, Grade ∈ {2,3,3.5,4,4.5,5})
-  - Niepożądane dane -> wyświetlenie błędu w outputArea (setText)
-*/
-
-public class StudentGUI extends JFrame {
-
-    private JTextField studentIDField;  // ID: tylko cyfry
-    private JTextField nameField;       // Imię: tylko litery
-    private JTextField ageField;        // Wiek: 18–100
-    private JTextField gradeField;      // Ocena: 2,3,3.5,4,4.5,5
-
-    private JTextArea outputArea;       // Wyświetlanie wiadomości / listy
-
-    private StudentManagerImpl manager; // Obiekt implementujący interfejs StudentManager
-
-    public StudentGUI() {
-        super("Advanced Student Management System"); // Tytuł okna
-
-        // Tworzymy obiekt menedżera
-        manager = new StudentManagerImpl();
-
-        // Ustawienia okna
-        setSize(800, 500);
-        setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
-
-        // Dwa główne panele: inputPanel (z polami), buttonPanel (z przyciskami)
-        JPanel inputPanel = new JPanel(new GridLayout(4, 2));
-        JPanel buttonPanel = new JPanel(new GridLayout(1, 5));
-
-        // outputArea do wyświetlania komunikatów i rezultatów
-        outputArea = new JTextArea(12, 60);
-        outputArea.setLineWrap(true);
-        outputArea.setWrapStyleWord(true);
-
-        // Pola tekstowe
-        studentIDField = new JTextField();
-        nameField = new JTextField();
-        ageField = new JTextField();
-        gradeField = new JTextField();
-
-        // Etykiety i pola
-        inputPanel.add(new JLabel("Student ID (digits):"));
-        inputPanel.add(studentIDField);
-
-        inputPanel.add(new JLabel("Name (letters):"));
-        inputPanel.add(nameField);
-
-        inputPanel.add(new JLabel("Age (18–100):"));
-        inputPanel.add(ageField);
-
-        inputPanel.add(new JLabel("Grade (2,3,3.5,4,4.5,5):"));
-        inputPanel.add(gradeField);
-
-        // Tworzymy przyciski
-        JButton addBtn = new JButton("Add");
-        JButton removeBtn = new JButton("Remove");
-        JButton updateBtn = new JButton("Update");
-        JButton displayBtn = new JButton("Display");
-        JButton avgBtn = new JButton("Average");
-
-        // Dodajemy przyciski do panelu
-        buttonPanel.add(addBtn);
-        buttonPanel.add(removeBtn);
-        buttonPanel.add(updateBtn);
-        buttonPanel.add(displayBtn);
-        buttonPanel.add(avgBtn);
-
-        // Rozmieszczenie elementów w oknie
-        setLayout(new BorderLayout());
-        add(inputPanel, BorderLayout.NORTH);
-        add(buttonPanel, BorderLayout.CENTER);
-        add(new JScrollPane(outputArea), BorderLayout.SOUTH);
-
-        // Słuchacze akcji dla przycisków
-        addBtn.addActionListener(new ActionListener() {
-            @Override
-            public void actionPerformed(ActionEvent e) {
-                addStudentAction();
-            }
-        });
-        removeBtn.addActionListener(new ActionListener() {
-            @Override
-            public void actionPerformed(ActionEvent e) {
-                removeStudentAction();
-            }
-        });
-        updateBtn.addActionListener(new ActionListener() {
-            @Override
-            public void actionPerformed(ActionEvent e) {
-                updateStudentAction();
-            }
-        });
-        displayBtn.addActionListener(new ActionListener() {
-            @Override
-            public void actionPerformed(ActionEvent e) {
-                displayAllAction();
-            }
-        });
-        avgBtn.addActionListener(new ActionListener() {
-            @Override
-            public void actionPerformed(ActionEvent e) {
-                averageAction();
-            }
-        });
-    }
-
-    // Metoda do dodania nowego studenta
-    private void addStudentAction() {
-        String sid = studentIDField.getText();
-        String nm = nameField.getText();
-        String ageTxt = ageField.getText();
-        String gradeTxt = gradeField.getText();
-
-        // Walidacja ID – tylko cyfry
-        if (!sid.matches("\\d+")) {
-            outputArea.setText("Error: ID must be digits only!");
-            return;
-        }
-        // Walidacja Name – tylko litery (bez polskich znaków, jeśli chcesz polskie, zmień regex)
-        if (!nm.matches("[a-zA-Z]+")) {
-            outputArea.setText("Error: Name must be letters only!");
-            return;
-        }
-
-        // Walidacja wieku (18–100)
-        int ag;
-        try {
-            ag = Integer.parseInt(ageTxt);
-            if (ag < 18 || ag > 100) {
-                outputArea.setText("Error: Age must be in [18..100]!");
-                return;
-            }
-        } catch (NumberFormatException ex) {
-            outputArea.setText("Error: Age must be integer!");
-            return;
-        }
-
-        // Walidacja oceny
-        double gr;
-        try {
-            gr = Double.parseDouble(gradeTxt);
-            double[] allowed = {2.0, 3.0, 3.5, 4.0, 4.5, 5.0};
-            boolean ok = false;
-            for (double d : allowed) {
-                if (Math.abs(d - gr) < 0.000001) {
-                    ok = true;
-                    break;
-                }
-            }
-            if (!ok) {
-                outputArea.setText("Error: Grade must be one of 2,3,3.5,4,4.5,5!");
-                return;
-            }
-        } catch (NumberFormatException ex) {
-            outputArea.setText("Error: Grade must be a number (e.g. 3.5)!");
-            return;
-        }
-
-        // Tworzymy obiekt Student
-        Student st = new Student(nm, ag, gr, sid);
-        // Wywołujemy metodę addStudent u menedżera
-        manager.addStudent(st);
-
-        clearFields();
-        outputArea.setText("Attempted to add student: " + sid);
-    }
-
-    // Metoda do usunięcia studenta
-    private void removeStudentAction() {
-        String sid = studentIDField.getText();
-        if (sid.isEmpty()) {
-            outputArea.setText("Error: Provide an ID to remove!");
-            return;
-        }
-        manager.removeStudent(sid);
-        clearFields();
-        outputArea.setText("Attempted to remove student: " + sid);
-    }
-
-    // Metoda do aktualizacji danych studenta
-    private void updateStudentAction() {
-        String sid = studentIDField.getText();
-        if (sid.isEmpty()) {
-            outputArea.setText("Error: Provide an ID to update!");
-            return;
-        }
-        // W interfejsie mamy updateStudent(String studentID), a implementacja
-        // pyta o nowe wartości w okienkach JOptionPane.
-        manager.updateStudent(sid);
-        clearFields();
-        outputArea.setText("Attempted to update student: " + sid);
-    }
-
-    // Metoda do wyświetlania wszystkich studentów w bazie
-    private void displayAllAction() {
-        ArrayList<Student> list = manager.displayAllStudents();
-        if (list.isEmpty()) {
-            outputArea.setText("No students in the database.");
-            return;
-        }
-        StringBuilder sb = new StringBuilder();
-        for (Student s : list) {
-            sb.append("ID: ").append(s.getStudentID())
-              .append(", Name: ").append(s.getName())
-              .append(", Age: ").append(s.getAge())
-              .append(", Grade: ").append(s.getGrade())
-              .append("\n");
-        }
-        outputArea.setText(sb.toString());
-    }
-
-    // Metoda do obliczania i wyświetlania średniej ocen
-    private void averageAction() {
-        double avg = manager.calculateAverageGrade();
-        outputArea.setText("Average grade: " + avg);
-    }
-
-    // Czyścimy pola tekstowe
-    private void clearFields() {
-        studentIDField.setText("");
-        nameField.setText("");
-        ageField.setText("");
-        gradeField.setText("");
-    }
-
-    // Metoda main – uruchamia okno
-    public static void main(String[] args) {
-        SwingUtilities.invokeLater(() -> {
-            StudentGUI gui = new StudentGUI();
-            gui.setVisible(true);
-        });
-    }
-}
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.*;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+
+/*
+  Klasa StudentGUI – tworzy okno aplikacji:
+  - Pola tekstowe: studentIDField, nameField, ageField, gradeField
+  - Przyciski: Add, Remove, Update, Display, Average, Import CSV, Export, Diagnostics
+  - Listę studentów pokazujemy w tabeli (studentTable), która ładuje tylko oglądane strony
+  - Pole searchField: wyszukiwanie po imieniu przy pisaniu (NameSearchIndex – początek, fragment,
+    literówki), wyniki w outputArea
+  - Komunikaty wyświetlamy w outputArea (wielowierszowym)
+  - Walidacja danych (ID-tylko cyfry, Name-tylko litery, Age 18–100, Grade ∈ {2,3,3.5,4,4.5,5})
+  - Niepożądane dane -> wyświetlenie błędu w outputArea (setText)
+  - Operacje na bazie idą przez AsyncStudentManager (w tle), a wynik wraca do wątku
+    Swinga przez AsyncStudentManager.onEdt – okno nie zamarza, gdy baza jest wolna
+  - Start: okno pojawia się od razu, a bazę otwiera i rozgrzewa StudentStartup w tle; przyciski
+    działają od chwili, gdy baza jest gotowa. Przebieg startu (StartupTimeline) – w outputArea,
+    w konsoli i w oknie Diagnostics. -Dstudents.warmup=false wyłącza rozgrzewkę,
+    -Dstudents.preload=true dodatkowo czyta plik bazy do pamięci podręcznej systemu
+*/
+
+public class StudentGUI extends JFrame {
+
+    private JTextField studentIDField;  // ID: tylko cyfry
+    private JTextField nameField;       // Imię: tylko litery
+    private JTextField ageField;        // Wiek: 18–100
+    private JTextField gradeField;      // Ocena: 2,3,3.5,4,4.5,5
+    private JTextField searchField;     // Szukanie po imieniu (przy każdej zmianie tekstu)
+
+    private JTextArea outputArea;       // Wyświetlanie wiadomości
+    private StudentTableModel tableModel; // Lista studentów (ładowana stronami)
+    private JProgressBar progressBar;   // Postęp importu CSV
+    private JButton importBtn;          // Import CSV (wyłączany na czas importu)
+    private JButton exportBtn;          // Eksport do pliku (wyłączany na czas eksportu)
+
+    private JTable studentTable;        // Tabela studentów (model ustawiany, gdy baza jest gotowa)
+    private final List<JComponent> dataControls = new ArrayList<>(); // wyłączone do końca startu
+
+    // Przebieg startu – od załadowania klasy (początek main).
+    private static final StartupTimeline STARTUP = new StartupTimeline();
+
+    private StudentManager manager;     // Obiekt implementujący interfejs StudentManager
+    private AsyncStudentManager db;     // Wywołania managera w tle (poza EDT)
+    private StudentMetrics metrics;     // Czasy operacji i zapytań SQL (okno Diagnostics, JMX)
+
+    // Ilu studentów pokazujemy w wynikach wyszukiwania.
+    private static final int SEARCH_LIMIT = 20;
+    private NameSearchIndex nameIndex;  // null, dopóki indeks się wczytuje
+    private boolean nameIndexLive;      // indeks śledzi zmiany w bazie (StudentChangeFeed)
+    private CompletableFuture<List<Student>> pendingSearch; // trwające wyszukiwanie (anulowane przez następne)
+
+    public StudentGUI() {
+        super("Advanced Student Management System"); // Tytuł okna
+
+        // Ustawienia okna
+        setSize(800, 600);
+        setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+
+        // Dwa główne panele: inputPanel (z polami), buttonPanel (z przyciskami)
+        JPanel inputPanel = new JPanel(new GridLayout(5, 2));
+        JPanel buttonPanel = new JPanel(new GridLayout(1, 8));
+
+        // outputArea do wyświetlania komunikatów i rezultatów
+        outputArea = new JTextArea(6, 60);
+        outputArea.setLineWrap(true);
+        outputArea.setWrapStyleWord(true);
+
+        // Tabela studentów – JTable rysuje tylko widoczne wiersze, model (dataReady) pobiera strony z bazy
+        studentTable = new JTable();
+        studentTable.setFillsViewportHeight(true);
+
+        // Pasek postępu importu (ukryty, dopóki nie importujemy)
+        progressBar = new JProgressBar(0, 1000);
+        progressBar.setStringPainted(true);
+        progressBar.setVisible(false);
+
+        // Pola tekstowe
+        studentIDField = new JTextField();
+        nameField = new JTextField();
+        ageField = new JTextField();
+        gradeField = new JTextField();
+        searchField = new JTextField();
+
+        // Etykiety i pola
+        inputPanel.add(new JLabel("Student ID (digits):"));
+        inputPanel.add(studentIDField);
+
+        inputPanel.add(new JLabel("Name (letters):"));
+        inputPanel.add(nameField);
+
+        inputPanel.add(new JLabel("Age (18–100):"));
+        inputPanel.add(ageField);
+
+        inputPanel.add(new JLabel("Grade (2,3,3.5,4,4.5,5):"));
+        inputPanel.add(gradeField);
+
+        inputPanel.add(new JLabel("Search name (as you type):"));
+        inputPanel.add(searchField);
+
+        // Tworzymy przyciski
+        JButton addBtn = new JButton("Add");
+        JButton removeBtn = new JButton("Remove");
+        JButton updateBtn = new JButton("Update");
+        JButton displayBtn = new JButton("Display");
+        JButton avgBtn = new JButton("Average");
+        importBtn = new JButton("Import CSV");
+        exportBtn = new JButton("Export");
+        JButton diagnosticsBtn = new JButton("Diagnostics");
+
+        // Dodajemy przyciski do panelu
+        buttonPanel.add(addBtn);
+        buttonPanel.add(removeBtn);
+        buttonPanel.add(updateBtn);
+        buttonPanel.add(displayBtn);
+        buttonPanel.add(avgBtn);
+        buttonPanel.add(importBtn);
+        buttonPanel.add(exportBtn);
+        buttonPanel.add(diagnosticsBtn);
+
+        // Rozmieszczenie elementów w oknie
+        JPanel topPanel = new JPanel(new BorderLayout());
+        topPanel.add(inputPanel, BorderLayout.NORTH);
+        topPanel.add(buttonPanel, BorderLayout.SOUTH);
+
+        setLayout(new BorderLayout());
+        add(topPanel, BorderLayout.NORTH);
+        add(new JScrollPane(studentTable), BorderLayout.CENTER);
+        JPanel outputPanel = new JPanel(new BorderLayout());
+        outputPanel.add(progressBar, BorderLayout.NORTH);
+        outputPanel.add(new JScrollPane(outputArea), BorderLayout.CENTER);
+        add(outputPanel, BorderLayout.SOUTH);
+
+        // Słuchacze akcji dla przycisków
+        addBtn.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                addStudentAction();
+            }
+        });
+        removeBtn.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                removeStudentAction();
+            }
+        });
+        updateBtn.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                updateStudentAction();
+            }
+        });
+        displayBtn.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                displayAllAction();
+            }
+        });
+        avgBtn.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                averageAction();
+            }
+        });
+        importBtn.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                importAction();
+            }
+        });
+        exportBtn.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                exportAction();
+            }
+        });
+        diagnosticsBtn.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                diagnosticsAction();
+            }
+        });
+        searchField.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                searchAction();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                searchAction();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+            }
+        });
+
+        // Do końca startu przyciski i wyszukiwanie są wyłączone
+        dataControls.add(addBtn);
+        dataControls.add(removeBtn);
+        dataControls.add(updateBtn);
+        dataControls.add(displayBtn);
+        dataControls.add(avgBtn);
+        dataControls.add(importBtn);
+        dataControls.add(exportBtn);
+        dataControls.add(diagnosticsBtn);
+        dataControls.add(searchField);
+        for (JComponent control : dataControls) {
+            control.setEnabled(false);
+        }
+        outputArea.setText("Opening the database...");
+
+        // Baza otwiera się w tle (StudentStartup) – okno jest od razu widoczne
+        StudentStartup startup = new StudentStartup(STARTUP);
+        startup.setWarmUp(!"false".equals(System.getProperty("students.warmup")));
+        startup.setPreload(Boolean.getBoolean("students.preload"));
+        AsyncStudentManager.onEdt(startup.start(StudentGUI::createManager), this::dataReady, error -> {
+            outputArea.setText("Error: Cannot open the database: " + error.getMessage());
+            JOptionPane.showMessageDialog(this,
+                    "Cannot open the database:\n" + error.getMessage(),
+                    "Startup Error",
+                    JOptionPane.ERROR_MESSAGE);
+        });
+    }
+
+    // Baza gotowa (wątek Swinga): tworzymy warstwy nad managerem, tabelę i włączamy przyciski.
+    private void dataReady(StudentManager ready) {
+        // Przed bazą SQLite stoi cache studentów po ID, a przed nim pomiar czasu każdej operacji
+        // (InstrumentedStudentManager)
+        manager = ready;
+        metrics = metricsOf(manager);
+        db = new AsyncStudentManager(new InstrumentedStudentManager(manager instanceof StudentManagerImpl
+                ? new CachingStudentManager(manager) : manager, metrics));
+
+        // Metryki w JMX (np. jconsole) i opcjonalnie w konsoli co N sekund:
+        // -Dstudents.metrics.dump=N, -Dstudents.metrics.json=true – w formacie JSON
+        metrics.registerMBeans();
+        long dumpSeconds = Long.getLong("students.metrics.dump", 0);
+        if (dumpSeconds > 0) {
+            metrics.startPeriodicDump(System.out, dumpSeconds, Boolean.getBoolean("students.metrics.json"));
+        }
+
+        tableModel = new StudentTableModel(db);
+        studentTable.setModel(tableModel);
+        for (JComponent control : dataControls) {
+            control.setEnabled(true);
+        }
+
+        // Indeks imion wczytujemy w tle – wyszukiwanie czeka na niego samo
+        loadNameIndex();
+
+        STARTUP.mark("ready");
+        System.out.println(STARTUP);
+        outputArea.setText("Ready. " + STARTUP);
+    }
+
+    // Metoda do dodania nowego studenta
+    private void addStudentAction() {
+        String sid = studentIDField.getText();
+        String nm = nameField.getText();
+        String ageTxt = ageField.getText();
+        String gradeTxt = gradeField.getText();
+
+        // Walidacja (StudentValidator – te same reguły co import i CHECK-i w bazie)
+        // ID – tylko cyfry
+        if (!StudentValidator.isValidID(sid)) {
+            outputArea.setText("Error: ID must be digits only!");
+            return;
+        }
+        // Name – tylko litery (bez polskich znaków)
+        if (!StudentValidator.isValidName(nm)) {
+            outputArea.setText("Error: Name must be letters only!");
+            return;
+        }
+
+        // Walidacja wieku (18–100)
+        int ag;
+        try {
+            ag = Integer.parseInt(ageTxt);
+            if (!StudentValidator.isValidAge(ag)) {
+                outputArea.setText("Error: Age must be in [18..100]!");
+                return;
+            }
+        } catch (NumberFormatException ex) {
+            outputArea.setText("Error: Age must be integer!");
+            return;
+        }
+
+        // Walidacja oceny
+        double gr;
+        try {
+            gr = Double.parseDouble(gradeTxt);
+            if (!StudentValidator.isValidGrade(gr)) {
+                outputArea.setText("Error: Grade must be one of 2,3,3.5,4,4.5,5!");
+                return;
+            }
+        } catch (NumberFormatException ex) {
+            outputArea.setText("Error: Grade must be a number (e.g. 3.5)!");
+            return;
+        }
+
+        // Tworzymy obiekt Student
+        Student st = new Student(nm, ag, gr, sid);
+        // Wywołujemy metodę addStudent u menedżera (w tle)
+        clearFields();
+        outputArea.setText("Adding student: " + sid + "...");
+        AsyncStudentManager.onEdt(db.addStudent(st), added -> {
+            if (!added) {
+                outputArea.setText("Error: Student with ID " + sid + " already exists!");
+                JOptionPane.showMessageDialog(this,
+                        "Student with ID: " + sid + " already exists!",
+                        "Add Error",
+                        JOptionPane.ERROR_MESSAGE);
+                return;
+            }
+            outputArea.setText("Added student: " + sid);
+            JOptionPane.showMessageDialog(this,
+                    "Student added successfully!",
+                    "Add Student",
+                    JOptionPane.INFORMATION_MESSAGE);
+        }, this::showError);
+    }
+
+    // Metoda do usunięcia studenta
+    private void removeStudentAction() {
+        String sid = studentIDField.getText();
+        if (sid.isEmpty()) {
+            outputArea.setText("Error: Provide an ID to remove!");
+            return;
+        }
+        clearFields();
+        outputArea.setText("Removing student: " + sid + "...");
+        AsyncStudentManager.onEdt(db.removeStudent(sid), removed -> {
+            if (!removed) {
+                outputArea.setText("No student found with ID: " + sid);
+                return;
+            }
+            outputArea.setText("Removed student: " + sid);
+            JOptionPane.showMessageDialog(this,
+                    "Removed student with ID: " + sid,
+                    "Remove Student",
+                    JOptionPane.INFORMATION_MESSAGE);
+        }, this::showError);
+    }
+
+    // Metoda do aktualizacji danych studenta:
+    // odczyt z bazy (w tle) -> okienka z nowymi danymi (EDT) -> zapis (w tle).
+    // Zapis sprawdza wersję wiersza – jeśli ktoś w międzyczasie zmienił studenta, nic nie nadpisujemy.
+    private void updateStudentAction() {
+        String sid = studentIDField.getText();
+        if (sid.isEmpty()) {
+            outputArea.setText("Error: Provide an ID to update!");
+            return;
+        }
+        clearFields();
+        outputArea.setText("Updating student: " + sid + "...");
+        AsyncStudentManager.onEdt(db.findStudent(sid), current -> {
+            if (current == null) {
+                // Jeśli nie ma takiego ID w bazie, pokazujemy komunikat
+                outputArea.setText("Student not updated: " + sid);
+                updateError("No student found with ID: " + sid);
+                return;
+            }
+            Student changed = askForNewData(current);
+            if (changed == null) {
+                outputArea.setText("Student not updated: " + sid);
+                return;
+            }
+            AsyncStudentManager.onEdt(db.updateStudent(changed), updated -> {
+                if (updated == 0) {
+                    outputArea.setText("Student not updated: " + sid);
+                    updateError("Student with ID " + sid + " was modified or removed by someone else. Try again.");
+                    return;
+                }
+                outputArea.setText("Updated student: " + sid);
+                JOptionPane.showMessageDialog(this,
+                        "Student with ID " + sid + " updated successfully!",
+                        "Update Student",
+                        JOptionPane.INFORMATION_MESSAGE);
+            }, this::showError);
+        }, this::showError);
+    }
+
+    // Pytamy użytkownika (w okienkach) o nowe dane; null = anulowano albo błąd.
+    // Nowy obiekt dostaje wersję odczytanego studenta (do sprawdzenia przy zapisie).
+    private Student askForNewData(Student current) {
+        String newName = JOptionPane.showInputDialog(this,
+                "Enter new name (letters only). Current: " + current.getName(),
+                current.getName());
+
+        // Sprawdzamy, czy user nie kliknął "Cancel" (newName == null) i czy to same litery
+        if (!StudentValidator.isValidName(newName)) {
+            updateError("Invalid name! Must be letters only.");
+            return null;
+        }
+
+        String newAgeStr = JOptionPane.showInputDialog(this,
+                "Enter new age (18–100). Current: " + current.getAge(),
+                current.getAge());
+
+        int newAge;
+        try {
+            newAge = Integer.parseInt(newAgeStr);
+            if (!StudentValidator.isValidAge(newAge)) {
+                updateError("Age must be in [18..100]!");
+                return null;
+            }
+        } catch (NumberFormatException ex) {
+            updateError("Invalid age format!");
+            return null;
+        }
+
+        String newGradeStr = JOptionPane.showInputDialog(this,
+                "Enter new grade (2, 3, 3.5, 4, 4.5, 5). Current: " + current.getGrade(),
+                current.getGrade());
+
+        double newGrade;
+        try {
+            newGrade = Double.parseDouble(newGradeStr);
+            // Sprawdzamy, czy jest w dozwolonej liście
+            if (!StudentValidator.isValidGrade(newGrade)) {
+                updateError("Grade must be one of (2, 3, 3.5, 4, 4.5, 5)!");
+                return null;
+            }
+        } catch (NumberFormatException | NullPointerException ex) {
+            updateError("Invalid grade format!");
+            return null;
+        }
+
+        return new Student(newName, newAge, newGrade, current.getStudentID(), current.getVersion());
+    }
+
+    private void updateError(String message) {
+        JOptionPane.showMessageDialog(this,
+                message,
+                "Update Error",
+                JOptionPane.ERROR_MESSAGE);
+    }
+
+    // Metoda do wyświetlania wszystkich studentów w bazie
+    // (tabela pobiera z bazy tylko strony, które są akurat widoczne)
+    private void displayAllAction() {
+        if (nameIndex != null && !nameIndexLive) {
+            loadNameIndex(); // indeks bez śledzenia zmian – odświeżamy razem z tabelą
+        }
+        AsyncStudentManager.onEdt(tableModel.refresh(), count -> {
+            if (count == 0) {
+                outputArea.setText("No students in the database.");
+                return;
+            }
+            outputArea.setText("Students in the database: " + count);
+        }, this::showError);
+    }
+
+    // Metoda do obliczania i wyświetlania średniej ocen
+    private void averageAction() {
+        AsyncStudentManager.onEdt(db.getGradeStatistics(), stats -> {
+            StringBuilder sb = new StringBuilder();
+            sb.append("Average grade: ").append(stats.getAverage()).append("\n")
+              .append("Students: ").append(stats.getCount())
+              .append(", Min: ").append(stats.getMin())
+              .append(", Max: ").append(stats.getMax())
+              .append(String.format(", Std dev: %.3f", stats.getStandardDeviation())).append("\n")
+              .append("Distribution: ");
+            for (Map.Entry<Double, Long> e : stats.getHistogram().entrySet()) {
+                sb.append(e.getKey()).append(" -> ").append(e.getValue()).append("  ");
+            }
+            outputArea.setText(sb.toString());
+        }, this::showError);
+    }
+
+    // Okno z metrykami (operacje, zapytania SQL, połączenia, pula), odświeżane co sekundę
+    private void diagnosticsAction() {
+        final JDialog dialog = new JDialog(this, "Diagnostics", false);
+        final JTextArea text = new JTextArea(30, 120);
+        text.setEditable(false);
+        text.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+        dialog.add(new JScrollPane(text));
+        dialog.pack();
+        dialog.setLocationRelativeTo(this);
+
+        final Timer refresh = new Timer(1000, e -> {
+            StringBuilder sb = new StringBuilder(STARTUP.toString()).append("\n\n").append(metrics.toText());
+            if (manager instanceof StudentManagerImpl) {
+                sb.append('\n').append(((StudentManagerImpl) manager).getPoolMetrics());
+            }
+            text.setText(sb.toString());
+        });
+        refresh.setInitialDelay(0);
+        refresh.start();
+        dialog.addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosed(WindowEvent e) {
+                refresh.stop();
+            }
+        });
+        dialog.setDefaultCloseOperation(JDialog.DISPOSE_ON_CLOSE);
+        dialog.setVisible(true);
+    }
+
+    // Wyszukiwanie przy pisaniu: po każdej zmianie pola najlepiej pasujący studenci (dokładnie to imię,
+    // początek, fragment, literówka) w outputArea. Poprzednie, jeszcze trwające wyszukiwanie anulujemy.
+    private void searchAction() {
+        String text = searchField.getText().trim();
+        if (pendingSearch != null) {
+            pendingSearch.cancel(true);
+            pendingSearch = null;
+        }
+        if (text.isEmpty()) {
+            outputArea.setText("");
+            return;
+        }
+        if (nameIndex == null) {
+            outputArea.setText("Name index is loading...");
+            return;
+        }
+        final long start = System.nanoTime();
+        final CompletableFuture<List<Student>> search = db.searchByName(nameIndex, text, SEARCH_LIMIT);
+        pendingSearch = search;
+        AsyncStudentManager.onEdt(search, found -> {
+            if (search != pendingSearch) {
+                return; // wynik dla starszego tekstu
+            }
+            pendingSearch = null;
+            StringBuilder sb = new StringBuilder();
+            sb.append(String.format("Search \"%s\": %d student(s) in %.1f ms%n", text, found.size(),
+                    (System.nanoTime() - start) / 1e6));
+            for (Student s : found) {
+                sb.append(s.getStudentID()).append("  ").append(s.getName())
+                  .append(", age ").append(s.getAge())
+                  .append(", grade ").append(s.getGrade()).append("\n");
+            }
+            outputArea.setText(sb.toString());
+        }, this::showError);
+    }
+
+    // Wczytanie (albo odświeżenie) indeksu imion w tle; do tego czasu wyszukiwanie czeka.
+    private void loadNameIndex() {
+        final boolean live = !StudentStartup.databasesOf(manager).isEmpty();
+        CompletableFuture<NameSearchIndex> loading = CompletableFuture.supplyAsync(() -> {
+            try {
+                return createNameIndex(manager);
+            } catch (SQLException e) {
+                throw new IllegalStateException("Cannot load name index", e);
+            }
+        });
+        AsyncStudentManager.onEdt(loading, index -> {
+            NameSearchIndex old = nameIndex;
+            nameIndex = index;
+            nameIndexLive = live;
+            if (old != null) {
+                old.close();
+            }
+            if (!searchField.getText().trim().isEmpty()) {
+                searchAction();
+            }
+        }, this::showError);
+    }
+
+    // Błąd operacji w tle – pokazujemy go w outputArea
+    private void showError(Throwable error) {
+        error.printStackTrace();
+        outputArea.setText("Error: " + error.getMessage());
+        if (error instanceof StudentStoreException) {
+            // Zapis się nie udał (np. baza zajęta po wszystkich próbach) – to nie "nie ma studenta"
+            JOptionPane.showMessageDialog(this,
+                    error.getMessage(),
+                    "Database Error",
+                    JOptionPane.ERROR_MESSAGE);
+        }
+    }
+
+    // Metoda do importu studentów z pliku CSV (studentID,name,age,grade).
+    // Import działa w tle (SwingWorker), a okno pokazuje pasek postępu.
+    private void importAction() {
+        JFileChooser chooser = new JFileChooser();
+        if (chooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        final File file = chooser.getSelectedFile();
+        // Przez cache (db.getManager()) – po imporcie wpisy "nie ma takiego ID" są usuwane
+        final StudentCsvImporter importer = new StudentCsvImporter(db.getManager());
+        final long fileSize = Math.max(1, file.length());
+
+        importBtn.setEnabled(false);
+        progressBar.setValue(0);
+        progressBar.setString("Importing " + file.getName() + "...");
+        progressBar.setVisible(true);
+        outputArea.setText("Importing " + file.getName() + "...");
+
+        new SwingWorker<ImportResult, Integer>() {
+            @Override
+            protected ImportResult doInBackground() throws Exception {
+                return importer.importFile(file, (processed, accepted, rejected) -> publish(processed));
+            }
+
+            @Override
+            protected void process(List<Integer> chunks) {
+                int processed = chunks.get(chunks.size() - 1);
+                progressBar.setValue((int) (importer.getBytesRead() * 1000 / fileSize));
+                progressBar.setString("Processed " + processed + " rows");
+            }
+
+            @Override
+            protected void done() {
+                importBtn.setEnabled(true);
+                progressBar.setVisible(false);
+                try {
+                    ImportResult result = get();
+                    StringBuilder sb = new StringBuilder("Import finished. ").append(result).append("\n");
+                    // Pokazujemy tylko początek listy odrzuconych (może być bardzo długa)
+                    int shown = 0;
+                    for (ImportResult.Rejected r : result.getRejected()) {
+                        if (shown++ == 100) {
+                            sb.append("...\n");
+                            break;
+                        }
+                        sb.append(r).append("\n");
+                    }
+                    outputArea.setText(sb.toString());
+                } catch (Exception ex) {
+                    Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
+                    outputArea.setText("Error: Import failed: " + cause.getMessage());
+                }
+            }
+        }.execute();
+    }
+
+    // Metoda do eksportu wszystkich studentów do pliku. Format wynika z rozszerzenia:
+    // .csv, .jsonl, .col (z dopiskiem .gz – skompresowany). Eksport działa w tle (SwingWorker).
+    private void exportAction() {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setSelectedFile(new File("students.csv"));
+        if (chooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        final File file = chooser.getSelectedFile();
+        final StudentExporter exporter = new StudentExporter(manager);
+
+        exportBtn.setEnabled(false);
+        outputArea.setText("Exporting to " + file.getName() + "...");
+
+        new SwingWorker<ExportResult, Void>() {
+            @Override
+            protected ExportResult doInBackground() throws Exception {
+                return exporter.exportFile(file);
+            }
+
+            @Override
+            protected void done() {
+                exportBtn.setEnabled(true);
+                try {
+                    outputArea.setText("Export finished. " + get() + "\n" + file.getAbsolutePath());
+                } catch (Exception ex) {
+                    Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
+                    outputArea.setText("Error: Export failed: " + cause.getMessage());
+                }
+            }
+        }.execute();
+    }
+
+    // Czyścimy pola tekstowe
+    private void clearFields() {
+        studentIDField.setText("");
+        nameField.setText("");
+        ageField.setText("");
+        gradeField.setText("");
+    }
+
+    // Metryki zapytań SQL bazy, z której korzysta manager (magazyn w pamięci – tylko operacje).
+    private static StudentMetrics metricsOf(StudentManager manager) {
+        if (manager instanceof StudentManagerImpl) {
+            return ((StudentManagerImpl) manager).getMetrics();
+        }
+        if (manager instanceof SnapshotStudentManager) {
+            return ((SnapshotStudentManager) manager).getSource().getMetrics();
+        }
+        if (manager instanceof WriteBehindStudentManager) {
+            return ((WriteBehindStudentManager) manager).getTarget().getMetrics();
+        }
+        return new StudentMetrics();
+    }
+
+    // Indeks imion: dla baz SQLite aktualizowany na bieżąco, dla pozostałych magazynów – zawartość
+    // z chwili wczytania (odświeżana przyciskiem Display).
+    private static NameSearchIndex createNameIndex(StudentManager manager) throws SQLException {
+        List<StudentManagerImpl> databases = StudentStartup.databasesOf(manager);
+        if (databases.isEmpty()) {
+            return NameSearchIndex.build(manager);
+        }
+        NameSearchIndex index = new NameSearchIndex();
+        try {
+            for (StudentManagerImpl database : databases) {
+                index.follow(database);
+            }
+        } catch (SQLException e) {
+            index.close();
+            throw e;
+        }
+        return index;
+    }
+
+    // Wybór magazynu danych przy starcie (-Dstudents.backend=...):
+    // - sqlite (domyślnie) – każda operacja idzie do pliku students.db
+    // - columnar / columnar-offheap – studenci w pamięci, kolumnami (ColumnarStudentManager);
+    //   wczytani z students.db przy starcie i zapisani z powrotem przy wyjściu z programu
+    // - snapshot – odczyty z pliku students.snap (StudentSnapshot), zapisy do students.db;
+    //   nieaktualną kopię zapisujemy od nowa przy wyjściu z programu
+    // - sharded – studenci w kilku plikach students-0.db ... (ShardedStudentManager, każdy plik
+    //   z własnym pisarzem); liczba plików: -Dstudents.shards=N (domyślnie 4) – musi się zgadzać
+    //   z liczbą zapisaną w plikach, inaczej baza się nie otworzy (zmiana liczby – rebalance)
+    // - -Dstudents.server=host:port – operacje na wspólnej bazie przez StudentServer (RemoteStudentManager);
+    //   gdy serwer nie odpowiada, okno pokazuje błąd (nie przechodzimy po cichu na lokalne students.db)
+    // Dla sqlite -Dstudents.writeBehind=true – zapisy paczkami w tle (WriteBehindStudentManager)
+    // z dziennikiem students.wbj; przy wyjściu zapisujemy to, co czeka w kolejce.
+    private static StudentManager createManager() {
+        String server = System.getProperty("students.server");
+        if (server != null) {
+            try {
+                final RemoteStudentManager remote = RemoteStudentManager.connect(server);
+                Runtime.getRuntime().addShutdownHook(new Thread(remote::close, "student-remote-close"));
+                return remote;
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot connect to student server " + server + ": " + e.getMessage(), e);
+            }
+        }
+        String backend = System.getProperty("students.backend", "sqlite");
+        if (backend.equals("snapshot")) {
+            final SnapshotStudentManager snapshot =
+                    new SnapshotStudentManager(new StudentManagerImpl(), new File("students.snap"));
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    if (!snapshot.isSnapshotActive()) {
+                        snapshot.save();
+                    }
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+                snapshot.close();
+            }, "student-snapshot-save"));
+            return snapshot;
+        }
+        if (backend.equals("sharded")) {
+            final ShardedStudentManager sharded =
+                    ShardedStudentManager.open("students", Integer.getInteger("students.shards", 4));
+            Runtime.getRuntime().addShutdownHook(new Thread(sharded::close, "student-shards-close"));
+            return sharded;
+        }
+        if (!backend.startsWith("columnar")) {
+            if (Boolean.getBoolean("students.writeBehind")) {
+                StudentManagerImpl file = new StudentManagerImpl(
+                        new SQLiteConnectionPool(new SQLitePoolConfig(StudentManagerImpl.DB_URL)));
+                try {
+                    final WriteBehindStudentManager writeBehind =
+                            new WriteBehindStudentManager(file, new WriteBehindConfig(new File("students.wbj")));
+                    Runtime.getRuntime().addShutdownHook(new Thread(writeBehind::close, "student-write-behind-close"));
+                    return writeBehind;
+                } catch (IOException e) {
+                    e.printStackTrace(); // bez kolejki – każdy zapis od razu do bazy
+                    file.getPool().registerShutdownHook();
+                    return file;
+                }
+            }
+            return new StudentManagerImpl();
+        }
+        final StudentManagerImpl file = new StudentManagerImpl(
+                new SQLiteConnectionPool(new SQLitePoolConfig(StudentManagerImpl.DB_URL)));
+        final ColumnarStudentManager store =
+                ColumnarStudentManager.loadFrom(file, backend.equals("columnar-offheap"));
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            int conflicts = store.saveTo(file);
+            if (conflicts > 0) {
+                System.out.println(conflicts + " student(s) were changed in " + StudentManagerImpl.DB_URL
+                        + " by another program and were not saved");
+            }
+            file.close();
+        }, "student-store-save"));
+        return store;
+    }
+
+    // Metoda main – uruchamia okno
+    public static void main(String[] args) {
+        SwingUtilities.invokeLater(() -> {
+            StudentGUI gui = new StudentGUI();
+            gui.setVisible(true);
+            STARTUP.mark("window");
+        });
+    }
+}
@@ -1,21 +1,89 @@
-import java.util.ArrayList;
-
-// Interfejs StudentManager – określa metody, których użyje StudentManagerImpl.
-// Te metody wywołuje GUI (StudentGUI).
-
-public interface StudentManager {
-    // Dodaje nowego studenta (po walidacji danych w GUI).
-    void addStudent(Student student);
-
-    // Usuwa studenta o podanym ID (jeśli istnieje).
-    void removeStudent(String studentID);
-
-    // Aktualizuje dane istniejącego studenta (metoda sama może pytać o nowe dane).
-    void updateStudent(String studentID);
-
-    // Zwraca listę wszystkich studentów z bazy.
-    ArrayList<Student> displayAllStudents();
-
-    // Oblicza średnią ocen wszystkich studentów.
-    double calculateAverageGrade();
-}
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+// Interfejs StudentManager – określa metody, których użyje StudentManagerImpl.
+// Te metody wywołuje GUI (StudentGUI) – przez AsyncStudentManager, poza wątkiem Swinga.
+// Metody nie pokazują okienek; wynik zwracają, a komunikaty wyświetla GUI.
+
+public interface StudentManager {
+    // Dodaje nowego studenta (po walidacji danych w GUI).
+    // Zwraca false, jeśli student o takim ID już istnieje; błąd zapisu – StudentStoreException.
+    boolean addStudent(Student student);
+
+    // Dodaje wielu studentów naraz (import) – paczkami w transakcjach, bez okienek.
+    // Zwraca wynik z listą odrzuconych wierszy; listener może być null.
+    ImportResult addStudents(Iterable<Student> students, ImportProgressListener listener);
+
+    // Jak wyżej, bez powiadamiania o postępie.
+    default ImportResult addStudents(Iterable<Student> students) {
+        return addStudents(students, null);
+    }
+
+    // Sprawdza, czy student o podanym ID jest w bazie.
+    boolean studentExists(String studentID);
+
+    // Zwraca studenta o podanym ID albo null, jeśli go nie ma.
+    Student findStudent(String studentID);
+
+    // Usuwa studenta o podanym ID (jeśli istnieje). Zwraca true, jeśli coś usunięto;
+    // błąd zapisu – StudentStoreException.
+    boolean removeStudent(String studentID);
+
+    // Zapisuje nowe dane studenta (imię, wiek, ocena) o tym samym ID.
+    // Jeśli student ma wersję (getVersion() > 0), zapis udaje się tylko wtedy, gdy nikt
+    // inny w międzyczasie go nie zmienił. Zwraca liczbę zmienionych wierszy (0 lub 1):
+    // 0 – student zmieniony albo usunięty; błąd zapisu – StudentStoreException.
+    int updateStudent(Student student);
+
+    // Zmienia tylko wybrane pola studenta (zob. StudentChanges). Zwraca liczbę zmienionych wierszy;
+    // błąd zapisu – StudentStoreException.
+    int updateFields(String studentID, StudentChanges changes);
+
+    // Zmienia oceny wielu studentów naraz (ID -> nowa ocena) w jednej transakcji.
+    // Zwraca, ilu studentów zmieniono (brakujące ID są pomijane); błąd zapisu – StudentStoreException.
+    int updateGrades(Map<String, Double> gradesByID);
+
+    // Zwraca listę wszystkich studentów z bazy.
+    ArrayList<Student> displayAllStudents();
+
+    // Liczba studentów w bazie.
+    int countStudents();
+
+    // Strona studentów posortowanych po studentID, zaczynając za podanym ID
+    // (paginacja "keyset"; null = od początku). Zwraca najwyżej limit studentów.
+    List<Student> findStudentsAfter(String afterStudentID, int limit);
+
+    // Strona studentów posortowanych po studentID od pozycji offset (skok w dowolne miejsce).
+    List<Student> findStudentsPage(int offset, int limit);
+
+    // Wyszukiwanie po początku imienia, zakresie wieku i ocen, z sortowaniem i stronami
+    // (zob. StudentQuery). Zwraca najwyżej query.getLimit() studentów.
+    List<Student> findStudents(StudentQuery query);
+
+    // Liczba studentów spełniających warunki query (bez offset / limit).
+    int countStudents(StudentQuery query);
+
+    // Przechodzi po wszystkich studentach (po studentID) bez ładowania całej tabeli do pamięci.
+    // fetchSize – ile wierszy naraz pobieramy z bazy.
+    default void forEachStudent(int fetchSize, Consumer<Student> visitor) {
+        String after = null;
+        List<Student> page;
+        do {
+            page = findStudentsAfter(after, fetchSize);
+            for (Student s : page) {
+                visitor.accept(s);
+            }
+            if (!page.isEmpty()) {
+                after = page.get(page.size() - 1).getStudentID();
+            }
+        } while (page.size() == fetchSize);
+    }
+
+    // Oblicza średnią ocen wszystkich studentów.
+    double calculateAverageGrade();
+
+    // Statystyki ocen: liczba, min, max, średnia, wariancja i rozkład ocen.
+    GradeStatistics getGradeStatistics();
+}
@@ -1,302 +1,1070 @@
-import java.sql.Connection;
-import java.sql.DriverManager;
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
-import java.sql.SQLException;
-import java.sql.Statement;
-import java.util.ArrayList;
-
-import javax.swing.JOptionPane;
-
-/*
-  Klasa StudentManagerImpl – implementuje interfejs StudentManager.
-  Obsługuje bazę SQLite (plik students.db), tworzy tabelę "students"
-  oraz realizuje operacje: add, remove, update, displayAll, calculateAverage.
-*/
-
-public class StudentManagerImpl implements StudentManager {
-
-    // Ścieżka do bazy danych SQLite (plik).
-    private static final String DB_URL = "jdbc:sqlite:students.db";
-
-    // Konstruktor – przy tworzeniu obiektu tworzymy tabelę, jeśli nie istnieje.
-    public StudentManagerImpl() {
-        createTableIfNotExists();
-    }
-
-    // Metoda do nawiązania połączenia z bazą.
-    private Connection getConnection() throws SQLException {
-        return DriverManager.getConnection(DB_URL);
-    }
-
-    // Tworzymy tabelę "students" (o kolumnach: name, age, grade, studentID PRIMARY KEY).
-    private void createTableIfNotExists() {
-        String sql = "CREATE TABLE IF NOT EXISTS students ("
-                + "name TEXT, "
-                + "age INTEGER, "
-                + "grade REAL, "
-                + "studentID TEXT PRIMARY KEY)";
-
-        try (Connection conn = getConnection();
-             Statement stmt = conn.createStatement()) {
-            stmt.execute(sql); // Wykonanie CREATE TABLE
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-    }
-
-    // Metoda pomocnicza – sprawdza, czy dane studentID już istnieje w bazie.
-    private boolean studentExists(String studentID) {
-        String sql = "SELECT studentID FROM students WHERE studentID = ?";
-        try (Connection conn = getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-
-            pstmt.setString(1, studentID);
-            try (ResultSet rs = pstmt.executeQuery()) {
-                // Jeśli rs.next() jest true, to rekord istnieje
-                if (rs.next()) {
-                    return true;
-                }
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-        return false;
-    }
-
-    // Dodanie nowego studenta (zobacz interfejs)
-    @Override
-    public void addStudent(Student student) {
-        // Sprawdzamy, czy to ID już jest w bazie (ID musi być unikalne)
-        if (studentExists(student.getStudentID())) {
-            JOptionPane.showMessageDialog(null,
-                    "Student with ID: " + student.getStudentID() + " already exists!",
-                    "Add Error",
-                    JOptionPane.ERROR_MESSAGE);
-            return;
-        }
-
-        // Jeśli ID jest wolne, to INSERT
-        String insertSQL = "INSERT INTO students(name, age, grade, studentID) VALUES (?, ?, ?, ?)";
-
-        try (Connection conn = getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(insertSQL)) {
-
-            // Ustawiamy parametry
-            pstmt.setString(1, student.getName());
-            pstmt.setInt(2, student.getAge());
-            pstmt.setDouble(3, student.getGrade());
-            pstmt.setString(4, student.getStudentID());
-
-            pstmt.executeUpdate(); // Wykonanie INSERT
-
-            JOptionPane.showMessageDialog(null,
-                    "Student added successfully!",
-                    "Add Student",
-                    JOptionPane.INFORMATION_MESSAGE);
-
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-    }
-
-    // Usunięcie studenta
-    @Override
-    public void removeStudent(String studentID) {
-        String deleteSQL = "DELETE FROM students WHERE studentID = ?";
-
-        try (Connection conn = getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(deleteSQL)) {
-
-            pstmt.setString(1, studentID);
-            pstmt.executeUpdate(); // Wykonanie DELETE
-
-            JOptionPane.showMessageDialog(null,
-                    "Removed student with ID: " + studentID,
-                    "Remove Student",
-                    JOptionPane.INFORMATION_MESSAGE);
-
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-    }
-
-    // Aktualizacja danych istniejącego studenta
-    // Zgodnie z interfejsem, przyjmuje tylko ID – pobieramy resztę danych w okienkach (JOptionPane).
-    @Override
-    public void updateStudent(String studentID) {
-        // Sprawdzamy, czy student istnieje w bazie
-        String checkSQL = "SELECT name, age, grade FROM students WHERE studentID = ?";
-        String oldName = null;
-        int oldAge = 0;
-        double oldGrade = 0.0;
-        boolean found = false;
-
-        try (Connection conn = getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(checkSQL)) {
-            pstmt.setString(1, studentID);
-
-            try (ResultSet rs = pstmt.executeQuery()) {
-                if (rs.next()) {
-                    oldName = rs.getString("name");
-                    oldAge = rs.getInt("age");
-                    oldGrade = rs.getDouble("grade");
-                    found = true;
-                }
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-
-        if (!found) {
-            // Jeśli nie ma takiego ID w bazie, pokazujemy komunikat
-            JOptionPane.showMessageDialog(null,
-                    "No student found with ID: " + studentID,
-                    "Update Error",
-                    JOptionPane.ERROR_MESSAGE);
-            return;
-        }
-
-        // Pytamy użytkownika (w okienkach) o nowe dane
-        String newName = JOptionPane.showInputDialog(null,
-                "Enter new name (letters only). Current: " + oldName,
-                oldName);
-
-        // Sprawdzamy, czy user nie kliknął "Cancel" (newName == null) i czy pasuje do regex
-        if (newName == null || !newName.matches("[a-zA-Z]+")) {
-            JOptionPane.showMessageDialog(null,
-                    "Invalid name! Must be letters only.",
-                    "Update Error",
-                    JOptionPane.ERROR_MESSAGE);
-            return;
-        }
-
-        String newAgeStr = JOptionPane.showInputDialog(null,
-                "Enter new age (18–100). Current: " + oldAge,
-                oldAge);
-
-        int newAge;
-        try {
-            newAge = Integer.parseInt(newAgeStr);
-            if (newAge < 18 || newAge > 100) {
-                JOptionPane.showMessageDialog(null,
-                        "Age must be in [18..100]!",
-                        "Update Error",
-                        JOptionPane.ERROR_MESSAGE);
-                return;
-            }
-        } catch (NumberFormatException ex) {
-            JOptionPane.showMessageDialog(null,
-                    "Invalid age format!",
-                    "Update Error",
-                    JOptionPane.ERROR_MESSAGE);
-            return;
-        }
-
-        String newGradeStr = JOptionPane.showInputDialog(null,
-                "Enter new grade (2, 3, 3.5, 4, 4.5, 5). Current: " + oldGrade,
-                oldGrade);
-
-        double newGrade;
-        try {
-            newGrade = Double.parseDouble(newGradeStr);
-            // Sprawdzamy, czy jest w dozwolonej liście
-            double[] allowedGrades = {2.0, 3.0, 3.5, 4.0, 4.5, 5.0};
-            boolean ok = false;
-            for (double d : allowedGrades) {
-                if (Math.abs(d - newGrade) < 0.000001) {
-                    ok = true;
-                    break;
-                }
-            }
-            if (!ok) {
-                JOptionPane.showMessageDialog(null,
-                        "Grade must be one of (2, 3, 3.5, 4, 4.5, 5)!",
-                        "Update Error",
-                        JOptionPane.ERROR_MESSAGE);
-                return;
-            }
-        } catch (NumberFormatException ex) {
-            JOptionPane.showMessageDialog(null,
-                    "Invalid grade format!",
-                    "Update Error",
-                    JOptionPane.ERROR_MESSAGE);
-            return;
-        }
-
-        // Wykonujemy UPDATE w bazie
-        String updateSQL = "UPDATE students SET name = ?, age = ?, grade = ? WHERE studentID = ?";
-        try (Connection conn = getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(updateSQL)) {
-
-            pstmt.setString(1, newName);
-            pstmt.setInt(2, newAge);
-            pstmt.setDouble(3, newGrade);
-            pstmt.setString(4, studentID);
-            pstmt.executeUpdate();
-
-            JOptionPane.showMessageDialog(null,
-                    "Student with ID " + studentID + " updated successfully!",
-                    "Update Student",
-                    JOptionPane.INFORMATION_MESSAGE);
-
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-    }
-
-    // Pobranie listy wszystkich studentów z bazy
-    @Override
-    public ArrayList<Student> displayAllStudents() {
-        ArrayList<Student> list = new ArrayList<>();
-        String sql = "SELECT name, age, grade, studentID FROM students";
-
-        try (Connection conn = getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
-
-            while (rs.next()) {
-                String nm = rs.getString("name");
-                int ag = rs.getInt("age");
-                double gr = rs.getDouble("grade");
-                String sid = rs.getString("studentID");
-
-                // Tworzymy obiekt Student i dodajemy do listy
-                Student st = new Student(nm, ag, gr, sid);
-                list.add(st);
-            }
-
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-
-        return list;
-    }
-
-    // Obliczenie średniej ocen
-    @Override
-    public double calculateAverageGrade() {
-        double total = 0.0;
-        int count = 0;
-        String sql = "SELECT grade FROM students";
-
-        try (Connection conn = getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
-
-            while (rs.next()) {
-                total += rs.getDouble("grade");
-                count++;
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-
-        // Jeśli brak studentów, zwracamy 0.0 (żeby uniknąć dzielenia przez zero).
-        if (count == 0) {
-            return 0.0;
-        }
-
-        return total / count;
-    }
-}
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/*
+  Klasa StudentManagerImpl – implementuje interfejs StudentManager.
+  Obsługuje bazę SQLite (plik students.db) – tabele zakłada i aktualizuje SchemaMigrations –
+  oraz realizuje operacje: add, remove, update, displayAll, calculateAverage.
+  W bazie ID jest liczbą, a ocena kodem (ocena * 2); na zewnątrz Student ma je jak dawniej.
+  Połączenia bierze z SQLiteConnectionPool (jeden pisarz + pula czytelników,
+  cache PreparedStatement) zamiast otwierać plik bazy przy każdym wywołaniu.
+  Klasa jest bezpieczna wątkowo: każdy zapis to jedna transakcja (pool.write – z ponowieniem
+  przy SQLITE_BUSY), a addStudent to jedno INSERT ... ON CONFLICT DO NOTHING, więc dwa wątki
+  (albo dwa procesy) dodające to samo ID nie dodadzą go dwa razy. Przy wielu wątkach piszących
+  zapisy mogą iść przez wspólną kolejkę z grupowym COMMIT (SQLitePoolConfig.setGroupCommit).
+*/
+
+public class StudentManagerImpl implements StudentManager {
+
+    // Ścieżka do bazy danych SQLite (plik).
+    static final String DB_URL = "jdbc:sqlite:students.db";
+
+    // Zapytanie INSERT wspólne dla addStudent i addStudents (ten sam wpis w cache zapytań).
+    private static final String INSERT_SQL =
+            "INSERT INTO students(name, age, grade_code, studentID) VALUES (?, ?, ?, ?)";
+
+    // Dodanie tylko wtedy, gdy ID jest wolne – sprawdzenie i zapis w jednym zapytaniu.
+    // (Nie INSERT OR IGNORE – to pominęłoby też wiersz łamiący CHECK, bez błędu.)
+    private static final String INSERT_IF_ABSENT_SQL = INSERT_SQL + " ON CONFLICT(studentID) DO NOTHING";
+
+    // Histogram ocen: zapisany w grade_stats i z pełnego przeglądu (do sprawdzania).
+    private static final String STORED_STATS_SQL = "SELECT grade_code, cnt FROM grade_stats WHERE cnt > 0";
+    private static final String SCANNED_STATS_SQL = "SELECT grade_code, COUNT(*) FROM students GROUP BY grade_code";
+
+    // Domyślna liczba wierszy w jednej transakcji przy imporcie.
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+
+    // Ile ID sprawdzamy jednym zapytaniem "IN (...)" (limit parametrów w SQLite).
+    private static final int MAX_IN_PARAMS = 500;
+
+    // Pula połączeń do bazy.
+    private final SQLiteConnectionPool pool;
+
+    // Wspólna kolejka zapisów z grupowym COMMIT (null – każdy zapis osobno, zob. write).
+    private final GroupCommitWriter writeQueue;
+
+    // Rozmiar paczki dla addStudents (zob. setBatchSize).
+    private int batchSize = DEFAULT_BATCH_SIZE;
+
+    // Tryb sprawdzania: getGradeStatistics porównuje grade_stats z pełnym przeglądem tabeli.
+    private volatile boolean verifyStatistics = Boolean.getBoolean("students.verifyStatistics");
+
+    // Ile migracji schematu wykonano przy tworzeniu obiektu (zob. getAppliedMigrations).
+    private int appliedMigrations;
+
+    // Ile razy grade_stats nie zgadzało się z pełnym przeglądem (zob. getStatisticsMismatches).
+    private final AtomicLong statisticsMismatches = new AtomicLong();
+
+    // Konstruktor – domyślna baza students.db, pula zamykana przy wyjściu z programu.
+    public StudentManagerImpl() {
+        this(new SQLiteConnectionPool(new SQLitePoolConfig(DB_URL)));
+        pool.registerShutdownHook();
+    }
+
+    // Konstruktor – własna pula (np. inna ścieżka bazy albo inne PRAGMA).
+    // Przy tworzeniu obiektu doprowadzamy schemat bazy do aktualnej wersji (zob. SchemaMigrations).
+    public StudentManagerImpl(SQLiteConnectionPool pool) {
+        this.pool = pool;
+        migrateSchema();
+        SQLitePoolConfig config = pool.getConfig();
+        this.writeQueue = config.isGroupCommit() ? new GroupCommitWriter(pool, config.getMaxGroupSize()) : null;
+    }
+
+    // Metryki puli (czas oczekiwania na połączenie, trafienia cache zapytań).
+    public PoolMetrics getPoolMetrics() {
+        return pool.getMetrics();
+    }
+
+    // Czasy zapytań SQL i otwierania połączeń (zob. StudentMetrics).
+    public StudentMetrics getMetrics() {
+        return pool.getStudentMetrics();
+    }
+
+    // Pula połączeń (dla WriteBehindQueue – zapis własnych transakcji).
+    SQLiteConnectionPool getPool() {
+        return pool;
+    }
+
+    // Zamknięcie wszystkich połączeń z bazą (najpierw zatwierdzamy zapisy z kolejki).
+    public void close() {
+        if (writeQueue != null) {
+            writeQueue.close();
+        }
+        pool.close();
+    }
+
+    // Pojedynczy zapis: przez kolejkę z grupowym COMMIT albo od razu w osobnej transakcji.
+    private <T> T write(WriteTask<T> task) throws SQLException {
+        return writeQueue != null ? writeQueue.execute(task) : pool.write(task);
+    }
+
+    public boolean isVerifyStatistics() {
+        return verifyStatistics;
+    }
+
+    // Włącza porównywanie statystyk z pełnym przeglądem tabeli (wolne – do testów).
+    public void setVerifyStatistics(boolean verifyStatistics) {
+        this.verifyStatistics = verifyStatistics;
+    }
+
+    // Liczba migracji wykonanych przy starcie (0 – baza była już w aktualnej wersji).
+    public int getAppliedMigrations() {
+        return appliedMigrations;
+    }
+
+    // Liczba wykrytych niezgodności grade_stats (w trybie verifyStatistics i przy verifyStatistics()).
+    public long getStatisticsMismatches() {
+        return statisticsMismatches.get();
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    // Ile wierszy importu zatwierdzamy w jednej transakcji.
+    public void setBatchSize(int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batchSize must be at least 1");
+        }
+        this.batchSize = batchSize;
+    }
+
+    // Tworzy tabele albo aktualizuje schemat starszej bazy (tylko brakujące migracje).
+    private void migrateSchema() {
+        try {
+            appliedMigrations = SchemaMigrations.migrate(pool);
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    // ID studenta w bazie jest liczbą; z tekstu (tylko cyfry) -> liczba, -1 gdy ID niepoprawne.
+    // "007" i "7" to ten sam student.
+    static long parseID(String studentID) {
+        return StudentValidator.isValidID(studentID) ? Long.parseLong(studentID) : -1;
+    }
+
+    // Ocena w bazie to kod = ocena * 2 (2 -> 4, 3.5 -> 7, 5 -> 10).
+    // Ocena, która nie jest wielokrotnością 0.5, dostaje kod -1 – odrzuci go CHECK w tabeli.
+    static int gradeCode(double grade) {
+        double twice = grade * 2;
+        return twice == Math.rint(twice) && Math.abs(twice) < 1000 ? (int) twice : -1;
+    }
+
+    static double gradeFromCode(int code) {
+        return code / 2.0;
+    }
+
+    // Sprawdza, czy dane studentID już istnieje w bazie.
+    @Override
+    public boolean studentExists(String studentID) {
+        long id = parseID(studentID);
+        if (id < 0) {
+            return false;
+        }
+        String sql = "SELECT studentID FROM students WHERE studentID = ?";
+        try (PooledConnection conn = pool.reader()) {
+            PreparedStatement pstmt = conn.prepare(sql);
+
+            pstmt.setLong(1, id);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                // Jeśli rs.next() jest true, to rekord istnieje
+                if (rs.next()) {
+                    return true;
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return false;
+    }
+
+    // Pobranie jednego studenta po ID (null, jeśli nie ma)
+    @Override
+    public Student findStudent(String studentID) {
+        long id = parseID(studentID);
+        if (id < 0) {
+            return null;
+        }
+        String sql = "SELECT name, age, grade_code, studentID, version FROM students WHERE studentID = ?";
+        try (PooledConnection conn = pool.reader()) {
+            PreparedStatement pstmt = conn.prepare(sql);
+            pstmt.setLong(1, id);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    return readStudent(rs);
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return null;
+    }
+
+    // Dodanie nowego studenta (zobacz interfejs).
+    // Jedno zapytanie: zajęte ID nie zmienia niczego (0 wierszy) – bez osobnego sprawdzania,
+    // więc nie ma wyścigu "sprawdź, potem dodaj" między wątkami.
+    @Override
+    public boolean addStudent(Student student) {
+        try {
+            return write(insertTask(student, false));
+        } catch (SQLException e) {
+            throw new StudentStoreException("Cannot add student " + student.getStudentID() + ": "
+                    + e.getMessage(), e);
+        }
+    }
+
+    // Dodanie albo zastąpienie danych studenta (imię, wiek, ocena) jednym zapytaniem.
+    // Istniejący student dostaje nową wersję. Błąd zapisu – StudentStoreException.
+    public boolean upsertStudent(Student student) {
+        try {
+            return write(insertTask(student, true));
+        } catch (SQLException e) {
+            throw new StudentStoreException("Cannot save student " + student.getStudentID() + ": "
+                    + e.getMessage(), e);
+        }
+    }
+
+    // Zadanie dodania studenta (replace – zastąpienie istniejącego, jak upsertStudent).
+    // Zadania zapisu (...Task) są wspólne dla zapisu od razu (write) i kolejki WriteBehindQueue.
+    WriteTask<Boolean> insertTask(Student student, boolean replace) {
+        String sql = replace
+                ? INSERT_SQL + " ON CONFLICT(studentID) DO UPDATE SET name = excluded.name, "
+                    + "age = excluded.age, grade_code = excluded.grade_code, version = version + 1"
+                : INSERT_IF_ABSENT_SQL;
+        return conn -> {
+            PreparedStatement pstmt = conn.prepare(sql);
+            bindInsert(pstmt, student);
+            return pstmt.executeUpdate() > 0;
+        };
+    }
+
+    // Import wielu studentów (zobacz interfejs).
+    // Dane czytamy paczkami po batchSize wierszy; każda paczka to jedna transakcja:
+    // jedno zapytanie o istniejące ID, potem INSERT-y wysyłane jako batch JDBC.
+    @Override
+    public ImportResult addStudents(Iterable<Student> students, ImportProgressListener listener) {
+        ImportResult result = new ImportResult();
+        List<Student> chunk = new ArrayList<>(batchSize);
+        int firstRow = 1;
+
+        for (Student student : students) {
+            chunk.add(student);
+            if (chunk.size() == batchSize) {
+                insertChunk(chunk, firstRow, result, listener);
+                firstRow += chunk.size();
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            insertChunk(chunk, firstRow, result, listener);
+        }
+
+        result.finish();
+        return result;
+    }
+
+    // Zapis jednej paczki w transakcji (firstRow – numer pierwszego wiersza paczki).
+    // Paczka idzie przez write (ponowienie po SQLITE_BUSY, group commit), a jej wynik zbieramy osobno
+    // i dopisujemy do result dopiero po COMMIT – wycofane wiersze nie mogą być policzone jako dodane.
+    private void insertChunk(List<Student> chunk, int firstRow, ImportResult result,
+                             ImportProgressListener listener) {
+        ImportResult[] attempt = new ImportResult[1];
+        try {
+            ImportResult part = write(conn -> {
+                attempt[0] = new ImportResult(); // ponowienie zaczyna paczkę od nowa
+                insertRows(conn, chunk, firstRow, attempt[0]);
+                return attempt[0];
+            });
+            result.addAccepted(part.getAccepted());
+            for (ImportResult.Rejected r : part.getRejected()) {
+                result.addRejected(r.getRow(), r.getStudentID(), r.getReason());
+            }
+        } catch (SQLException e) {
+            // Nie udało się zapisać paczki (np. baza zablokowana po wszystkich próbach): wiersze odrzucone
+            // już przy sprawdzaniu zachowują swój powód, pozostałe odrzucamy z błędem zapisu
+            Map<Integer, ImportResult.Rejected> rejected = new HashMap<>();
+            if (attempt[0] != null) {
+                for (ImportResult.Rejected r : attempt[0].getRejected()) {
+                    rejected.put(r.getRow(), r);
+                }
+            }
+            for (int i = 0; i < chunk.size(); i++) {
+                ImportResult.Rejected r = rejected.get(firstRow + i);
+                result.addRejected(firstRow + i, chunk.get(i).getStudentID(),
+                        r != null ? r.getReason() : e.getMessage());
+            }
+        }
+
+        result.addProcessed(chunk.size());
+        if (listener != null) {
+            listener.onProgress(result.getProcessed(), result.getAccepted(), result.getRejectedCount());
+        }
+    }
+
+    // Wiersze paczki w bieżącej transakcji; przyjęte i odrzucone trafiają do part.
+    private void insertRows(PooledConnection conn, List<Student> chunk, int firstRow, ImportResult part)
+            throws SQLException {
+        Set<Long> taken = findExistingIDs(conn, chunk);
+        List<Student> toInsert = new ArrayList<>(chunk.size());
+        int[] rows = new int[chunk.size()];
+
+        for (int i = 0; i < chunk.size(); i++) {
+            Student s = chunk.get(i);
+            String sid = s.getStudentID();
+            // Błędne dane odrzucamy przed zapisem – inaczej CHECK w bazie przerwie całą paczkę
+            // i trzeba ją powtarzać wiersz po wierszu
+            StudentValidator.Violation invalid = StudentValidator.check(s);
+            if (invalid != null) {
+                part.addRejected(firstRow + i, sid, invalid.getMessage());
+            } else if (!taken.add(parseID(sid))) {
+                // Set.add zwraca false, gdy ID było w bazie albo wcześniej w imporcie
+                part.addRejected(firstRow + i, sid, "Student ID already exists");
+            } else {
+                rows[toInsert.size()] = firstRow + i;
+                toInsert.add(s);
+            }
+        }
+
+        PreparedStatement pstmt = conn.prepare(INSERT_SQL);
+        // SAVEPOINT zamiast rollback – przy group commit w tej transakcji są też zapisy innych wątków
+        try (Statement stmt = conn.getConnection().createStatement()) {
+            stmt.execute("SAVEPOINT import_chunk");
+            try {
+                for (Student s : toInsert) {
+                    bindInsert(pstmt, s);
+                    pstmt.addBatch();
+                }
+                pstmt.executeBatch();
+                stmt.execute("RELEASE import_chunk");
+                part.addAccepted(toInsert.size());
+            } catch (SQLException e) {
+                pstmt.clearBatch();
+                stmt.execute("ROLLBACK TO import_chunk");
+                stmt.execute("RELEASE import_chunk");
+                if (SQLiteConnectionPool.isBusy(e)) {
+                    throw e; // write ponowi całą paczkę
+                }
+                // Batch się nie udał – dodajemy wiersz po wierszu, żeby odrzucić tylko błędne wiersze
+                for (int i = 0; i < toInsert.size(); i++) {
+                    try {
+                        bindInsert(pstmt, toInsert.get(i));
+                        pstmt.executeUpdate();
+                        part.addAccepted(1);
+                    } catch (SQLException rowError) {
+                        if (SQLiteConnectionPool.isBusy(rowError)) {
+                            throw rowError;
+                        }
+                        part.addRejected(rows[i], toInsert.get(i).getStudentID(), rowError.getMessage());
+                    }
+                }
+            }
+        }
+    }
+
+    // Zwraca ID z paczki, które już są w bazie (zapytania "IN (...)" zamiast studentExists dla każdego).
+    private Set<Long> findExistingIDs(PooledConnection conn, List<Student> chunk) throws SQLException {
+        Set<Long> existing = new HashSet<>();
+        for (int from = 0; from < chunk.size(); from += MAX_IN_PARAMS) {
+            int to = Math.min(from + MAX_IN_PARAMS, chunk.size());
+
+            StringBuilder sql = new StringBuilder("SELECT studentID FROM students WHERE studentID IN (");
+            for (int i = from; i < to; i++) {
+                sql.append(i == from ? "?" : ", ?");
+            }
+            sql.append(")");
+
+            PreparedStatement pstmt = conn.prepare(sql.toString());
+            for (int i = from; i < to; i++) {
+                pstmt.setLong(i - from + 1, parseID(chunk.get(i).getStudentID()));
+            }
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    existing.add(rs.getLong(1));
+                }
+            }
+        }
+        return existing;
+    }
+
+    // Ustawia parametry zapytania INSERT_SQL.
+    private static void bindInsert(PreparedStatement pstmt, Student student) throws SQLException {
+        pstmt.setString(1, student.getName());
+        pstmt.setInt(2, student.getAge());
+        pstmt.setInt(3, gradeCode(student.getGrade()));
+        pstmt.setLong(4, parseID(student.getStudentID()));
+    }
+
+    // Zapis zmian innego magazynu (ColumnarStudentManager.saveTo) w jednej transakcji, z kontrolą wersji:
+    // changed – nowe dane studentów (z wersją, którą ma dostać wiersz), expected – wersja w bazie,
+    // od której wyszła zmiana (0 – nowe ID); removedIds / removedVersions – usunięci i ich wersje w bazie.
+    // Wiersz, którego wersja w bazie jest inna (albo nowe ID, które już jest), zostaje bez zmian –
+    // zwracamy listę takich ID (konflikty). Niezmienionych wierszy nie dotykamy, więc wyzwalacze
+    // (change_log, grade_history) widzą tylko prawdziwe zmiany.
+    List<Long> saveChanges(List<Student> changed, List<Long> expected, long[] removedIds, long[] removedVersions)
+            throws SQLException {
+        String updateSql = "UPDATE students SET name = ?, age = ?, grade_code = ?, version = ? "
+                + "WHERE studentID = ? AND version = ?";
+        String insertSql = "INSERT INTO students(name, age, grade_code, studentID, version) VALUES (?, ?, ?, ?, ?) "
+                + "ON CONFLICT(studentID) DO NOTHING";
+        String deleteSql = "DELETE FROM students WHERE studentID = ? AND version = ?";
+        String existsSql = "SELECT 1 FROM students WHERE studentID = ?";
+        return write(conn -> {
+            List<Long> conflicts = new ArrayList<>();
+            PreparedStatement update = conn.prepare(updateSql);
+            PreparedStatement insert = conn.prepare(insertSql);
+            for (int i = 0; i < changed.size(); i++) {
+                Student s = changed.get(i);
+                long id = parseID(s.getStudentID());
+                int rows;
+                if (expected.get(i) > 0) {
+                    update.setString(1, s.getName());
+                    update.setInt(2, s.getAge());
+                    update.setInt(3, gradeCode(s.getGrade()));
+                    update.setLong(4, s.getVersion());
+                    update.setLong(5, id);
+                    update.setLong(6, expected.get(i));
+                    rows = update.executeUpdate();
+                } else {
+                    bindInsert(insert, s);
+                    insert.setLong(5, Math.max(1, s.getVersion()));
+                    rows = insert.executeUpdate();
+                }
+                if (rows == 0) {
+                    conflicts.add(id);
+                }
+            }
+            PreparedStatement delete = conn.prepare(deleteSql);
+            PreparedStatement exists = conn.prepare(existsSql);
+            for (int i = 0; i < removedIds.length; i++) {
+                delete.setLong(1, removedIds[i]);
+                delete.setLong(2, removedVersions[i]);
+                if (delete.executeUpdate() == 0) {
+                    // Już usunięty przez kogoś innego – to nie konflikt
+                    exists.setLong(1, removedIds[i]);
+                    try (ResultSet rs = exists.executeQuery()) {
+                        if (rs.next()) {
+                            conflicts.add(removedIds[i]);
+                        }
+                    }
+                }
+            }
+            return conflicts;
+        });
+    }
+
+    // Przeniesienie studentów z innej bazy (ShardedStudentManager.rebalance): dodanie z ich wersjami
+    // w jednej transakcji; ID, które już są w tej bazie, zostają bez zmian. Zwraca liczbę dodanych.
+    int copyStudents(List<Student> students) throws SQLException {
+        String sql = "INSERT INTO students(name, age, grade_code, studentID, version) VALUES (?, ?, ?, ?, ?) "
+                + "ON CONFLICT(studentID) DO NOTHING";
+        return write(conn -> {
+            PreparedStatement pstmt = conn.prepare(sql);
+            int added = 0;
+            for (Student s : students) {
+                bindInsert(pstmt, s);
+                pstmt.setLong(5, Math.max(1, s.getVersion()));
+                added += pstmt.executeUpdate();
+            }
+            return added;
+        });
+    }
+
+    // Usunięcie wielu studentów w jednej transakcji (druga połowa przeniesienia). Zwraca liczbę usuniętych.
+    int removeStudents(List<Student> students) throws SQLException {
+        String sql = "DELETE FROM students WHERE studentID = ?";
+        return write(conn -> {
+            PreparedStatement pstmt = conn.prepare(sql);
+            int removed = 0;
+            for (Student s : students) {
+                pstmt.setLong(1, parseID(s.getStudentID()));
+                removed += pstmt.executeUpdate();
+            }
+            return removed;
+        });
+    }
+
+    // Usunięcie studenta
+    @Override
+    public boolean removeStudent(String studentID) {
+        try {
+            return write(removeTask(studentID));
+        } catch (SQLException e) {
+            throw new StudentStoreException("Cannot remove student " + studentID + ": " + e.getMessage(), e);
+        }
+    }
+
+    WriteTask<Boolean> removeTask(String studentID) {
+        String deleteSQL = "DELETE FROM students WHERE studentID = ?";
+        return conn -> {
+            PreparedStatement pstmt = conn.prepare(deleteSQL);
+            pstmt.setLong(1, parseID(studentID));
+            return pstmt.executeUpdate() > 0; // Wykonanie DELETE
+        };
+    }
+
+    // Aktualizacja danych istniejącego studenta (imię, wiek, ocena) – jedno zapytanie UPDATE.
+    // Jeśli student ma wersję (odczytany z bazy), zapis udaje się tylko przy zgodnej wersji;
+    // po udanym zapisie wersja w obiekcie jest zwiększana.
+    @Override
+    public int updateStudent(Student student) {
+        long version = student.getVersion();
+        try {
+            int rows = write(updateTask(student.getStudentID(), student.getName(), student.getAge(),
+                    student.getGrade(), version));
+            // Wersję w obiekcie zmieniamy dopiero po zatwierdzeniu zapisu
+            if (rows > 0 && version > 0) {
+                student.setVersion(version + 1);
+            }
+            return rows;
+
+        } catch (SQLException e) {
+            throw new StudentStoreException("Cannot update student " + student.getStudentID() + ": "
+                    + e.getMessage(), e);
+        }
+    }
+
+    // Zadanie zmiany wszystkich danych studenta; version > 0 – tylko przy zgodnej wersji wiersza.
+    WriteTask<Integer> updateTask(String studentID, String name, int age, double grade, long version) {
+        String sql = version > 0
+                ? "UPDATE students SET name = ?, age = ?, grade_code = ?, version = version + 1 "
+                    + "WHERE studentID = ? AND version = ?"
+                : "UPDATE students SET name = ?, age = ?, grade_code = ?, version = version + 1 "
+                    + "WHERE studentID = ?";
+        return conn -> {
+            PreparedStatement pstmt = conn.prepare(sql);
+            pstmt.setString(1, name);
+            pstmt.setInt(2, age);
+            pstmt.setInt(3, gradeCode(grade));
+            pstmt.setLong(4, parseID(studentID));
+            if (version > 0) {
+                pstmt.setLong(5, version);
+            }
+            return pstmt.executeUpdate();
+        };
+    }
+
+    // Zmiana wybranych pól (zob. StudentChanges) – jedno zapytanie UPDATE tylko z tymi polami.
+    @Override
+    public int updateFields(String studentID, StudentChanges changes) {
+        if (changes.isEmpty()) {
+            return 0;
+        }
+        try {
+            return write(updateFieldsTask(studentID, changes.getName(), changes.getAge(), changes.getGrade(),
+                    changes.getExpectedVersion()));
+        } catch (SQLException e) {
+            throw new StudentStoreException("Cannot update student " + studentID + ": " + e.getMessage(), e);
+        }
+    }
+
+    // Zadanie zmiany wybranych pól (null – bez zmian; przynajmniej jedno pole musi być podane).
+    WriteTask<Integer> updateFieldsTask(String studentID, String name, Integer age, Double grade,
+                                        long expectedVersion) {
+        StringBuilder sql = new StringBuilder("UPDATE students SET ");
+        if (name != null) {
+            sql.append("name = ?, ");
+        }
+        if (age != null) {
+            sql.append("age = ?, ");
+        }
+        if (grade != null) {
+            sql.append("grade_code = ?, ");
+        }
+        sql.append("version = version + 1 WHERE studentID = ?");
+        if (expectedVersion > 0) {
+            sql.append(" AND version = ?");
+        }
+        return conn -> {
+            PreparedStatement pstmt = conn.prepare(sql.toString());
+            int i = 1;
+            if (name != null) {
+                pstmt.setString(i++, name);
+            }
+            if (age != null) {
+                pstmt.setInt(i++, age);
+            }
+            if (grade != null) {
+                pstmt.setInt(i++, gradeCode(grade));
+            }
+            pstmt.setLong(i++, parseID(studentID));
+            if (expectedVersion > 0) {
+                pstmt.setLong(i, expectedVersion);
+            }
+            return pstmt.executeUpdate();
+        };
+    }
+
+    // Zmiana ocen wielu studentów naraz (np. koniec semestru) – jedna transakcja, batch JDBC.
+    @Override
+    public int updateGrades(Map<String, Double> gradesByID) {
+        String sql = "UPDATE students SET grade_code = ?, version = version + 1 WHERE studentID = ?";
+
+        try {
+            return write(conn -> {
+                PreparedStatement pstmt = conn.prepare(sql);
+                int updated = 0;
+                int pending = 0;
+                for (Map.Entry<String, Double> e : gradesByID.entrySet()) {
+                    pstmt.setInt(1, gradeCode(e.getValue()));
+                    pstmt.setLong(2, parseID(e.getKey()));
+                    pstmt.addBatch();
+                    if (++pending == batchSize) {
+                        updated += sum(pstmt.executeBatch());
+                        pending = 0;
+                    }
+                }
+                if (pending > 0) {
+                    updated += sum(pstmt.executeBatch());
+                }
+                return updated;
+            });
+        } catch (SQLException e) {
+            throw new StudentStoreException("Cannot update grades: " + e.getMessage(), e);
+        }
+    }
+
+    // Suma liczby zmienionych wierszy z executeBatch.
+    private static int sum(int[] counts) {
+        int total = 0;
+        for (int n : counts) {
+            if (n > 0) {
+                total += n;
+            }
+        }
+        return total;
+    }
+
+    // Pobranie listy wszystkich studentów z bazy
+    @Override
+    public ArrayList<Student> displayAllStudents() {
+        ArrayList<Student> list = new ArrayList<>();
+        String sql = "SELECT name, age, grade_code, studentID, version FROM students";
+
+        try (PooledConnection conn = pool.reader();
+             ResultSet rs = conn.prepare(sql).executeQuery()) {
+
+            while (rs.next()) {
+                String nm = rs.getString("name");
+                int ag = rs.getInt("age");
+                double gr = gradeFromCode(rs.getInt("grade_code"));
+                String sid = Long.toString(rs.getLong("studentID"));
+                long ver = rs.getLong("version");
+
+                // Tworzymy obiekt Student i dodajemy do listy
+                Student st = new Student(nm, ag, gr, sid, ver);
+                list.add(st);
+            }
+
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+
+        return list;
+    }
+
+    // Liczba studentów w bazie
+    @Override
+    public int countStudents() {
+        String sql = "SELECT COUNT(*) FROM students";
+        try (PooledConnection conn = pool.reader();
+             ResultSet rs = conn.prepare(sql).executeQuery()) {
+            if (rs.next()) {
+                return rs.getInt(1);
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return 0;
+    }
+
+    // Strona studentów za podanym ID – korzysta z indeksu klucza głównego,
+    // więc koszt nie rośnie z numerem strony (w przeciwieństwie do OFFSET).
+    @Override
+    public List<Student> findStudentsAfter(String afterStudentID, int limit) {
+        List<Student> page = new ArrayList<>(limit);
+        String sql = afterStudentID == null
+                ? "SELECT name, age, grade_code, studentID, version FROM students ORDER BY studentID LIMIT ?"
+                : "SELECT name, age, grade_code, studentID, version FROM students WHERE studentID > ? ORDER BY studentID LIMIT ?";
+
+        try (PooledConnection conn = pool.reader()) {
+            PreparedStatement pstmt = conn.prepare(sql);
+            int i = 1;
+            if (afterStudentID != null) {
+                pstmt.setLong(i++, parseID(afterStudentID));
+            }
+            pstmt.setInt(i, limit);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    page.add(readStudent(rs));
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return page;
+    }
+
+    // Strona studentów od pozycji offset (SQLite musi przejść offset wierszy).
+    @Override
+    public List<Student> findStudentsPage(int offset, int limit) {
+        List<Student> page = new ArrayList<>(limit);
+        String sql = "SELECT name, age, grade_code, studentID, version FROM students ORDER BY studentID LIMIT ? OFFSET ?";
+
+        try (PooledConnection conn = pool.reader()) {
+            PreparedStatement pstmt = conn.prepare(sql);
+            pstmt.setInt(1, limit);
+            pstmt.setInt(2, offset);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    page.add(readStudent(rs));
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return page;
+    }
+
+    // Wyszukiwanie po imieniu / wieku / ocenie (zob. StudentQuery) – jedno zapytanie
+    // z parametrami, warunki i sortowanie dobrane tak, żeby SQLite mógł użyć indeksów.
+    @Override
+    public List<Student> findStudents(StudentQuery query) {
+        List<Student> found = new ArrayList<>(Math.min(query.getLimit(), 1000));
+        List<Object> params = new ArrayList<>();
+        String sql = selectSql(query, params);
+
+        try (PooledConnection conn = pool.reader()) {
+            PreparedStatement pstmt = conn.prepare(sql);
+            bindParams(pstmt, params);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    found.add(readStudent(rs));
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return found;
+    }
+
+    // Liczba studentów spełniających warunki (bez offset / limit).
+    @Override
+    public int countStudents(StudentQuery query) {
+        List<Object> params = new ArrayList<>();
+        String sql = "SELECT COUNT(*) FROM students" + whereSql(query, params);
+
+        try (PooledConnection conn = pool.reader()) {
+            PreparedStatement pstmt = conn.prepare(sql);
+            bindParams(pstmt, params);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    return rs.getInt(1);
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return 0;
+    }
+
+    // Plan zapytania findStudents (EXPLAIN QUERY PLAN) – po jednym wierszu na krok planu.
+    public List<String> explainQuery(StudentQuery query) {
+        List<String> plan = new ArrayList<>();
+        List<Object> params = new ArrayList<>();
+        String sql = "EXPLAIN QUERY PLAN " + selectSql(query, params);
+
+        try (PooledConnection conn = pool.reader();
+             PreparedStatement pstmt = conn.getConnection().prepareStatement(sql)) {
+            bindParams(pstmt, params);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    plan.add(rs.getString("detail"));
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return plan;
+    }
+
+    // Czy findStudents(query) korzysta z indeksu (w planie nie ma przeglądu całej tabeli).
+    // Przy sortowaniu po studentID samo "SCAN students" jest w porządku – tabela z kluczem
+    // INTEGER PRIMARY KEY to drzewo ułożone po ID, więc czytamy ją od razu w kolejności klucza.
+    public boolean usesIndex(StudentQuery query) {
+        List<String> plan = explainQuery(query);
+        boolean keyOrder = query.getSortBy() == StudentQuery.SortBy.STUDENT_ID;
+        for (String step : plan) {
+            if (step.startsWith("SCAN students") && !step.contains("INDEX") && !keyOrder) {
+                return false;
+            }
+        }
+        return !plan.isEmpty();
+    }
+
+    // SELECT dla findStudents: warunki, sortowanie, LIMIT / OFFSET.
+    private static String selectSql(StudentQuery query, List<Object> params) {
+        StringBuilder sql = new StringBuilder("SELECT name, age, grade_code, studentID, version FROM students");
+        sql.append(whereSql(query, params));
+
+        // Sortujemy dokładnie tak, jak są zbudowane indeksy (imię – COLLATE NOCASE)
+        String dir = query.isDescending() ? " DESC" : "";
+        switch (query.getSortBy()) {
+            case NAME:
+                sql.append(" ORDER BY name COLLATE NOCASE").append(dir);
+                break;
+            case AGE:
+                sql.append(" ORDER BY age").append(dir);
+                break;
+            case GRADE:
+                sql.append(" ORDER BY grade_code").append(dir);
+                break;
+            default:
+                sql.append(" ORDER BY studentID").append(dir);
+                break;
+        }
+        sql.append(" LIMIT ? OFFSET ?");
+        params.add(query.getLimit());
+        params.add(query.getOffset());
+        return sql.toString();
+    }
+
+    // Część WHERE (pusta, gdy nie ma warunków); wartości parametrów trafiają do params.
+    private static String whereSql(StudentQuery query, List<Object> params) {
+        List<String> conditions = new ArrayList<>();
+        String prefix = query.getNamePrefix();
+        if (prefix != null) {
+            // Początek imienia jako zakres [prefix, następny prefix) – działa z indeksem, w przeciwieństwie
+            // do LIKE z parametrem. Porównanie NOCASE: zakres liczymy na małych literach.
+            String from = prefix.toLowerCase(Locale.ROOT);
+            conditions.add("name COLLATE NOCASE >= ?");
+            params.add(from);
+            char last = from.charAt(from.length() - 1);
+            if (last != Character.MAX_VALUE) {
+                conditions.add("name COLLATE NOCASE < ?");
+                params.add(from.substring(0, from.length() - 1) + (char) (last + 1));
+            }
+        }
+        if (query.getMinAge() != null) {
+            conditions.add("age >= ?");
+            params.add(query.getMinAge());
+        }
+        if (query.getMaxAge() != null) {
+            conditions.add("age <= ?");
+            params.add(query.getMaxAge());
+        }
+        // Zakres ocen -> zakres kodów (ocena * 2), zaokrąglony do środka zakresu
+        if (query.getMinGrade() != null) {
+            conditions.add("grade_code >= ?");
+            params.add((int) Math.ceil(query.getMinGrade() * 2));
+        }
+        if (query.getMaxGrade() != null) {
+            conditions.add("grade_code <= ?");
+            params.add((int) Math.floor(query.getMaxGrade() * 2));
+        }
+        return conditions.isEmpty() ? "" : " WHERE " + String.join(" AND ", conditions);
+    }
+
+    // SELECT do eksportu (StudentExporter): wszyscy studenci spełniający warunki filter (null – bez
+    // warunków) po kolei po ID; sortowanie, offset i limit z filter pomijamy.
+    static String exportSql(StudentQuery filter, List<Object> params) {
+        return "SELECT studentID, name, age, grade_code, version FROM students"
+                + (filter != null ? whereSql(filter, params) : "") + " ORDER BY studentID";
+    }
+
+    static void bindParams(PreparedStatement pstmt, List<Object> params) throws SQLException {
+        for (int i = 0; i < params.size(); i++) {
+            pstmt.setObject(i + 1, params.get(i));
+        }
+    }
+
+    // Jeden kursor po całej tabeli – wiersze trafiają do visitor od razu, bez listy w pamięci.
+    @Override
+    public void forEachStudent(int fetchSize, Consumer<Student> visitor) {
+        String sql = "SELECT name, age, grade_code, studentID, version FROM students ORDER BY studentID";
+
+        try (PooledConnection conn = pool.reader()) {
+            PreparedStatement pstmt = conn.prepare(sql);
+            pstmt.setFetchSize(fetchSize);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    visitor.accept(readStudent(rs));
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    // Podział zakresu ID na części o (mniej więcej) równej szerokości: granice b[0] < b[1] < ... ,
+    // część i to ID z [b[i], b[i+1]). Dla pustej tabeli – tablica z jednym elementem (zero części).
+    // Zakresy czytamy niezależnie (forEachStudentInRange), np. równolegle – zob. StudentAnalytics.
+    public long[] splitIDRange(int parts) {
+        String sql = "SELECT MIN(studentID), MAX(studentID) FROM students";
+        try (PooledConnection conn = pool.reader();
+             ResultSet rs = conn.prepare(sql).executeQuery()) {
+            if (rs.next() && rs.getObject(1) != null) {
+                long min = rs.getLong(1);
+                long span = rs.getLong(2) - min + 1;
+                int n = (int) Math.max(1, Math.min(parts, span));
+                long[] bounds = new long[n + 1];
+                for (int i = 0; i <= n; i++) {
+                    bounds[i] = min + span / n * i + Math.min(i, span % n);
+                }
+                return bounds;
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return new long[] {0};
+    }
+
+    // Studenci z ID w [fromID, toID) po kolei, na osobnym połączeniu do odczytu.
+    // Zwraca false, jeśli odczyt się nie udał (wtedy visitor mógł dostać tylko część wierszy).
+    public boolean forEachStudentInRange(long fromID, long toID, int fetchSize, Consumer<Student> visitor) {
+        String sql = "SELECT name, age, grade_code, studentID, version FROM students "
+                + "WHERE studentID >= ? AND studentID < ? ORDER BY studentID";
+
+        try (PooledConnection conn = pool.reader()) {
+            PreparedStatement pstmt = conn.prepare(sql);
+            pstmt.setLong(1, fromID);
+            pstmt.setLong(2, toID);
+            pstmt.setFetchSize(fetchSize);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    visitor.accept(readStudent(rs));
+                }
+            }
+            return true;
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return false;
+    }
+
+    // Ile połączeń do odczytu może działać naraz (górna granica sensownej równoległości).
+    public int getMaxReaders() {
+        return pool.getConfig().getMaxReaders();
+    }
+
+    // Odczyt bieżącego wiersza (kolumny: name, age, grade_code, studentID, version).
+    private static Student readStudent(ResultSet rs) throws SQLException {
+        return new Student(rs.getString(1), rs.getInt(2), gradeFromCode(rs.getInt(3)),
+                Long.toString(rs.getLong(4)), rs.getLong(5));
+    }
+
+    // Licznik zmian w tabeli students (rośnie przy każdej zmianie) – pozwala sprawdzić,
+    // czy kopia danych zapisana wcześniej (np. StudentSnapshot) jest nadal aktualna.
+    public long getChangeCount() {
+        String sql = "SELECT change_count FROM students_meta WHERE id = 1";
+        try (PooledConnection conn = pool.reader();
+             ResultSet rs = conn.prepare(sql).executeQuery()) {
+            if (rs.next()) {
+                return rs.getLong(1);
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return -1;
+    }
+
+    // Obliczenie średniej ocen – z tabeli grade_stats (kilka wierszy), nie z całej tabeli students
+    @Override
+    public double calculateAverageGrade() {
+        return getGradeStatistics().getAverage();
+    }
+
+    // Statystyki ocen z tabeli grade_stats (zob. SchemaMigrations)
+    @Override
+    public GradeStatistics getGradeStatistics() {
+        if (!verifyStatistics) {
+            return readStatistics(STORED_STATS_SQL);
+        }
+        GradeStatistics[] both = readStoredAndScanned();
+        if (!verifyStatistics(both)) {
+            // Coś się rozjechało – odbudowujemy tabelę i zwracamy wynik z pełnego przeglądu
+            rebuildStatistics();
+        }
+        return both[1];
+    }
+
+    // Porównuje grade_stats z pełnym przeglądem tabeli students (true = zgodne).
+    public boolean verifyStatistics() {
+        return verifyStatistics(readStoredAndScanned());
+    }
+
+    private boolean verifyStatistics(GradeStatistics[] both) {
+        if (!both[0].equals(both[1])) {
+            statisticsMismatches.incrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    // grade_stats i pełny przegląd w jednej transakcji odczytu – oba widzą ten sam stan bazy,
+    // więc zapis w międzyczasie nie daje fałszywej niezgodności. {zapisane, z przeglądu}
+    private GradeStatistics[] readStoredAndScanned() {
+        GradeStatistics[] both = new GradeStatistics[2];
+        try (PooledConnection conn = pool.reader()) {
+            Connection c = conn.getConnection();
+            c.setAutoCommit(false);
+            try {
+                both[0] = readStatistics(conn, STORED_STATS_SQL);
+                both[1] = readStatistics(conn, SCANNED_STATS_SQL);
+            } finally {
+                c.commit();
+                c.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+            both[0] = both[1] = new GradeStatistics(new HashMap<>());
+        }
+        return both;
+    }
+
+    // Przelicza grade_stats od nowa z tabeli students.
+    public void rebuildStatistics() {
+        try (PooledConnection conn = pool.writer();
+             Statement stmt = conn.getConnection().createStatement()) {
+            conn.getConnection().setAutoCommit(false);
+            stmt.execute("DELETE FROM grade_stats");
+            stmt.execute("INSERT INTO grade_stats(grade_code, cnt) "
+                    + "SELECT grade_code, COUNT(*) FROM students GROUP BY grade_code");
+            conn.getConnection().commit();
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    // Odczyt histogramu: zapytanie zwraca pary (kod oceny, liczba).
+    private GradeStatistics readStatistics(String sql) {
+        try (PooledConnection conn = pool.reader()) {
+            return readStatistics(conn, sql);
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return new GradeStatistics(new HashMap<>());
+    }
+
+    private static GradeStatistics readStatistics(PooledConnection conn, String sql) throws SQLException {
+        Map<Double, Long> histogram = new HashMap<>();
+        try (ResultSet rs = conn.prepare(sql).executeQuery()) {
+            while (rs.next()) {
+                histogram.put(gradeFromCode(rs.getInt(1)), rs.getLong(2));
+            }
+        }
+        return new GradeStatistics(histogram);
+    }
+}
@@ -0,0 +1,176 @@
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/*
+  Klasa StudentMetrics – zbiór metryk aplikacji (OperationMetrics) w trzech grupach:
+  - operation:  metody StudentManager (InstrumentedStudentManager)
+  - statement:  zapytania SQL (PooledConnection – treść zapytania jako nazwa)
+  - connection: otwarcie fizycznego połączenia (SQLiteConnectionPool)
+  Wyniki: toText() / toJson(), co kilka sekund do strumienia (startPeriodicDump)
+  i w JMX (registerMBeans – domena "StudentDatabase").
+  Zapytań jest kilkadziesiąt rodzajów (parametry są poza treścią SQL); ponad MAX_STATEMENTS
+  rodzajów liczymy razem jako "(other)", żeby pamięć nie rosła bez końca.
+*/
+
+public class StudentMetrics {
+
+    public static final String OPERATION = "operation";
+    public static final String STATEMENT = "statement";
+    public static final String CONNECTION = "connection";
+
+    private static final String JMX_DOMAIN = "StudentDatabase";
+    private static final int MAX_STATEMENTS = 500;
+
+    private final ConcurrentMap<String, OperationMetrics> operations = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, OperationMetrics> statements = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, OperationMetrics> connections = new ConcurrentHashMap<>();
+
+    private volatile MBeanServer mbeanServer;
+    private ScheduledExecutorService dumper;
+
+    public OperationMetrics operation(String name) {
+        return get(OPERATION, operations, name);
+    }
+
+    public OperationMetrics statement(String sql) {
+        if (statements.size() >= MAX_STATEMENTS && !statements.containsKey(sql)) {
+            sql = "(other)";
+        }
+        return get(STATEMENT, statements, sql);
+    }
+
+    public OperationMetrics connection(String name) {
+        return get(CONNECTION, connections, name);
+    }
+
+    private OperationMetrics get(String group, ConcurrentMap<String, OperationMetrics> map, String name) {
+        OperationMetrics metrics = map.get(name);
+        if (metrics == null) {
+            OperationMetrics created = new OperationMetrics(name);
+            metrics = map.putIfAbsent(name, created);
+            if (metrics == null) {
+                metrics = created;
+                register(group, created);
+            }
+        }
+        return metrics;
+    }
+
+    // Metryki z grupy (posortowane po nazwie).
+    public List<OperationMetrics> getAll(String group) {
+        Map<String, OperationMetrics> map = group.equals(OPERATION) ? operations
+                : group.equals(STATEMENT) ? statements : connections;
+        return new ArrayList<>(new TreeMap<>(map).values());
+    }
+
+    // Rejestruje wszystkie metryki (obecne i przyszłe) w serwerze MBean tej JVM.
+    public void registerMBeans() {
+        if (mbeanServer != null) {
+            return;
+        }
+        mbeanServer = ManagementFactory.getPlatformMBeanServer();
+        for (String group : new String[] {OPERATION, STATEMENT, CONNECTION}) {
+            for (OperationMetrics metrics : getAll(group)) {
+                register(group, metrics);
+            }
+        }
+    }
+
+    private void register(String group, OperationMetrics metrics) {
+        MBeanServer server = mbeanServer;
+        if (server == null) {
+            return;
+        }
+        try {
+            ObjectName name = new ObjectName(JMX_DOMAIN + ":type=" + group
+                    + ",name=" + ObjectName.quote(metrics.getName()));
+            if (!server.isRegistered(name)) {
+                server.registerMBean(metrics, name);
+            }
+        } catch (JMException e) {
+            e.printStackTrace();
+        }
+    }
+
+    // Co periodSeconds wypisuje metryki (tekst albo JSON) do out – w wątku w tle.
+    public synchronized void startPeriodicDump(final PrintStream out, long periodSeconds, final boolean json) {
+        stopPeriodicDump();
+        dumper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "student-metrics-dump");
+            t.setDaemon(true);
+            return t;
+        });
+        dumper.scheduleAtFixedRate(() -> out.println(json ? toJson() : toText()),
+                periodSeconds, periodSeconds, TimeUnit.SECONDS);
+    }
+
+    public synchronized void stopPeriodicDump() {
+        if (dumper != null) {
+            dumper.shutdownNow();
+            dumper = null;
+        }
+    }
+
+    public String toText() {
+        StringBuilder sb = new StringBuilder();
+        for (String group : new String[] {OPERATION, STATEMENT, CONNECTION}) {
+            List<OperationMetrics> all = getAll(group);
+            if (all.isEmpty()) {
+                continue;
+            }
+            sb.append("# ").append(group).append('\n');
+            for (OperationMetrics metrics : all) {
+                sb.append(metrics).append('\n');
+            }
+        }
+        return sb.toString();
+    }
+
+    public String toJson() {
+        StringBuilder sb = new StringBuilder("{");
+        String[] groups = {OPERATION, STATEMENT, CONNECTION};
+        for (int g = 0; g < groups.length; g++) {
+            sb.append(g == 0 ? "" : ",").append('"').append(groups[g]).append("\":[");
+            List<OperationMetrics> all = getAll(groups[g]);
+            for (int i = 0; i < all.size(); i++) {
+                OperationMetrics m = all.get(i);
+                sb.append(i == 0 ? "" : ",")
+                        .append(String.format(Locale.ROOT,
+                                "{\"name\":\"%s\",\"count\":%d,\"errors\":%d,\"rows\":%d,"
+                                        + "\"meanMicros\":%.1f,\"p50Micros\":%.1f,\"p99Micros\":%.1f,\"maxMicros\":%.1f}",
+                                escape(m.getName()), m.getCount(), m.getErrors(), m.getRows(),
+                                m.getMeanMicros(), m.getP50Micros(), m.getP99Micros(), m.getMaxMicros()));
+            }
+            sb.append(']');
+        }
+        return sb.append('}').toString();
+    }
+
+    private static String escape(String s) {
+        StringBuilder sb = new StringBuilder(s.length());
+        for (int i = 0; i < s.length(); i++) {
+            char ch = s.charAt(i);
+            if (ch == '"' || ch == '\\') {
+                sb.append('\\').append(ch);
+            } else if (ch < 0x20) {
+                sb.append(String.format("\\u%04x", (int) ch));
+            } else {
+                sb.append(ch);
+            }
+        }
+        return sb.toString();
+    }
+}
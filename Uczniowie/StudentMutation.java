@@ -0,0 +1,169 @@
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/*
+  Klasa StudentMutation – jedna zmiana w bazie jako dane (nie kod), żeby dało się ją
+  zapisać w dzienniku WriteBehindQueue i wykonać ponownie po awarii programu.
+  - ADD / UPSERT / UPDATE – wszystkie dane studenta (UPDATE z wersją: 0 = bez sprawdzania)
+  - UPDATE_FIELDS – tylko wybrane pola (null = bez zmian), jak StudentChanges
+  - REMOVE – samo ID
+  Obiekt jest niezmienny – kopiujemy dane w chwili zgłoszenia zmiany.
+  Wynik wykonania (execute) to liczba zmienionych wierszy (0 albo 1).
+*/
+
+public final class StudentMutation {
+
+    public enum Kind {
+        ADD, UPSERT, UPDATE, UPDATE_FIELDS, REMOVE
+    }
+
+    // Bity pola "które pola są podane" w zapisie UPDATE_FIELDS.
+    private static final int HAS_NAME = 1;
+    private static final int HAS_AGE = 2;
+    private static final int HAS_GRADE = 4;
+
+    private final Kind kind;
+    private final String studentID;
+    private final String name;
+    private final Integer age;
+    private final Double grade;
+    private final long version;
+
+    private StudentMutation(Kind kind, String studentID, String name, Integer age, Double grade, long version) {
+        this.kind = kind;
+        this.studentID = studentID;
+        this.name = name;
+        this.age = age;
+        this.grade = grade;
+        this.version = version;
+    }
+
+    public static StudentMutation add(Student student) {
+        return of(Kind.ADD, student, 0);
+    }
+
+    public static StudentMutation upsert(Student student) {
+        return of(Kind.UPSERT, student, 0);
+    }
+
+    // Zmiana wszystkich danych; student z wersją – zapis tylko przy zgodnej wersji (jak updateStudent).
+    public static StudentMutation update(Student student) {
+        return of(Kind.UPDATE, student, student.getVersion());
+    }
+
+    public static StudentMutation updateFields(String studentID, StudentChanges changes) {
+        if (changes.isEmpty()) {
+            throw new IllegalArgumentException("No fields to update");
+        }
+        return new StudentMutation(Kind.UPDATE_FIELDS, studentID, changes.getName(), changes.getAge(),
+                changes.getGrade(), changes.getExpectedVersion());
+    }
+
+    public static StudentMutation updateGrade(String studentID, double grade) {
+        return new StudentMutation(Kind.UPDATE_FIELDS, studentID, null, null, grade, 0);
+    }
+
+    public static StudentMutation remove(String studentID) {
+        return new StudentMutation(Kind.REMOVE, studentID, null, null, null, 0);
+    }
+
+    private static StudentMutation of(Kind kind, Student student, long version) {
+        return new StudentMutation(kind, student.getStudentID(), student.getName(), student.getAge(),
+                student.getGrade(), version);
+    }
+
+    // Gettery
+    public Kind getKind() {
+        return kind;
+    }
+
+    public String getStudentID() {
+        return studentID;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    // Zadanie zapisu dla tej zmiany (wykonywane w transakcji wywołującego).
+    WriteTask<Integer> toTask(StudentManagerImpl manager) {
+        switch (kind) {
+            case ADD:
+            case UPSERT:
+                WriteTask<Boolean> insert =
+                        manager.insertTask(new Student(name, age, grade, studentID), kind == Kind.UPSERT);
+                return conn -> insert.run(conn) ? 1 : 0;
+            case UPDATE:
+                return manager.updateTask(studentID, name, age, grade, version);
+            case UPDATE_FIELDS:
+                return manager.updateFieldsTask(studentID, name, age, grade, version);
+            case REMOVE:
+                WriteTask<Boolean> remove = manager.removeTask(studentID);
+                return conn -> remove.run(conn) ? 1 : 0;
+            default:
+                throw new IllegalStateException("Unknown mutation kind: " + kind);
+        }
+    }
+
+    // Zapis do dziennika (format czytany przez readFrom).
+    void writeTo(DataOutput out) throws IOException {
+        out.writeByte(kind.ordinal());
+        out.writeUTF(studentID);
+        switch (kind) {
+            case ADD:
+            case UPSERT:
+            case UPDATE:
+                out.writeUTF(name);
+                out.writeInt(age);
+                out.writeDouble(grade);
+                out.writeLong(version);
+                break;
+            case UPDATE_FIELDS:
+                out.writeByte((name != null ? HAS_NAME : 0) | (age != null ? HAS_AGE : 0)
+                        | (grade != null ? HAS_GRADE : 0));
+                if (name != null) {
+                    out.writeUTF(name);
+                }
+                if (age != null) {
+                    out.writeInt(age);
+                }
+                if (grade != null) {
+                    out.writeDouble(grade);
+                }
+                out.writeLong(version);
+                break;
+            default:
+                break;
+        }
+    }
+
+    static StudentMutation readFrom(DataInput in) throws IOException {
+        int ordinal = in.readUnsignedByte();
+        if (ordinal >= Kind.values().length) {
+            throw new IOException("Unknown mutation kind: " + ordinal);
+        }
+        Kind kind = Kind.values()[ordinal];
+        String studentID = in.readUTF();
+        switch (kind) {
+            case ADD:
+            case UPSERT:
+            case UPDATE:
+                return new StudentMutation(kind, studentID, in.readUTF(), in.readInt(), in.readDouble(),
+                        in.readLong());
+            case UPDATE_FIELDS:
+                int fields = in.readUnsignedByte();
+                String name = (fields & HAS_NAME) != 0 ? in.readUTF() : null;
+                Integer age = (fields & HAS_AGE) != 0 ? in.readInt() : null;
+                Double grade = (fields & HAS_GRADE) != 0 ? in.readDouble() : null;
+                return new StudentMutation(kind, studentID, name, age, grade, in.readLong());
+            default:
+                return new StudentMutation(kind, studentID, null, null, null, 0);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return kind + " " + studentID;
+    }
+}
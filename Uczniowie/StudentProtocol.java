@@ -0,0 +1,259 @@
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/*
+  Klasa StudentProtocol – format wiadomości między StudentServer a RemoteStudentManager.
+  Ramka: [długość int][treść]; liczby i teksty jak w DataOutput (writeInt, writeUTF, ...).
+  - żądanie:    [id int][operacja byte][argumenty]
+  - odpowiedź:  [id int][status byte][wynik albo komunikat błędu (UTF)]
+  Klient może wysłać wiele żądań bez czekania na odpowiedzi (pipelining); serwer odpowiada
+  na żądania jednego połączenia w kolejności ich nadejścia.
+  BATCH – wiele operacji w jednym żądaniu: [liczba int]([operacja][argumenty])*, odpowiedź
+  [liczba int]([status][wynik])* – błąd jednej operacji nie przerywa pozostałych.
+*/
+
+final class StudentProtocol {
+
+    // Operacje (odpowiadają metodom StudentManager)
+    static final byte ADD_STUDENT = 1;
+    static final byte ADD_STUDENTS = 2;
+    static final byte STUDENT_EXISTS = 3;
+    static final byte FIND_STUDENT = 4;
+    static final byte REMOVE_STUDENT = 5;
+    static final byte UPDATE_STUDENT = 6;
+    static final byte UPDATE_FIELDS = 7;
+    static final byte UPDATE_GRADES = 8;
+    static final byte DISPLAY_ALL = 9;
+    static final byte COUNT = 10;
+    static final byte FIND_AFTER = 11;
+    static final byte FIND_PAGE = 12;
+    static final byte FIND_STUDENTS = 13;
+    static final byte COUNT_QUERY = 14;
+    static final byte AVERAGE_GRADE = 15;
+    static final byte GRADE_STATISTICS = 16;
+    static final byte BATCH = 17;
+
+    static final byte OK = 0;
+    static final byte ERROR = 1;
+
+    // Największa dopuszczalna ramka (np. import albo lista wszystkich studentów).
+    static final int MAX_FRAME = 64 * 1024 * 1024;
+
+    static final int DEFAULT_PORT = 7070;
+
+    private StudentProtocol() {
+    }
+
+    static void writeStudent(DataOutput out, Student s) throws IOException {
+        out.writeUTF(s.getName());
+        out.writeInt(s.getAge());
+        out.writeDouble(s.getGrade());
+        out.writeUTF(s.getStudentID());
+        out.writeLong(s.getVersion());
+    }
+
+    static Student readStudent(DataInput in) throws IOException {
+        return new Student(in.readUTF(), in.readInt(), in.readDouble(), in.readUTF(), in.readLong());
+    }
+
+    static void writeStudents(DataOutput out, List<Student> students) throws IOException {
+        out.writeInt(students.size());
+        for (Student s : students) {
+            writeStudent(out, s);
+        }
+    }
+
+    static ArrayList<Student> readStudents(DataInput in) throws IOException {
+        int n = in.readInt();
+        ArrayList<Student> students = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            students.add(readStudent(in));
+        }
+        return students;
+    }
+
+    // Tekst, który może być null.
+    static void writeOptional(DataOutput out, String s) throws IOException {
+        out.writeBoolean(s != null);
+        if (s != null) {
+            out.writeUTF(s);
+        }
+    }
+
+    static String readOptional(DataInput in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    static void writeChanges(DataOutput out, StudentChanges changes) throws IOException {
+        writeOptional(out, changes.getName());
+        out.writeBoolean(changes.getAge() != null);
+        if (changes.getAge() != null) {
+            out.writeInt(changes.getAge());
+        }
+        out.writeBoolean(changes.getGrade() != null);
+        if (changes.getGrade() != null) {
+            out.writeDouble(changes.getGrade());
+        }
+        out.writeLong(changes.getExpectedVersion());
+    }
+
+    static StudentChanges readChanges(DataInput in) throws IOException {
+        StudentChanges changes = new StudentChanges();
+        changes.setName(readOptional(in));
+        if (in.readBoolean()) {
+            changes.setAge(in.readInt());
+        }
+        if (in.readBoolean()) {
+            changes.setGrade(in.readDouble());
+        }
+        changes.setExpectedVersion(in.readLong());
+        return changes;
+    }
+
+    static void writeQuery(DataOutput out, StudentQuery query) throws IOException {
+        writeOptional(out, query.getNamePrefix());
+        out.writeInt(query.getMinAge() != null ? query.getMinAge() : Integer.MIN_VALUE);
+        out.writeInt(query.getMaxAge() != null ? query.getMaxAge() : Integer.MIN_VALUE);
+        out.writeDouble(query.getMinGrade() != null ? query.getMinGrade() : Double.NaN);
+        out.writeDouble(query.getMaxGrade() != null ? query.getMaxGrade() : Double.NaN);
+        out.writeByte(query.getSortBy().ordinal());
+        out.writeBoolean(query.isDescending());
+        out.writeInt(query.getOffset());
+        out.writeInt(query.getLimit());
+    }
+
+    // Brak warunku zapisany jako Integer.MIN_VALUE / NaN.
+    static StudentQuery readQuery(DataInput in) throws IOException {
+        StudentQuery query = new StudentQuery();
+        query.setNamePrefix(readOptional(in));
+        int minAge = in.readInt();
+        int maxAge = in.readInt();
+        double minGrade = in.readDouble();
+        double maxGrade = in.readDouble();
+        query.setMinAge(minAge != Integer.MIN_VALUE ? minAge : null);
+        query.setMaxAge(maxAge != Integer.MIN_VALUE ? maxAge : null);
+        query.setMinGrade(!Double.isNaN(minGrade) ? minGrade : null);
+        query.setMaxGrade(!Double.isNaN(maxGrade) ? maxGrade : null);
+        int sortBy = in.readUnsignedByte();
+        if (sortBy >= StudentQuery.SortBy.values().length) {
+            throw new IOException("Unknown sort order: " + sortBy);
+        }
+        query.setSortBy(StudentQuery.SortBy.values()[sortBy]);
+        query.setDescending(in.readBoolean());
+        query.setOffset(in.readInt());
+        query.setLimit(in.readInt());
+        return query;
+    }
+
+    static void writeImportResult(DataOutput out, ImportResult result) throws IOException {
+        out.writeInt(result.getProcessed());
+        out.writeInt(result.getAccepted());
+        out.writeInt(result.getRejectedCount());
+        for (ImportResult.Rejected r : result.getRejected()) {
+            out.writeInt(r.getRow());
+            writeOptional(out, r.getStudentID());
+            writeOptional(out, r.getReason());
+        }
+    }
+
+    static ImportResult readImportResult(DataInput in) throws IOException {
+        ImportResult result = new ImportResult();
+        result.addProcessed(in.readInt());
+        result.addAccepted(in.readInt());
+        int rejected = in.readInt();
+        for (int i = 0; i < rejected; i++) {
+            result.addRejected(in.readInt(), readOptional(in), readOptional(in));
+        }
+        return result;
+    }
+
+    static void writeStatistics(DataOutput out, GradeStatistics stats) throws IOException {
+        out.writeInt(stats.getHistogram().size());
+        for (Map.Entry<Double, Long> e : stats.getHistogram().entrySet()) {
+            out.writeDouble(e.getKey());
+            out.writeLong(e.getValue());
+        }
+    }
+
+    static GradeStatistics readStatistics(DataInput in) throws IOException {
+        int n = in.readInt();
+        Map<Double, Long> histogram = new TreeMap<>();
+        for (int i = 0; i < n; i++) {
+            histogram.put(in.readDouble(), in.readLong());
+        }
+        return new GradeStatistics(histogram);
+    }
+
+    // Jedna operacja po stronie serwera: argumenty z in, wynik do out (bez statusu).
+    static void execute(StudentManager manager, byte op, DataInput in, DataOutput out) throws IOException {
+        switch (op) {
+            case ADD_STUDENT:
+                out.writeBoolean(manager.addStudent(readStudent(in)));
+                break;
+            case ADD_STUDENTS:
+                writeImportResult(out, manager.addStudents(readStudents(in)));
+                break;
+            case STUDENT_EXISTS:
+                out.writeBoolean(manager.studentExists(in.readUTF()));
+                break;
+            case FIND_STUDENT:
+                Student found = manager.findStudent(in.readUTF());
+                out.writeBoolean(found != null);
+                if (found != null) {
+                    writeStudent(out, found);
+                }
+                break;
+            case REMOVE_STUDENT:
+                out.writeBoolean(manager.removeStudent(in.readUTF()));
+                break;
+            case UPDATE_STUDENT:
+                out.writeInt(manager.updateStudent(readStudent(in)));
+                break;
+            case UPDATE_FIELDS:
+                String studentID = in.readUTF();
+                out.writeInt(manager.updateFields(studentID, readChanges(in)));
+                break;
+            case UPDATE_GRADES:
+                int n = in.readInt();
+                Map<String, Double> grades = new TreeMap<>();
+                for (int i = 0; i < n; i++) {
+                    grades.put(in.readUTF(), in.readDouble());
+                }
+                out.writeInt(manager.updateGrades(grades));
+                break;
+            case DISPLAY_ALL:
+                writeStudents(out, manager.displayAllStudents());
+                break;
+            case COUNT:
+                out.writeInt(manager.countStudents());
+                break;
+            case FIND_AFTER:
+                String after = readOptional(in);
+                writeStudents(out, manager.findStudentsAfter(after, in.readInt()));
+                break;
+            case FIND_PAGE:
+                int offset = in.readInt();
+                writeStudents(out, manager.findStudentsPage(offset, in.readInt()));
+                break;
+            case FIND_STUDENTS:
+                writeStudents(out, manager.findStudents(readQuery(in)));
+                break;
+            case COUNT_QUERY:
+                out.writeInt(manager.countStudents(readQuery(in)));
+                break;
+            case AVERAGE_GRADE:
+                out.writeDouble(manager.calculateAverageGrade());
+                break;
+            case GRADE_STATISTICS:
+                writeStatistics(out, manager.getGradeStatistics());
+                break;
+            default:
+                throw new IOException("Unknown operation: " + op);
+        }
+    }
+}
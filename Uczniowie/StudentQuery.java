@@ -0,0 +1,112 @@
+/*
+  Klasa StudentQuery – warunki wyszukiwania dla StudentManager.findStudents / countStudents.
+  Ustawiamy tylko potrzebne warunki (null = bez warunku), np. "wiek 20–25, ocena >= 4.5":
+    StudentQuery query = new StudentQuery();
+    query.setMinAge(20);
+    query.setMaxAge(25);
+    query.setMinGrade(4.5);
+    query.setSortBy(StudentQuery.SortBy.GRADE);
+    query.setDescending(true);
+    List<Student> found = manager.findStudents(query);
+  Zakresy są domknięte (min i max też pasują). Imię – początek imienia, bez rozróżniania
+  wielkości liter. Wyniki stronami: offset + limit (domyślnie pierwsze 100).
+*/
+
+public class StudentQuery {
+
+    // Po czym sortujemy wyniki
+    public enum SortBy {
+        STUDENT_ID, NAME, AGE, GRADE
+    }
+
+    public static final int DEFAULT_LIMIT = 100;
+
+    private String namePrefix;
+    private Integer minAge;
+    private Integer maxAge;
+    private Double minGrade;
+    private Double maxGrade;
+    private SortBy sortBy = SortBy.STUDENT_ID;
+    private boolean descending;
+    private int offset;
+    private int limit = DEFAULT_LIMIT;
+
+    // Gettery i settery
+    public String getNamePrefix() {
+        return namePrefix;
+    }
+    public void setNamePrefix(String namePrefix) {
+        this.namePrefix = namePrefix == null || namePrefix.isEmpty() ? null : namePrefix;
+    }
+
+    public Integer getMinAge() {
+        return minAge;
+    }
+    public void setMinAge(Integer minAge) {
+        this.minAge = minAge;
+    }
+
+    public Integer getMaxAge() {
+        return maxAge;
+    }
+    public void setMaxAge(Integer maxAge) {
+        this.maxAge = maxAge;
+    }
+
+    public Double getMinGrade() {
+        return minGrade;
+    }
+    public void setMinGrade(Double minGrade) {
+        this.minGrade = minGrade;
+    }
+
+    public Double getMaxGrade() {
+        return maxGrade;
+    }
+    public void setMaxGrade(Double maxGrade) {
+        this.maxGrade = maxGrade;
+    }
+
+    public SortBy getSortBy() {
+        return sortBy;
+    }
+    public void setSortBy(SortBy sortBy) {
+        this.sortBy = sortBy == null ? SortBy.STUDENT_ID : sortBy;
+    }
+
+    public boolean isDescending() {
+        return descending;
+    }
+    public void setDescending(boolean descending) {
+        this.descending = descending;
+    }
+
+    public int getOffset() {
+        return offset;
+    }
+    public void setOffset(int offset) {
+        if (offset < 0) {
+            throw new IllegalArgumentException("offset must not be negative");
+        }
+        this.offset = offset;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+    public void setLimit(int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("limit must be at least 1");
+        }
+        this.limit = limit;
+    }
+
+    @Override
+    public String toString() {
+        return "StudentQuery{namePrefix=" + namePrefix
+                + ", age=" + minAge + ".." + maxAge
+                + ", grade=" + minGrade + ".." + maxGrade
+                + ", sortBy=" + sortBy + (descending ? " DESC" : "")
+                + ", offset=" + offset + ", limit=" + limit + "}";
+    }
+}
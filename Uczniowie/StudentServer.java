@@ -0,0 +1,383 @@
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+  Klasa StudentServer – StudentManager dostępny przez sieć (protokół: StudentProtocol), żeby kilka
+  stanowisk korzystało z jednej bazy zamiast każde z własnego students.db.
+  - jeden wątek z Selector (NIO) przyjmuje połączenia, czyta i wysyła bajty dla wszystkich klientów
+  - operacje wykonuje pula wątków: żądania jednego połączenia po kolei (odpowiedzi w kolejności
+    żądań), różne połączenia równolegle
+  - pipelining: klient wysyła kolejne żądania bez czekania; odpowiedzi na wszystkie żądania, które
+    już przyszły, wysyłamy jednym zapisem do gniazda
+  - gdy klient ma więcej niż MAX_QUEUED nieobsłużonych żądań, przestajemy czytać jego gniazdo
+    (klient zwalnia, zamiast zapełniać pamięć serwera)
+  - domyślnie nasłuchuje tylko na loopback (127.0.0.1) – protokół nie ma logowania ani szyfrowania;
+    inne stanowiska mogą się łączyć dopiero po jawnym podaniu adresu (np. 0.0.0.0 – wszystkie interfejsy)
+  Uruchomienie: java StudentServer [port] [adres] – baza students.db, port domyślnie 7070,
+  adres domyślnie loopback.
+  Klient: RemoteStudentManager.
+*/
+
+public class StudentServer implements AutoCloseable {
+
+    // Ile żądań jednego połączenia może czekać na wykonanie, zanim przestaniemy czytać.
+    private static final int MAX_QUEUED = 1024;
+
+    private final StudentManager manager;
+    private final ServerSocketChannel serverChannel;
+    private final Selector selector;
+    private final ExecutorService workers;
+    private final Thread selectorThread;
+
+    // Zadania dla wątku Selector (zmiana zainteresowania OP_READ / OP_WRITE) z innych wątków.
+    private final Queue<Runnable> selectorTasks = new ConcurrentLinkedQueue<>();
+    private volatile boolean closed;
+
+    // Tylko loopback; port 0 – dowolny wolny port (zob. getPort).
+    public StudentServer(StudentManager manager, int port) throws IOException {
+        this(manager, port, Math.max(4, Runtime.getRuntime().availableProcessors()));
+    }
+
+    public StudentServer(StudentManager manager, int port, int threads) throws IOException {
+        this(manager, new InetSocketAddress(InetAddress.getLoopbackAddress(), port), threads);
+    }
+
+    // Nasłuch na podanym adresie, np. new InetSocketAddress(7070) – wszystkie interfejsy.
+    public StudentServer(StudentManager manager, InetSocketAddress address, int threads) throws IOException {
+        this.manager = manager;
+        this.selector = Selector.open();
+        this.serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(address);
+        serverChannel.configureBlocking(false);
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        AtomicInteger count = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "student-server-" + count.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        this.selectorThread = new Thread(this::selectLoop, "student-server-io");
+        selectorThread.start();
+    }
+
+    public int getPort() {
+        return serverChannel.socket().getLocalPort();
+    }
+
+    private void selectLoop() {
+        try {
+            while (!closed) {
+                selector.select();
+                Runnable task;
+                while ((task = selectorTasks.poll()) != null) {
+                    task.run();
+                }
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    try {
+                        if (!key.isValid()) {
+                            continue;
+                        }
+                        if (key.isAcceptable()) {
+                            accept();
+                        }
+                        if (key.isValid() && key.isReadable()) {
+                            ((Connection) key.attachment()).read();
+                        }
+                        if (key.isValid() && key.isWritable()) {
+                            ((Connection) key.attachment()).writeReady();
+                        }
+                    } catch (IOException e) {
+                        // Klient rozłączył się albo przysłał błędne dane – zamykamy tylko jego połączenie
+                        if (key.attachment() != null) {
+                            ((Connection) key.attachment()).close();
+                        }
+                    }
+                }
+            }
+        } catch (IOException e) {
+            if (!closed) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel = serverChannel.accept();
+        if (channel == null) {
+            return;
+        }
+        channel.configureBlocking(false);
+        channel.socket().setTcpNoDelay(true);
+        Connection connection = new Connection(channel);
+        connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+    }
+
+    // Uruchomienie na wątku Selector (interestOps zmieniamy tylko tam).
+    private void onSelectorThread(Runnable task) {
+        selectorTasks.add(task);
+        selector.wakeup();
+    }
+
+    // Bufor odpowiedzi, który można cofnąć do wcześniejszej długości (błąd w środku zapisu wyniku).
+    private static final class ResponseBuffer extends ByteArrayOutputStream {
+        ResponseBuffer() {
+            super(4096);
+        }
+
+        void truncate(int size) {
+            count = size;
+        }
+
+        // Długość ramki zaczynającej się na pozycji start (miejsce zarezerwowane przez writeInt(0)).
+        void finishFrame(int start) {
+            int length = count - start - 4;
+            buf[start] = (byte) (length >>> 24);
+            buf[start + 1] = (byte) (length >>> 16);
+            buf[start + 2] = (byte) (length >>> 8);
+            buf[start + 3] = (byte) length;
+        }
+
+        ByteBuffer toByteBuffer() {
+            return ByteBuffer.wrap(buf, 0, count);
+        }
+    }
+
+    // Jedno połączenie: bufor odczytu (wątek Selector), kolejka ramek (pula), bufory do wysłania.
+    private final class Connection {
+        private final SocketChannel channel;
+        private SelectionKey key;
+        private ByteBuffer in = ByteBuffer.allocate(16 * 1024);
+        private final Queue<byte[]> requests = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger queued = new AtomicInteger();
+        private final AtomicBoolean running = new AtomicBoolean();
+        private volatile boolean readPaused;
+        // Bufory do wysłania (dostęp pod synchronized(this))
+        private final Queue<ByteBuffer> out = new ArrayDeque<>();
+
+        Connection(SocketChannel channel) {
+            this.channel = channel;
+        }
+
+        // Wątek Selector: czytamy, ile jest, i wydzielamy pełne ramki.
+        void read() throws IOException {
+            int n = channel.read(in);
+            if (n < 0) {
+                close();
+                return;
+            }
+            in.flip();
+            int needed = 0;
+            while (in.remaining() >= 4) {
+                int length = in.getInt(in.position());
+                if (length < 5 || length > StudentProtocol.MAX_FRAME) {
+                    throw new IOException("Invalid frame length: " + length);
+                }
+                if (in.remaining() < 4 + length) {
+                    needed = 4 + length;
+                    break;
+                }
+                in.getInt();
+                byte[] frame = new byte[length];
+                in.get(frame);
+                requests.add(frame);
+                queued.incrementAndGet();
+            }
+            in.compact();
+            if (needed > in.capacity()) {
+                // Ramka większa niż bufor – powiększamy go
+                ByteBuffer bigger = ByteBuffer.allocate(needed);
+                in.flip();
+                bigger.put(in);
+                in = bigger;
+            }
+            schedule();
+            if (queued.get() > MAX_QUEUED && !readPaused) {
+                readPaused = true;
+                key.interestOps(key.interestOps() & ~SelectionKey.OP_READ);
+            }
+        }
+
+        // Co najwyżej jedno zadanie puli na połączenie – żądania wykonują się po kolei.
+        private void schedule() {
+            if (!requests.isEmpty() && running.compareAndSet(false, true)) {
+                workers.execute(this::process);
+            }
+        }
+
+        // Wątek puli: wykonujemy wszystkie czekające żądania i wysyłamy odpowiedzi razem.
+        private void process() {
+            ResponseBuffer response = new ResponseBuffer();
+            DataOutputStream data = new DataOutputStream(response);
+            try {
+                byte[] frame;
+                while ((frame = requests.poll()) != null) {
+                    queued.decrementAndGet();
+                    handle(frame, response, data);
+                }
+            } catch (IOException e) {
+                close();
+                return;
+            } finally {
+                running.set(false);
+            }
+            if (response.size() > 0) {
+                send(response.toByteBuffer());
+            }
+            if (readPaused && queued.get() < MAX_QUEUED / 2) {
+                onSelectorThread(() -> {
+                    if (readPaused && key.isValid()) {
+                        readPaused = false;
+                        key.interestOps(key.interestOps() | SelectionKey.OP_READ);
+                    }
+                });
+            }
+            // Żądanie mogło przyjść między poll() a running.set(false)
+            schedule();
+        }
+
+        private void handle(byte[] frame, ResponseBuffer response, DataOutputStream data) throws IOException {
+            DataInputStream request = new DataInputStream(new ByteArrayInputStream(frame));
+            int id = request.readInt();
+            byte op = request.readByte();
+            int start = response.size();
+            data.writeInt(0); // długość – uzupełniana na końcu
+            data.writeInt(id);
+            if (op == StudentProtocol.BATCH) {
+                data.writeByte(StudentProtocol.OK);
+                int n = request.readInt();
+                data.writeInt(n);
+                for (int i = 0; i < n; i++) {
+                    executeOne(request.readByte(), request, response, data);
+                }
+            } else {
+                executeOne(op, request, response, data);
+            }
+            data.flush();
+            response.finishFrame(start);
+        }
+
+        // [status][wynik]; wyjątek z StudentManager – ERROR z komunikatem (pozostałe operacje idą dalej).
+        private void executeOne(byte op, DataInputStream request, ResponseBuffer response, DataOutputStream data)
+                throws IOException {
+            int start = response.size();
+            data.writeByte(StudentProtocol.OK);
+            try {
+                StudentProtocol.execute(manager, op, request, data);
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+                data.flush();
+                response.truncate(start);
+                data.writeByte(StudentProtocol.ERROR);
+                data.writeUTF(String.valueOf(e));
+            }
+        }
+
+        private void send(ByteBuffer buffer) {
+            boolean pending;
+            synchronized (this) {
+                out.add(buffer);
+                try {
+                    flushLocked();
+                } catch (IOException e) {
+                    close();
+                    return;
+                }
+                pending = !out.isEmpty();
+            }
+            if (pending) {
+                // Gniazdo pełne – resztę wyśle wątek Selector, gdy będzie miejsce
+                onSelectorThread(() -> {
+                    if (key.isValid()) {
+                        key.interestOps(key.interestOps() | SelectionKey.OP_WRITE);
+                    }
+                });
+            }
+        }
+
+        // Wątek Selector: w gnieździe jest miejsce.
+        void writeReady() throws IOException {
+            synchronized (this) {
+                flushLocked();
+                if (out.isEmpty()) {
+                    key.interestOps(key.interestOps() & ~SelectionKey.OP_WRITE);
+                }
+            }
+        }
+
+        private void flushLocked() throws IOException {
+            ByteBuffer buffer;
+            while ((buffer = out.peek()) != null) {
+                channel.write(buffer);
+                if (buffer.hasRemaining()) {
+                    return;
+                }
+                out.poll();
+            }
+        }
+
+        void close() {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // już zamknięte
+            }
+        }
+    }
+
+    // Zatrzymuje serwer i rozłącza klientów (StudentManager zamyka właściciel).
+    @Override
+    public void close() {
+        closed = true;
+        selector.wakeup();
+        try {
+            selectorThread.join(5000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (SelectionKey key : selector.keys()) {
+            try {
+                key.channel().close();
+            } catch (IOException e) {
+                // już zamknięte
+            }
+        }
+        try {
+            selector.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        workers.shutdown();
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : StudentProtocol.DEFAULT_PORT;
+        InetAddress bind = args.length > 1 ? InetAddress.getByName(args[1]) : InetAddress.getLoopbackAddress();
+        StudentManagerImpl manager = new StudentManagerImpl();
+        StudentServer server = new StudentServer(manager, new InetSocketAddress(bind, port),
+                Math.max(4, Runtime.getRuntime().availableProcessors()));
+        Runtime.getRuntime().addShutdownHook(new Thread(server::close, "student-server-close"));
+        System.out.println("StudentServer listening on " + bind.getHostAddress() + ":" + server.getPort()
+                + (bind.isLoopbackAddress() ? " (this machine only; pass a bind address to accept others)" : ""));
+    }
+}
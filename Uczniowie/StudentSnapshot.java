@@ -0,0 +1,349 @@
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/*
+  Klasa StudentSnapshot – binarna kopia listy studentów do szybkiego startu (plik .snap).
+  Plik czytamy przez FileChannel.map – otwarcie nie wczytuje danych, wyszukiwanie po ID
+  to wyszukiwanie binarne wprost w zmapowanym pliku (bez kopiowania i bez obiektów).
+  Układ pliku (wersja formatu 1):
+    nagłówek (HEADER_BYTES):
+       0  "STUDSNAP"                 8 B
+       8  wersja formatu             int
+      12  liczba studentów           int
+      16  liczba imion               int
+      20  rozmiar rekordu            int
+      24  licznik zmian bazy         long  (StudentManagerImpl.getChangeCount w chwili zapisu)
+      32  początek tablicy imion     long
+      40  długość pliku              long
+      48  suma kontrolna CRC32       long  (rekordy + tablica imion + reszta nagłówka)
+      56  liczba studentów na kod oceny 0..10 – 11 x long
+    rekordy (RECORD_BYTES każdy, posortowane po ID):
+       id long | numer imienia int | wiek byte | kod oceny byte | 2 B wolne | wersja int | 4 B wolne
+       (24 B – każde id leży pod adresem podzielnym przez 8)
+    tablica imion: (liczba imion + 1) x int – początki imion, potem imiona w UTF-8
+  Zły nagłówek, inna wersja formatu albo niezgodna suma kontrolna -> open rzuca IOException
+  (wtedy źródłem danych zostaje baza SQLite – zob. SnapshotStudentManager).
+*/
+
+public class StudentSnapshot implements AutoCloseable {
+
+    public static final int FORMAT_VERSION = 1;
+
+    private static final byte[] MAGIC = "STUDSNAP".getBytes(StandardCharsets.US_ASCII);
+    private static final int MAX_GRADE_CODE = 10;
+    static final int HEADER_BYTES = 56 + (MAX_GRADE_CODE + 1) * 8;
+    static final int RECORD_BYTES = 24;
+
+    // Pozycje pól w nagłówku
+    private static final int OFF_VERSION = 8;
+    private static final int OFF_ROWS = 12;
+    private static final int OFF_NAMES = 16;
+    private static final int OFF_RECORD_BYTES = 20;
+    private static final int OFF_CHANGE_COUNT = 24;
+    private static final int OFF_NAME_TABLE = 32;
+    private static final int OFF_LENGTH = 40;
+    private static final int OFF_CRC = 48;
+    private static final int OFF_GRADE_COUNTS = 56;
+
+    private final File file;
+    private final MappedByteBuffer data;
+    private final int rows;
+    private final int nameCount;
+    private final long changeCount;
+    private final int nameTableOffset;
+    private final long[] gradeCounts = new long[MAX_GRADE_CODE + 1];
+
+    // Imiona odczytane z pliku (po pierwszym użyciu)
+    private final String[] names;
+
+    private StudentSnapshot(File file, MappedByteBuffer data) throws IOException {
+        this.file = file;
+        this.data = data;
+
+        byte[] magic = new byte[MAGIC.length];
+        data.duplicate().get(magic);
+        if (!Arrays.equals(magic, MAGIC)) {
+            throw new IOException(file + " is not a student snapshot");
+        }
+        int version = data.getInt(OFF_VERSION);
+        if (version != FORMAT_VERSION) {
+            throw new IOException("Unsupported snapshot format version " + version + " in " + file);
+        }
+        if (data.getInt(OFF_RECORD_BYTES) != RECORD_BYTES || data.getLong(OFF_LENGTH) != data.capacity()) {
+            throw new IOException("Snapshot " + file + " is truncated or damaged");
+        }
+        rows = data.getInt(OFF_ROWS);
+        nameCount = data.getInt(OFF_NAMES);
+        changeCount = data.getLong(OFF_CHANGE_COUNT);
+        long names = data.getLong(OFF_NAME_TABLE);
+        if (rows < 0 || nameCount < 0 || names != HEADER_BYTES + (long) rows * RECORD_BYTES
+                || names + 4L * (nameCount + 1) > data.capacity()) {
+            throw new IOException("Snapshot " + file + " is truncated or damaged");
+        }
+        nameTableOffset = (int) names;
+        if (checksum(data) != data.getLong(OFF_CRC)) {
+            throw new IOException("Snapshot " + file + " checksum mismatch");
+        }
+        for (int code = 0; code <= MAX_GRADE_CODE; code++) {
+            gradeCounts[code] = data.getLong(OFF_GRADE_COUNTS + code * 8);
+        }
+        this.names = new String[nameCount];
+    }
+
+    // Otwiera (mapuje) plik i sprawdza nagłówek oraz sumę kontrolną.
+    public static StudentSnapshot open(File file) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+             FileChannel channel = raf.getChannel()) {
+            long length = channel.size();
+            if (length < HEADER_BYTES || length > Integer.MAX_VALUE) {
+                throw new IOException("Snapshot " + file + " has invalid size " + length);
+            }
+            // Mapowanie zostaje ważne po zamknięciu kanału
+            return new StudentSnapshot(file, channel.map(FileChannel.MapMode.READ_ONLY, 0, length));
+        }
+    }
+
+    // CRC32 z rekordów i tablicy imion, potem z pól nagłówka (bez magii i samej sumy).
+    private static long checksum(ByteBuffer data) {
+        CRC32 crc = new CRC32();
+        ByteBuffer body = data.duplicate();
+        body.position(HEADER_BYTES);
+        crc.update(body);
+        ByteBuffer header = data.duplicate();
+        header.position(OFF_VERSION).limit(OFF_CRC);
+        crc.update(header);
+        header.limit(HEADER_BYTES).position(OFF_GRADE_COUNTS);
+        crc.update(header);
+        return crc.getValue();
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public int size() {
+        return rows;
+    }
+
+    // Licznik zmian bazy, z której zrobiono kopię (zob. StudentManagerImpl.getChangeCount).
+    public long getChangeCount() {
+        return changeCount;
+    }
+
+    // Statystyki ocen zapisane w nagłówku (bez przeglądania rekordów).
+    public GradeStatistics getGradeStatistics() {
+        Map<Double, Long> histogram = new HashMap<>();
+        for (int code = 0; code <= MAX_GRADE_CODE; code++) {
+            if (gradeCounts[code] > 0) {
+                histogram.put(StudentManagerImpl.gradeFromCode(code), gradeCounts[code]);
+            }
+        }
+        return new GradeStatistics(histogram);
+    }
+
+    public long idAt(int i) {
+        return data.getLong(HEADER_BYTES + i * RECORD_BYTES);
+    }
+
+    public Student studentAt(int i) {
+        int pos = HEADER_BYTES + i * RECORD_BYTES;
+        return new Student(name(data.getInt(pos + 8)), data.get(pos + 12),
+                StudentManagerImpl.gradeFromCode(data.get(pos + 13)),
+                Long.toString(data.getLong(pos)), data.getInt(pos + 16));
+    }
+
+    // Pozycja studenta o danym ID (wyszukiwanie binarne) albo -1.
+    public int indexOf(long id) {
+        int pos = search(id);
+        return pos >= 0 ? pos : -1;
+    }
+
+    // Pierwsza pozycja z ID większym niż podane.
+    public int indexAfter(long id) {
+        int pos = search(id);
+        return pos >= 0 ? pos + 1 : -pos - 1;
+    }
+
+    // Jak Arrays.binarySearch: pozycja albo -(miejsce wstawienia) - 1.
+    private int search(long id) {
+        int lo = 0;
+        int hi = rows - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            long midId = idAt(mid);
+            if (midId < id) {
+                lo = mid + 1;
+            } else if (midId > id) {
+                hi = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(lo + 1);
+    }
+
+    private String name(int n) {
+        String name = names[n];
+        if (name == null) {
+            int start = data.getInt(nameTableOffset + n * 4);
+            int end = data.getInt(nameTableOffset + (n + 1) * 4);
+            byte[] utf8 = new byte[end - start];
+            ByteBuffer src = data.duplicate();
+            src.position(nameTableOffset + (nameCount + 1) * 4 + start);
+            src.get(utf8);
+            name = new String(utf8, StandardCharsets.UTF_8);
+            names[n] = name;
+        }
+        return name;
+    }
+
+    @Override
+    public void close() {
+        // Java 8 nie pozwala zwolnić mapowania wprost – zwalnia je GC razem z buforem
+    }
+
+    // Zapis kopii: studentów podajemy po kolei rosnąco po ID (np. forEachStudent), potem finish.
+    // Plik powstaje pod nazwą tymczasową i zastępuje stary dopiero po pełnym zapisie.
+    public static Writer writer(File file) throws IOException {
+        return new Writer(file);
+    }
+
+    // Zapis całej bazy do pliku kopii; zwraca liczbę zapisanych studentów.
+    // Jeśli ktoś zmienił bazę w trakcie (albo odczyt się nie udał), kopii nie zapisujemy.
+    public static int export(StudentManagerImpl source, File file) throws IOException {
+        long changeCount = source.getChangeCount();
+        if (changeCount < 0) {
+            throw new IOException("Cannot read database change counter");
+        }
+        try (Writer writer = writer(file)) {
+            source.forEachStudent(10_000, writer::add);
+            if (source.getChangeCount() != changeCount || writer.rows != source.countStudents()) {
+                throw new IOException("Database changed during snapshot export");
+            }
+            return writer.finish(changeCount);
+        }
+    }
+
+    public static final class Writer implements AutoCloseable {
+        private final File file;
+        private final File temp;
+        private final DataOutputStream out;
+        private final CRC32 crc = new CRC32();
+        private final Map<String, Integer> nameNumbers = new HashMap<>();
+        private final List<String> names = new ArrayList<>();
+        private final long[] gradeCounts = new long[MAX_GRADE_CODE + 1];
+        private final byte[] record = new byte[RECORD_BYTES];
+        private final ByteBuffer recordBuffer = ByteBuffer.wrap(record);
+        private int rows;
+        private long lastId = -1;
+        private boolean finished;
+
+        private Writer(File file) throws IOException {
+            this.file = file;
+            File dir = file.getAbsoluteFile().getParentFile();
+            this.temp = File.createTempFile(file.getName(), ".tmp", dir);
+            this.out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp), 1 << 16));
+            out.write(new byte[HEADER_BYTES]); // nagłówek wpisujemy na końcu
+        }
+
+        public void add(Student s) {
+            long id = StudentManagerImpl.parseID(s.getStudentID());
+            int code = StudentManagerImpl.gradeCode(s.getGrade());
+            if (id <= lastId || code < 0 || code > MAX_GRADE_CODE) {
+                throw new IllegalArgumentException("Students must be valid and sorted by ID: " + s.getStudentID());
+            }
+            Integer n = nameNumbers.get(s.getName());
+            if (n == null) {
+                n = names.size();
+                names.add(s.getName());
+                nameNumbers.put(s.getName(), n);
+            }
+            recordBuffer.clear();
+            recordBuffer.putLong(id).putInt(n).put((byte) s.getAge()).put((byte) code)
+                    .putShort((short) 0).putInt((int) s.getVersion()).putInt(0);
+            write(record);
+            gradeCounts[code]++;
+            lastId = id;
+            rows++;
+        }
+
+        private void write(byte[] bytes) {
+            try {
+                out.write(bytes);
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+            crc.update(bytes, 0, bytes.length);
+        }
+
+        // Dopisuje tablicę imion i nagłówek, zamienia plik. Zwraca liczbę studentów.
+        public int finish(long changeCount) throws IOException {
+            byte[][] utf8 = new byte[names.size()][];
+            ByteBuffer offsets = ByteBuffer.allocate((names.size() + 1) * 4);
+            int offset = 0;
+            for (int i = 0; i < utf8.length; i++) {
+                utf8[i] = names.get(i).getBytes(StandardCharsets.UTF_8);
+                offsets.putInt(offset);
+                offset += utf8[i].length;
+            }
+            offsets.putInt(offset);
+            write(offsets.array());
+            for (byte[] name : utf8) {
+                write(name);
+            }
+            out.close();
+
+            long nameTable = HEADER_BYTES + (long) rows * RECORD_BYTES;
+            long length = nameTable + offsets.capacity() + offset;
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            header.put(MAGIC);
+            header.putInt(OFF_VERSION, FORMAT_VERSION);
+            header.putInt(OFF_ROWS, rows);
+            header.putInt(OFF_NAMES, names.size());
+            header.putInt(OFF_RECORD_BYTES, RECORD_BYTES);
+            header.putLong(OFF_CHANGE_COUNT, changeCount);
+            header.putLong(OFF_NAME_TABLE, nameTable);
+            header.putLong(OFF_LENGTH, length);
+            for (int code = 0; code <= MAX_GRADE_CODE; code++) {
+                header.putLong(OFF_GRADE_COUNTS + code * 8, gradeCounts[code]);
+            }
+            crc.update(header.array(), OFF_VERSION, OFF_CRC - OFF_VERSION);
+            crc.update(header.array(), OFF_GRADE_COUNTS, HEADER_BYTES - OFF_GRADE_COUNTS);
+            header.putLong(OFF_CRC, crc.getValue());
+
+            try (RandomAccessFile raf = new RandomAccessFile(temp, "rw")) {
+                raf.write(header.array());
+                raf.getFD().sync();
+            }
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+            finished = true;
+            return rows;
+        }
+
+        // Bez finish (błąd w trakcie) – usuwamy plik tymczasowy, stara kopia zostaje.
+        @Override
+        public void close() throws IOException {
+            if (!finished) {
+                out.close();
+                temp.delete();
+            }
+        }
+    }
+}
@@ -0,0 +1,209 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.Supplier;
+
+/*
+  Klasa StudentStartup – przygotowanie warstwy danych w tle, podczas gdy okno już jest widoczne.
+  start(factory) na osobnym wątku ("student-startup"):
+  - ładuje sterownik SQLite i tworzy managera (otwarcie pliku, migracje schematu) – etap "manager"
+  - opcjonalnie (preload) czyta pliki bazy po kolei, żeby trafiły do pamięci podręcznej systemu
+    i pierwsze zapytania nie czekały na dysk – etap "preload"
+  - rozgrzewka (warmUp): otwiera z góry połączenia do odczytu i z kilku wątków naraz wykonuje
+    to, co robią pierwsze kliknięcia (Display: liczba studentów i pierwsze strony, Average: statystyki,
+    wyszukanie po ID) – zapytania są już przygotowane w cache połączeń, kod skompilowany przez JIT,
+    strony bazy w pamięci – etap "warm-up"
+  Błąd rozgrzewki nie zatrzymuje startu (manager i tak jest gotowy); błąd tworzenia managera kończy
+  zwrócony future wyjątkiem. Etapy zapisujemy w StartupTimeline.
+*/
+
+public class StudentStartup {
+
+    private final StartupTimeline timeline;
+    private boolean warmUp = true;
+    private boolean preload;
+    private int threads = Math.max(2, Runtime.getRuntime().availableProcessors());
+
+    public StudentStartup(StartupTimeline timeline) {
+        this.timeline = timeline;
+    }
+
+    // Gettery i settery
+    public StartupTimeline getTimeline() {
+        return timeline;
+    }
+
+    public boolean isWarmUp() {
+        return warmUp;
+    }
+
+    public void setWarmUp(boolean warmUp) {
+        this.warmUp = warmUp;
+    }
+
+    public boolean isPreload() {
+        return preload;
+    }
+
+    public void setPreload(boolean preload) {
+        this.preload = preload;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    // Ile wątków rozgrzewa bazę naraz (tyle połączeń do odczytu otwieramy) – jak pula AsyncStudentManager.
+    public void setThreads(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("threads must be at least 1");
+        }
+        this.threads = threads;
+    }
+
+    // Tworzy managera i rozgrzewa go w tle; future kończy się gotowym managerem.
+    public CompletableFuture<StudentManager> start(Supplier<StudentManager> factory) {
+        CompletableFuture<StudentManager> result = new CompletableFuture<>();
+        Thread thread = new Thread(() -> {
+            StudentManager manager;
+            try {
+                loadDriver();
+                manager = factory.get();
+                timeline.mark("manager");
+            } catch (Throwable t) {
+                result.completeExceptionally(t);
+                return;
+            }
+            if (preload) {
+                preload(manager);
+                timeline.mark("preload");
+            }
+            if (warmUp) {
+                warmUp(manager);
+                timeline.mark("warm-up");
+            }
+            result.complete(manager);
+        }, "student-startup");
+        thread.setDaemon(true);
+        thread.start();
+        return result;
+    }
+
+    // Bazy SQLite, z których korzysta manager (pusta lista – magazyn w pamięci albo zdalny).
+    public static List<StudentManagerImpl> databasesOf(StudentManager manager) {
+        List<StudentManagerImpl> databases = new ArrayList<>();
+        if (manager instanceof StudentManagerImpl) {
+            databases.add((StudentManagerImpl) manager);
+        } else if (manager instanceof SnapshotStudentManager) {
+            databases.add(((SnapshotStudentManager) manager).getSource()); // zapisy idą do bazy źródłowej
+        } else if (manager instanceof WriteBehindStudentManager) {
+            databases.add(((WriteBehindStudentManager) manager).getTarget());
+        } else if (manager instanceof ShardedStudentManager) {
+            databases.addAll(((ShardedStudentManager) manager).getShards());
+        }
+        return databases;
+    }
+
+    // Czytelnicy otwarci z góry, potem te same odczyty co pierwsze kliknięcia, z threads wątków naraz.
+    public void warmUp(StudentManager manager) {
+        for (StudentManagerImpl database : databasesOf(manager)) {
+            try {
+                database.getPool().preopenReaders(threads);
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
+        }
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int i = 0; i < threads; i++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    firstActions(manager);
+                } catch (RuntimeException e) {
+                    e.printStackTrace();
+                } finally {
+                    done.countDown();
+                }
+            }, "student-warm-up-" + (i + 1));
+            thread.setDaemon(true);
+            thread.start();
+        }
+        try {
+            done.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Display (liczba wierszy, pierwsza i druga strona tabeli, skok suwakiem), Average, wyszukanie po ID.
+    private static void firstActions(StudentManager manager) {
+        int pageSize = StudentTableModel.DEFAULT_PAGE_SIZE;
+        manager.countStudents();
+        List<Student> page = manager.findStudentsAfter(null, pageSize);
+        if (!page.isEmpty()) {
+            manager.findStudentsAfter(page.get(page.size() - 1).getStudentID(), pageSize);
+            manager.findStudent(page.get(0).getStudentID());
+        }
+        manager.findStudentsPage(pageSize, pageSize);
+        manager.getGradeStatistics();
+    }
+
+    // Czyta pliki baz (i dziennik WAL) po kolei; zwraca liczbę przeczytanych bajtów.
+    public long preload(StudentManager manager) {
+        long bytes = 0;
+        ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20);
+        for (StudentManagerImpl database : databasesOf(manager)) {
+            File file = databaseFile(database.getPool().getConfig().getUrl());
+            if (file == null) {
+                continue;
+            }
+            for (File f : new File[] {file, new File(file.getPath() + "-wal")}) {
+                if (!f.isFile()) {
+                    continue;
+                }
+                try (FileChannel channel = FileChannel.open(f.toPath(), StandardOpenOption.READ)) {
+                    int n;
+                    while ((n = channel.read(buffer)) >= 0) {
+                        bytes += n;
+                        buffer.clear();
+                    }
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+        return bytes;
+    }
+
+    // Plik bazy z adresu jdbc:sqlite:ścieżka[?parametry]; null – baza w pamięci albo inny adres.
+    static File databaseFile(String url) {
+        String prefix = "jdbc:sqlite:";
+        if (url == null || !url.startsWith(prefix)) {
+            return null;
+        }
+        String path = url.substring(prefix.length());
+        int query = path.indexOf('?');
+        if (query >= 0) {
+            path = path.substring(0, query);
+        }
+        if (path.startsWith("file:")) {
+            path = path.substring("file:".length());
+        }
+        return path.isEmpty() || path.equals(":memory:") ? null : new File(path);
+    }
+
+    // Ładowanie sterownika (rozpakowanie biblioteki natywnej) – zwykle najdłuższa część otwarcia bazy.
+    private static void loadDriver() {
+        try {
+            Class.forName("org.sqlite.JDBC");
+        } catch (ClassNotFoundException e) {
+            // magazyn bez SQLite (np. zdalny) – sterownik nie jest potrzebny
+        }
+    }
+}
@@ -0,0 +1,19 @@
+/*
+  Klasa StudentStoreException – błąd magazynu studentów (np. błąd SQL, złamany CHECK, zerwane
+  połączenie z serwerem) przy addStudent / updateStudent / updateFields.
+  Dzięki temu false / 0 z tych metod znaczą tylko "ID zajęte" albo "ktoś zmienił lub usunął
+  studenta", a nie "coś się nie udało".
+*/
+
+public class StudentStoreException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public StudentStoreException(String message) {
+        super(message);
+    }
+
+    public StudentStoreException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
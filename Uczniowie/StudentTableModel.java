@@ -0,0 +1,159 @@
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import javax.swing.table.AbstractTableModel;
+
+/*
+  Klasa StudentTableModel – model tabeli (JTable) z listą studentów.
+  Nie ładuje całej tabeli: trzyma w pamięci tylko kilka ostatnio oglądanych stron
+  (po pageSize wierszy). Brakującą stronę pobiera, gdy JTable poprosi o jej wiersz:
+  - jeśli znamy poprzednią stronę – findStudentsAfter (keyset, szybkie przewijanie)
+  - w innym wypadku (skok suwakiem) – findStudentsPage (OFFSET)
+  Strony pobierane są w tle (AsyncStudentManager); do tego czasu wiersz jest pusty,
+  a po wczytaniu tabela odświeża tylko wiersze tej strony.
+  Wszystkie metody wywołujemy w wątku Swinga (EDT).
+*/
+
+public class StudentTableModel extends AbstractTableModel {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final String[] COLUMNS = {"ID", "Name", "Age", "Grade"};
+
+    // Domyślnie: strony po 200 wierszy, w pamięci najwyżej 10 stron.
+    public static final int DEFAULT_PAGE_SIZE = 200;
+    private static final int MAX_CACHED_PAGES = 10;
+
+    private final transient AsyncStudentManager db;
+    private final int pageSize;
+    private int rowCount;
+
+    // Strony, które właśnie się wczytują, i numer "pokolenia" danych –
+    // wyniki zamówione przed ostatnim refresh() są ignorowane.
+    private final Set<Integer> loading = new HashSet<>();
+    private int generation;
+
+    // Numer strony -> wiersze strony (kolejność dostępu, najstarsze usuwamy).
+    private final Map<Integer, List<Student>> pages =
+            new LinkedHashMap<Integer, List<Student>>(16, 0.75f, true) {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Integer, List<Student>> eldest) {
+                    return size() > MAX_CACHED_PAGES;
+                }
+            };
+
+    public StudentTableModel(AsyncStudentManager db) {
+        this(db, DEFAULT_PAGE_SIZE);
+    }
+
+    public StudentTableModel(AsyncStudentManager db, int pageSize) {
+        this.db = db;
+        this.pageSize = pageSize;
+    }
+
+    // Ponowne wczytanie liczby wierszy (np. po przycisku Display); strony ładują się leniwie.
+    // Zwrócony future kończy się (w EDT) po odświeżeniu tabeli i zwraca liczbę wierszy.
+    public CompletableFuture<Integer> refresh() {
+        final int gen = ++generation;
+        pages.clear();
+        loading.clear();
+        return db.countStudents().thenApplyAsync(count -> {
+            if (gen == generation) {
+                rowCount = count;
+                fireTableDataChanged();
+            }
+            return count;
+        }, AsyncStudentManager.EDT);
+    }
+
+    @Override
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMNS.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMNS[column];
+    }
+
+    @Override
+    public Class<?> getColumnClass(int column) {
+        switch (column) {
+            case 2:
+                return Integer.class;
+            case 3:
+                return Double.class;
+            default:
+                return String.class;
+        }
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        List<Student> page = getPage(row / pageSize);
+        if (page == null) {
+            return column == 0 ? "..." : null; // strona jeszcze się wczytuje
+        }
+        int index = row % pageSize;
+        if (index >= page.size()) {
+            return null; // tabela zmieniła się od ostatniego refresh()
+        }
+        Student s = page.get(index);
+        switch (column) {
+            case 0:
+                return s.getStudentID();
+            case 1:
+                return s.getName();
+            case 2:
+                return s.getAge();
+            default:
+                return s.getGrade();
+        }
+    }
+
+    // Strona z cache; jeśli jej nie ma – zamawiamy ją w tle i zwracamy null.
+    private List<Student> getPage(final int pageNo) {
+        List<Student> page = pages.get(pageNo);
+        if (page != null || !loading.add(pageNo)) {
+            return page;
+        }
+
+        CompletableFuture<List<Student>> request;
+        List<Student> previous = pages.get(pageNo - 1);
+        if (previous != null && previous.size() == pageSize) {
+            String lastID = previous.get(previous.size() - 1).getStudentID();
+            request = db.findStudentsAfter(lastID, pageSize);
+        } else {
+            request = db.findStudentsPage(pageNo * pageSize, pageSize);
+        }
+
+        final int gen = generation;
+        AsyncStudentManager.onEdt(request, loaded -> {
+            if (gen != generation) {
+                return; // dane odświeżono w międzyczasie
+            }
+            loading.remove(pageNo);
+            pages.put(pageNo, loaded);
+            int first = pageNo * pageSize;
+            int last = Math.min(first + pageSize, rowCount) - 1;
+            if (first <= last) {
+                fireTableRowsUpdated(first, last);
+            }
+        }, error -> {
+            loading.remove(pageNo);
+            error.printStackTrace();
+        });
+        return null;
+    }
+}
@@ -0,0 +1,197 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+  Klasa StudentValidator – jedne reguły danych studenta dla GUI, importu i magazynów danych
+  (te same co CHECK-i w tabeli students):
+  - ID: 1–18 cyfr; imię: same litery a–z / A–Z; wiek 18–100; ocena: 2, 3, 3.5, 4, 4.5, 5
+  - sprawdzenia pisane ręcznie – pętla po znakach zamiast String.matches (który przy każdym
+    wywołaniu kompiluje wyrażenie regularne)
+  - ocena sprawdzana dokładnie: kod ocena * 2 (jak w bazie) w stałej tablicy dozwolonych kodów,
+    bez tworzenia tablicy ocen i szukania z epsilonem (3.5000001 nie jest poprawną oceną)
+  - poprawne dane niczego nie alokują; Violation powstaje tylko przy błędzie
+  - validateAll – sprawdzenie wielu studentów naraz; wynik to lista błędów (wiersz, ID, pole, komunikat)
+*/
+
+public final class StudentValidator {
+
+    // Pole, którego dotyczy błąd.
+    public enum Field {
+        STUDENT_ID, NAME, AGE, GRADE
+    }
+
+    // Błąd w danych jednego studenta (row liczony od 1 w validateAll; 0 – pojedynczy student).
+    public static final class Violation {
+        private final int row;
+        private final String studentID;
+        private final Field field;
+        private final String message;
+
+        public Violation(int row, String studentID, Field field, String message) {
+            this.row = row;
+            this.studentID = studentID;
+            this.field = field;
+            this.message = message;
+        }
+
+        public int getRow() {
+            return row;
+        }
+
+        public String getStudentID() {
+            return studentID;
+        }
+
+        public Field getField() {
+            return field;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        @Override
+        public String toString() {
+            return (row > 0 ? "Row " + row + " (ID: " + studentID + "): " : "") + message;
+        }
+    }
+
+    public static final int MIN_AGE = 18;
+    public static final int MAX_AGE = 100;
+    public static final int MAX_ID_DIGITS = 18;
+
+    // Komunikaty błędów (te same w imporcie, GUI i magazynach danych).
+    public static final String MISSING_ID = "Missing student ID";
+    public static final String INVALID_ID = "Student ID must be digits only";
+    public static final String INVALID_NAME = "Name must be letters only";
+    public static final String INVALID_AGE = "Age must be in [18..100]";
+    public static final String INVALID_GRADE = "Grade must be one of (2, 3, 3.5, 4, 4.5, 5)";
+
+    // VALID_GRADE_CODE[ocena * 2] – czy ocena jest dozwolona (2 -> 4, 3 -> 6, 3.5 -> 7, ..., 5 -> 10).
+    private static final boolean[] VALID_GRADE_CODE = new boolean[11];
+
+    static {
+        for (int code : new int[] {4, 6, 7, 8, 9, 10}) {
+            VALID_GRADE_CODE[code] = true;
+        }
+    }
+
+    private StudentValidator() {
+    }
+
+    // ID: od 1 do 18 cyfr (mieści się w long).
+    public static boolean isValidID(String studentID) {
+        if (studentID == null || studentID.isEmpty() || studentID.length() > MAX_ID_DIGITS) {
+            return false;
+        }
+        for (int i = 0; i < studentID.length(); i++) {
+            char ch = studentID.charAt(i);
+            if (ch < '0' || ch > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Imię: przynajmniej jedna litera, tylko a–z / A–Z.
+    public static boolean isValidName(String name) {
+        if (name == null || name.isEmpty()) {
+            return false;
+        }
+        for (int i = 0; i < name.length(); i++) {
+            char ch = name.charAt(i);
+            if ((ch < 'a' || ch > 'z') && (ch < 'A' || ch > 'Z')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public static boolean isValidAge(int age) {
+        return age >= MIN_AGE && age <= MAX_AGE;
+    }
+
+    public static boolean isValidGrade(double grade) {
+        return isValidGradeCode(StudentManagerImpl.gradeCode(grade));
+    }
+
+    public static boolean isValidGradeCode(int code) {
+        return code >= 0 && code < VALID_GRADE_CODE.length && VALID_GRADE_CODE[code];
+    }
+
+    // Pierwszy błąd w danych studenta albo null, gdy dane są poprawne.
+    public static Violation check(Student student) {
+        return check(0, student);
+    }
+
+    private static Violation check(int row, Student s) {
+        String sid = s.getStudentID();
+        if (sid == null || sid.isEmpty()) {
+            return new Violation(row, sid, Field.STUDENT_ID, MISSING_ID);
+        }
+        if (!isValidID(sid)) {
+            return new Violation(row, sid, Field.STUDENT_ID, INVALID_ID);
+        }
+        Field field = invalidField(s.getName(), s.getAge(), s.getGrade());
+        return field == null ? null : new Violation(row, sid, field, messageFor(field));
+    }
+
+    // Błąd w zmienianych polach (null – pole bez zmian, jak w StudentChanges) albo null.
+    public static Violation checkFields(String studentID, String name, Integer age, Double grade) {
+        Field field = invalidField(name, age, grade);
+        return field == null ? null : new Violation(0, studentID, field, messageFor(field));
+    }
+
+    private static Field invalidField(String name, Integer age, Double grade) {
+        if (name != null && !isValidName(name)) {
+            return Field.NAME;
+        }
+        if (age != null && !isValidAge(age)) {
+            return Field.AGE;
+        }
+        if (grade != null && !isValidGrade(grade)) {
+            return Field.GRADE;
+        }
+        return null;
+    }
+
+    // Imię jest wymagane u pełnych danych studenta (check), w zmianach może być null.
+    private static Field invalidField(String name, int age, double grade) {
+        if (!isValidName(name)) {
+            return Field.NAME;
+        }
+        if (!isValidAge(age)) {
+            return Field.AGE;
+        }
+        if (!isValidGrade(grade)) {
+            return Field.GRADE;
+        }
+        return null;
+    }
+
+    public static String messageFor(Field field) {
+        switch (field) {
+            case STUDENT_ID:
+                return INVALID_ID;
+            case NAME:
+                return INVALID_NAME;
+            case AGE:
+                return INVALID_AGE;
+            default:
+                return INVALID_GRADE;
+        }
+    }
+
+    // Sprawdzenie wielu studentów; błędy w kolejności wierszy (numer wiersza od 1).
+    public static List<Violation> validateAll(Iterable<? extends Student> students) {
+        List<Violation> violations = new ArrayList<>();
+        int row = 0;
+        for (Student s : students) {
+            Violation v = check(++row, s);
+            if (v != null) {
+                violations.add(v);
+            }
+        }
+        return violations;
+    }
+}
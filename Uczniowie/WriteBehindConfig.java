@@ -0,0 +1,73 @@
+import java.io.File;
+
+/*
+  Klasa WriteBehindConfig – ustawienia kolejki WriteBehindQueue.
+  - maxBatchSize: najwięcej zmian w jednej transakcji (zapis od razu, gdy tyle się uzbiera)
+  - maxDelayMillis: najdłużej czekamy na kolejne zmiany od zgłoszenia pierwszej z paczki
+    (to jest opóźnienie, które oddajemy za mniej COMMIT-ów)
+  - maxPending: ile zmian może czekać na zapis; przy pełnej kolejce zgłaszający czeka
+  - journalFile: dziennik zmian na dysku (null – tylko w pamięci, zmiany giną przy awarii)
+  - syncJournal: force() po każdym wpisie do dziennika – zmiana przetrwa też awarię zasilania,
+    ale każde zgłoszenie kosztuje fsync; bez tego (domyślnie) dziennik chroni przed awarią programu
+*/
+
+public class WriteBehindConfig {
+
+    private int maxBatchSize = 1000;
+    private long maxDelayMillis = 5;
+    private int maxPending = 100_000;
+    private File journalFile;
+    private boolean syncJournal;
+
+    public WriteBehindConfig() {
+    }
+
+    public WriteBehindConfig(File journalFile) {
+        this.journalFile = journalFile;
+    }
+
+    // Gettery i settery
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+    public void setMaxBatchSize(int maxBatchSize) {
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("maxBatchSize must be at least 1");
+        }
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    public long getMaxDelayMillis() {
+        return maxDelayMillis;
+    }
+    public void setMaxDelayMillis(long maxDelayMillis) {
+        if (maxDelayMillis < 0) {
+            throw new IllegalArgumentException("maxDelayMillis must not be negative");
+        }
+        this.maxDelayMillis = maxDelayMillis;
+    }
+
+    public int getMaxPending() {
+        return maxPending;
+    }
+    public void setMaxPending(int maxPending) {
+        if (maxPending < 1) {
+            throw new IllegalArgumentException("maxPending must be at least 1");
+        }
+        this.maxPending = maxPending;
+    }
+
+    public File getJournalFile() {
+        return journalFile;
+    }
+    public void setJournalFile(File journalFile) {
+        this.journalFile = journalFile;
+    }
+
+    public boolean isSyncJournal() {
+        return syncJournal;
+    }
+    public void setSyncJournal(boolean syncJournal) {
+        this.syncJournal = syncJournal;
+    }
+}
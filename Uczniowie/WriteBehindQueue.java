@@ -0,0 +1,493 @@
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+
+/*
+  Klasa WriteBehindQueue – zapis "w tle" dla wielu drobnych zmian (np. oceny w sesji).
+  - submit(mutation) dopisuje zmianę do dziennika (plik) i do kolejki w pamięci i od razu wraca;
+    zwrócony CompletableFuture kończy się (liczbą zmienionych wierszy) dopiero po COMMIT w bazie
+  - wątek zapisujący zbiera zmiany i zapisuje je paczkami w jednej transakcji: gdy uzbiera się
+    maxBatchSize albo minie maxDelayMillis od najstarszej (WriteBehindConfig), albo na flush()
+  - błędna zmiana (np. CHECK) kończy tylko swój future błędem, reszta paczki jest zapisywana
+  - w tej samej transakcji zapisujemy numer ostatniej zmiany w write_behind_checkpoint, więc po
+    awarii programu wiadomo dokładnie, które wpisy dziennika są już w bazie; przy starcie resztę
+    wykonujemy ponownie (replay), a dziennik skracamy, gdy wszystko z niego jest w bazie
+  - nieudany zapis całej paczki: SQLITE_BUSY ponawiamy do skutku (przy zamykaniu – jedna seria
+    ponowień), inny błąd (np. dysk pełny, plik tylko do odczytu) najwyżej maxRetries razy; potem
+    kolejka przestaje zapisywać: ta paczka, reszta kolejki i nowe zgłoszenia kończą się błędem,
+    a zmiany przyjęte do dziennika zostają w nim i trafią do bazy przy następnym starcie
+  Metryki (StudentMetrics): "write-behind flush" – czas zapisu paczki, rows = rozmiar paczki;
+  "write-behind latency" – czas od zgłoszenia zmiany do COMMIT.
+
+  Dziennik: nagłówek "STUDWBJ1", potem wpisy [długość int][CRC32 int][numer long + zmiana];
+  niepełny albo uszkodzony wpis na końcu (awaria w trakcie zapisu) jest pomijany.
+*/
+
+public class WriteBehindQueue implements AutoCloseable {
+
+    private static final byte[] MAGIC = "STUDWBJ1".getBytes(StandardCharsets.US_ASCII);
+    private static final int MAX_RECORD_BYTES = 1 << 20;
+
+    // Zmiana w kolejce: numer w dzienniku i przyszły wynik.
+    private static final class Entry {
+        final long seq;
+        final StudentMutation mutation;
+        final long submitted = System.nanoTime();
+        final CompletableFuture<Integer> durable = new CompletableFuture<>();
+        int rows;
+        Throwable error;
+
+        Entry(long seq, StudentMutation mutation) {
+            this.seq = seq;
+            this.mutation = mutation;
+        }
+    }
+
+    private final StudentManagerImpl target;
+    private final SQLiteConnectionPool pool;
+    private final WriteBehindConfig config;
+    private final LinkedBlockingQueue<Entry> queue = new LinkedBlockingQueue<>();
+    private final Semaphore capacity;
+    private final OperationMetrics flushes;
+    private final OperationMetrics latency;
+    private final AtomicLong flushesBySize = new AtomicLong();
+    private final AtomicLong flushesByTime = new AtomicLong();
+    private final AtomicLong flushesRequested = new AtomicLong();
+    private final Thread thread;
+
+    // Dziennik (null – bez dziennika) i stan zapisu; zmieniane pod journalLock.
+    private final Object journalLock = new Object();
+    private final FileChannel journal;
+    private final String checkpointName;
+    private long journalEnd;
+    private long nextSeq = 1;
+    private volatile long appliedSeq;
+    private CompletableFuture<Integer> lastSubmitted;
+    // Ile zmian z dziennika zapisano do bazy przy starcie (replay).
+    private int replayedCount;
+
+    private volatile boolean flushRequested;
+    private volatile boolean closed;
+    // Błąd, po którym kolejka przestała zapisywać (null – działa).
+    private volatile SQLException failure;
+
+    // Otwiera kolejkę; jeśli dziennik zawiera zmiany, których nie ma w bazie, najpierw je zapisuje.
+    public WriteBehindQueue(StudentManagerImpl target, WriteBehindConfig config) throws IOException {
+        this.target = target;
+        this.pool = target.getPool();
+        this.config = config;
+        this.capacity = new Semaphore(config.getMaxPending());
+        StudentMetrics metrics = pool.getStudentMetrics();
+        this.flushes = metrics.operation("write-behind flush");
+        this.latency = metrics.operation("write-behind latency");
+        if (config.getJournalFile() != null) {
+            this.checkpointName = config.getJournalFile().getName();
+            this.journal = FileChannel.open(config.getJournalFile().toPath(), StandardOpenOption.CREATE,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+            try {
+                recover();
+            } catch (IOException | RuntimeException e) {
+                journal.close();
+                throw e;
+            }
+        } else {
+            this.checkpointName = null;
+            this.journal = null;
+        }
+        this.thread = new Thread(this::loop, "student-write-behind");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    // Zgłoszenie zmiany; future kończy się po zapisaniu jej w bazie (albo błędem tej zmiany).
+    // Przy pełnej kolejce (maxPending) czeka, aż zwolni się miejsce.
+    public CompletableFuture<Integer> submit(StudentMutation mutation) {
+        capacity.acquireUninterruptibly();
+        synchronized (journalLock) {
+            if (closed) {
+                capacity.release();
+                throw new IllegalStateException("Write-behind queue is closed");
+            }
+            Entry entry = new Entry(nextSeq, mutation);
+            if (failure != null) {
+                capacity.release();
+                entry.durable.completeExceptionally(failure);
+                return entry.durable;
+            }
+            if (journal != null) {
+                try {
+                    append(entry);
+                } catch (IOException e) {
+                    capacity.release();
+                    entry.durable.completeExceptionally(e);
+                    return entry.durable;
+                }
+            }
+            nextSeq++;
+            queue.add(entry);
+            lastSubmitted = entry.durable;
+            return entry.durable;
+        }
+    }
+
+    // Zapis wszystkiego, co zgłoszono do tej chwili (bez czekania na maxDelayMillis).
+    public void flush() {
+        CompletableFuture<Integer> last;
+        synchronized (journalLock) {
+            last = lastSubmitted;
+        }
+        if (last == null || last.isDone()) {
+            return;
+        }
+        flushRequested = true;
+        try {
+            last.join();
+        } catch (RuntimeException e) {
+            // błąd ostatniej zmiany dostaje ten, kto ją zgłosił; flush tylko czeka
+        }
+    }
+
+    // Ile zmian czeka na zapis w bazie.
+    public int getPendingCount() {
+        return config.getMaxPending() - capacity.availablePermits();
+    }
+
+    public long getFlushesBySize() {
+        return flushesBySize.get();
+    }
+
+    public long getFlushesByTime() {
+        return flushesByTime.get();
+    }
+
+    // Zapisy wymuszone przez flush() albo close().
+    public long getFlushesRequested() {
+        return flushesRequested.get();
+    }
+
+    // Błąd, po którym kolejka przestała zapisywać do bazy (null – działa).
+    public SQLException getFailure() {
+        return failure;
+    }
+
+    // Ile zmian z dziennika zapisano przy otwarciu kolejki (0 – dziennik był pusty).
+    public int getReplayedCount() {
+        return replayedCount;
+    }
+
+    // Numer ostatniej zmiany, która jest już w bazie.
+    public long getAppliedSeq() {
+        return appliedSeq;
+    }
+
+    public long getJournalBytes() {
+        synchronized (journalLock) {
+            return journalEnd;
+        }
+    }
+
+    public WriteBehindConfig getConfig() {
+        return config;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("write-behind: %d pending, flushes %d by size / %d by time / %d requested, "
+                        + "journal %d B", getPendingCount(), getFlushesBySize(), getFlushesByTime(),
+                getFlushesRequested(), getJournalBytes());
+    }
+
+    private void append(Entry entry) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeLong(entry.seq);
+        entry.mutation.writeTo(out);
+        byte[] payload = bytes.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        ByteBuffer record = ByteBuffer.allocate(8 + payload.length);
+        record.putInt(payload.length).putInt((int) crc.getValue()).put(payload).flip();
+        // journalEnd przesuwamy dopiero po zapisaniu całego wpisu: urwany wpis w środku dziennika
+        // zatrzymałby odczyt przy starcie i wszystkie późniejsze zmiany zostałyby pominięte
+        long end = journalEnd;
+        try {
+            while (record.hasRemaining()) {
+                end += journal.write(record, end);
+            }
+            if (config.isSyncJournal()) {
+                journal.force(false);
+            }
+        } catch (IOException e) {
+            try {
+                journal.truncate(journalEnd);
+            } catch (IOException truncateError) {
+                e.addSuppressed(truncateError); // następny wpis i tak nadpisze urwane bajty
+            }
+            throw e;
+        }
+        journalEnd = end;
+    }
+
+    // Start: odczyt dziennika, zapis zmian nowszych niż checkpoint w bazie, skrócenie dziennika.
+    private void recover() throws IOException {
+        long checkpoint = readCheckpoint();
+        List<Entry> replay = new ArrayList<>();
+        long lastSeq = checkpoint;
+        long validEnd = MAGIC.length;
+        if (journal.size() < MAGIC.length) {
+            journal.truncate(0);
+            journal.write(ByteBuffer.wrap(MAGIC), 0);
+        } else {
+            ByteBuffer header = ByteBuffer.allocate(MAGIC.length);
+            journal.read(header, 0);
+            if (!Arrays.equals(header.array(), MAGIC)) {
+                throw new IOException("Not a write-behind journal: " + config.getJournalFile());
+            }
+            DataInputStream in = new DataInputStream(new BufferedInputStream(
+                    Channels.newInputStream(journal.position(MAGIC.length))));
+            CRC32 crc = new CRC32();
+            while (true) {
+                byte[] payload;
+                try {
+                    int length = in.readInt();
+                    int expected = in.readInt();
+                    if (length <= 0 || length > MAX_RECORD_BYTES) {
+                        break;
+                    }
+                    payload = new byte[length];
+                    in.readFully(payload);
+                    crc.reset();
+                    crc.update(payload);
+                    if ((int) crc.getValue() != expected) {
+                        break;
+                    }
+                } catch (EOFException e) {
+                    break; // wpis przerwany w połowie
+                }
+                DataInputStream record = new DataInputStream(new ByteArrayInputStream(payload));
+                long seq = record.readLong();
+                StudentMutation mutation = StudentMutation.readFrom(record);
+                validEnd += 8 + payload.length;
+                lastSeq = Math.max(lastSeq, seq);
+                if (seq > checkpoint) {
+                    replay.add(new Entry(seq, mutation));
+                }
+            }
+        }
+        journalEnd = validEnd;
+        nextSeq = lastSeq + 1;
+        appliedSeq = checkpoint;
+
+        for (int from = 0; from < replay.size(); from += config.getMaxBatchSize()) {
+            List<Entry> batch = replay.subList(from, Math.min(replay.size(), from + config.getMaxBatchSize()));
+            try {
+                apply(batch);
+            } catch (SQLException e) {
+                throw new IOException("Replaying the write-behind journal failed: " + e.getMessage(), e);
+            }
+            appliedSeq = batch.get(batch.size() - 1).seq;
+        }
+        replayedCount = replay.size();
+        journal.truncate(MAGIC.length);
+        journalEnd = MAGIC.length;
+        journal.force(true);
+    }
+
+    private long readCheckpoint() throws IOException {
+        try (PooledConnection conn = pool.reader()) {
+            PreparedStatement pstmt =
+                    conn.prepare("SELECT applied_seq FROM write_behind_checkpoint WHERE journal = ?");
+            pstmt.setString(1, checkpointName);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? rs.getLong(1) : 0;
+            }
+        } catch (SQLException e) {
+            throw new IOException("Cannot read the write-behind checkpoint: " + e.getMessage(), e);
+        }
+    }
+
+    private void loop() {
+        List<Entry> batch = new ArrayList<>(config.getMaxBatchSize());
+        long maxDelay = TimeUnit.MILLISECONDS.toNanos(config.getMaxDelayMillis());
+        while (!closed || !queue.isEmpty()) {
+            try {
+                Entry first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = first.submitted + maxDelay;
+                while (true) {
+                    queue.drainTo(batch, config.getMaxBatchSize() - batch.size());
+                    if (batch.size() >= config.getMaxBatchSize()) {
+                        flushesBySize.incrementAndGet();
+                        break;
+                    }
+                    if (flushRequested || closed) {
+                        flushesRequested.incrementAndGet();
+                        break;
+                    }
+                    long wait = deadline - System.nanoTime();
+                    if (wait <= 0) {
+                        flushesByTime.incrementAndGet();
+                        break;
+                    }
+                    // krótkie odcinki, żeby flush() nie czekał całego maxDelayMillis
+                    Entry next = queue.poll(Math.min(wait, TimeUnit.MILLISECONDS.toNanos(10)), TimeUnit.NANOSECONDS);
+                    if (next != null) {
+                        batch.add(next);
+                    }
+                }
+                flushRequested = false;
+                flushBatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                fail(batch, new SQLException("Write-behind thread interrupted"));
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    // Zapis paczki z ponowieniami (zob. opis klasy). Po błędzie, którego nie ponawiamy, kolejka przestaje
+    // zapisywać: późniejsza udana paczka przesunęłaby checkpoint za nieudane zmiany i przy starcie
+    // nie zostałyby powtórzone.
+    private void flushBatch(List<Entry> batch) {
+        if (failure != null) {
+            fail(batch, failure);
+            return;
+        }
+        long start = System.nanoTime();
+        for (int attempt = 0; ; attempt++) {
+            try {
+                apply(batch);
+                break;
+            } catch (SQLException | RuntimeException e) {
+                boolean busy = e instanceof SQLException && SQLiteConnectionPool.isBusy((SQLException) e);
+                if ((closed || !busy) && attempt >= pool.getConfig().getMaxRetries()) {
+                    flushes.record(System.nanoTime() - start, 0, true);
+                    failure = new SQLException("Write-behind flush failed; pending writes stay in the journal "
+                            + "and are replayed on next start", e);
+                    fail(batch, failure);
+                    return;
+                }
+                try {
+                    pool.backoff(attempt);
+                } catch (SQLException interrupted) {
+                    fail(batch, interrupted);
+                    return;
+                }
+            }
+        }
+        long now = System.nanoTime();
+        flushes.record(now - start, batch.size(), false);
+        appliedSeq = batch.get(batch.size() - 1).seq;
+        capacity.release(batch.size());
+        compactJournal();
+        for (Entry entry : batch) {
+            latency.record(now - entry.submitted, entry.rows, entry.error != null);
+            if (entry.error != null) {
+                entry.durable.completeExceptionally(entry.error);
+            } else {
+                entry.durable.complete(entry.rows);
+            }
+        }
+    }
+
+    private void fail(List<Entry> batch, Throwable error) {
+        for (Entry entry : batch) {
+            entry.durable.completeExceptionally(error);
+        }
+        capacity.release(batch.size());
+    }
+
+    // Gdy wszystko z dziennika jest w bazie – dziennik od nowa (sam nagłówek).
+    private void compactJournal() {
+        synchronized (journalLock) {
+            if (journal == null || appliedSeq != nextSeq - 1 || journalEnd == MAGIC.length) {
+                return;
+            }
+            try {
+                journal.truncate(MAGIC.length);
+                journalEnd = MAGIC.length;
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    // Jedna transakcja: wszystkie zmiany paczki i nowy checkpoint.
+    // Bez SAVEPOINT: każda zmiana to jedno zapytanie, a błąd zapytania (np. CHECK) w SQLite
+    // wycofuje tylko to zapytanie – reszta transakcji zostaje.
+    private void apply(List<Entry> batch) throws SQLException {
+        pool.write(conn -> {
+            for (Entry entry : batch) {
+                entry.rows = 0;
+                entry.error = null;
+                try {
+                    entry.rows = entry.mutation.toTask(target).run(conn);
+                } catch (SQLException e) {
+                    if (SQLiteConnectionPool.isBusy(e)) {
+                        throw e; // cała paczka do ponowienia
+                    }
+                    entry.error = e;
+                } catch (RuntimeException e) {
+                    entry.error = e;
+                }
+            }
+            if (checkpointName != null) {
+                PreparedStatement pstmt = conn.prepare("INSERT INTO write_behind_checkpoint(journal, applied_seq) "
+                        + "VALUES (?, ?) ON CONFLICT(journal) DO UPDATE SET applied_seq = excluded.applied_seq");
+                pstmt.setString(1, checkpointName);
+                pstmt.setLong(2, batch.get(batch.size() - 1).seq);
+                pstmt.executeUpdate();
+            }
+            return null;
+        });
+    }
+
+    // Zapisuje wszystko, co czeka, i zamyka dziennik (nie zamyka bazy).
+    @Override
+    public void close() {
+        synchronized (journalLock) {
+            if (closed) {
+                return;
+            }
+            closed = true; // pod journalLock – po tej chwili submit nic już nie doda
+        }
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (journal != null) {
+            try {
+                journal.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+}
@@ -0,0 +1,187 @@
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+
+/*
+  Klasa WriteBehindStudentManager – StudentManager z zapisem przez WriteBehindQueue.
+  - submitXxx – zgłoszenie zmiany bez czekania; future kończy się po zapisie w bazie
+    (tak wpisujemy tysiące ocen w sesji: jedna transakcja na paczkę zamiast COMMIT na każdą ocenę)
+  - metody StudentManager (addStudent, updateStudent, ...) zgłaszają zmianę i czekają na wynik,
+    więc zachowują się jak w StudentManagerImpl; updateGrades zgłasza wszystkie oceny naraz
+  - odczyty najpierw czekają na zapis zgłoszonych zmian (flush), żeby było widać własne zapisy
+*/
+
+public class WriteBehindStudentManager implements StudentManager, AutoCloseable {
+
+    private final StudentManagerImpl target;
+    private final WriteBehindQueue queue;
+
+    // Otwiera kolejkę zapisów (i dziennik z config, jeśli jest) przed podaną bazą.
+    public WriteBehindStudentManager(StudentManagerImpl target, WriteBehindConfig config) throws IOException {
+        this.target = target;
+        this.queue = new WriteBehindQueue(target, config);
+    }
+
+    public StudentManagerImpl getTarget() {
+        return target;
+    }
+
+    public WriteBehindQueue getQueue() {
+        return queue;
+    }
+
+    public CompletableFuture<Integer> submitAdd(Student student) {
+        return queue.submit(StudentMutation.add(student));
+    }
+
+    public CompletableFuture<Integer> submitUpdate(Student student) {
+        return queue.submit(StudentMutation.update(student));
+    }
+
+    public CompletableFuture<Integer> submitUpdateFields(String studentID, StudentChanges changes) {
+        return queue.submit(StudentMutation.updateFields(studentID, changes));
+    }
+
+    public CompletableFuture<Integer> submitUpdateGrade(String studentID, double grade) {
+        return queue.submit(StudentMutation.updateGrade(studentID, grade));
+    }
+
+    public CompletableFuture<Integer> submitRemove(String studentID) {
+        return queue.submit(StudentMutation.remove(studentID));
+    }
+
+    // Wynik zgłoszonej zmiany; błąd tej zmiany – jak w StudentManagerImpl: StudentStoreException
+    // (false / 0 znaczą "ID zajęte", "brak studenta" albo "ktoś zmienił studenta").
+    private static int awaitOrThrow(CompletableFuture<Integer> future, String what) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            throw new StudentStoreException(what + ": " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    @Override
+    public boolean addStudent(Student student) {
+        return awaitOrThrow(submitAdd(student), "Cannot add student " + student.getStudentID()) > 0;
+    }
+
+    // Import idzie prosto do bazy (własne paczki addStudents), po zapisaniu zgłoszonych zmian.
+    @Override
+    public ImportResult addStudents(Iterable<Student> students, ImportProgressListener listener) {
+        queue.flush();
+        return target.addStudents(students, listener);
+    }
+
+    @Override
+    public boolean studentExists(String studentID) {
+        queue.flush();
+        return target.studentExists(studentID);
+    }
+
+    @Override
+    public Student findStudent(String studentID) {
+        queue.flush();
+        return target.findStudent(studentID);
+    }
+
+    @Override
+    public boolean removeStudent(String studentID) {
+        return awaitOrThrow(submitRemove(studentID), "Cannot remove student " + studentID) > 0;
+    }
+
+    @Override
+    public int updateStudent(Student student) {
+        long version = student.getVersion();
+        int rows = awaitOrThrow(submitUpdate(student), "Cannot update student " + student.getStudentID());
+        if (rows > 0 && version > 0) {
+            student.setVersion(version + 1);
+        }
+        return rows;
+    }
+
+    @Override
+    public int updateFields(String studentID, StudentChanges changes) {
+        if (changes.isEmpty()) {
+            return 0;
+        }
+        return awaitOrThrow(submitUpdateFields(studentID, changes), "Cannot update student " + studentID);
+    }
+
+    @Override
+    public int updateGrades(Map<String, Double> gradesByID) {
+        List<CompletableFuture<Integer>> results = new ArrayList<>(gradesByID.size());
+        for (Map.Entry<String, Double> e : gradesByID.entrySet()) {
+            results.add(submitUpdateGrade(e.getKey(), e.getValue()));
+        }
+        int updated = 0;
+        for (CompletableFuture<Integer> result : results) {
+            updated += awaitOrThrow(result, "Cannot update grades");
+        }
+        return updated;
+    }
+
+    @Override
+    public ArrayList<Student> displayAllStudents() {
+        queue.flush();
+        return target.displayAllStudents();
+    }
+
+    @Override
+    public int countStudents() {
+        queue.flush();
+        return target.countStudents();
+    }
+
+    @Override
+    public List<Student> findStudentsAfter(String afterStudentID, int limit) {
+        queue.flush();
+        return target.findStudentsAfter(afterStudentID, limit);
+    }
+
+    @Override
+    public List<Student> findStudentsPage(int offset, int limit) {
+        queue.flush();
+        return target.findStudentsPage(offset, limit);
+    }
+
+    @Override
+    public List<Student> findStudents(StudentQuery query) {
+        queue.flush();
+        return target.findStudents(query);
+    }
+
+    @Override
+    public int countStudents(StudentQuery query) {
+        queue.flush();
+        return target.countStudents(query);
+    }
+
+    @Override
+    public void forEachStudent(int fetchSize, Consumer<Student> visitor) {
+        queue.flush();
+        target.forEachStudent(fetchSize, visitor);
+    }
+
+    @Override
+    public double calculateAverageGrade() {
+        queue.flush();
+        return target.calculateAverageGrade();
+    }
+
+    @Override
+    public GradeStatistics getGradeStatistics() {
+        queue.flush();
+        return target.getGradeStatistics();
+    }
+
+    // Zapis wszystkiego z kolejki, potem zamknięcie bazy.
+    @Override
+    public void close() {
+        queue.close();
+        target.close();
+    }
+}
@@ -0,0 +1,10 @@
+import java.sql.SQLException;
+
+// Interfejs WriteTask – zapis do bazy wykonywany na połączeniu zapisującym,
+// wewnątrz transakcji otwartej przez wywołującego (SQLiteConnectionPool.write albo
+// GroupCommitWriter). Zadanie nie zatwierdza ani nie wycofuje transakcji samo;
+// przy SQLITE_BUSY może zostać wykonane ponownie, więc nie zmienia niczego poza bazą.
+
+public interface WriteTask<T> {
+    T run(PooledConnection conn) throws SQLException;
+}
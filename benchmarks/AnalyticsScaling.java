@@ -0,0 +1,84 @@
+import java.io.File;
+import java.nio.file.Files;
+
+/*
+  Klasa AnalyticsScaling – czas raportu StudentAnalytics po kolei i równolegle
+  (1, 2, 4, ... wątków aż do liczby rdzeni albo -threads) oraz sprawdzenie, że wyniki są identyczne.
+  Uruchomienie (z katalogu głównego projektu):
+    mvn -Pbenchmarks package exec:exec -Dbench.main=AnalyticsScaling -Dbench.args="-rows 1000000"
+  Kod wyjścia 1, jeśli raport równoległy różni się od sekwencyjnego.
+*/
+
+public class AnalyticsScaling {
+
+    private static final int TOP_N = 10;
+
+    public static void main(String[] args) throws Exception {
+        int rows = 1_000_000;
+        int iterations = 3;
+        int maxThreads = Runtime.getRuntime().availableProcessors();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (args[i].equals("-rows")) {
+                rows = Integer.parseInt(args[i + 1]);
+            } else if (args[i].equals("-threads")) {
+                maxThreads = Integer.parseInt(args[i + 1]);
+            } else if (args[i].equals("-i")) {
+                iterations = Integer.parseInt(args[i + 1]);
+            } else {
+                throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+
+        File dir = Files.createTempDirectory("student-analytics").toFile();
+        File dbFile = new File(dir, "students.db");
+        SQLitePoolConfig config = new SQLitePoolConfig("jdbc:sqlite:" + dbFile.getAbsolutePath());
+        config.setMaxReaders(Math.max(2, maxThreads));
+        StudentManagerImpl manager = new StudentManagerImpl(new SQLiteConnectionPool(config));
+        manager.addStudents(StudentManagerBenchmark.generate(0, rows));
+
+        RosterStatistics expected = StudentAnalytics.analyze(manager, TOP_N);
+        double sequential = best(manager, 0, iterations);
+        System.out.printf("# %d students, %d cores%n", rows, Runtime.getRuntime().availableProcessors());
+        System.out.printf("%-12s %12s %10s %10s%n", "mode", "time [ms]", "speedup", "identical");
+        System.out.printf("%-12s %12.1f %10.2f %10s%n", "sequential", sequential, 1.0, "yes");
+
+        boolean allIdentical = true;
+        for (int threads = 1; threads <= maxThreads; threads = nextThreads(threads, maxThreads)) {
+            boolean identical = expected.equals(StudentAnalytics.analyzeParallel(manager, TOP_N, threads));
+            allIdentical &= identical;
+            double millis = best(manager, threads, iterations);
+            System.out.printf("%-12s %12.1f %10.2f %10s%n", "parallel-" + threads, millis,
+                    sequential / millis, identical ? "yes" : "NO");
+        }
+
+        System.out.println();
+        System.out.println(expected);
+
+        manager.close();
+        StudentManagerBenchmark.deleteDatabase(dbFile);
+        dir.delete();
+        if (!allIdentical) {
+            System.exit(1);
+        }
+    }
+
+    // 1, 2, 4, ... a na końcu zawsze maxThreads (np. 1, 2, 4, 6).
+    private static int nextThreads(int threads, int maxThreads) {
+        return threads < maxThreads ? Math.min(threads * 2, maxThreads) : maxThreads + 1;
+    }
+
+    // Najlepszy czas z kilku przebiegów (threads = 0 – po kolei).
+    private static double best(StudentManagerImpl manager, int threads, int iterations) {
+        double best = Double.MAX_VALUE;
+        for (int i = 0; i < iterations; i++) {
+            long start = System.nanoTime();
+            if (threads == 0) {
+                StudentAnalytics.analyze(manager, TOP_N);
+            } else {
+                StudentAnalytics.analyzeParallel(manager, TOP_N, threads);
+            }
+            best = Math.min(best, (System.nanoTime() - start) / 1e6);
+        }
+        return best;
+    }
+}
@@ -0,0 +1,232 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+  Klasa BenchmarkRunner – prosty mierzący "silnik" benchmarków (na wzór JMH).
+  - najpierw iteracje rozgrzewkowe (JIT, cache stron SQLite), potem pomiarowe
+  - każda iteracja wykonuje operację przez zadany czas i liczy ops/s
+  - dodatkowo mierzy alokację wątku (jak JMH -prof gc: gc.alloc.rate, gc.alloc.rate.norm)
+    i liczbę uruchomień GC
+  - wyniki zapisuje jako JSON w formacie JMH (-rf json), więc można je porównywać
+    tymi samymi narzędziami między wersjami
+  JMH nie obsługuje klas w pakiecie domyślnym, a cała aplikacja jest w pakiecie domyślnym,
+  dlatego benchmarki używają tego runnera zamiast JMH.
+*/
+
+public class BenchmarkRunner {
+
+    // Mierzona operacja; zwracany obiekt trafia do "czarnej dziury", żeby JIT go nie wyrzucił.
+    public interface Operation {
+        Object run() throws Exception;
+    }
+
+    // Wynik jednego benchmarku (jednego zestawu parametrów).
+    public static class Result {
+        final String benchmark;
+        final Map<String, String> params;
+        final double[] opsPerSecond;
+        final double[] allocRateMBps;
+        final double[] allocBytesPerOp;
+        final long gcCount;
+
+        Result(String benchmark, Map<String, String> params, double[] opsPerSecond,
+               double[] allocRateMBps, double[] allocBytesPerOp, long gcCount) {
+            this.benchmark = benchmark;
+            this.params = params;
+            this.opsPerSecond = opsPerSecond;
+            this.allocRateMBps = allocRateMBps;
+            this.allocBytesPerOp = allocBytesPerOp;
+            this.gcCount = gcCount;
+        }
+
+        public double getScore() {
+            return mean(opsPerSecond);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%-40s %-40s %14.3f +- %10.3f ops/s  %12.1f B/op",
+                    benchmark, params, mean(opsPerSecond), error(opsPerSecond), mean(allocBytesPerOp));
+        }
+    }
+
+    private final int warmupIterations;
+    private final int measurementIterations;
+    private final long iterationNanos;
+
+    // Wynik ostatniej operacji – volatile, żeby JIT nie mógł pominąć obliczeń.
+    private volatile Object sink;
+
+    private final com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    public BenchmarkRunner(int warmupIterations, int measurementIterations, long iterationMillis) {
+        this.warmupIterations = warmupIterations;
+        this.measurementIterations = measurementIterations;
+        this.iterationNanos = iterationMillis * 1_000_000;
+        threads.setThreadAllocatedMemoryEnabled(true);
+    }
+
+    // Uruchamia benchmark: rozgrzewka + pomiar; wypisuje przebieg w konsoli.
+    public Result run(String benchmark, Map<String, String> params, Operation op) throws Exception {
+        System.out.println("# Benchmark: " + benchmark + " " + params);
+        for (int i = 1; i <= warmupIterations; i++) {
+            double[] it = iteration(op);
+            System.out.printf("# Warmup Iteration %d: %.3f ops/s%n", i, it[0]);
+        }
+
+        double[] ops = new double[measurementIterations];
+        double[] rate = new double[measurementIterations];
+        double[] norm = new double[measurementIterations];
+        long gcBefore = gcCount();
+        for (int i = 0; i < measurementIterations; i++) {
+            double[] it = iteration(op);
+            ops[i] = it[0];
+            rate[i] = it[1];
+            norm[i] = it[2];
+            System.out.printf("Iteration %d: %.3f ops/s, %.1f B/op%n", i + 1, ops[i], norm[i]);
+        }
+        Result result = new Result(benchmark, params, ops, rate, norm, gcCount() - gcBefore);
+        System.out.println(result);
+        return result;
+    }
+
+    // Jedna iteracja: {ops/s, MB/s alokacji, bajty na operację}.
+    private double[] iteration(Operation op) throws Exception {
+        long tid = Thread.currentThread().getId();
+        long allocStart = threads.getThreadAllocatedBytes(tid);
+        long start = System.nanoTime();
+        long deadline = start + iterationNanos;
+        long count = 0;
+        long now;
+        do {
+            sink = op.run();
+            count++;
+            now = System.nanoTime();
+        } while (now < deadline);
+        long allocated = threads.getThreadAllocatedBytes(tid) - allocStart;
+        double seconds = (now - start) / 1e9;
+        return new double[] {
+            count / seconds,
+            allocated / 1024.0 / 1024.0 / seconds,
+            (double) allocated / count
+        };
+    }
+
+    private static long gcCount() {
+        long total = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(0, gc.getCollectionCount());
+        }
+        return total;
+    }
+
+    static double mean(double[] values) {
+        double s = 0.0;
+        for (double v : values) {
+            s += v;
+        }
+        return values.length == 0 ? 0.0 : s / values.length;
+    }
+
+    // Połowa przedziału ufności 99.9% (jak "scoreError" w JMH; przybliżenie rozkładem normalnym).
+    static double error(double[] values) {
+        if (values.length < 2) {
+            return Double.NaN;
+        }
+        double m = mean(values);
+        double sq = 0.0;
+        for (double v : values) {
+            sq += (v - m) * (v - m);
+        }
+        double sd = Math.sqrt(sq / (values.length - 1));
+        return 3.291 * sd / Math.sqrt(values.length);
+    }
+
+    // Zapis wyników w formacie JSON zgodnym z JMH (-rf json).
+    public static void writeJson(List<Result> results, File file) throws IOException {
+        try (PrintWriter out = new PrintWriter(new OutputStreamWriter(
+                Files.newOutputStream(file.toPath()), StandardCharsets.UTF_8))) {
+            out.println("[");
+            for (int r = 0; r < results.size(); r++) {
+                Result res = results.get(r);
+                out.println("    {");
+                out.println("        \"benchmark\" : " + quote(res.benchmark) + ",");
+                out.println("        \"mode\" : \"thrpt\",");
+                out.println("        \"jvm\" : " + quote(System.getProperty("java.home")) + ",");
+                out.println("        \"jdkVersion\" : " + quote(System.getProperty("java.version")) + ",");
+                out.println("        \"measurementIterations\" : " + res.opsPerSecond.length + ",");
+                out.println("        \"params\" : " + paramsJson(res.params) + ",");
+                out.println("        \"primaryMetric\" : " + metric(res.opsPerSecond, "ops/s") + ",");
+                out.println("        \"secondaryMetrics\" : {");
+                out.println("            \"gc.alloc.rate\" : " + metric(res.allocRateMBps, "MB/sec") + ",");
+                out.println("            \"gc.alloc.rate.norm\" : " + metric(res.allocBytesPerOp, "B/op") + ",");
+                out.println("            \"gc.count\" : " + metric(new double[] {res.gcCount}, "counts"));
+                out.println("        }");
+                out.println(r == results.size() - 1 ? "    }" : "    },");
+            }
+            out.println("]");
+        }
+    }
+
+    private static String metric(double[] values, String unit) {
+        StringBuilder raw = new StringBuilder("[[");
+        for (int i = 0; i < values.length; i++) {
+            raw.append(i == 0 ? "" : ", ").append(number(values[i]));
+        }
+        raw.append("]]");
+        return "{ \"score\" : " + number(mean(values))
+                + ", \"scoreError\" : " + number(error(values))
+                + ", \"scoreUnit\" : " + quote(unit)
+                + ", \"rawData\" : " + raw + " }";
+    }
+
+    private static String paramsJson(Map<String, String> params) {
+        if (params.isEmpty()) {
+            return "{ }";
+        }
+        StringBuilder sb = new StringBuilder("{ ");
+        boolean first = true;
+        for (Map.Entry<String, String> e : params.entrySet()) {
+            sb.append(first ? "" : ", ").append(quote(e.getKey())).append(" : ").append(quote(e.getValue()));
+            first = false;
+        }
+        return sb.append(" }").toString();
+    }
+
+    private static String number(double v) {
+        return Double.isNaN(v) || Double.isInfinite(v) ? "\"NaN\"" : Double.toString(v);
+    }
+
+    private static String quote(String s) {
+        return "\"" + s.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+
+    // Pomocnicza mapa parametrów: params("rows", "1000").
+    public static Map<String, String> params(String... keyValues) {
+        Map<String, String> map = new LinkedHashMap<>();
+        for (int i = 0; i + 1 < keyValues.length; i += 2) {
+            map.put(keyValues[i], keyValues[i + 1]);
+        }
+        return map;
+    }
+
+    // Lista liczb z argumentu typu "1000,100000".
+    public static List<Integer> intList(String csv) {
+        List<Integer> list = new ArrayList<>();
+        for (String part : csv.split(",")) {
+            list.add(Integer.parseInt(part.trim()));
+        }
+        return list;
+    }
+}
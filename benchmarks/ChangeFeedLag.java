@@ -0,0 +1,189 @@
+import java.io.File;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/*
+  Klasa ChangeFeedLag – kopia tabeli students w pamięci utrzymywana przez StudentChangeFeed
+  (jak cache albo indeks wyszukiwania), podczas gdy dane zmieniają się w stałym tempie:
+  - pierwsze wczytanie (getLatestSeq, displayAllStudents, subscribe od tego numeru)
+  - opóźnienie od COMMIT do onNext (p50 / p99 / max; changed_at w bazie ma dokładność 1 ms)
+  - dla porównania: koszt jednego pełnego odczytu tabeli (tak wyglądałoby sprawdzanie zmian
+    bez dziennika – opóźnienie to połowa odstępu między odczytami plus ten czas)
+  - koszt zapisu z wyzwalaczami change_log i bez nich (ta sama seria updateFields)
+  Na końcu kopia w pamięci musi być równa tabeli (kod wyjścia 1, jeśli nie jest).
+  Uruchomienie (z katalogu głównego projektu):
+    mvn -Pbenchmarks package exec:exec -Dbench.main=ChangeFeedLag -Dbench.args="-writes 10000 -rate 2000"
+*/
+
+public class ChangeFeedLag {
+
+    private static final double[] GRADES = {2.0, 3.0, 3.5, 4.0, 4.5, 5.0};
+    private static final String[] NAMES = {"Anna", "Jan", "Ola", "Piotr", "Zofia"};
+    private static final int ROWS = 50_000;
+
+    public static void main(String[] args) throws Exception {
+        int writes = 10_000;
+        int rate = 2_000;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (args[i].equals("-writes")) {
+                writes = Integer.parseInt(args[i + 1]);
+            } else if (args[i].equals("-rate")) {
+                rate = Integer.parseInt(args[i + 1]);
+            } else {
+                throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+
+        File dir = Files.createTempDirectory("student-change-feed").toFile();
+        File dbFile = new File(dir, "students.db");
+        StudentManagerImpl manager = StudentManagerBenchmark.createManager(dbFile);
+        manager.addStudents(StudentManagerBenchmark.generate(0, ROWS));
+
+        StudentChangeFeed feed = new StudentChangeFeed(manager);
+        Mirror mirror = new Mirror();
+        long start = System.nanoTime();
+        long latest = feed.getLatestSeq();
+        for (Student s : manager.displayAllStudents()) {
+            mirror.rows.put(s.getStudentID(), s);
+        }
+        feed.subscribe(latest, mirror);
+        System.out.printf("# initial load: %d students in %.1f ms (change log at #%d)%n", mirror.rows.size(),
+                (System.nanoTime() - start) / 1e6, latest);
+
+        // Zmiany w stałym tempie: 80% ocen, 10% nowych studentów, 10% usunięć.
+        System.out.printf("# %d changes at %d/s while the mirror follows the feed%n", writes, rate);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        StudentChanges changes = new StudentChanges();
+        int nextID = ROWS;
+        start = System.nanoTime();
+        for (int i = 0; i < writes; i++) {
+            long due = start + i * 1_000_000_000L / rate;
+            while (System.nanoTime() < due) {
+                Thread.yield();
+            }
+            int kind = random.nextInt(10);
+            if (kind == 0) {
+                manager.addStudent(new Student(NAMES[random.nextInt(NAMES.length)], 18 + random.nextInt(60),
+                        GRADES[random.nextInt(GRADES.length)], Integer.toString(nextID++)));
+            } else if (kind == 1) {
+                manager.removeStudent(Integer.toString(random.nextInt(nextID)));
+            } else {
+                changes.setGrade(GRADES[random.nextInt(GRADES.length)]);
+                manager.updateFields(Integer.toString(random.nextInt(nextID)), changes);
+            }
+        }
+        long target = feed.getLatestSeq();
+        if (!mirror.awaitPosition(target, 10_000)) {
+            System.out.println("# mirror did not catch up: at #" + mirror.position + " of #" + target);
+        }
+        System.out.printf("%-26s %10s %10s %10s %10s%n", "", "events", "p50 ms", "p99 ms", "max ms");
+        System.out.printf("%-26s %10d %10.1f %10.1f %10.1f%n", "feed lag (commit->onNext)", mirror.lag.getCount(),
+                mirror.lag.getPercentile(50) / 1e6, mirror.lag.getPercentile(99) / 1e6, mirror.lag.getMax() / 1e6);
+
+        LatencyHistogram poll = new LatencyHistogram();
+        for (int i = 0; i < 5; i++) {
+            long t = System.nanoTime();
+            manager.displayAllStudents();
+            poll.record(System.nanoTime() - t);
+        }
+        System.out.printf("# full re-read instead: %.1f ms and %d rows per poll (the feed read %d rows in total)%n",
+                poll.getPercentile(50) / 1e6, manager.countStudents(), mirror.lag.getCount());
+
+        boolean ok = mirror.error == null && sameAsTable(mirror.rows, manager.displayAllStudents());
+        System.out.println(ok ? "# mirror matches the table" : "# MIRROR DIFFERS FROM THE TABLE " + mirror.error);
+        feed.close();
+
+        triggerOverhead(manager, Math.min(writes, 5_000));
+        manager.close();
+        StudentManagerBenchmark.deleteDatabase(dbFile);
+        dir.delete();
+        if (!ok) {
+            System.exit(1);
+        }
+    }
+
+    // Seria updateFields z wyzwalaczami change_log i bez nich (wyzwalacze są usuwane – baza jest tymczasowa).
+    private static void triggerOverhead(StudentManagerImpl manager, int writes) throws Exception {
+        double with = updatesPerSecond(manager, writes);
+        manager.getPool().write(conn -> {
+            for (String trigger : new String[] {"change_log_insert", "change_log_update", "change_log_delete"}) {
+                conn.prepare("DROP TRIGGER " + trigger).execute();
+            }
+            return null;
+        });
+        double without = updatesPerSecond(manager, writes);
+        System.out.printf("# updateFields: %.0f/s with change_log triggers, %.0f/s without (%.1f%% slower)%n",
+                with, without, (1 - with / without) * 100);
+    }
+
+    private static double updatesPerSecond(StudentManagerImpl manager, int writes) {
+        StudentChanges changes = new StudentChanges();
+        long start = System.nanoTime();
+        for (int i = 0; i < writes; i++) {
+            changes.setGrade(GRADES[i % GRADES.length]);
+            manager.updateFields(Integer.toString(i % ROWS), changes);
+        }
+        return writes / ((System.nanoTime() - start) / 1e9);
+    }
+
+    private static boolean sameAsTable(Map<String, Student> rows, List<Student> table) {
+        if (rows.size() != table.size()) {
+            System.out.println("# mirror has " + rows.size() + " students, table " + table.size());
+            return false;
+        }
+        for (Student s : table) {
+            Student m = rows.get(s.getStudentID());
+            if (m == null || !m.getName().equals(s.getName()) || m.getAge() != s.getAge()
+                    || m.getGrade() != s.getGrade() || m.getVersion() != s.getVersion()) {
+                System.out.println("# student " + s.getStudentID() + " differs: " + m + " vs " + s);
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Kopia tabeli: obraz "after" zastępuje wiersz, REMOVE go usuwa.
+    private static final class Mirror implements StudentChangeFeed.Subscriber<StudentChange> {
+        final Map<String, Student> rows = new ConcurrentHashMap<>();
+        final LatencyHistogram lag = new LatencyHistogram();
+        volatile long position;
+        volatile Throwable error;
+
+        @Override
+        public void onSubscribe(StudentChangeFeed.Subscription subscription) {
+            subscription.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(StudentChange change) {
+            lag.record(Math.max(0, System.currentTimeMillis() - change.getChangedAtMillis()) * 1_000_000L);
+            if (change.getType() == StudentChange.Type.REMOVE) {
+                rows.remove(change.getStudentID());
+            } else {
+                rows.put(change.getStudentID(), change.getAfter());
+            }
+            position = change.getSeq();
+        }
+
+        @Override
+        public void onError(Throwable e) {
+            error = e;
+        }
+
+        @Override
+        public void onComplete() {
+        }
+
+        boolean awaitPosition(long seq, long timeoutMillis) throws InterruptedException {
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+            while (position < seq && error == null && System.nanoTime() < deadline) {
+                Thread.sleep(1);
+            }
+            return position >= seq;
+        }
+    }
+}
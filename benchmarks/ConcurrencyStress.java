@@ -0,0 +1,185 @@
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+  Klasa ConcurrencyStress – wiele wątków (i kilku "klientów" – osobnych pul na tym samym pliku)
+  pisze naraz do jednej bazy. Sprawdza:
+  1. duplikaty: wszystkie wątki próbują dodać te same ID – każde może się udać tylko raz
+  2. zgubione zmiany: wątki zmieniają tych samych studentów z kontrolą wersji (odczyt, zapis,
+     przy konflikcie od nowa) – suma wersji musi wzrosnąć dokładnie o liczbę udanych zapisów
+  3. przepustowość zapisu (updateFields) bez i z grupowym COMMIT (SQLitePoolConfig.setGroupCommit)
+  Uruchomienie (z katalogu głównego projektu):
+    mvn -Pbenchmarks package exec:exec -Dbench.main=ConcurrencyStress -Dbench.args="-threads 16 -clients 2"
+  Kod wyjścia 1, jeśli któreś sprawdzenie się nie powiodło.
+*/
+
+public class ConcurrencyStress {
+
+    private static final int ADD_IDS = 2_000;
+    private static final int HOT_STUDENTS = 20;
+    private static final int UPDATES_PER_THREAD = 200;
+
+    public static void main(String[] args) throws Exception {
+        int threads = 16;
+        int clients = 2;
+        int seconds = 5;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (args[i].equals("-threads")) {
+                threads = Integer.parseInt(args[i + 1]);
+            } else if (args[i].equals("-clients")) {
+                clients = Integer.parseInt(args[i + 1]);
+            } else if (args[i].equals("-time")) {
+                seconds = Integer.parseInt(args[i + 1]);
+            } else {
+                throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+
+        File dir = Files.createTempDirectory("student-stress").toFile();
+        File dbFile = new File(dir, "students.db");
+        boolean ok = true;
+
+        for (boolean groupCommit : new boolean[] {false, true}) {
+            StudentManagerBenchmark.deleteDatabase(dbFile);
+            StudentManagerImpl[] managers = open(dbFile, clients, groupCommit);
+            System.out.println("# " + threads + " threads, " + clients + " clients, group commit "
+                    + (groupCommit ? "on" : "off"));
+            ok &= duplicates(managers, threads);
+            ok &= lostUpdates(managers, threads);
+            throughput(managers, threads, seconds);
+            long retries = 0;
+            for (StudentManagerImpl m : managers) {
+                retries += m.getPoolMetrics().getWriteRetries();
+                m.close();
+            }
+            System.out.println("  busy retries: " + retries);
+            System.out.println();
+        }
+
+        StudentManagerBenchmark.deleteDatabase(dbFile);
+        dir.delete();
+        System.out.println(ok ? "# OK" : "# FAILED");
+        if (!ok) {
+            System.exit(1);
+        }
+    }
+
+    private static StudentManagerImpl[] open(File dbFile, int clients, boolean groupCommit) {
+        StudentManagerImpl[] managers = new StudentManagerImpl[clients];
+        for (int i = 0; i < clients; i++) {
+            SQLitePoolConfig config = new SQLitePoolConfig("jdbc:sqlite:" + dbFile.getAbsolutePath());
+            config.setGroupCommit(groupCommit);
+            managers[i] = new StudentManagerImpl(new SQLiteConnectionPool(config));
+        }
+        return managers;
+    }
+
+    // Uruchamia body w threads wątkach naraz i czeka na wszystkie.
+    private static void parallel(int threads, ThreadBody body) throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+        final Throwable[] failure = new Throwable[1];
+        for (int t = 0; t < threads; t++) {
+            final int index = t;
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                    body.run(index);
+                } catch (Throwable e) {
+                    failure[0] = e;
+                }
+            });
+            worker.start();
+            workers.add(worker);
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        if (failure[0] != null) {
+            throw new IllegalStateException(failure[0]);
+        }
+    }
+
+    private interface ThreadBody {
+        void run(int thread) throws Exception;
+    }
+
+    // 1. Każde ID dodaje każdy wątek – dokładnie jedno addStudent może zwrócić true.
+    private static boolean duplicates(StudentManagerImpl[] managers, int threads) throws InterruptedException {
+        AtomicLong added = new AtomicLong();
+        parallel(threads, t -> {
+            StudentManager m = managers[t % managers.length];
+            for (int i = 0; i < ADD_IDS; i++) {
+                int id = (i + t * 7) % ADD_IDS; // różna kolejność w każdym wątku
+                if (m.addStudent(new Student("Student", 20, 4.0, Integer.toString(id)))) {
+                    added.incrementAndGet();
+                }
+            }
+        });
+        int count = managers[0].countStudents();
+        boolean ok = added.get() == ADD_IDS && count == ADD_IDS;
+        System.out.printf("  duplicates:   %d adds succeeded, %d rows (expected %d) %s%n",
+                added.get(), count, ADD_IDS, ok ? "OK" : "FAILED");
+        return ok;
+    }
+
+    // 2. Odczyt, zmiana oceny z kontrolą wersji, przy konflikcie – od nowa.
+    private static boolean lostUpdates(StudentManagerImpl[] managers, int threads) throws InterruptedException {
+        long before = versionSum(managers[0]);
+        AtomicLong conflicts = new AtomicLong();
+        parallel(threads, t -> {
+            StudentManager m = managers[t % managers.length];
+            Random random = new Random(t);
+            for (int done = 0; done < UPDATES_PER_THREAD; ) {
+                Student s = m.findStudent(Integer.toString(random.nextInt(HOT_STUDENTS)));
+                s.setGrade(s.getGrade() == 5.0 ? 2.0 : 5.0);
+                if (m.updateStudent(s) == 1) {
+                    done++;
+                } else {
+                    conflicts.incrementAndGet();
+                }
+            }
+        });
+        long expected = (long) threads * UPDATES_PER_THREAD;
+        long grown = versionSum(managers[0]) - before;
+        boolean ok = grown == expected;
+        System.out.printf("  lost updates: %d versions added for %d writes (%d conflicts retried) %s%n",
+                grown, expected, conflicts.get(), ok ? "OK" : "FAILED");
+        return ok;
+    }
+
+    private static long versionSum(StudentManager m) {
+        long sum = 0;
+        for (int i = 0; i < HOT_STUDENTS; i++) {
+            sum += m.findStudent(Integer.toString(i)).getVersion();
+        }
+        return sum;
+    }
+
+    // 3. Zapisy bez kontroli wersji przez podany czas – zapisów na sekundę.
+    private static void throughput(StudentManagerImpl[] managers, int threads, int seconds)
+            throws InterruptedException {
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        AtomicLong writes = new AtomicLong();
+        long start = System.nanoTime();
+        parallel(threads, t -> {
+            StudentManager m = managers[t % managers.length];
+            Random random = new Random(t);
+            StudentChanges changes = new StudentChanges();
+            while (System.nanoTime() < deadline) {
+                changes.setGrade(random.nextBoolean() ? 3.0 : 4.5);
+                if (m.updateFields(Integer.toString(random.nextInt(ADD_IDS)), changes) == 1) {
+                    writes.incrementAndGet();
+                }
+            }
+        });
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        System.out.printf("  throughput:   %.0f writes/s%n", writes.get() / elapsed);
+    }
+}
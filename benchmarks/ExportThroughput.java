@@ -0,0 +1,170 @@
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+  Klasa ExportThroughput – eksport studentów (StudentExporter) z bazy z -rows studentami:
+  - każdy format (CSV, JSON Lines, COLUMNAR) bez i z gzip: wiersze/s, MB/s (dane przed kompresją),
+    rozmiar pliku
+  - eksport z filtrem (ocena i wiek) – tylko pasujące wiersze, z indeksem
+  - pamięć: największa zajętość sterty po GC w trakcie eksportu 10% i 100% wierszy oraz, dla
+    porównania, w trakcie displayAllStudents – eksport ma zajmować tyle samo niezależnie od liczby wierszy
+  Imiona z puli 5000 różnych (jak w MemoryFootprint).
+  Uruchomienie (z katalogu głównego projektu):
+    mvn -Pbenchmarks package exec:exec -Dbench.main=ExportThroughput -Dbench.args="-rows 1000000"
+*/
+
+public class ExportThroughput {
+
+    private static final double[] GRADES = {2.0, 3.0, 3.5, 4.0, 4.5, 5.0};
+    private static final int DISTINCT_NAMES = 5000;
+
+    // Zapobiega usunięciu mierzonych danych przez GC przed pomiarem
+    private static Object keep;
+
+    public static void main(String[] args) throws Exception {
+        int rows = 1_000_000;
+        int fetchSize = 1_000;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "-rows":
+                    rows = Integer.parseInt(args[i + 1]);
+                    break;
+                case "-fetch":
+                    fetchSize = Integer.parseInt(args[i + 1]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+
+        final int fetch = fetchSize;
+        File dir = Files.createTempDirectory("student-export").toFile();
+        File dbFile = new File(dir, "students.db");
+        StudentManagerImpl db = StudentManagerBenchmark.createManager(dbFile);
+        db.addStudents(students(rows));
+
+        System.out.printf("# %d students, fetch size %d%n", rows, fetchSize);
+        System.out.printf("%-10s %5s %10s %10s %10s %8s %12s %8s%n", "format", "gzip", "rows", "MB", "file MB",
+                "ms", "rows/s", "MB/s");
+        // Pierwszy eksport rozgrzewa JIT i pamięć podręczną SQLite
+        export(db, StudentExporter.Format.CSV, false, null, fetchSize, new File(dir, "warmup.csv"));
+        for (StudentExporter.Format format : StudentExporter.Format.values()) {
+            for (boolean gzip : new boolean[] {false, true}) {
+                File file = new File(dir, "students." + format.name().toLowerCase() + (gzip ? ".gz" : ""));
+                print(format.name(), gzip, export(db, format, gzip, null, fetchSize, file));
+                file.delete();
+            }
+        }
+        StudentQuery filter = new StudentQuery();
+        filter.setMinGrade(4.5);
+        filter.setMinAge(20);
+        filter.setMaxAge(25);
+        File filtered = new File(dir, "filtered.csv");
+        System.out.println("# filter: grade >= 4.5, age 20-25");
+        print("CSV", false, export(db, StudentExporter.Format.CSV, false, filter, fetchSize,
+                filtered));
+        filtered.delete();
+
+        System.out.printf("%n%-36s %10s %16s%n", "# memory", "rows", "max live heap MB");
+        StudentQuery tenth = new StudentQuery();
+        tenth.setMaxAge(23); // wiek 18–23 – 6 z 60 roczników
+        for (StudentQuery q : new StudentQuery[] {tenth, null}) {
+            File file = new File(dir, "memory.csv");
+            long[] exported = new long[1];
+            long live = maxLiveHeap(() -> exported[0] = export(db, StudentExporter.Format.CSV, false, q, fetch,
+                    file).getRows());
+            System.out.printf("%-36s %10d %16.1f%n", "export CSV" + (q != null ? " (age <= 23)" : ""), exported[0],
+                    live / 1e6);
+            file.delete();
+        }
+        long live = maxLiveHeap(() -> keep = db.displayAllStudents());
+        System.out.printf("%-36s %10d %16.1f%n", "displayAllStudents (for comparison)", ((List<?>) keep).size(),
+                live / 1e6);
+        keep = null;
+
+        new File(dir, "warmup.csv").delete();
+        db.close();
+        StudentManagerBenchmark.deleteDatabase(dbFile);
+        dir.delete();
+    }
+
+    private interface Task {
+        void run() throws Exception;
+    }
+
+    private static ExportResult export(StudentManagerImpl db, StudentExporter.Format format, boolean gzip,
+                                       StudentQuery filter, int fetchSize, File file) throws Exception {
+        StudentExporter exporter = new StudentExporter(db);
+        exporter.setFormat(format);
+        exporter.setGzip(gzip);
+        exporter.setFilter(filter);
+        exporter.setFetchSize(fetchSize);
+        return exporter.export(file);
+    }
+
+    private static void print(String label, boolean gzip, ExportResult r) {
+        System.out.printf("%-10s %5s %10d %10.1f %10.1f %8d %12.0f %8.1f%n", label, gzip ? "yes" : "no", r.getRows(),
+                r.getBytes() / (1024.0 * 1024), r.getFileBytes() / (1024.0 * 1024), r.getElapsedMillis(),
+                r.getRowsPerSecond(), r.getMegabytesPerSecond());
+    }
+
+    // Największa zajętość sterty po GC (co 200 ms w osobnym wątku) w trakcie task, ponad stan początkowy.
+    private static long maxLiveHeap(Task task) throws Exception {
+        long base = usedAfterGc();
+        AtomicLong max = new AtomicLong();
+        AtomicBoolean running = new AtomicBoolean(true);
+        Thread sampler = new Thread(() -> {
+            while (running.get()) {
+                max.accumulateAndGet(usedAfterGc() - base, Math::max);
+                try {
+                    Thread.sleep(200);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }, "heap-sampler");
+        sampler.start();
+        try {
+            task.run();
+            // Wynik zadania (np. lista) też się liczy – pomiar jeszcze raz, zanim go zwolnimy
+            max.accumulateAndGet(usedAfterGc() - base, Math::max);
+        } finally {
+            running.set(false);
+            sampler.join();
+        }
+        return Math.max(0, max.get());
+    }
+
+    private static long usedAfterGc() {
+        System.gc();
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    // Studenci 0..rows-1 generowani w locie; imię z puli, wiek 18–77, ocena po kolei.
+    private static Iterable<Student> students(final int rows) {
+        return () -> new Iterator<Student>() {
+            private int next;
+
+            @Override
+            public boolean hasNext() {
+                return next < rows;
+            }
+
+            @Override
+            public Student next() {
+                int i = next++;
+                int n = (int) ((i * 2654435761L) % DISTINCT_NAMES);
+                StringBuilder name = new StringBuilder("N");
+                for (int k = n; k > 0; k /= 26) {
+                    name.append((char) ('a' + k % 26));
+                }
+                return new Student(name.toString(), 18 + i % 60, GRADES[i % GRADES.length], Integer.toString(i));
+            }
+        };
+    }
+}
@@ -0,0 +1,321 @@
+import java.io.File;
+import java.nio.file.Files;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+/*
+  Klasa GradeHistoryBenchmark – historia ocen (GradeHistory) na bazie z -rows studentami, w której
+  -updates zmian ocen przychodzi w -rounds rundach (updateGrades); po każdej rundzie zapamiętujemy czas
+  i stan ocen w pamięci (wzorzec do sprawdzania):
+  - statystyki ocen w chwili po każdej rundzie: punkt kontrolny + zmiany od niego (p50 / max)
+    i, dla porównania, zapytanie po całej historii (ostatni wiersz każdego studenta przed chwilą X)
+  - ocena jednego studenta w dowolnej chwili, oceny wszystkich w chwili X
+  - prune: usunięcie starszej połowy historii i ponowne sprawdzenie zapytań o późniejsze chwile
+  - zapis magazynu kolumnowego (ColumnarStudentManager.saveTo, jak przy wyjściu z GUI): bez zmian nie
+    dopisuje do historii nic, przy k zmianach ocen dokładnie k wierszy
+  - koszt zapisu z wyzwalaczami grade_history i bez nich (ta sama seria updateFields)
+  Każdy wynik musi zgadzać się ze wzorcem (kod wyjścia 1, jeśli nie).
+  Uruchomienie (z katalogu głównego projektu):
+    mvn -Pbenchmarks package exec:exec -Dbench.main=GradeHistoryBenchmark -Dbench.args="-rows 100000 -updates 1000000"
+*/
+
+public class GradeHistoryBenchmark {
+
+    private static final int[] CODES = {4, 6, 7, 8, 9, 10};
+
+    // Zapytanie bez punktów kontrolnych – przegląd całej historii do chwili X
+    private static final String FULL_SCAN_SQL = "SELECT grade_code, COUNT(*) FROM ("
+            + "SELECT grade_code, MAX(id) FROM grade_history WHERE valid_from <= ? GROUP BY studentID) "
+            + "WHERE grade_code IS NOT NULL GROUP BY grade_code";
+
+    private static boolean ok = true;
+
+    public static void main(String[] args) throws Exception {
+        int rows = 100_000;
+        int updates = 1_000_000;
+        int rounds = 20;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "-rows":
+                    rows = Integer.parseInt(args[i + 1]);
+                    break;
+                case "-updates":
+                    updates = Integer.parseInt(args[i + 1]);
+                    break;
+                case "-rounds":
+                    rounds = Integer.parseInt(args[i + 1]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+
+        File dir = Files.createTempDirectory("student-grade-history").toFile();
+        File dbFile = new File(dir, "students.db");
+        StudentManagerImpl db = StudentManagerBenchmark.createManager(dbFile);
+        db.addStudents(StudentManagerBenchmark.generate(0, rows));
+        GradeHistory history = new GradeHistory(db);
+
+        // Wzorzec: kod oceny każdego studenta (generate: ocena i % 6) i stan po każdej rundzie
+        int[] codes = new int[rows];
+        for (int i = 0; i < rows; i++) {
+            codes[i] = CODES[i % CODES.length];
+        }
+        long[] times = new long[rounds + 1];
+        GradeStatistics[] expected = new GradeStatistics[rounds + 1];
+        Map<Integer, int[]> kept = new TreeMap<>(); // pełne stany dla kilku rund (oceny wszystkich)
+        times[0] = mark();
+        expected[0] = statistics(codes);
+        kept.put(0, codes.clone());
+
+        Random random = new Random(42);
+        int perRound = updates / rounds;
+        long writeNanos = 0;
+        for (int round = 1; round <= rounds; round++) {
+            Map<String, Double> batch = new HashMap<>();
+            for (int i = 0; i < perRound; i++) {
+                int id = random.nextInt(rows);
+                int code = CODES[random.nextInt(CODES.length)];
+                codes[id] = code;
+                batch.put(Integer.toString(id), StudentManagerImpl.gradeFromCode(code));
+                if (batch.size() == 10_000) {
+                    writeNanos += updateGrades(db, batch);
+                }
+            }
+            writeNanos += updateGrades(db, batch);
+            times[round] = mark();
+            expected[round] = statistics(codes);
+            if (round == rounds / 2 || round == rounds) {
+                kept.put(round, codes.clone());
+            }
+        }
+        long historyRows = history.countHistoryRows();
+        System.out.printf("# %d students, %d grade updates in %d rounds: %.0f updates/s, %d history rows%n",
+                rows, updates, rounds, updates / (writeNanos / 1e9), historyRows);
+
+        // Statystyki w chwili po każdej rundzie (pierwszy przebieg rozgrzewa JIT i pamięć podręczną SQLite)
+        for (long time : times) {
+            history.getGradeStatisticsAsOf(time);
+        }
+        double[] millis = new double[rounds + 1];
+        for (int round = 0; round <= rounds; round++) {
+            long start = System.nanoTime();
+            GradeStatistics stats = history.getGradeStatisticsAsOf(times[round]);
+            millis[round] = (System.nanoTime() - start) / 1e6;
+            check("statistics as of round " + round, stats.equals(expected[round]));
+        }
+        double[] sorted = millis.clone();
+        Arrays.sort(sorted);
+        System.out.printf("# statistics as of X (checkpoint + replay): p50 %.2f ms, max %.2f ms over %d points%n",
+                sorted[sorted.length / 2], sorted[sorted.length - 1], sorted.length);
+        for (int round : new int[] {0, rounds}) {
+            long start = System.nanoTime();
+            GradeStatistics stats = fullScan(db, times[round]);
+            double ms = (System.nanoTime() - start) / 1e6;
+            check("full scan as of round " + round, stats.equals(expected[round]));
+            System.out.printf("# full history scan as of round %d: %.1f ms%n", round, ms);
+        }
+
+        // Ocena jednego studenta i oceny wszystkich
+        int lookups = 10_000;
+        int[] middle = kept.get(rounds / 2);
+        long start = System.nanoTime();
+        for (int i = 0; i < lookups; i++) {
+            int id = random.nextInt(rows);
+            Double grade = history.getGradeAsOf(Integer.toString(id), times[rounds / 2]);
+            if (grade == null || StudentManagerImpl.gradeCode(grade) != middle[id]) {
+                check("grade of " + id + " as of round " + rounds / 2, false);
+                break;
+            }
+        }
+        System.out.printf("# grade of one student as of X: %.3f ms%n", (System.nanoTime() - start) / 1e6 / lookups);
+        for (Map.Entry<Integer, int[]> e : kept.entrySet()) {
+            start = System.nanoTime();
+            Map<String, Double> grades = history.getGradesAsOf(times[e.getKey()]);
+            double ms = (System.nanoTime() - start) / 1e6;
+            check("grades as of round " + e.getKey(), sameGrades(grades, e.getValue()));
+            System.out.printf("# grades of all students as of round %d: %.0f ms%n", e.getKey(), ms);
+        }
+
+        // Usunięcie starszej połowy historii
+        start = System.nanoTime();
+        int pruned = history.prune(times[rounds / 2] + 1);
+        System.out.printf("# prune before round %d: %d rows in %.0f ms, %d left%n", rounds / 2, pruned,
+                (System.nanoTime() - start) / 1e6, history.countHistoryRows());
+        for (int round = rounds / 2; round <= rounds; round++) {
+            check("statistics as of round " + round + " after prune",
+                    history.getGradeStatisticsAsOf(times[round]).equals(expected[round]));
+        }
+        check("grades as of round " + rounds / 2 + " after prune",
+                sameGrades(history.getGradesAsOf(times[rounds / 2]), middle));
+        try {
+            history.getGradeStatisticsAsOf(times[0]);
+            check("query before pruned history rejected", false);
+        } catch (IllegalArgumentException expectedError) {
+            // historia sprzed prune nie jest już dostępna
+        }
+
+        columnarSave(db, history, codes);
+        triggerOverhead(db, rows, 5_000);
+        history.close();
+        db.close();
+        StudentManagerBenchmark.deleteDatabase(dbFile);
+        dir.delete();
+        if (!ok) {
+            System.exit(1);
+        }
+    }
+
+    private static long updateGrades(StudentManagerImpl db, Map<String, Double> batch) {
+        long start = System.nanoTime();
+        db.updateGrades(batch);
+        batch.clear();
+        return System.nanoTime() - start;
+    }
+
+    // Czas "po rundzie": zapisy rundy mają valid_from mniejszy, następnej – większy (dokładność 1 ms).
+    private static long mark() throws InterruptedException {
+        Thread.sleep(2);
+        long time = System.currentTimeMillis();
+        Thread.sleep(2);
+        return time;
+    }
+
+    private static GradeStatistics statistics(int[] codes) {
+        long[] counts = new long[11];
+        for (int code : codes) {
+            counts[code]++;
+        }
+        Map<Double, Long> histogram = new HashMap<>();
+        for (int code : CODES) {
+            histogram.put(StudentManagerImpl.gradeFromCode(code), counts[code]);
+        }
+        return new GradeStatistics(histogram);
+    }
+
+    private static GradeStatistics fullScan(StudentManagerImpl db, long time) throws Exception {
+        Map<Double, Long> histogram = new HashMap<>();
+        try (PooledConnection conn = db.getPool().reader()) {
+            PreparedStatement pstmt = conn.prepare(FULL_SCAN_SQL);
+            pstmt.setLong(1, time);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    histogram.put(StudentManagerImpl.gradeFromCode(rs.getInt(1)), rs.getLong(2));
+                }
+            }
+        }
+        return new GradeStatistics(histogram);
+    }
+
+    private static boolean sameGrades(Map<String, Double> grades, int[] codes) {
+        if (grades.size() != codes.length) {
+            return false;
+        }
+        for (Map.Entry<String, Double> e : grades.entrySet()) {
+            if (StudentManagerImpl.gradeCode(e.getValue()) != codes[Integer.parseInt(e.getKey())]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void check(String what, boolean passed) {
+        if (!passed) {
+            System.out.println("# MISMATCH: " + what);
+            ok = false;
+        }
+    }
+
+    // Magazyn kolumnowy wczytany z bazy i zapisany z powrotem: zapis bez zmian nie może dopisać nic do
+    // historii (pełne przepisanie tabeli dopisałoby wiersz za każdego studenta), k zmian ocen – k wierszy.
+    private static void columnarSave(StudentManagerImpl db, GradeHistory history, int[] codes) throws Exception {
+        ColumnarStudentManager store = ColumnarStudentManager.loadFrom(db, false);
+        long before = history.countHistoryRows();
+        long start = System.nanoTime();
+        int conflicts = store.saveTo(db);
+        double unchangedMs = (System.nanoTime() - start) / 1e6;
+        check("columnar save without changes", conflicts == 0 && history.countHistoryRows() == before);
+
+        // Co n-ty student dostaje następną ocenę z listy (zawsze inną niż obecna)
+        int changed = Math.min(1_000, codes.length);
+        Map<String, Double> batch = new HashMap<>();
+        for (int i = 0; i < changed; i++) {
+            int id = i * (codes.length / changed);
+            int next = CODES[(Arrays.binarySearch(CODES, codes[id]) + 1) % CODES.length];
+            codes[id] = next;
+            batch.put(Integer.toString(id), StudentManagerImpl.gradeFromCode(next));
+        }
+        store.updateGrades(batch);
+        start = System.nanoTime();
+        conflicts = store.saveTo(db);
+        double changedMs = (System.nanoTime() - start) / 1e6;
+        check("columnar save of " + changed + " grade changes", conflicts == 0
+                && history.countHistoryRows() == before + changed);
+        check("statistics after columnar save", db.getGradeStatistics().equals(statistics(codes)));
+        System.out.printf("# columnar save: %.0f ms without changes, %.0f ms for %d grade changes "
+                + "(%d history rows added)%n", unchangedMs, changedMs, changed, history.countHistoryRows() - before);
+    }
+
+    // Seria updateFields z wyzwalaczami grade_history i bez nich, na zmianę po 3 razy (najlepszy wynik;
+    // pojedyncze serie bardzo się różnią). Wyzwalacze są usuwane i tworzone od nowa – baza jest tymczasowa.
+    private static void triggerOverhead(StudentManagerImpl db, int rows, int writes) throws Exception {
+        List<String> triggers = db.getPool().write(conn -> {
+            List<String> sql = new ArrayList<>();
+            try (ResultSet rs = conn.prepare("SELECT sql FROM sqlite_master WHERE type = 'trigger' "
+                    + "AND tbl_name = 'students' AND name LIKE 'grade_history%'").executeQuery()) {
+                while (rs.next()) {
+                    sql.add(rs.getString(1));
+                }
+            }
+            return sql;
+        });
+        double with = 0;
+        double without = 0;
+        for (int run = 0; run < 3; run++) {
+            with = Math.max(with, updatesPerSecond(db, rows, writes));
+            setTriggers(db, triggers, false);
+            without = Math.max(without, updatesPerSecond(db, rows, writes));
+            setTriggers(db, triggers, true);
+        }
+        System.out.printf("# updateFields: %.0f/s with grade_history triggers, %.0f/s without (%.1f%% slower)%n",
+                with, without, (1 - with / without) * 100);
+    }
+
+    private static void setTriggers(StudentManagerImpl db, List<String> triggers, boolean enabled)
+            throws Exception {
+        db.getPool().write(conn -> {
+            try (Statement stmt = conn.getConnection().createStatement()) {
+                for (String sql : triggers) {
+                    if (enabled) {
+                        stmt.execute(sql);
+                    } else {
+                        stmt.execute("DROP TRIGGER " + sql.replaceFirst("(?s)^CREATE TRIGGER (\\w+).*", "$1"));
+                    }
+                }
+            }
+            return null;
+        });
+    }
+
+    private static double updatesPerSecond(StudentManagerImpl db, int rows, int writes) {
+        List<String> ids = new ArrayList<>(writes);
+        for (int i = 0; i < writes; i++) {
+            ids.add(Integer.toString(i * 7 % rows));
+        }
+        StudentChanges changes = new StudentChanges();
+        long start = System.nanoTime();
+        for (int i = 0; i < writes; i++) {
+            changes.setGrade(StudentManagerImpl.gradeFromCode(CODES[i % CODES.length]));
+            db.updateFields(ids.get(i), changes);
+        }
+        return writes / ((System.nanoTime() - start) / 1e9);
+    }
+}
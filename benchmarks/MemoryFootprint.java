@@ -0,0 +1,116 @@
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+  Klasa MemoryFootprint – ile pamięci zajmuje N studentów:
+  - jako obiekty Student na liście (tak jak zwraca displayAllStudents)
+  - w ColumnarStudentManager na stercie i poza stertą (bufory direct)
+  Imiona z puli 5000 różnych (jak w prawdziwym roczniku – imiona się powtarzają),
+  ale w modelu obiektowym każdy wiersz ma własny String (tak jak po odczycie z bazy).
+  Uruchomienie (z katalogu głównego projektu):
+    mvn -Pbenchmarks package exec:exec -Dbench.main=MemoryFootprint -Dbench.args="-rows 1000000"
+*/
+
+public class MemoryFootprint {
+
+    private static final double[] GRADES = {2.0, 3.0, 3.5, 4.0, 4.5, 5.0};
+    private static final int DISTINCT_NAMES = 5000;
+
+    // Zapobiega usunięciu mierzonych danych przez GC przed pomiarem
+    private static Object keep;
+
+    public static void main(String[] args) {
+        int rows = 1_000_000;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (args[i].equals("-rows")) {
+                rows = Integer.parseInt(args[i + 1]);
+            } else {
+                throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+
+        System.out.printf("%-28s %14s %14s %12s%n", "# " + rows + " students", "heap [B]", "direct [B]", "B/student");
+
+        long heap0 = usedHeap();
+        long direct0 = directMemory();
+        List<Student> objects = new ArrayList<>();
+        for (int i = 0; i < rows; i++) {
+            objects.add(student(i));
+        }
+        keep = objects;
+        report("Student objects (ArrayList)", rows, heap0, direct0);
+        objects = null;
+        keep = null;
+
+        for (boolean offHeap : new boolean[] {false, true}) {
+            heap0 = usedHeap();
+            direct0 = directMemory();
+            ColumnarStudentManager store = new ColumnarStudentManager(offHeap);
+            List<Student> chunk = new ArrayList<>(10_000);
+            for (int i = 0; i < rows; i++) {
+                chunk.add(student(i));
+                if (chunk.size() == 10_000 || i == rows - 1) {
+                    store.addStudents(chunk);
+                    chunk.clear();
+                }
+            }
+            store.countStudents(new StudentQuery()); // bez zmian – sama pętla po kolumnach
+            store.findStudentsPage(0, 1);            // buduje kolejność po ID (też zajmuje pamięć)
+            chunk = null;
+            keep = store;
+            report(offHeap ? "Columnar (off-heap)" : "Columnar (heap)", rows, heap0, direct0);
+            System.out.printf("%-28s %14d %14s %12.1f%n", "  getMemoryFootprint()",
+                    store.getMemoryFootprint(), "", (double) store.getMemoryFootprint() / rows);
+            keep = null;
+        }
+    }
+
+    // Student z własnymi obiektami String (jak po odczycie z ResultSet).
+    private static Student student(int i) {
+        return new Student(new String(name(i % DISTINCT_NAMES)), 18 + i % 60,
+                GRADES[i % GRADES.length], Integer.toString(i));
+    }
+
+    // Imię z liter: numer zapisany w systemie 26-kowym ("Ba", "Bb", ...).
+    private static String name(int n) {
+        StringBuilder sb = new StringBuilder("B");
+        do {
+            sb.append((char) ('a' + n % 26));
+            n /= 26;
+        } while (n > 0);
+        return sb.toString();
+    }
+
+    private static void report(String label, int rows, long heap0, long direct0) {
+        long heap = usedHeap() - heap0;
+        long direct = directMemory() - direct0;
+        System.out.printf("%-28s %14d %14d %12.1f%n", label, heap, direct, (double) (heap + direct) / rows);
+    }
+
+    // Zajęta sterta po kilku GC (przybliżenie – System.gc() to tylko prośba).
+    private static long usedHeap() {
+        Runtime rt = Runtime.getRuntime();
+        long used = Long.MAX_VALUE;
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            used = Math.min(used, rt.totalMemory() - rt.freeMemory());
+        }
+        return used;
+    }
+
+    private static long directMemory() {
+        for (BufferPoolMXBean pool : ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class)) {
+            if (pool.getName().equals("direct")) {
+                return pool.getMemoryUsed();
+            }
+        }
+        return 0;
+    }
+}
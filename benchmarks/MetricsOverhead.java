@@ -0,0 +1,117 @@
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Random;
+
+/*
+  Klasa MetricsOverhead – ile kosztują metryki (StudentMetrics) na typowym obciążeniu:
+  findStudent, strona findStudentsAfter, findStudents, updateFields – na tej samej bazie
+  raz bez metryk (SQLitePoolConfig.setMetricsEnabled(false)), raz z pomiarem zapytań SQL
+  i InstrumentedStudentManager. Przebiegi na przemian, liczy się najlepszy czas każdej wersji.
+  Na końcu koszt samego LatencyHistogram.record.
+  Uruchomienie (z katalogu głównego projektu):
+    mvn -Pbenchmarks package exec:exec -Dbench.main=MetricsOverhead -Dbench.args="-rows 100000"
+*/
+
+public class MetricsOverhead {
+
+    private static final int OPS_PER_ROUND = 20_000;
+
+    public static void main(String[] args) throws Exception {
+        int rows = 100_000;
+        int rounds = 5;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (args[i].equals("-rows")) {
+                rows = Integer.parseInt(args[i + 1]);
+            } else if (args[i].equals("-i")) {
+                rounds = Integer.parseInt(args[i + 1]);
+            } else {
+                throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+
+        File dir = Files.createTempDirectory("student-metrics").toFile();
+        File dbFile = new File(dir, "students.db");
+        StudentManagerImpl setup = StudentManagerBenchmark.createManager(dbFile);
+        setup.addStudents(StudentManagerBenchmark.generate(0, rows));
+        setup.close();
+
+        StudentManager plain = open(dbFile, false);
+        StudentManagerImpl measured = open(dbFile, true);
+        StudentManager instrumented = new InstrumentedStudentManager(measured, measured.getMetrics());
+
+        double plainBest = Double.MAX_VALUE;
+        double instrumentedBest = Double.MAX_VALUE;
+        for (int round = 0; round <= rounds; round++) {
+            double p = run(plain, rows, round);
+            double m = run(instrumented, rows, round);
+            if (round > 0) { // przebieg 0 – rozgrzewka
+                plainBest = Math.min(plainBest, p);
+                instrumentedBest = Math.min(instrumentedBest, m);
+            }
+        }
+
+        System.out.printf("# %d students, %d operations per round, best of %d rounds%n", rows, OPS_PER_ROUND, rounds);
+        System.out.printf("%-14s %14s%n", "metrics", "us/op");
+        System.out.printf("%-14s %14.2f%n", "off", plainBest);
+        System.out.printf("%-14s %14.2f%n", "on", instrumentedBest);
+        System.out.printf("# overhead: %.1f%%%n", 100.0 * (instrumentedBest - plainBest) / plainBest);
+        System.out.printf("# LatencyHistogram.record: %.1f ns/op%n", recordCost());
+        System.out.println();
+        System.out.println(measured.getMetrics().toText());
+
+        ((StudentManagerImpl) plain).close();
+        measured.close();
+        StudentManagerBenchmark.deleteDatabase(dbFile);
+        dir.delete();
+    }
+
+    private static StudentManagerImpl open(File dbFile, boolean metrics) {
+        SQLitePoolConfig config = new SQLitePoolConfig("jdbc:sqlite:" + dbFile.getAbsolutePath());
+        config.setMetricsEnabled(metrics);
+        return new StudentManagerImpl(new SQLiteConnectionPool(config));
+    }
+
+    // Średni czas jednej operacji (w mikrosekundach) dla mieszanki odczytów i zapisów.
+    private static double run(StudentManager manager, int rows, int round) {
+        Random random = new Random(round);
+        StudentQuery query = new StudentQuery();
+        query.setMinAge(30);
+        query.setMaxAge(31);
+        query.setLimit(20);
+        StudentChanges changes = new StudentChanges();
+        changes.setGrade(4.0);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < OPS_PER_ROUND; i++) {
+            String id = Integer.toString(random.nextInt(rows));
+            switch (i % 10) {
+                case 0:
+                    manager.findStudentsAfter(id, 50);
+                    break;
+                case 1:
+                    manager.findStudents(query);
+                    break;
+                case 2:
+                    manager.updateFields(id, changes);
+                    break;
+                default:
+                    manager.findStudent(id);
+                    break;
+            }
+        }
+        return (System.nanoTime() - start) / 1000.0 / OPS_PER_ROUND;
+    }
+
+    private static double recordCost() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        int n = 10_000_000;
+        for (int i = 0; i < n; i++) { // rozgrzewka
+            histogram.record(i & 0xFFFFF);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < n; i++) {
+            histogram.record(i & 0xFFFFF);
+        }
+        return (System.nanoTime() - start) / (double) n;
+    }
+}
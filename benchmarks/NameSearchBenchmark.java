@@ -0,0 +1,192 @@
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/*
+  Klasa NameSearchBenchmark – wyszukiwanie przy pisaniu (NameSearchIndex) na dużej bazie:
+  - baza z -rows studentami (domyślnie 1 000 000), imiona z puli -names różnych imion złożonych
+    z sylab, częstość nierówna (jak prawdziwe imiona – kilka bardzo popularnych, wiele rzadkich)
+  - czas wczytania indeksu (follow – liczności imion z bazy) i pamięć, którą zajmuje
+  - "pisanie": -words słów wpisywanych litera po literze, a po każdej literze wyszukiwanie jak w GUI;
+    słowa to istniejące imiona, imiona z literówką i fragmenty ze środka imienia
+  - czas na jedno naciśnięcie klawisza: sam indeks (search) i razem z pobraniem 20 studentów z bazy
+    (findStudents – to widzi użytkownik), p50 / p99 / max; cel: p99 < 10 ms (inaczej kod wyjścia 1)
+  - po jakim czasie nowy student jest widoczny w wynikach (zmiana przez StudentChangeFeed)
+  Uruchomienie (z katalogu głównego projektu):
+    mvn -Pbenchmarks package exec:exec -Dbench.main=NameSearchBenchmark -Dbench.args="-rows 1000000"
+*/
+
+public class NameSearchBenchmark {
+
+    private static final String[] SYLLABLES = {
+            "an", "na", "ma", "ra", "ka", "ta", "ja", "la", "el", "ol", "mi", "ni", "ri", "li", "zo",
+            "ba", "be", "da", "de", "go", "ha", "is", "ko", "lu", "mo", "no", "pe", "sa", "to", "wi"
+    };
+    private static final double[] GRADES = {2.0, 3.0, 3.5, 4.0, 4.5, 5.0};
+    private static final int LIMIT = 20;
+
+    public static void main(String[] args) throws Exception {
+        int rows = 1_000_000;
+        int nameCount = 100_000;
+        int words = 300;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "-rows":
+                    rows = Integer.parseInt(args[i + 1]);
+                    break;
+                case "-names":
+                    nameCount = Integer.parseInt(args[i + 1]);
+                    break;
+                case "-words":
+                    words = Integer.parseInt(args[i + 1]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+
+        String[] names = names(nameCount, new Random(7));
+        File dir = Files.createTempDirectory("name-search").toFile();
+        File dbFile = new File(dir, "students.db");
+        StudentManagerImpl db = StudentManagerBenchmark.createManager(dbFile);
+        long start = System.nanoTime();
+        db.addStudents(students(names, rows, new Random(11)));
+        System.out.printf("# %d students, %d names in pool, generated in %.1f s%n", rows, names.length,
+                (System.nanoTime() - start) / 1e9);
+
+        long heapBefore = usedHeap();
+        start = System.nanoTime();
+        NameSearchIndex index = new NameSearchIndex();
+        index.follow(db);
+        long loadNanos = System.nanoTime() - start;
+        long heapAfter = usedHeap();
+        System.out.printf("index: %d names, %d students, loaded in %.0f ms, ~%.1f MB heap%n",
+                index.getNameCount(), index.getStudentCount(), loadNanos / 1e6, (heapAfter - heapBefore) / 1e6);
+
+        Random random = new Random(3);
+        List<String> typed = new ArrayList<>();
+        for (int i = 0; i < words; i++) {
+            typed.add(word(names, random));
+        }
+        // Rozgrzewka (JIT, pamięć podręczna SQLite) – poza pomiarem
+        for (int i = 0; i < Math.min(50, typed.size()); i++) {
+            type(index, db, typed.get(i), null, null);
+        }
+        LatencyHistogram searchOnly = new LatencyHistogram();
+        LatencyHistogram withStudents = new LatencyHistogram();
+        for (String word : typed) {
+            type(index, db, word, searchOnly, withStudents);
+        }
+        System.out.printf("%-22s %10s %10s %10s %10s%n", "per keystroke", "count", "p50 ms", "p99 ms", "max ms");
+        print("search (index)", searchOnly);
+        print("search + 20 students", withStudents);
+        boolean fastEnough = withStudents.getPercentile(99) < 10_000_000;
+        System.out.printf("p99 with students < 10 ms: %s%n", fastEnough ? "yes" : "NO");
+
+        // Nowe imię w bazie -> widoczne w wyszukiwaniu (StudentChangeFeed)
+        String fresh = "Qwxyzqw";
+        start = System.nanoTime();
+        db.addStudent(new Student(fresh, 20, 4.0, Integer.toString(rows + 1)));
+        while (index.search(fresh, 1).isEmpty()) {
+            Thread.sleep(1);
+        }
+        System.out.printf("new student searchable after %.1f ms%n", (System.nanoTime() - start) / 1e6);
+
+        index.close();
+        db.close();
+        StudentManagerBenchmark.deleteDatabase(dbFile);
+        dir.delete();
+        if (!fastEnough) {
+            System.exit(1);
+        }
+    }
+
+    // Wpisywanie słowa litera po literze; histogramy null – bez pomiaru.
+    private static void type(NameSearchIndex index, StudentManager db, String word, LatencyHistogram searchOnly,
+                             LatencyHistogram withStudents) {
+        for (int n = 1; n <= word.length(); n++) {
+            String text = word.substring(0, n);
+            long start = System.nanoTime();
+            index.search(text, LIMIT);
+            long middle = System.nanoTime();
+            index.findStudents(db, text, LIMIT);
+            long end = System.nanoTime();
+            if (searchOnly != null) {
+                searchOnly.record(middle - start);
+                withStudents.record(end - middle);
+            }
+        }
+    }
+
+    private static void print(String label, LatencyHistogram h) {
+        System.out.printf("%-22s %10d %10.2f %10.2f %10.2f%n", label, h.getCount(), h.getPercentile(50) / 1e6,
+                h.getPercentile(99) / 1e6, h.getMax() / 1e6);
+    }
+
+    // Pula różnych imion z 2–4 sylab (Imię z wielkiej litery).
+    private static String[] names(int count, Random random) {
+        Set<String> unique = new LinkedHashSet<>();
+        while (unique.size() < count) {
+            int syllables = 2 + random.nextInt(3);
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < syllables; i++) {
+                sb.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+            }
+            sb.setCharAt(0, Character.toUpperCase(sb.charAt(0)));
+            unique.add(sb.toString());
+        }
+        return unique.toArray(new String[0]);
+    }
+
+    // Imię o nierównej częstości: początek puli dużo częściej niż koniec.
+    private static String pick(String[] names, Random random) {
+        double r = random.nextDouble();
+        return names[(int) (names.length * r * r * r)];
+    }
+
+    // Słowo do wpisania: połowa – imię, ćwierć – imię z literówką, ćwierć – fragment imienia.
+    private static String word(String[] names, Random random) {
+        String name = names[random.nextInt(names.length)].toLowerCase();
+        int kind = random.nextInt(4);
+        if (kind == 2) {
+            char[] chars = name.toCharArray();
+            chars[1 + random.nextInt(chars.length - 1)] = (char) ('a' + random.nextInt(26));
+            return new String(chars);
+        }
+        if (kind == 3 && name.length() > 4) {
+            return name.substring(1, name.length() - 1);
+        }
+        return name;
+    }
+
+    private static Iterable<Student> students(final String[] names, final int rows, final Random random) {
+        return () -> new Iterator<Student>() {
+            private int next;
+
+            @Override
+            public boolean hasNext() {
+                return next < rows;
+            }
+
+            @Override
+            public Student next() {
+                int i = next++;
+                return new Student(pick(names, random), 18 + i % 60, GRADES[i % GRADES.length], Integer.toString(i));
+            }
+        };
+    }
+
+    private static long usedHeap() throws InterruptedException {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(50);
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,65 @@
+import java.io.File;
+import java.nio.file.Files;
+import java.util.List;
+
+/*
+  Klasa QueryPlanCheck – sprawdza (EXPLAIN QUERY PLAN), czy każdy rodzaj zapytania
+  StudentManager.findStudents korzysta z indeksu, a nie przegląda całej tabeli.
+  Sprawdza wszystkie połączenia warunków (imię / wiek / ocena) z każdym sortowaniem.
+  Uruchomienie (z katalogu głównego projektu):
+    mvn -Pbenchmarks package exec:exec -Dbench.main=QueryPlanCheck
+  Kod wyjścia 1, jeśli któreś zapytanie nie używa indeksu.
+*/
+
+public class QueryPlanCheck {
+
+    public static void main(String[] args) throws Exception {
+        File dir = Files.createTempDirectory("student-plan").toFile();
+        File dbFile = new File(dir, "students.db");
+        StudentManagerImpl manager = StudentManagerBenchmark.createManager(dbFile);
+        manager.addStudents(StudentManagerBenchmark.generate(0, 10_000));
+
+        int failures = 0;
+        int shapes = 0;
+        for (int filters = 0; filters < 8; filters++) {
+            for (StudentQuery.SortBy sortBy : StudentQuery.SortBy.values()) {
+                for (boolean descending : new boolean[] {false, true}) {
+                    StudentQuery query = new StudentQuery();
+                    if ((filters & 1) != 0) {
+                        query.setNamePrefix("Stu");
+                    }
+                    if ((filters & 2) != 0) {
+                        query.setMinAge(20);
+                        query.setMaxAge(25);
+                    }
+                    if ((filters & 4) != 0) {
+                        query.setMinGrade(4.5);
+                    }
+                    query.setSortBy(sortBy);
+                    query.setDescending(descending);
+
+                    List<String> plan = manager.explainQuery(query);
+                    boolean ok = manager.usesIndex(query);
+                    shapes++;
+                    if (!ok) {
+                        failures++;
+                    }
+                    System.out.println((ok ? "OK    " : "SCAN  ") + query);
+                    for (String step : plan) {
+                        System.out.println("        " + step);
+                    }
+                }
+            }
+        }
+
+        manager.close();
+        StudentManagerBenchmark.deleteDatabase(dbFile);
+        dir.delete();
+
+        System.out.println();
+        System.out.println("# " + (shapes - failures) + " of " + shapes + " query shapes use an index");
+        if (failures > 0) {
+            System.exit(1);
+        }
+    }
+}
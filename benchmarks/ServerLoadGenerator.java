@@ -0,0 +1,158 @@
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+  Klasa ServerLoadGenerator – obciążenie StudentServer przez RemoteStudentManager na localhost:
+  kilka połączeń, każde z depth żądaniami w drodze naraz (pipelining), żądanie to jedna operacja
+  albo paczka batch operacji (newBatch). Operacje: 80% findStudent, 20% updateFields (ocena).
+  Wynik dla każdego ustawienia: operacji na sekundę, żądań (podróży do serwera) na sekundę
+  i czas odpowiedzi na żądanie p50 / p99 / p99.9.
+  Bez -port serwer startuje w tym procesie na tymczasowej bazie z -rows studentami.
+  Uruchomienie (z katalogu głównego projektu):
+    mvn -Pbenchmarks package exec:exec -Dbench.main=ServerLoadGenerator -Dbench.args="-connections 4 -time 3000"
+  Własne ustawienia: -depth 1,16 -batch 1,50 (wszystkie połączenia depth x batch).
+*/
+
+public class ServerLoadGenerator {
+
+    private static final double[] GRADES = {2.0, 3.0, 3.5, 4.0, 4.5, 5.0};
+
+    public static void main(String[] args) throws Exception {
+        int connections = 4;
+        long timeMillis = 3000;
+        int rows = 100_000;
+        String host = "localhost";
+        int port = -1;
+        String[] depths = {"1", "16"};
+        String[] batches = {"1", "50"};
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "-connections":
+                    connections = Integer.parseInt(args[i + 1]);
+                    break;
+                case "-time":
+                    timeMillis = Long.parseLong(args[i + 1]);
+                    break;
+                case "-rows":
+                    rows = Integer.parseInt(args[i + 1]);
+                    break;
+                case "-host":
+                    host = args[i + 1];
+                    break;
+                case "-port":
+                    port = Integer.parseInt(args[i + 1]);
+                    break;
+                case "-depth":
+                    depths = args[i + 1].split(",");
+                    break;
+                case "-batch":
+                    batches = args[i + 1].split(",");
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+
+        File dir = null;
+        File dbFile = null;
+        StudentManagerImpl local = null;
+        StudentServer server = null;
+        if (port < 0) {
+            dir = Files.createTempDirectory("student-server").toFile();
+            dbFile = new File(dir, "students.db");
+            local = StudentManagerBenchmark.createManager(dbFile);
+            local.addStudents(StudentManagerBenchmark.generate(0, rows));
+            server = new StudentServer(local, 0);
+            port = server.getPort();
+        }
+
+        System.out.printf("# %s:%d, %d connections, %d ms per setting, %d students%n", host, port, connections,
+                timeMillis, rows);
+        System.out.printf("%6s %6s %12s %12s %10s %10s %10s%n", "depth", "batch", "ops/s", "requests/s",
+                "p50 us", "p99 us", "p99.9 us");
+        for (String depth : depths) {
+            for (String batch : batches) {
+                run(host, port, connections, Integer.parseInt(depth.trim()), Integer.parseInt(batch.trim()), rows,
+                        timeMillis);
+            }
+        }
+
+        if (server != null) {
+            server.close();
+            local.close();
+            StudentManagerBenchmark.deleteDatabase(dbFile);
+            dir.delete();
+        }
+    }
+
+    private static void run(String host, int port, int connections, int depth, int batch, int rows,
+                            long timeMillis) throws Exception {
+        LatencyHistogram latency = new LatencyHistogram();
+        AtomicLong requests = new AtomicLong();
+        List<Thread> clients = new ArrayList<>();
+        List<RemoteStudentManager> remotes = new ArrayList<>();
+        long deadline = System.nanoTime() + timeMillis * 1_000_000;
+        for (int c = 0; c < connections; c++) {
+            RemoteStudentManager remote = RemoteStudentManager.connect(host, port);
+            remotes.add(remote);
+            Thread client = new Thread(() -> {
+                Semaphore inFlight = new Semaphore(depth);
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while (System.nanoTime() < deadline) {
+                    inFlight.acquireUninterruptibly();
+                    long start = System.nanoTime();
+                    CompletableFuture<?> done;
+                    if (batch == 1) {
+                        done = operation(remote, null, random, rows);
+                    } else {
+                        RemoteStudentManager.Batch b = remote.newBatch();
+                        for (int i = 0; i < batch; i++) {
+                            operation(remote, b, random, rows);
+                        }
+                        done = b.send();
+                    }
+                    done.whenComplete((result, error) -> {
+                        // LatencyHistogram nie jest bezpieczny dla wielu wątków – odpowiedzi jednego
+                        // połączenia kończy jeden wątek, ale połączeń jest kilka
+                        synchronized (latency) {
+                            latency.record(System.nanoTime() - start);
+                        }
+                        requests.incrementAndGet();
+                        inFlight.release();
+                    });
+                }
+                inFlight.acquireUninterruptibly(depth);
+            });
+            clients.add(client);
+            client.start();
+        }
+        for (Thread client : clients) {
+            client.join();
+        }
+        for (RemoteStudentManager remote : remotes) {
+            remote.close();
+        }
+        double seconds = timeMillis / 1000.0;
+        System.out.printf("%6d %6d %12.0f %12.0f %10.0f %10.0f %10.0f%n", depth, batch,
+                requests.get() * batch / seconds, requests.get() / seconds, latency.getPercentile(50) / 1000.0,
+                latency.getPercentile(99) / 1000.0, latency.getPercentile(99.9) / 1000.0);
+    }
+
+    // 80% findStudent, 20% updateFields; b != null – operacja dopisywana do paczki.
+    private static CompletableFuture<?> operation(RemoteStudentManager remote, RemoteStudentManager.Batch b,
+                                                  ThreadLocalRandom random, int rows) {
+        String id = Integer.toString(random.nextInt(rows));
+        if (random.nextInt(5) > 0) {
+            return b != null ? b.findStudent(id) : remote.findStudentAsync(id);
+        }
+        StudentChanges changes = new StudentChanges();
+        changes.setGrade(GRADES[random.nextInt(GRADES.length)]);
+        return b != null ? b.updateFields(id, changes) : remote.updateFieldsAsync(id, changes);
+    }
+}
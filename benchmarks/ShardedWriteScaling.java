@@ -0,0 +1,156 @@
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+  Klasa ShardedWriteScaling – zapisy z wielu wątków (updateFields losowych studentów) do
+  ShardedStudentManager z 1, 2, 4, ... plikami: zapisów na sekundę i czas displayAllStudents /
+  calculateAverageGrade (pytanie wszystkich części naraz). Jeden plik to jedna blokada zapisu,
+  więc przy kilku plikach zapisy do różnych części idą równolegle (najwięcej widać przy
+  synchronous FULL, gdy każdy COMMIT czeka na fsync, i na maszynie z kilkoma rdzeniami / dyskami).
+  Na końcu rebalance z N na N+2 części i z powrotem: czas, liczba przeniesionych studentów
+  i sprawdzenie, że lista studentów się nie zmieniła (kod wyjścia 1, jeśli się zmieniła).
+  Uruchomienie (z katalogu głównego projektu):
+    mvn -Pbenchmarks package exec:exec -Dbench.main=ShardedWriteScaling -Dbench.args="-threads 8 -shards 1,2,4,8"
+*/
+
+public class ShardedWriteScaling {
+
+    private static final double[] GRADES = {2.0, 3.0, 3.5, 4.0, 4.5, 5.0};
+
+    public static void main(String[] args) throws Exception {
+        int threads = 8;
+        int rows = 100_000;
+        long timeMillis = 3000;
+        String synchronous = "FULL";
+        String[] shardCounts = {"1", "2", "4", "8"};
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "-threads":
+                    threads = Integer.parseInt(args[i + 1]);
+                    break;
+                case "-rows":
+                    rows = Integer.parseInt(args[i + 1]);
+                    break;
+                case "-time":
+                    timeMillis = Long.parseLong(args[i + 1]);
+                    break;
+                case "-synchronous":
+                    synchronous = args[i + 1];
+                    break;
+                case "-shards":
+                    shardCounts = args[i + 1].split(",");
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+
+        System.out.printf("# %d threads, updateFields for %d ms, %d students, synchronous=%s, %d cores%n",
+                threads, timeMillis, rows, synchronous, Runtime.getRuntime().availableProcessors());
+        System.out.printf("%8s %12s %14s %14s%n", "shards", "writes/s", "displayAll ms", "average ms");
+        boolean ok = true;
+        for (String count : shardCounts) {
+            int shardCount = Integer.parseInt(count.trim());
+            File dir = Files.createTempDirectory("student-shards").toFile();
+            ShardedStudentManager manager = open(dir, shardCount, synchronous);
+            manager.addStudents(StudentManagerBenchmark.generate(0, rows));
+
+            double writes = writesPerSecond(manager, threads, rows, timeMillis);
+            long start = System.nanoTime();
+            manager.displayAllStudents();
+            double listMillis = (System.nanoTime() - start) / 1e6;
+            start = System.nanoTime();
+            manager.calculateAverageGrade();
+            double averageMillis = (System.nanoTime() - start) / 1e6;
+            System.out.printf("%8d %12.0f %14.1f %14.2f%n", shardCount, writes, listMillis, averageMillis);
+
+            if (count.equals(shardCounts[shardCounts.length - 1])) {
+                ok = rebalanceCheck(manager, dir, shardCount, synchronous);
+            }
+            manager.close();
+            for (int i = 0; i < shardCount + 2; i++) {
+                StudentManagerBenchmark.deleteDatabase(new File(dir, "students-" + i + ".db"));
+            }
+            dir.delete();
+        }
+        if (!ok) {
+            System.exit(1);
+        }
+    }
+
+    private static ShardedStudentManager open(File dir, int shardCount, String synchronous) {
+        List<StudentManagerImpl> shards = new ArrayList<>(shardCount);
+        for (int i = 0; i < shardCount; i++) {
+            shards.add(shard(dir, i, synchronous));
+        }
+        return new ShardedStudentManager(shards);
+    }
+
+    // Część w pliku dir/students-i.db z własnym ustawieniem synchronous.
+    private static StudentManagerImpl shard(File dir, int index, String synchronous) {
+        SQLitePoolConfig config = new SQLitePoolConfig(
+                "jdbc:sqlite:" + new File(dir, "students-" + index + ".db").getAbsolutePath());
+        config.setPragma("synchronous", synchronous);
+        return new StudentManagerImpl(new SQLiteConnectionPool(config));
+    }
+
+    private static double writesPerSecond(ShardedStudentManager manager, int threads, int rows, long timeMillis)
+            throws InterruptedException {
+        AtomicLong writes = new AtomicLong();
+        long deadline = System.nanoTime() + timeMillis * 1_000_000;
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Thread worker = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                StudentChanges changes = new StudentChanges();
+                long done = 0;
+                while (System.nanoTime() < deadline) {
+                    changes.setGrade(GRADES[random.nextInt(GRADES.length)]);
+                    done += manager.updateFields(Integer.toString(random.nextInt(rows)), changes);
+                }
+                writes.addAndGet(done);
+            });
+            workers.add(worker);
+            worker.start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        return writes.get() / (timeMillis / 1000.0);
+    }
+
+    // Rebalance na shardCount + 2 części i z powrotem; lista studentów musi zostać ta sama.
+    private static boolean rebalanceCheck(ShardedStudentManager manager, File dir, int shardCount,
+                                          String synchronous) throws Exception {
+        String before = fingerprint(manager.displayAllStudents());
+        boolean ok = true;
+        for (int target : new int[] {shardCount + 2, shardCount}) {
+            int from = manager.getShardCount();
+            List<StudentManagerImpl> shards = new ArrayList<>(manager.getShards().subList(0, Math.min(from, target)));
+            while (shards.size() < target) {
+                shards.add(shard(dir, shards.size(), synchronous));
+            }
+            long start = System.nanoTime();
+            long moved = manager.rebalance(shards);
+            double millis = (System.nanoTime() - start) / 1e6;
+            boolean same = before.equals(fingerprint(manager.displayAllStudents()));
+            System.out.printf("# rebalance %d -> %d shards: %d students moved in %.0f ms, list %s%n",
+                    from, target, moved, millis, same ? "unchanged" : "CHANGED");
+            ok &= same;
+        }
+        return ok;
+    }
+
+    private static String fingerprint(List<Student> students) {
+        StringBuilder sb = new StringBuilder();
+        for (Student s : students) {
+            sb.append(s.getStudentID()).append(',').append(s.getName()).append(',').append(s.getAge()).append(',')
+                    .append(s.getGrade()).append(',').append(s.getVersion()).append(';');
+        }
+        return sb.toString();
+    }
+}
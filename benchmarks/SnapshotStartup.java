@@ -0,0 +1,94 @@
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Random;
+
+/*
+  Klasa SnapshotStartup – czas "startu" (otwarcie + pierwsza strona + statystyki),
+  odczytu całej listy (displayAllStudents – przycisk Display) i wyszukiwania po ID – sama baza SQLite kontra SnapshotStudentManager (plik StudentSnapshot).
+  Uruchomienie (z katalogu głównego projektu):
+    mvn -Pbenchmarks package exec:exec -Dbench.main=SnapshotStartup -Dbench.args="-rows 1000000"
+*/
+
+public class SnapshotStartup {
+
+    private static final int LOOKUPS = 100_000;
+    private static final int PAGE = 100;
+
+    public static void main(String[] args) throws Exception {
+        int rows = 1_000_000;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (args[i].equals("-rows")) {
+                rows = Integer.parseInt(args[i + 1]);
+            } else {
+                throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+
+        File dir = Files.createTempDirectory("student-snapshot").toFile();
+        File dbFile = new File(dir, "students.db");
+        File snapFile = new File(dir, "students.snap");
+        StudentManagerImpl manager = StudentManagerBenchmark.createManager(dbFile);
+        manager.addStudents(StudentManagerBenchmark.generate(0, rows));
+
+        long start = System.nanoTime();
+        StudentSnapshot.export(manager, snapFile);
+        System.out.printf("# %d students, snapshot %d B, export %.1f ms%n",
+                rows, snapFile.length(), (System.nanoTime() - start) / 1e6);
+        manager.close();
+
+        System.out.printf("%-10s %14s %18s %18s%n", "source", "startup [ms]", "display all [ms]", "lookup [ns/op]");
+
+        // SQLite: nowe połączenie, pierwsza strona tabeli, statystyki
+        start = System.nanoTime();
+        StudentManagerImpl sqlite = StudentManagerBenchmark.createManager(dbFile);
+        sqlite.findStudentsPage(0, PAGE);
+        sqlite.getGradeStatistics();
+        double sqliteStartup = (System.nanoTime() - start) / 1e6;
+        report("sqlite", sqliteStartup, displayAll(sqlite), lookups(sqlite, rows));
+
+        // Snapshot: to samo, ale z zmapowanego pliku (sprawdzenie sumy kontrolnej wliczone)
+        start = System.nanoTime();
+        SnapshotStudentManager snapshot = new SnapshotStudentManager(sqlite, snapFile);
+        snapshot.findStudentsPage(0, PAGE);
+        snapshot.getGradeStatistics();
+        double snapshotStartup = (System.nanoTime() - start) / 1e6;
+        if (!snapshot.isSnapshotActive()) {
+            throw new IllegalStateException("Snapshot was not used");
+        }
+        report("snapshot", snapshotStartup, displayAll(snapshot), lookups(snapshot, rows));
+
+        snapshot.close();
+        snapFile.delete();
+        StudentManagerBenchmark.deleteDatabase(dbFile);
+        dir.delete();
+    }
+
+    private static double displayAll(StudentManager manager) {
+        long start = System.nanoTime();
+        if (manager.displayAllStudents().isEmpty()) {
+            throw new IllegalStateException("No students found");
+        }
+        return (System.nanoTime() - start) / 1e6;
+    }
+
+    // Średni czas findStudent dla losowych ID (część ID nie istnieje).
+    private static double lookups(StudentManager manager, int rows) {
+        Random random = new Random(42);
+        int found = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < LOOKUPS; i++) {
+            if (manager.findStudent(Integer.toString(random.nextInt(rows + rows / 10))) != null) {
+                found++;
+            }
+        }
+        double nanos = (System.nanoTime() - start) / (double) LOOKUPS;
+        if (found == 0) {
+            throw new IllegalStateException("No students found");
+        }
+        return nanos;
+    }
+
+    private static void report(String source, double startupMillis, double displayMillis, double lookupNanos) {
+        System.out.printf("%-10s %14.1f %18.1f %18.0f%n", source, startupMillis, displayMillis, lookupNanos);
+    }
+}
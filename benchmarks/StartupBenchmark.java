@@ -0,0 +1,247 @@
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.stream.Stream;
+
+/*
+  Klasa StartupBenchmark – start programu w osobnej JVM (jak uruchomienie StudentGUI, ale bez okna):
+  StudentStartup otwiera bazę students.db z -rows studentami, potem pierwsze kliknięcia przez
+  AsyncStudentManager jak w oknie – Display (liczba studentów i pierwsza strona) i Average.
+  Warianty, każdy -runs razy (mediana):
+  - bez rozgrzewki (pierwsze kliknięcia płacą za otwarcie połączeń, przygotowanie zapytań, zimny JIT)
+  - z rozgrzewką (StudentStartup.warmUp)
+  - z rozgrzewką i AppCDS (archiwum klas programu z -XX:ArchiveClassesAtExit, potem
+    -XX:SharedArchiveFile); wymaga JDK 13+, na starszej JVM wariant jest pomijany
+  - jak wyżej i biblioteka natywna SQLite rozpakowana raz (-Dorg.sqlite.lib.path) – bez tego
+    sterownik rozpakowuje ją z JAR-a przy każdym starcie
+  Wszystkie warianty z klasami w JAR-ach (AppCDS nie przyjmuje katalogów w classpath).
+  Kolumny: JVM -> main, main -> manager / ready (ms), pierwszy Display i Average (ms),
+  od uruchomienia JVM do wyniku pierwszego Display (ms). Pamięć podręczna systemu jest ciepła
+  (ten sam plik w każdym przebiegu) – zimny dysk widać tylko przy pierwszym uruchomieniu po restarcie.
+  Uruchomienie (z katalogu głównego projektu):
+    mvn -Pbenchmarks package exec:exec -Dbench.main=StartupBenchmark -Dbench.args="-rows 200000 -runs 5"
+*/
+
+public class StartupBenchmark {
+
+    private static final String PROBE = "-probe";
+    private static final String[] PHASES = {"manager", "ready", "display", "average"};
+
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && args[0].equals(PROBE)) {
+            probe(Boolean.parseBoolean(args[1]));
+            return;
+        }
+        int rows = 200_000;
+        int runs = 5;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "-rows":
+                    rows = Integer.parseInt(args[i + 1]);
+                    break;
+                case "-runs":
+                    runs = Integer.parseInt(args[i + 1]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+
+        File dir = Files.createTempDirectory("student-startup").toFile();
+        File dbFile = new File(dir, "students.db");
+        StudentManagerImpl db = StudentManagerBenchmark.createManager(dbFile);
+        db.addStudents(StudentManagerBenchmark.generate(0, rows));
+        db.close();
+
+        String classPath = jarClassPath(dir);
+        File nativeDir = new File(dir, "native");
+        String nativeLib = extractNativeLibrary(nativeDir);
+
+        System.out.printf("# %d students, median of %d runs (ms)%n", rows, runs);
+        System.out.printf("%-36s %10s %10s %10s %10s %10s %14s%n", "variant", "JVM->main", "manager", "ready",
+                "Display", "Average", "JVM->Display");
+        report("no warm-up", dir, classPath, runs, false);
+        report("warm-up", dir, classPath, runs, true);
+        int java = javaVersion();
+        File archive = new File(dir, "students.jsa");
+        if (java >= 13) {
+            run(dir, classPath, true, "-XX:ArchiveClassesAtExit=" + archive.getAbsolutePath());
+            String cds = "-XX:SharedArchiveFile=" + archive.getAbsolutePath();
+            report("warm-up + AppCDS", dir, classPath, runs, true, cds);
+            if (nativeLib != null) {
+                report("warm-up + AppCDS + native library", dir, classPath, runs, true, cds,
+                        "-Dorg.sqlite.lib.path=" + nativeDir.getAbsolutePath(), "-Dorg.sqlite.lib.name=" + nativeLib);
+            }
+            System.out.printf("# AppCDS archive: %.1f MB%n", archive.length() / (1024.0 * 1024));
+        } else {
+            System.out.println("# AppCDS: skipped (needs JDK 13+, this is Java " + java + ")");
+        }
+
+        StudentManagerBenchmark.deleteDatabase(dbFile);
+        deleteRecursively(dir);
+    }
+
+    // Katalogi z classpath spakowane do JAR-ów w dir (JAR-y bez zmian); zwraca nowy classpath.
+    private static String jarClassPath(File dir) throws IOException {
+        StringBuilder classPath = new StringBuilder();
+        int n = 0;
+        for (String entry : System.getProperty("java.class.path").split(File.pathSeparator)) {
+            File file = new File(entry);
+            if (file.isDirectory()) {
+                File jar = new File(dir, "classes-" + (n++) + ".jar");
+                Path root = file.toPath();
+                try (JarOutputStream out = new JarOutputStream(new FileOutputStream(jar));
+                     Stream<Path> files = Files.walk(root)) {
+                    for (Path path : (Iterable<Path>) files.filter(Files::isRegularFile)::iterator) {
+                        out.putNextEntry(new JarEntry(root.relativize(path).toString().replace(File.separatorChar, '/')));
+                        Files.copy(path, out);
+                        out.closeEntry();
+                    }
+                }
+                file = jar;
+            }
+            if (classPath.length() > 0) {
+                classPath.append(File.pathSeparator);
+            }
+            classPath.append(file.getAbsolutePath());
+        }
+        return classPath.toString();
+    }
+
+    // Biblioteka natywna sterownika SQLite dla tego systemu, rozpakowana do dir; zwraca jej nazwę (null – brak).
+    private static String extractNativeLibrary(File dir) throws IOException {
+        String name = System.mapLibraryName("sqlitejdbc");
+        String resource = "/org/sqlite/native/" + org.sqlite.util.OSInfo.getNativeLibFolderPathForCurrentOS()
+                + "/" + name;
+        try (InputStream in = StartupBenchmark.class.getResourceAsStream(resource)) {
+            if (in == null) {
+                System.out.println("# native library " + resource + " not found – variant skipped");
+                return null;
+            }
+            dir.mkdirs();
+            Files.copy(in, new File(dir, name).toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+        return name;
+    }
+
+    private static void deleteRecursively(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                deleteRecursively(child);
+            }
+        }
+        file.delete();
+    }
+
+    private static void report(String variant, File dir, String classPath, int runs, boolean warmUp,
+                               String... jvmOptions) throws Exception {
+        Map<String, long[]> samples = new HashMap<>();
+        for (String key : new String[] {"jvm", "manager", "ready", "displayMs", "averageMs", "total"}) {
+            samples.put(key, new long[runs]);
+        }
+        for (int i = 0; i < runs; i++) {
+            Map<String, Long> r = run(dir, classPath, warmUp, jvmOptions);
+            long jvm = r.get("wall") - r.get("average"); // linię PROBE wypisujemy zaraz po Average
+            samples.get("jvm")[i] = jvm;
+            samples.get("manager")[i] = r.get("manager");
+            samples.get("ready")[i] = r.get("ready");
+            samples.get("displayMs")[i] = r.get("display") - r.get("ready");
+            samples.get("averageMs")[i] = r.get("average") - r.get("display");
+            samples.get("total")[i] = jvm + r.get("display");
+        }
+        System.out.printf("%-36s %10d %10d %10d %10d %10d %14d%n", variant, median(samples.get("jvm")),
+                median(samples.get("manager")), median(samples.get("ready")), median(samples.get("displayMs")),
+                median(samples.get("averageMs")), median(samples.get("total")));
+    }
+
+    // Jedno uruchomienie probe w nowej JVM (katalog roboczy z students.db); czasy etapów i czas do linii PROBE.
+    private static Map<String, Long> run(File dir, String classPath, boolean warmUp, String... jvmOptions)
+            throws Exception {
+        List<String> command = new ArrayList<>();
+        command.add(new File(System.getProperty("java.home"), "bin/java").getPath());
+        command.addAll(Arrays.asList(jvmOptions));
+        command.add("-cp");
+        command.add(classPath);
+        command.add(StartupBenchmark.class.getName());
+        command.add(PROBE);
+        command.add(Boolean.toString(warmUp));
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(command).directory(dir).redirectErrorStream(true).start();
+        Map<String, Long> result = null;
+        StringBuilder output = new StringBuilder();
+        try (BufferedReader out = new BufferedReader(
+                new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = out.readLine()) != null) {
+                output.append(line).append('\n');
+                if (line.startsWith("PROBE ")) {
+                    result = new HashMap<>();
+                    result.put("wall", (System.nanoTime() - start) / 1_000_000);
+                    for (String field : line.substring("PROBE ".length()).split(" ")) {
+                        String[] kv = field.split("=");
+                        result.put(kv[0], Long.parseLong(kv[1]));
+                    }
+                }
+            }
+        }
+        if (process.waitFor() != 0 || result == null) {
+            throw new IllegalStateException("Startup probe failed: " + command + "\n" + output);
+        }
+        return result;
+    }
+
+    // Nowa JVM: start jak w StudentGUI (StudentManagerImpl na students.db), potem Display i Average.
+    private static void probe(boolean warmUp) throws Exception {
+        StartupTimeline timeline = new StartupTimeline();
+        StudentStartup startup = new StudentStartup(timeline);
+        startup.setWarmUp(warmUp);
+        StudentManager manager = startup.start(StudentManagerImpl::new).get();
+        AsyncStudentManager db = new AsyncStudentManager(new InstrumentedStudentManager(
+                new CachingStudentManager(manager), ((StudentManagerImpl) manager).getMetrics()));
+        timeline.mark("ready");
+
+        db.countStudents().get();
+        db.findStudentsAfter(null, StudentTableModel.DEFAULT_PAGE_SIZE).get();
+        timeline.mark("display");
+        db.getGradeStatistics().get();
+        timeline.mark("average");
+
+        StringBuilder line = new StringBuilder("PROBE");
+        for (String phase : PHASES) {
+            line.append(' ').append(phase).append('=').append(timeline.getMillis(phase));
+        }
+        System.out.println(line);
+        db.close();
+        System.exit(0);
+    }
+
+    private static long median(long[] values) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+
+    // Numer wersji Javy (1.8 -> 8, 17 -> 17).
+    private static int javaVersion() {
+        String version = System.getProperty("java.specification.version");
+        if (version.startsWith("1.")) {
+            version = version.substring(2);
+        }
+        return Integer.parseInt(version);
+    }
+}
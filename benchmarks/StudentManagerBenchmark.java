@@ -0,0 +1,199 @@
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/*
+  Klasa StudentManagerBenchmark – pomiar wydajności StudentManager: StudentManagerImpl na tymczasowej
+  bazie SQLite albo ColumnarStudentManager (studenci w pamięci, kolumnami).
+  Dla każdej wielkości tabeli (parametr rows) mierzy:
+  - studentExists, displayAllStudents, calculateAverageGrade, findStudents, updateStudent
+  - updateGrades (1000 zmian ocen na operację)
+  - addStudent (pojedynczo) i addStudents (paczka 1000 wierszy na operację)
+  Uruchomienie (z katalogu głównego projektu):
+    mvn -Pbenchmarks package exec:exec
+    mvn -Pbenchmarks package exec:exec -Dbench.args="-rows 1000 -i 3 -rff wyniki.json"
+  Opcje:
+    -rows 1000,100000,1000000   wielkości tabeli
+    -wi 3 / -i 5                iteracje rozgrzewkowe / pomiarowe
+    -time 1000                  czas jednej iteracji (ms)
+    -b nazwa                    tylko benchmarki zawierające "nazwa"
+    -backend sqlite             sqlite / columnar / columnar-offheap
+    -rff plik.json              plik z wynikami (format JSON jak w JMH)
+*/
+
+public class StudentManagerBenchmark {
+
+    private static final double[] GRADES = {2.0, 3.0, 3.5, 4.0, 4.5, 5.0};
+    private static final int BULK_SIZE = 1000;
+
+    public static void main(String[] args) throws Exception {
+        List<Integer> rowCounts = BenchmarkRunner.intList("1000,100000,1000000");
+        int warmup = 3;
+        int iterations = 5;
+        long timeMillis = 1000;
+        String filter = "";
+        String backend = "sqlite";
+        File output = new File("benchmark-results.json");
+
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "-rows":
+                    rowCounts = BenchmarkRunner.intList(args[i + 1]);
+                    break;
+                case "-wi":
+                    warmup = Integer.parseInt(args[i + 1]);
+                    break;
+                case "-i":
+                    iterations = Integer.parseInt(args[i + 1]);
+                    break;
+                case "-time":
+                    timeMillis = Long.parseLong(args[i + 1]);
+                    break;
+                case "-b":
+                    filter = args[i + 1];
+                    break;
+                case "-backend":
+                    backend = args[i + 1];
+                    break;
+                case "-rff":
+                    output = new File(args[i + 1]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+
+        BenchmarkRunner runner = new BenchmarkRunner(warmup, iterations, timeMillis);
+        List<BenchmarkRunner.Result> results = new ArrayList<>();
+        File dir = Files.createTempDirectory("student-bench").toFile();
+
+        for (int rows : rowCounts) {
+            File dbFile = new File(dir, "students-" + rows + ".db");
+            StudentManager manager;
+            if (backend.startsWith("columnar")) {
+                manager = new ColumnarStudentManager(backend.equals("columnar-offheap"));
+                System.out.println("# Loading " + rows + " students into " + backend + " store");
+            } else {
+                manager = createManager(dbFile);
+                System.out.println("# Loading " + rows + " students into " + dbFile);
+            }
+            manager.addStudents(generate(0, rows));
+            new Fixture(manager, rows, backend, runner, filter, results).runAll();
+            if (manager instanceof StudentManagerImpl) {
+                ((StudentManagerImpl) manager).close();
+                deleteDatabase(dbFile);
+            }
+        }
+        dir.delete();
+
+        BenchmarkRunner.writeJson(results, output);
+        System.out.println();
+        System.out.println("# Results (" + output + "):");
+        for (BenchmarkRunner.Result r : results) {
+            System.out.println(r);
+        }
+    }
+
+    // Manager na osobnym pliku bazy.
+    static StudentManagerImpl createManager(File dbFile) {
+        SQLitePoolConfig config = new SQLitePoolConfig("jdbc:sqlite:" + dbFile.getAbsolutePath());
+        return new StudentManagerImpl(new SQLiteConnectionPool(config));
+    }
+
+    static void deleteDatabase(File dbFile) {
+        dbFile.delete();
+        new File(dbFile.getPath() + "-wal").delete();
+        new File(dbFile.getPath() + "-shm").delete();
+    }
+
+    // Studenci o ID from..to-1 generowani w locie (bez listy w pamięci).
+    static Iterable<Student> generate(final int from, final int to) {
+        return () -> new Iterator<Student>() {
+            private int next = from;
+
+            @Override
+            public boolean hasNext() {
+                return next < to;
+            }
+
+            @Override
+            public Student next() {
+                int i = next++;
+                return new Student("Student", 18 + i % 60, GRADES[i % GRADES.length], Integer.toString(i));
+            }
+        };
+    }
+
+    // Jeden zestaw benchmarków dla tabeli o rozmiarze rows.
+    private static class Fixture {
+        final StudentManager manager;
+        final int rows;
+        final String backend;
+        final BenchmarkRunner runner;
+        final String filter;
+        final List<BenchmarkRunner.Result> results;
+        final Random random = new Random(42);
+        int nextID;
+
+        Fixture(StudentManager manager, int rows, String backend, BenchmarkRunner runner, String filter,
+                List<BenchmarkRunner.Result> results) {
+            this.manager = manager;
+            this.rows = rows;
+            this.backend = backend;
+            this.runner = runner;
+            this.filter = filter;
+            this.results = results;
+            this.nextID = rows;
+        }
+
+        void runAll() throws Exception {
+            run("studentExists", () -> manager.studentExists(Integer.toString(random.nextInt(rows))));
+            run("displayAllStudents", manager::displayAllStudents);
+            run("calculateAverageGrade", manager::calculateAverageGrade);
+
+            // findStudents: "wiek 20–25, ocena >= 4.5", najlepsi pierwsi (indeks + sortowanie)
+            StudentQuery query = new StudentQuery();
+            query.setMinAge(20);
+            query.setMaxAge(25);
+            query.setMinGrade(4.5);
+            query.setSortBy(StudentQuery.SortBy.GRADE);
+            query.setDescending(true);
+            run("findStudents", () -> manager.findStudents(query));
+
+            // updateStudent bez sprawdzania wersji (version = 0) – jedno zapytanie UPDATE
+            run("updateStudent", () -> manager.updateStudent(new Student("Student", 20,
+                    GRADES[random.nextInt(GRADES.length)], Integer.toString(random.nextInt(rows)))));
+            run("updateGrades", () -> {
+                Map<String, Double> grades = new HashMap<>();
+                for (int i = 0; i < BULK_SIZE; i++) {
+                    grades.put(Integer.toString(random.nextInt(rows)), GRADES[random.nextInt(GRADES.length)]);
+                }
+                return manager.updateGrades(grades);
+            });
+
+            // Zapisy na końcu – powiększają tabelę
+            run("addStudent", () -> manager.addStudent(
+                    new Student("Student", 20, 4.0, Integer.toString(nextID++))));
+            run("addStudents", () -> {
+                int from = nextID;
+                nextID += BULK_SIZE;
+                return manager.addStudents(generate(from, nextID));
+            });
+        }
+
+        void run(String name, BenchmarkRunner.Operation op) throws Exception {
+            String fullName = "StudentManagerBenchmark." + name;
+            if (!fullName.contains(filter)) {
+                return;
+            }
+            String batch = name.equals("addStudents") || name.equals("updateGrades") ? Integer.toString(BULK_SIZE) : "1";
+            results.add(runner.run(fullName, BenchmarkRunner.params("backend", backend,
+                    "rows", Integer.toString(rows), "batch", batch), op));
+        }
+    }
+}
@@ -0,0 +1,131 @@
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+  Klasa ValidationBenchmark – koszt sprawdzania danych studenta:
+  - regex: dawna walidacja z GUI (String.matches dla ID i imienia – kompilacja wyrażenia przy
+    każdym wywołaniu, nowa tablica ocen i szukanie z epsilonem)
+  - validator: StudentValidator.check (pętle po znakach, ocena z tablicy kodów)
+  - validateAll: StudentValidator.validateAll dla paczki 1000 studentów (wynik na studenta)
+  Dane: 1024 studentów, co dziesiąty z błędem (imię z cyfrą, wiek, ocena albo ID).
+  Wyniki (ops/s, B/op) w pliku JSON w formacie JMH, jak StudentManagerBenchmark.
+  Uruchomienie (z katalogu głównego projektu):
+    mvn -Pbenchmarks package exec:exec -Dbench.main=ValidationBenchmark -Dbench.args="-rff validation.json"
+*/
+
+public class ValidationBenchmark {
+
+    private static final int STUDENTS = 1024;
+    private static final int BATCH = 1000;
+
+    public static void main(String[] args) throws Exception {
+        int warmup = 3;
+        int iterations = 5;
+        long timeMillis = 1000;
+        File output = new File("benchmark-results.json");
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "-wi":
+                    warmup = Integer.parseInt(args[i + 1]);
+                    break;
+                case "-i":
+                    iterations = Integer.parseInt(args[i + 1]);
+                    break;
+                case "-time":
+                    timeMillis = Long.parseLong(args[i + 1]);
+                    break;
+                case "-rff":
+                    output = new File(args[i + 1]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+
+        Student[] students = students();
+        List<Student> batch = new ArrayList<>();
+        for (int i = 0; i < BATCH; i++) {
+            batch.add(students[i]);
+        }
+        checkSameAnswers(students);
+
+        BenchmarkRunner runner = new BenchmarkRunner(warmup, iterations, timeMillis);
+        List<BenchmarkRunner.Result> results = new ArrayList<>();
+        int[] next = new int[1];
+        results.add(runner.run("ValidationBenchmark.regex", BenchmarkRunner.params(),
+                () -> regexValid(students[next[0]++ & (STUDENTS - 1)])));
+        results.add(runner.run("ValidationBenchmark.validator", BenchmarkRunner.params(),
+                () -> StudentValidator.check(students[next[0]++ & (STUDENTS - 1)]) == null));
+        results.add(runner.run("ValidationBenchmark.validateAll", BenchmarkRunner.params("batch", "" + BATCH),
+                () -> StudentValidator.validateAll(batch)));
+
+        BenchmarkRunner.writeJson(results, output);
+        System.out.println();
+        System.out.println("# Results (" + output + "):");
+        for (BenchmarkRunner.Result r : results) {
+            System.out.println(r);
+        }
+        System.out.printf("# validator vs regex: %.1fx; validateAll: %.0f students/s%n",
+                results.get(1).getScore() / results.get(0).getScore(), results.get(2).getScore() * BATCH);
+    }
+
+    // Dawna walidacja z StudentGUI (dla porównania).
+    private static boolean regexValid(Student s) {
+        if (!s.getStudentID().matches("\\d+")) {
+            return false;
+        }
+        if (!s.getName().matches("[a-zA-Z]+")) {
+            return false;
+        }
+        if (s.getAge() < 18 || s.getAge() > 100) {
+            return false;
+        }
+        double[] allowed = {2.0, 3.0, 3.5, 4.0, 4.5, 5.0};
+        for (double d : allowed) {
+            if (Math.abs(d - s.getGrade()) < 0.000001) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Student[] students() {
+        double[] grades = {2.0, 3.0, 3.5, 4.0, 4.5, 5.0};
+        String[] names = {"Anna", "Jan", "Katarzyna", "Maximilian", "Ola", "Bartholomew"};
+        Student[] students = new Student[STUDENTS];
+        for (int i = 0; i < STUDENTS; i++) {
+            String name = names[i % names.length];
+            int age = 18 + i % 60;
+            double grade = grades[i % grades.length];
+            String id = Integer.toString(100_000 + i);
+            switch (i % 40) {
+                case 9:
+                    name = name + "2";
+                    break;
+                case 19:
+                    age = 17;
+                    break;
+                case 29:
+                    grade = 2.5;
+                    break;
+                case 39:
+                    id = id + "x";
+                    break;
+                default:
+                    break;
+            }
+            students[i] = new Student(name, age, grade, id);
+        }
+        return students;
+    }
+
+    // Obie walidacje muszą się zgadzać na tych danych (inaczej porównanie nie ma sensu).
+    private static void checkSameAnswers(Student[] students) {
+        for (Student s : students) {
+            if (regexValid(s) != (StudentValidator.check(s) == null)) {
+                throw new IllegalStateException("Validators disagree for student " + s.getStudentID());
+            }
+        }
+    }
+}
@@ -0,0 +1,196 @@
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/*
+  Klasa WriteBehindThroughput – seria zmian ocen z jednego wątku (jak wpisywanie ocen w sesji):
+  - updateFields od razu (osobny COMMIT na każdą ocenę)
+  - WriteBehindStudentManager.submitUpdateGrade z dziennikiem, dla kilku wartości maxDelayMillis:
+    zapisów na sekundę, p50 / p99 czasu od zgłoszenia do COMMIT, średni rozmiar paczki
+    (przy serii czas obejmuje czekanie w kolejce; "paced" – zmiany w stałym tempie 2000/s)
+  Na końcu sprawdzenie dziennika po awarii: osobny proces zgłasza zmiany i kończy się przez
+  Runtime.halt (bez zamykania), potem otwieramy bazę z tym dziennikiem i sprawdzamy, że każda
+  zmiana jest w bazie dokładnie raz (ocena = ostatnia zgłoszona, wersja = 1 + liczba zmian).
+  Uruchomienie (z katalogu głównego projektu):
+    mvn -Pbenchmarks package exec:exec -Dbench.main=WriteBehindThroughput -Dbench.args="-writes 20000"
+  -synchronous FULL – fsync przy każdym COMMIT (tam zysk z paczek jest największy).
+  Kod wyjścia 1, jeśli po awarii stan bazy się nie zgadza.
+*/
+
+public class WriteBehindThroughput {
+
+    private static final double[] GRADES = {2.0, 3.0, 3.5, 4.0, 4.5, 5.0};
+    private static final int ROWS = 10_000;
+
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && args[0].equals("-child")) {
+            crashingChild(new File(args[1]), new File(args[2]), Integer.parseInt(args[3]));
+            return;
+        }
+        int writes = 20_000;
+        String synchronous = "NORMAL";
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (args[i].equals("-writes")) {
+                writes = Integer.parseInt(args[i + 1]);
+            } else if (args[i].equals("-synchronous")) {
+                synchronous = args[i + 1];
+            } else {
+                throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+
+        File dir = Files.createTempDirectory("student-write-behind").toFile();
+        File dbFile = new File(dir, "students.db");
+        File journalFile = new File(dir, "students.wbj");
+        StudentManagerImpl setup = StudentManagerBenchmark.createManager(dbFile);
+        setup.addStudents(StudentManagerBenchmark.generate(0, ROWS));
+        setup.close();
+
+        System.out.printf("# %d grade changes from one thread, %d students, synchronous=%s%n", writes, ROWS,
+                synchronous);
+        System.out.printf("%-22s %12s %12s %12s %12s%n", "mode", "writes/s", "p50 us", "p99 us", "batch");
+        StudentManagerImpl direct = open(dbFile, synchronous);
+        StudentChanges changes = new StudentChanges();
+        LatencyHistogram calls = new LatencyHistogram();
+        long start = System.nanoTime();
+        for (int i = 0; i < writes; i++) {
+            changes.setGrade(GRADES[i % GRADES.length]);
+            long t = System.nanoTime();
+            direct.updateFields(Integer.toString(i % ROWS), changes);
+            calls.record(System.nanoTime() - t);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%-22s %12.0f %12.1f %12.1f %12d%n", "direct (commit each)", writes / seconds,
+                calls.getPercentile(50) / 1000.0, calls.getPercentile(99) / 1000.0, 1);
+        direct.close();
+
+        for (long delay : new long[] {1, 5, 20}) {
+            WriteBehindConfig config = new WriteBehindConfig(journalFile);
+            config.setMaxDelayMillis(delay);
+            WriteBehindStudentManager manager = new WriteBehindStudentManager(open(dbFile, synchronous), config);
+            List<CompletableFuture<Integer>> results = new ArrayList<>(writes);
+            start = System.nanoTime();
+            for (int i = 0; i < writes; i++) {
+                results.add(manager.submitUpdateGrade(Integer.toString(i % ROWS), GRADES[i % GRADES.length]));
+            }
+            for (CompletableFuture<Integer> result : results) {
+                result.join();
+            }
+            seconds = (System.nanoTime() - start) / 1e9;
+            StudentMetrics metrics = manager.getTarget().getMetrics();
+            OperationMetrics latency = metrics.operation("write-behind latency");
+            OperationMetrics flushes = metrics.operation("write-behind flush");
+            System.out.printf("%-22s %12.0f %12.1f %12.1f %12.1f%n", "write-behind " + delay + " ms", writes / seconds,
+                    latency.getP50Micros(), latency.getP99Micros(), flushes.getRows() / (double) flushes.getCount());
+            System.out.println("  " + manager.getQueue());
+            manager.close();
+        }
+        paced(open(dbFile, synchronous), journalFile, Math.max(1, writes / 10));
+
+        boolean ok = crashCheck(dbFile, journalFile, Math.min(writes, 5_000));
+        StudentManagerBenchmark.deleteDatabase(dbFile);
+        journalFile.delete();
+        dir.delete();
+        if (!ok) {
+            System.exit(1);
+        }
+    }
+
+    // Czas do COMMIT, gdy zmiany przychodzą w stałym tempie (kolejka nie rośnie) – ile kosztuje maxDelayMillis.
+    private static void paced(StudentManagerImpl target, File journalFile, int writes) throws Exception {
+        int perSecond = 2_000;
+        WriteBehindConfig config = new WriteBehindConfig(journalFile);
+        config.setMaxDelayMillis(5);
+        WriteBehindStudentManager manager = new WriteBehindStudentManager(target, config);
+        List<CompletableFuture<Integer>> results = new ArrayList<>(writes);
+        long start = System.nanoTime();
+        for (int i = 0; i < writes; i++) {
+            long due = start + i * 1_000_000_000L / perSecond;
+            while (System.nanoTime() < due) {
+                Thread.yield();
+            }
+            results.add(manager.submitUpdateGrade(Integer.toString(i % ROWS), GRADES[i % GRADES.length]));
+        }
+        for (CompletableFuture<Integer> result : results) {
+            result.join();
+        }
+        StudentMetrics metrics = manager.getTarget().getMetrics();
+        OperationMetrics latency = metrics.operation("write-behind latency");
+        OperationMetrics flushes = metrics.operation("write-behind flush");
+        System.out.printf("%-22s %12d %12.1f %12.1f %12.1f%n", "paced, 5 ms", perSecond,
+                latency.getP50Micros(), latency.getP99Micros(), flushes.getRows() / (double) flushes.getCount());
+        manager.close();
+    }
+
+    // FULL – fsync przy każdym COMMIT (domyślne NORMAL w trybie WAL robi fsync tylko przy checkpoint).
+    private static StudentManagerImpl open(File dbFile, String synchronous) {
+        SQLitePoolConfig config = new SQLitePoolConfig("jdbc:sqlite:" + dbFile.getAbsolutePath());
+        config.setPragma("synchronous", synchronous);
+        return new StudentManagerImpl(new SQLiteConnectionPool(config));
+    }
+
+    // Proces "z awarią": zgłasza zmiany (paczki po 500, bez czekania na czas) i kończy się bez zamykania,
+    // gdy część zmian jest już w bazie, a reszta tylko w dzienniku.
+    private static void crashingChild(File dbFile, File journalFile, int writes) throws Exception {
+        WriteBehindConfig config = new WriteBehindConfig(journalFile);
+        config.setMaxBatchSize(500);
+        config.setMaxDelayMillis(60_000);
+        WriteBehindStudentManager manager =
+                new WriteBehindStudentManager(StudentManagerBenchmark.createManager(dbFile), config);
+        int half = writes / 2 / 500 * 500;
+        for (int i = 0; i < writes; i++) {
+            if (i == half) {
+                // pierwsza połowa już w bazie (paczki pełne) – po awarii tych zmian nie wolno powtórzyć
+                while (manager.getQueue().getAppliedSeq() < half) {
+                    Thread.sleep(1);
+                }
+            }
+            manager.submitUpdateGrade(Integer.toString(i % ROWS), GRADES[(i / ROWS + i) % GRADES.length]);
+        }
+        System.out.println("  child: submitted " + writes + ", applied " + manager.getQueue().getAppliedSeq()
+                + " before halt");
+        Runtime.getRuntime().halt(0);
+    }
+
+    private static boolean crashCheck(File dbFile, File journalFile, int writes) throws Exception {
+        // Punkt wyjścia: wszyscy z tą samą oceną i wersją 1
+        StudentManagerBenchmark.deleteDatabase(dbFile);
+        journalFile.delete();
+        StudentManagerImpl setup = StudentManagerBenchmark.createManager(dbFile);
+        setup.addStudents(StudentManagerBenchmark.generate(0, ROWS));
+        setup.close();
+
+        System.out.println();
+        System.out.println("# crash check: " + writes + " grade changes, process halted without close");
+        Process child = new ProcessBuilder(new File(System.getProperty("java.home"), "bin/java").getPath(),
+                "-cp", System.getProperty("java.class.path"), WriteBehindThroughput.class.getName(),
+                "-child", dbFile.getPath(), journalFile.getPath(), Integer.toString(writes))
+                .inheritIO().start();
+        if (child.waitFor() != 0) {
+            System.out.println("# FAILED: child process exited with " + child.exitValue());
+            return false;
+        }
+
+        WriteBehindStudentManager manager =
+                new WriteBehindStudentManager(StudentManagerBenchmark.createManager(dbFile), new WriteBehindConfig(journalFile));
+        int wrong = 0;
+        for (int id = 0; id < Math.min(writes, ROWS); id++) {
+            int changes = 0;
+            double grade = 0;
+            for (int i = id; i < writes; i += ROWS) {
+                changes++;
+                grade = GRADES[(i / ROWS + i) % GRADES.length];
+            }
+            Student s = manager.findStudent(Integer.toString(id));
+            if (s.getGrade() != grade || s.getVersion() != 1 + changes) {
+                wrong++;
+            }
+        }
+        manager.close();
+        System.out.println(wrong == 0 ? "# OK: every change applied exactly once"
+                : "# FAILED: " + wrong + " students differ after replay");
+        return wrong == 0;
+    }
+}